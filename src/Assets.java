@@ -0,0 +1,335 @@
+/**
+ * Assets Class
+ * The Assets class reads the files of the game: the scene images, the lore and
+ * the mansion definition. They are found wherever the game's classes are, so
+ * the game runs the same from a single jar, from a directory of classes, or
+ * from the source tree:
+ * 	A jar: the assets directory inside it, read through the zip file system.
+ * 	A directory of classes: its assets directory, as IDEs copy it from src.
+ * 	Otherwise: the loose files of src/assets, from the working directory.
+ * The system property mansion.assets can name a jar or a directory instead.
+ * Every file is listed once, when the assets are opened, and kept by name, so
+ * reading an asset goes straight to its entry: the archive or the directory
+ * is never searched again.
+ * A jar is built with the classes and the assets at its root, like:
+ * 	jar cfe mansion.jar GameHandler -C bin . -C src assets
+ * fields:
+ * 	index: Every asset by its name, like img/node_0_Mansion.png.
+ * 	jar: The zip file system of the jar, or null.
+ * 	source: Where the assets are, for messages.
+ * Date: 19 October 2026
+ * OOP Project 2: The Mansion
+ * @author Team 7
+ * @version 1.0
+ * @since 1.0
+ */
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.CodeSource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.stream.Stream;
+
+public class Assets
+{
+	public static final String LOOSE_DIRECTORY = "src/assets";	// The source tree's assets.
+	private static final String JAR_DIRECTORY = "assets";		// The assets inside a jar or a directory of classes.
+
+	private static Assets defaultAssets;
+
+	private final HashMap<String, Path> index = new HashMap<String, Path>();
+	private final FileSystem jar;
+	private final String source;
+
+	/**
+	 * This constructor lists every file under a directory.
+	 * @param root The assets directory, on the default or a zip file system.
+	 * @param jar The zip file system, or null.
+	 * @param source Where the assets are, for messages.
+	 */
+	private Assets(Path root, FileSystem jar, String source) throws IOException
+	{
+		this.jar = jar;
+		this.source = source;
+
+		try(Stream<Path> files = Files.walk(root))
+		{
+			files.filter(Files::isRegularFile).forEach(file ->
+				this.index.put(root.relativize(file).toString().replace(File.separatorChar, '/'), file));
+		}
+	}
+
+	/**
+	 * The open method opens the assets of a jar, or of a directory holding
+	 * an assets directory, or of an assets directory itself.
+	 * @param location The jar or the directory.
+	 * @return The assets.
+	 * @throws IOException If the location has no assets.
+	 */
+	public static Assets open(Path location) throws IOException
+	{
+		if(Files.isRegularFile(location))
+		{
+			FileSystem jar = FileSystems.newFileSystem(location, (ClassLoader) null);
+			Path root = jar.getPath("/" + JAR_DIRECTORY);
+
+			if(!Files.isDirectory(root))
+			{
+				jar.close();
+				throw new FileNotFoundException(location + " has no " + JAR_DIRECTORY + " directory");
+			}
+			return new Assets(root, jar, location.toString());
+		}
+
+		if(Files.isDirectory(location.resolve(JAR_DIRECTORY)))
+			return new Assets(location.resolve(JAR_DIRECTORY), null, location.resolve(JAR_DIRECTORY).toString());
+		if(Files.isDirectory(location))
+			return new Assets(location, null, location.toString());
+
+		throw new FileNotFoundException("no assets at " + location);
+	}
+
+	/**
+	 * The getDefault method gets the assets of the game, opened the first
+	 * time they are needed: from mansion.assets if it is set, then from
+	 * where the classes are, then from src/assets.
+	 * @return The assets.
+	 */
+	public static synchronized Assets getDefault()
+	{
+		if(defaultAssets == null)
+		{
+			try
+			{
+				String property = System.getProperty("mansion.assets");
+				Path classes = getClassesLocation();
+
+				if(property != null)
+					defaultAssets = open(Paths.get(property));
+				else if(classes != null && (Files.isRegularFile(classes) || Files.isDirectory(classes.resolve(JAR_DIRECTORY))))
+					defaultAssets = open(classes);
+				else
+					defaultAssets = open(Paths.get(LOOSE_DIRECTORY));
+			}
+			catch(IOException e)
+			{
+				throw new UncheckedIOException("Error opening the assets", e);
+			}
+		}
+		return defaultAssets;
+	}
+
+	private static Path getClassesLocation()
+	{
+		try
+		{
+			CodeSource code = Assets.class.getProtectionDomain().getCodeSource();
+			return code == null ? null : Paths.get(code.getLocation().toURI());
+		}
+		catch(Exception e)
+		{
+			return null; // Not a file, like a class loaded over the network.
+		}
+	}
+
+
+	// Getters:
+	public String getSource()
+	{
+		return this.source;
+	}
+
+	public int size()
+	{
+		return this.index.size();
+	}
+
+	public boolean exists(String name)
+	{
+		return this.index.containsKey(name);
+	}
+
+	/**
+	 * The list method lists the assets of a directory, without the ones
+	 * of the directories in it.
+	 * @param directory The directory, like info.
+	 * @return The file names, in order.
+	 */
+	public List<String> list(String directory)
+	{
+		String prefix = directory + "/";
+		ArrayList<String> names = new ArrayList<String>();
+
+		for(String name : this.index.keySet())
+		{
+			if(name.startsWith(prefix) && name.indexOf('/', prefix.length()) < 0)
+				names.add(name.substring(prefix.length()));
+		}
+		Collections.sort(names);
+		return names;
+	}
+
+
+	// Functions:
+	/**
+	 * The read method reads the bytes of an asset.
+	 * @param name The name of the asset, like img/node_0_Mansion.png.
+	 * @return The bytes.
+	 * @throws IOException If there is no such asset or it can't be read.
+	 */
+	public byte[] read(String name) throws IOException
+	{
+		return Files.readAllBytes(this.find(name));
+	}
+
+	/**
+	 * The openStream method opens an asset to be read.
+	 * @param name The name of the asset, like info/info.dat.
+	 * @return The stream, to be closed by the caller.
+	 * @throws IOException If there is no such asset or it can't be read.
+	 */
+	public InputStream openStream(String name) throws IOException
+	{
+		return Files.newInputStream(this.find(name));
+	}
+
+	private Path find(String name) throws FileNotFoundException
+	{
+		Path path = this.index.get(name);
+
+		if(path == null)
+			throw new FileNotFoundException(name + " is not in " + this.source);
+		return path;
+	}
+
+	/**
+	 * The close method closes the jar, if the assets are in one.
+	 */
+	public void close() throws IOException
+	{
+		if(this.jar != null)
+			this.jar.close();
+	}
+
+	/**
+	 * Pack src/assets into a jar and time reading every asset from the loose
+	 * files, from the jar through the index, and from the jar as classpath
+	 * resources found by the class loader, then again with the jar kept open.
+	 * @param args -rounds=<n> -jar=<file> (the jar to write, a temporary one if not given).
+	 */
+	public static void main(String[] args) throws IOException
+	{
+		int rounds = 20;
+		Path jarFile = null;
+
+		for(String arg : args)
+		{
+			String value = arg.substring(arg.indexOf('=') + 1);
+
+			if(arg.startsWith("-rounds="))
+				rounds = Integer.parseInt(value);
+			else if(arg.startsWith("-jar="))
+				jarFile = Paths.get(value);
+		}
+
+		if(jarFile == null)
+		{
+			jarFile = Files.createTempFile("mansion", ".jar");
+			jarFile.toFile().deleteOnExit();
+		}
+
+		Assets loose = open(Paths.get(LOOSE_DIRECTORY));
+		Files.deleteIfExists(jarFile);
+		try(FileSystem zip = FileSystems.newFileSystem(URI.create("jar:" + jarFile.toUri()),
+				Collections.singletonMap("create", "true")))
+		{
+			for(String name : loose.index.keySet())
+			{
+				Path entry = zip.getPath("/" + JAR_DIRECTORY, name);
+				Files.createDirectories(entry.getParent());
+				Files.write(entry, loose.read(name));
+			}
+		}
+
+		List<String> names = new ArrayList<String>(loose.index.keySet());
+		System.out.println(names.size() + " assets, " + Files.size(jarFile) + " byte jar " + jarFile);
+
+		for(int round = 0; round < rounds; round++)
+		{
+			long started = System.nanoTime();
+			long bytes = 0;
+			for(String name : names)
+				bytes += Files.readAllBytes(new File(LOOSE_DIRECTORY, name).toPath()).length;
+			long looseNanos = System.nanoTime() - started;
+
+			started = System.nanoTime();
+			Assets jar = open(jarFile);
+			long indexNanos = System.nanoTime() - started;
+			for(String name : names)
+				bytes -= jar.read(name).length;
+			long jarNanos = System.nanoTime() - started;
+			jar.close();
+
+			started = System.nanoTime();
+			try(URLClassLoader loader = new URLClassLoader(new URL[] { jarFile.toUri().toURL() }, null))
+			{
+				for(String name : names)
+				{
+					try(InputStream in = loader.getResourceAsStream(JAR_DIRECTORY + "/" + name))
+					{
+						in.transferTo(OutputStream.nullOutputStream());
+					}
+				}
+			}
+			long resourceNanos = System.nanoTime() - started;
+
+			if(round == 0 || round == rounds - 1)
+				System.out.printf("round %2d: loose files %.2f ms, jar indexed %.2f ms (index %.2f ms),"
+						+ " jar class loader %.2f ms%s%n", round + 1, looseNanos / 1e6, jarNanos / 1e6,
+						indexNanos / 1e6, resourceNanos / 1e6, bytes == 0 ? "" : ", SIZES DIFFER");
+		}
+
+		// Once open, only the lookups and reads are left.
+		Assets jar = open(jarFile);
+		try(URLClassLoader loader = new URLClassLoader(new URL[] { jarFile.toUri().toURL() }, null))
+		{
+			long indexed = 0, resources = 0;
+
+			for(int round = 0; round < rounds; round++)
+			{
+				long started = System.nanoTime();
+				for(String name : names)
+					jar.read(name);
+				indexed += System.nanoTime() - started;
+
+				started = System.nanoTime();
+				for(String name : names)
+				{
+					try(InputStream in = loader.getResourceAsStream(JAR_DIRECTORY + "/" + name))
+					{
+						in.transferTo(OutputStream.nullOutputStream());
+					}
+				}
+				resources += System.nanoTime() - started;
+			}
+			System.out.printf("open jar, every asset: indexed %.3f ms, class loader %.3f ms%n",
+					indexed / 1e6 / rounds, resources / 1e6 / rounds);
+		}
+		jar.close();
+	}
+}
@@ -0,0 +1,458 @@
+/**
+ * BotSimulator Class
+ * The BotSimulator class playtests a mansion with bots. Many agents play
+ * their own headless Scene and Player on every core at once. Random agents
+ * press any button and greedy agents head for the states they have seen the
+ * least. The simulator reports how fast and how often the agents escape,
+ * states where no action changes anything, and broken invariants, like
+ * pickUp adding an item the player already has.
+ * fields:
+ * 	agents: The number of agents of each kind.
+ * 	mansion: The mansion being played, shared and never changed by the agents.
+ * 	steps: The most actions an agent takes before giving up.
+ * 	seed: The seed of the first agent, the others follow it.
+ * 	stats: The GameStats every agent counts its actions in, or null.
+ * Date: 19 October 2026
+ * OOP Project 2: The Mansion
+ * @author Team 7
+ * @version 1.0
+ * @since 1.0
+ */
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class BotSimulator
+{
+	public static final int RANDOM = 0, GREEDY = 1;			// Kinds of agents.
+	private static final String[] KINDS = { "random", "greedy" };
+
+	// Actions, the same buttons a player has.
+	private static final int FORWARD = 0, LEFT = 1, RIGHT = 2, BACK = 3, PICK_UP = 4, USE = 5;
+	private static final int ACTIONS = 6;
+	private static final int ALL_ACTIONS = (1 << ACTIONS) - 1;
+
+	private MansionMap mansion;
+	private int agents;
+	private int steps;
+	private long seed;
+	private GameStats stats;
+
+	/**
+	 * This constructor creates a simulator.
+	 * @param mansion The mansion to be played. It has to be safe to read from many threads.
+	 * @param agents The number of agents of each kind.
+	 * @param steps The most actions an agent takes before giving up.
+	 * @param seed The seed of the first agent.
+	 */
+	public BotSimulator(MansionMap mansion, int agents, int steps, long seed)
+	{
+		this.mansion = mansion;
+		this.agents = agents;
+		this.steps = steps;
+		this.seed = seed;
+	}
+
+
+	// Setters:
+	/**
+	 * The setStats method counts the actions of every agent in the same stats.
+	 * @param stats The GameStats, or null to count nothing.
+	 */
+	public void setStats(GameStats stats)
+	{
+		this.stats = stats;
+	}
+
+
+	// Functions:
+	/**
+	 * The run method plays every agent, spread over a pool with a thread per
+	 * core, and merges what they found.
+	 * @param threads The number of threads to play on.
+	 * @return The results of each kind of agent, by kind.
+	 */
+	public Result[] run(int threads)
+	{
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		List<Future<Agent>> futures = new ArrayList<Future<Agent>>();
+		Result[] results = { new Result(), new Result() };
+
+		for(int i = 0; i < this.agents * 2; i++)
+		{
+			Agent agent = new Agent(i % 2, this.seed + i);
+			futures.add(pool.submit(() -> agent.play()));
+		}
+
+		try
+		{
+			for(Future<Agent> future : futures)
+			{
+				Agent agent = future.get();
+				results[agent.kind].add(agent);
+			}
+		}
+		catch(InterruptedException | ExecutionException e)
+		{
+			e.printStackTrace();
+			System.out.println("Error running bots");
+		}
+		finally
+		{
+			pool.shutdown();
+		}
+		return results;
+	}
+
+	/**
+	 * The getDeadEnds method finds the states where an agent tried every
+	 * action and none of them changed anything, merging every agent.
+	 * @param results The results of the run.
+	 * @return The dead end states, in order.
+	 */
+	public static List<Integer> getDeadEnds(Result[] results)
+	{
+		List<Integer> deadEnds = new ArrayList<Integer>();
+		int length = results[0].tried.length;
+
+		for(int state = 0; state < length; state++)
+		{
+			int tried = 0, changed = 0;
+
+			for(Result result : results)
+			{
+				tried |= result.tried[state];
+				changed |= result.changed[state];
+			}
+			if(tried == ALL_ACTIONS && changed == 0)
+				deadEnds.add(state);
+		}
+		return deadEnds;
+	}
+
+	/**
+	 * The Agent class is one bot playing its own Scene and Player. Nothing
+	 * but the mansion is shared with the other agents.
+	 */
+	private class Agent
+	{
+		private int kind;
+		private long seed;
+		private SplittableRandom random;
+		private Scene scene;
+		private Player player;
+
+		private int taken;				// Actions taken.
+		private boolean escaped;
+		private byte[] tried, changed;	// Actions tried and actions that changed something, by state.
+		private int[] visits;			// Times each state was seen, for greedy agents.
+		private TreeMap<String, String> violations = new TreeMap<String, String>();	// First example of each.
+		private TreeMap<String, Integer> counts = new TreeMap<String, Integer>();
+
+		Agent(int kind, long seed)
+		{
+			this.kind = kind;
+			this.seed = seed;
+		}
+
+		Agent play()
+		{
+			MansionMap mansion = BotSimulator.this.mansion;
+			int states = mansion.getNodeCount() * MansionDefinition.DIRECTIONS;
+
+			this.random = new SplittableRandom(this.seed);
+			this.scene = new Scene(mansion, null, null);		// Headless.
+			this.player = new Player(new ArrayList<Item>(), this.scene);	// No cheat.
+			this.scene.setStats(BotSimulator.this.stats);
+			this.tried = new byte[states];
+			this.changed = new byte[states];
+			this.visits = this.kind == GREEDY ? new int[states] : null;
+
+			while(this.taken < BotSimulator.this.steps && !this.escaped)
+			{
+				int state = this.scene.getState();
+				int items = this.player.getItems().size();
+				int action = this.kind == GREEDY ? this.chooseGreedy(state) : this.random.nextInt(ACTIONS);
+
+				if(action == USE && this.player.canEscape())
+					this.escaped = true;
+
+				this.act(action);
+				this.taken++;
+
+				this.tried[state] |= 1 << action;
+				if(this.scene.getState() != state || this.player.getItems().size() != items || this.escaped)
+					this.changed[state] |= 1 << action;
+
+				this.check(action, state, items);
+			}
+			return this;
+		}
+
+		private void act(int action)
+		{
+			switch(action)
+			{
+				case FORWARD: this.player.moveForward(); break;
+				case LEFT: this.player.turnLeft(); break;
+				case RIGHT: this.player.turnRight(); break;
+				case BACK: this.player.moveBack(); break;
+				case PICK_UP: this.player.pickUp(); break;
+				default: this.player.useItem(); break;
+			}
+		}
+
+		/**
+		 * The chooseGreedy method escapes, picks up or uses an item when it
+		 * can. Otherwise it moves to the state seen the least, breaking ties
+		 * at random, and doesn't walk into locked rooms.
+		 */
+		private int chooseGreedy(int state)
+		{
+			MansionMap mansion = BotSimulator.this.mansion;
+			Room room = this.scene.getRoomByPosition();
+
+			this.visits[state]++;
+
+			if(this.player.canEscape())
+				return USE;
+			if(room.getItem() != null && !room.getItem().isPickedUp())
+				return PICK_UP;
+			int[] unlock = mansion.getUnlockItems(state);	// Every item is needed at once.
+			if(unlock.length > 0 && this.player.getItems().containsAll(unlock)
+					&& this.scene.getRoom(mansion.getUnlockRoom(state)).isLocked())
+				return USE;
+
+			int best = -1, least = Integer.MAX_VALUE, ties = 0;
+
+			for(int action = FORWARD; action <= BACK; action++)
+			{
+				int target = this.target(state, action);
+
+				if(target < 0)
+					continue;
+				if(action == FORWARD && mansion.getGateRoom(state) >= 0
+						&& this.scene.getRoom(mansion.getGateRoom(state)).isLocked())
+					continue;
+
+				if(this.visits[target] < least)
+				{
+					best = action;
+					least = this.visits[target];
+					ties = 1;
+				}
+				else if(this.visits[target] == least && this.random.nextInt(++ties) == 0)
+					best = action;
+			}
+			return best < 0 ? this.random.nextInt(ACTIONS) : best;
+		}
+
+		private int target(int state, int action)
+		{
+			MansionMap mansion = BotSimulator.this.mansion;
+
+			switch(action)
+			{
+				case FORWARD: return mansion.forward(state);
+				case LEFT: return mansion.left(state);
+				case RIGHT: return mansion.right(state);
+				default: return mansion.back(state);
+			}
+		}
+
+		/**
+		 * The check method looks for broken invariants after an action.
+		 */
+		private void check(int action, int before, int itemsBefore)
+		{
+			MansionMap mansion = BotSimulator.this.mansion;
+			ArrayList<Item> items = this.player.getItems();
+			int node = this.scene.getNode();
+			String where = "agent " + KINDS[this.kind] + " seed " + this.seed + " step " + this.taken
+					+ " action " + action + " from (" + MansionDefinition.nodeOf(before)
+					+ "," + MansionDefinition.directionOf(before) + ")";
+
+			if(node < 0 || node >= mansion.getNodeCount() || this.scene.getDirection() < 0
+					|| this.scene.getDirection() >= MansionDefinition.DIRECTIONS)
+				this.violation("state out of the mansion", where);
+
+			if(items.size() > itemsBefore && action != PICK_UP)
+				this.violation("item gained without picking up", where);
+
+			// Only the item picked up or used can break the inventory, so only it is checked.
+			if(action == PICK_UP && items.size() > itemsBefore)
+			{
+				Item item = items.get(items.size() - 1);
+
+				for(int i = 0; i < items.size() - 1; i++)
+				{
+					if(items.get(i) == item || (item.getId() >= 0 && items.get(i).getId() == item.getId()))
+						this.violation("duplicate item in inventory", where);
+				}
+				if(!item.isPickedUp())
+					this.violation("item in inventory not picked up", where);
+			}
+			else if(action == USE && items.size() < itemsBefore)
+			{
+				for(int id : mansion.getUnlockItems(before))
+				{
+					if(!this.scene.getItem(id).isUsed())
+						this.violation("used item not marked used", where);
+				}
+				if(this.scene.getRoom(mansion.getUnlockRoom(before)).isLocked())
+					this.violation("room still locked after using its key", where);
+			}
+
+			if(mansion.entersRoom(node) && this.scene.getRoomByPosition().isLocked())
+				this.violation("inside a locked room", where);
+		}
+
+		private void violation(String kind, String where)
+		{
+			this.counts.merge(kind, 1, Integer::sum);
+			this.violations.putIfAbsent(kind, where);
+		}
+	}
+
+	/**
+	 * The Result class adds up the agents of one kind.
+	 */
+	public static class Result
+	{
+		private int agents, escapes;
+		private long steps, escapeSteps;
+		private byte[] tried = new byte[0], changed = new byte[0];
+		private TreeMap<String, String> violations = new TreeMap<String, String>();
+		private TreeMap<String, Integer> counts = new TreeMap<String, Integer>();
+
+		private void add(Agent agent)
+		{
+			this.agents++;
+			this.steps += agent.taken;
+
+			if(agent.escaped)
+			{
+				this.escapes++;
+				this.escapeSteps += agent.taken;
+			}
+
+			if(this.tried.length == 0)
+			{
+				this.tried = new byte[agent.tried.length];
+				this.changed = new byte[agent.changed.length];
+			}
+			for(int state = 0; state < this.tried.length; state++)
+			{
+				this.tried[state] |= agent.tried[state];
+				this.changed[state] |= agent.changed[state];
+			}
+
+			agent.counts.forEach((kind, count) -> this.counts.merge(kind, count, Integer::sum));
+			agent.violations.forEach(this.violations::putIfAbsent);
+		}
+
+		public int getAgents()
+		{
+			return this.agents;
+		}
+
+		public long getSteps()
+		{
+			return this.steps;
+		}
+
+		public double getEscapeRate()
+		{
+			return this.agents == 0 ? 0 : (double) this.escapes / this.agents;
+		}
+
+		public double getMeanStepsToEscape()
+		{
+			return this.escapes == 0 ? Double.NaN : (double) this.escapeSteps / this.escapes;
+		}
+
+		public TreeMap<String, Integer> getViolationCounts()
+		{
+			return this.counts;
+		}
+
+		public TreeMap<String, String> getViolationExamples()
+		{
+			return this.violations;
+		}
+	}
+
+	/**
+	 * Run bots on the default mansion, or on a generated one, and report
+	 * what they found.
+	 * @param args -agents=<n> -steps=<n> -seed=<n> -threads=<n> -nodes=<n> (generate a mansion)
+	 * 		-stats=<file> (count the agents' actions into a stats file).
+	 */
+	public static void main(String[] args)
+	{
+		int agents = 200, steps = 20000, threads = Runtime.getRuntime().availableProcessors(), nodes = 0;
+		long seed = 1;
+		String stats = null;
+
+		for(String arg : args)
+		{
+			String value = arg.substring(arg.indexOf('=') + 1);
+
+			if(arg.startsWith("-agents="))
+				agents = Integer.parseInt(value);
+			else if(arg.startsWith("-steps="))
+				steps = Integer.parseInt(value);
+			else if(arg.startsWith("-seed="))
+				seed = Long.parseLong(value);
+			else if(arg.startsWith("-threads="))
+				threads = Integer.parseInt(value);
+			else if(arg.startsWith("-nodes="))
+				nodes = Integer.parseInt(value);
+			else if(arg.startsWith("-stats="))
+				stats = value;
+		}
+
+		MansionMap mansion = nodes > 0 ? new MansionGenerator(seed).generate(nodes) : MansionDefinition.getDefault();
+		BotSimulator simulator = new BotSimulator(mansion, agents, steps, seed);
+
+		if(stats != null)
+			simulator.setStats(GameStats.open(new File(stats), mansion.getRoomCount(), 1));
+
+		long start = System.nanoTime();
+		Result[] results = simulator.run(threads);
+		double seconds = (System.nanoTime() - start) / 1e9;
+
+		System.out.printf("%d nodes, %d agents of each kind, %d threads, %.2f s, %.0f steps/s%n",
+				mansion.getNodeCount(), agents, threads, seconds,
+				(results[RANDOM].getSteps() + results[GREEDY].getSteps()) / seconds);
+		System.out.printf("%8s %12s %10s %14s%n", "agents", "steps", "escaped", "steps/escape");
+
+		for(int kind = RANDOM; kind <= GREEDY; kind++)
+		{
+			Result result = results[kind];
+
+			System.out.printf("%8s %12d %9.1f%% %14.1f%n", KINDS[kind], result.getSteps(),
+					result.getEscapeRate() * 100, result.getMeanStepsToEscape());
+
+			result.getViolationCounts().forEach((violation, count) -> System.out.println(
+					"  VIOLATION " + violation + " x" + count + ", first: " + result.getViolationExamples().get(violation)));
+		}
+
+		List<Integer> deadEnds = getDeadEnds(results);
+		System.out.println("States where no action changes anything: " + deadEnds.size());
+
+		for(int i = 0; i < deadEnds.size() && i < 20; i++)
+			System.out.println("  (" + MansionDefinition.nodeOf(deadEnds.get(i)) + ","
+					+ MansionDefinition.directionOf(deadEnds.get(i)) + ")");
+
+		if(simulator.stats != null)
+			simulator.stats.close();
+	}
+}
@@ -0,0 +1,344 @@
+/**
+ * ConsoleGame Class
+ * The ConsoleGame class plays the mansion as a text adventure in a terminal,
+ * for machines without a screen. It plays the same game as the window, the
+ * Scene and Player with the lore of the info directory, but no class of
+ * java.awt or javax.swing is ever loaded and no scene image is decoded, so
+ * the game starts sooner and takes less memory. The Scene is headless and
+ * what it tells the Player comes as the messages of its DeltaStream, flushed
+ * after every command and printed in the order they were published.
+ * Commands are read one a line, and may be piped in:
+ * 	forward (f), back (b), left (l), right (r): Move or turn.
+ * 	pick (p), use (u): Pick up the item of the room, use items or escape.
+ * 	inventory (i), look, undo, redo, help, quit (q).
+ * fields:
+ * 	achieved: The achievements unlocked by the stats and not printed yet.
+ * 	escaped: True once the Player escaped.
+ * 	stream, view: The changes of the game and the console's place in them.
+ * 	history: The GameHistory used to undo and redo the Player's actions.
+ * 	out: Where the game is printed.
+ * 	player, scene: The game.
+ * 	shown: The last message printed, not to print it twice.
+ * 	stats: The GameStats the actions are counted in, shared with the window.
+ * Date: 19 October 2026
+ * OOP Project 2: The Mansion
+ * @author Team 7
+ * @version 1.0
+ * @since 1.0
+ */
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+public class ConsoleGame implements DeltaStream.Listener
+{
+	private static final int WIDTH = 78;	// Lore is wrapped to it.
+
+	private final Scene scene;
+	private final Player player;
+	private final GameHistory history;
+	private final DeltaStream stream;
+	private final DeltaStream.Subscription view;
+	private final PrintStream out;
+	private GameStats stats;
+	private final ConcurrentLinkedQueue<Integer> achieved = new ConcurrentLinkedQueue<Integer>();
+	private String shown;
+	private boolean escaped;
+
+	/**
+	 * This constructor starts a game of a mansion.
+	 * @param mansion The mansion to be played.
+	 * @param lore The lore to be printed.
+	 * @param out Where the game is printed.
+	 */
+	public ConsoleGame(MansionMap mansion, LoreTable lore, PrintStream out)
+	{
+		this.out = out;
+		this.scene = new Scene(mansion, lore, null, null, null);	// Headless, no images.
+		this.player = new Player(this.scene);
+		this.history = new GameHistory(this.scene, this.player);
+		this.stream = new DeltaStream(mansion, 64);
+		this.view = this.stream.subscribe();
+		this.scene.setDeltaStream(this.stream);
+	}
+
+
+	// Getters:
+	public boolean hasEscaped()
+	{
+		return this.escaped;
+	}
+
+
+	// Setters:
+	/**
+	 * The setStats method counts the Player's actions in stats. The
+	 * achievements they unlock are printed after the next command.
+	 * @param stats The GameStats, or null to stop counting.
+	 */
+	public void setStats(GameStats stats)
+	{
+		if(this.stats != null)
+			this.stats.setListener(null);
+		this.stats = stats;
+		this.scene.setStats(stats);
+		if(stats != null)
+			stats.setListener(this.achieved::add);	// Unlocked on the stats thread, printed here.
+	}
+
+
+	// Functions:
+	/**
+	 * The play method reads commands until the Player quits, escapes or
+	 * the input ends.
+	 * @param in The commands.
+	 */
+	public void play(BufferedReader in) throws IOException
+	{
+		this.view.poll(this);	// Starts from a snapshot, printed like a look.
+
+		while(!this.escaped)
+		{
+			this.out.print("> ");
+			this.out.flush();
+
+			String line = in.readLine();
+			if(line == null || !this.command(line.trim().toLowerCase()))
+				break;
+		}
+	}
+
+	/**
+	 * The command method does a command and prints what it changed.
+	 * @param command The command, like forward or f.
+	 * @return False if the Player quit. Otherwise, true.
+	 */
+	public boolean command(String command)
+	{
+		switch(command)
+		{
+			case "f": case "forward":
+				this.history.perform(this.player::moveForward);
+				break;
+			case "b": case "back":
+				this.history.perform(this.player::moveBack);
+				break;
+			case "l": case "left":
+				this.history.perform(this.player::turnLeft);
+				break;
+			case "r": case "right":
+				this.history.perform(this.player::turnRight);
+				break;
+			case "p": case "pick": case "take":
+				this.history.perform(this.player::pickUp);
+				break;
+			case "u": case "use":
+				if(this.player.canEscape())
+				{
+					this.player.useItem();	// Counts the escape.
+					this.escaped = true;
+					this.out.println("YOU ESCAPED!");
+				}
+				else
+					this.history.perform(this.player::useItem);
+				break;
+			case "i": case "inventory":
+				this.printInventory();
+				break;
+			case "look":
+				this.print(this.scene.getInfo().getText());
+				break;
+			case "undo":
+				if(!this.history.undo())
+					this.out.println("Nothing to undo.");
+				break;
+			case "redo":
+				if(!this.history.redo())
+					this.out.println("Nothing to redo.");
+				break;
+			case "q": case "quit":
+				return false;
+			case "":
+				break;
+			default:
+				this.print("Commands: forward (f), back (b), left (l), right (r), pick (p), use (u),"
+						+ " inventory (i), look, undo, redo, quit (q).");
+				break;
+		}
+
+		this.stream.flush();
+		this.view.poll(this);
+		this.printAchievements();
+		return true;
+	}
+
+	/**
+	 * The printAchievements method prints the achievements unlocked since
+	 * it was last called.
+	 */
+	public void printAchievements()
+	{
+		for(Integer achievement = this.achieved.poll(); achievement != null; achievement = this.achieved.poll())
+			this.print("Achievement unlocked: " + GameStats.ACHIEVEMENTS[achievement] + ".");
+	}
+
+	/**
+	 * The onDelta method prints each message the game published.
+	 */
+	@Override
+	public void onDelta(long delta, String text)
+	{
+		if(DeltaStream.kindOf(delta) == DeltaStream.MESSAGE)
+		{
+			this.print(text);
+			this.shown = text;
+		}
+	}
+
+	/**
+	 * The onSnapshot method prints the text of the scene when the console
+	 * starts, after an undo or redo, and when it fell behind, unless it was
+	 * just printed.
+	 */
+	@Override
+	public void onSnapshot(DeltaStream.Snapshot snapshot)
+	{
+		String text = this.scene.getInfo().getText();	// Only the last message matters.
+
+		if(!text.equals(this.shown))
+			this.print(text);
+		this.shown = text;
+	}
+
+	private void printInventory()
+	{
+		if(this.player.getItems().isEmpty())
+		{
+			this.out.println("You carry nothing.");
+			return;
+		}
+
+		StringBuilder items = new StringBuilder("You carry:");
+		for(Item item : this.player.getItems())
+			items.append(' ').append(item.getName()).append(',');
+		items.setLength(items.length() - 1);
+		this.print(items.toString());
+	}
+
+	/**
+	 * The print method prints a text wrapped at the width of a terminal.
+	 */
+	private void print(String text)
+	{
+		StringBuilder line = new StringBuilder();
+
+		for(String word : text.trim().split("\\s+"))
+		{
+			if(line.length() > 0 && line.length() + 1 + word.length() > WIDTH)
+			{
+				this.out.println(line);
+				line.setLength(0);
+			}
+			if(line.length() > 0)
+				line.append(' ');
+			line.append(word);
+		}
+		this.out.println(line);
+	}
+
+	/**
+	 * The getResidentBytes method gets the memory of the process that is
+	 * in RAM, from /proc on Linux.
+	 * @return The bytes, or -1 where it can't be read.
+	 */
+	public static long getResidentBytes()
+	{
+		try
+		{
+			for(String line : Files.readAllLines(Paths.get("/proc/self/status")))
+			{
+				if(line.startsWith("VmRSS:"))
+					return Long.parseLong(line.replaceAll("[^0-9]", "")) * 1024;
+			}
+		}
+		catch(IOException | RuntimeException e)
+		{
+			// Not Linux.
+		}
+		return -1;
+	}
+
+	/**
+	 * The getFootprint method tells how long the JVM took to start the game
+	 * and how much memory it holds.
+	 * @return The report.
+	 */
+	public static String getFootprint()
+	{
+		long resident = getResidentBytes();
+		Runtime runtime = Runtime.getRuntime();
+
+		long started = ProcessHandle.current().info().startInstant().map(Instant::toEpochMilli).orElse(0L);	// Lighter than JMX.
+
+		return String.format("%d ms since the JVM started, %s resident, %.1f MB of heap used",
+				System.currentTimeMillis() - started,
+				resident < 0 ? "unknown" : String.format("%.1f MB", resident / 1048576.0),
+				(runtime.totalMemory() - runtime.freeMemory()) / 1048576.0);
+	}
+
+	/**
+	 * Play the mansion in the terminal.
+	 * @param args -locale=<locale> -mansion=<file> -report (print the startup time and memory)
+	 * 			-nostats (don't count the game in ~/.mansion/stats.dat)
+	 */
+	public static void main(String[] args) throws IOException
+	{
+		String locale = LoreTable.DEFAULT_LOCALE;
+		String file = null;
+		boolean report = false, counted = true;
+
+		for(String arg : args)
+		{
+			String value = arg.substring(arg.indexOf('=') + 1);
+
+			if(arg.startsWith("-locale="))
+				locale = value;
+			else if(arg.startsWith("-mansion="))
+				file = value;
+			else if(arg.equals("-report"))
+				report = true;
+			else if(arg.equals("-nostats"))
+				counted = false;
+		}
+
+		MansionMap mansion = file == null ? MansionDefinition.getDefault() : MansionDefinition.load(new File(file));
+		LoreTable lore = LoreTable.load(locale);
+		ConsoleGame game = new ConsoleGame(mansion, lore, System.out);
+
+		if(counted)
+			game.setStats(GameStats.open(GameStats.getDefaultFile("stats.dat"), mansion.getRoomCount(), 30));
+		if(report)
+			System.err.println("Startup, " + getFootprint());
+
+		game.play(new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8)));
+
+		if(report)
+		{
+			System.err.println("Played, " + getFootprint());
+			System.err.println("  " + lore.getReport());
+		}
+		if(game.stats != null)
+		{
+			game.stats.close();	// Unlocks the achievements of the last commands.
+			game.printAchievements();
+		}
+	}
+}
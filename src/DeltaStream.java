@@ -0,0 +1,702 @@
+/**
+ * DeltaStream Class
+ * The DeltaStream class carries the changes of a game to whoever shows or
+ * follows them: the window, the terminal or spectators. The Scene publishes
+ * every change as a delta packed in a long: a move, an item picked up, an
+ * item used on a room, a message or button text shown to the Player, or a
+ * restore after which anything may have changed. A message or button text is
+ * kept in the same slot as its delta. Deltas are written to a ring buffer by
+ * the game's thread only and become visible to subscribers a tick at a time,
+ * when the game flushes. The game never waits for anybody: a subscriber that
+ * falls a whole ring behind, or reads up to a restore, skips to the snapshot
+ * of the last tick and carries on from there.
+ * The flusher, like the window's FramePacer, is run on the first delta after
+ * each flush so it can end the tick when it suits it, and a subscriber may give
+ * a wakeup, run by the flush that publishes the first deltas since its last
+ * poll. A burst of deltas costs one wakeup and is read in one poll.
+ * fields:
+ * 	flusher: Run on the first delta written after a flush, or null.
+ * 	head: The deltas written so far, published or not.
+ * 	pending: True once a delta was written since the last flush.
+ * 	published: The deltas subscribers may read, the head at the last flush.
+ * 	ring, texts: The last deltas and their texts, a power of two of them.
+ * 	node, dir, type, rooms, items, message, button: The game so far, to take snapshots of.
+ * 	snapshot: The game at the last flush.
+ * 	woken: The subscribers with a wakeup.
+ * Date: 19 October 2026
+ * OOP Project 2: The Mansion
+ * @author Team 7
+ * @version 1.0
+ * @since 1.0
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+public class DeltaStream
+{
+	// Kinds of deltas, in the top bits.
+	public static final int MOVE = 1, PICK_UP = 2, USE = 3;
+	public static final int MESSAGE = 4;	// A text shown to the Player.
+	public static final int BUTTON = 5;		// The text of the use item button.
+	public static final int RESTORE = 6;	// Anything may have changed, like after an undo.
+
+	// Flags in the maps of a snapshot.
+	public static final int PICKED_UP = 1, USED = 2;	// Items.
+	public static final int UNLOCKED = 1;				// Rooms.
+
+	private AtomicLongArray ring;
+	private AtomicReferenceArray<String> texts;
+	private int mask;
+	private AtomicLong head = new AtomicLong();
+	private AtomicLong published = new AtomicLong();
+	private Runnable flusher;
+	private boolean pending;
+	private CopyOnWriteArrayList<Subscription> woken = new CopyOnWriteArrayList<Subscription>();
+
+	private int node, dir, type;
+	private PersistentIntMap rooms, items;
+	private String message, button;
+	private volatile Snapshot snapshot;
+
+	/**
+	 * This constructor creates a stream for a game.
+	 * @param mansion The mansion being played.
+	 * @param capacity The deltas kept for subscribers, rounded up to a power of two.
+	 */
+	public DeltaStream(MansionMap mansion, int capacity)
+	{
+		int size = Integer.highestOneBit(Math.max(capacity, 2) * 2 - 1);
+
+		this.ring = new AtomicLongArray(size);
+		this.texts = new AtomicReferenceArray<String>(size);
+		this.mask = size - 1;
+		this.node = MansionDefinition.nodeOf(mansion.getStartState());
+		this.dir = MansionDefinition.directionOf(mansion.getStartState());
+		this.rooms = PersistentIntMap.empty(mansion.getRoomCount());
+		this.items = PersistentIntMap.empty(mansion.getItemCount());
+		this.snapshot = this.takeSnapshot(0);
+	}
+
+
+	// Getters:
+	public int getCapacity()
+	{
+		return this.ring.length();
+	}
+
+	public long getPublished()
+	{
+		return this.published.get();
+	}
+
+	public Snapshot getSnapshot()
+	{
+		return this.snapshot;
+	}
+
+
+	// Setters:
+	/**
+	 * The setFlusher method sets what ends the ticks of the game, like the
+	 * timer of a window.
+	 * @param flusher Run by the game's thread on the first delta written
+	 * 			after a flush, or null if the game flushes on its own.
+	 */
+	public void setFlusher(Runnable flusher)
+	{
+		this.flusher = flusher;
+	}
+
+
+	// Functions for the game's thread:
+	/**
+	 * The publish method writes a delta and keeps the game so far up to date
+	 * with it.
+	 * @param delta The delta, a MOVE, PICK_UP, USE, MESSAGE or BUTTON.
+	 * @param text The text of a MESSAGE or BUTTON, otherwise null.
+	 */
+	public void publish(long delta, String text)
+	{
+		switch(kindOf(delta))
+		{
+			case MOVE:
+				this.node = nodeOf(delta);
+				this.dir = dirOf(delta);
+				this.type = typeOf(delta);
+				break;
+			case PICK_UP:
+				this.items = this.items.with(itemOf(delta), this.items.get(itemOf(delta)) | PICKED_UP);
+				break;
+			case USE:
+				this.items = this.items.with(itemOf(delta), this.items.get(itemOf(delta)) | USED);
+				this.rooms = this.rooms.with(roomOf(delta), UNLOCKED);
+				break;
+			case MESSAGE:
+				this.message = text;
+				break;
+			case BUTTON:
+				this.button = text;
+				break;
+			default:
+				throw new IllegalArgumentException("a restore carries the whole game, see publishRestore");
+		}
+		this.write(delta, text);
+	}
+
+	/**
+	 * The publishRestore method sets the whole game at once, like after an
+	 * undo, when rooms and items anywhere may have changed back. Subscribers
+	 * that read up to it skip to the snapshot of its tick.
+	 * @param rooms The UNLOCKED flag of each room unlocked.
+	 * @param items The PICKED_UP and USED flags of each item picked up or used.
+	 */
+	public void publishRestore(int node, int dir, int type, PersistentIntMap rooms, PersistentIntMap items)
+	{
+		this.node = node;
+		this.dir = dir;
+		this.type = type;
+		this.rooms = rooms;
+		this.items = items;
+		this.write(of(RESTORE), null);
+	}
+
+	/**
+	 * The flush method ends a tick. The deltas written since the last tick
+	 * become visible to subscribers together with a snapshot of the game,
+	 * which shares its maps with the snapshots before it, and the subscribers
+	 * waiting for deltas are woken up.
+	 * @return False if there was nothing to publish.
+	 */
+	public boolean flush()
+	{
+		long head = this.head.get();
+
+		this.pending = false;
+		if(head == this.published.get())
+			return false;
+
+		this.snapshot = this.takeSnapshot(head);
+		this.published.set(head);	// Not lazily: the signals below must see it, or a wakeup is lost.
+
+		for(Subscription subscription : this.woken)
+			subscription.signal();
+		return true;
+	}
+
+	private void write(long delta, String text)
+	{
+		long sequence = this.head.get();
+		int slot = (int) sequence & this.mask;
+
+		this.ring.lazySet(slot, delta);
+		this.texts.lazySet(slot, text);
+		this.head.lazySet(sequence + 1);	// Written after the delta, read after it by subscribers.
+
+		if(!this.pending)
+		{
+			this.pending = true;
+			if(this.flusher != null)
+				this.flusher.run();
+		}
+	}
+
+	private Snapshot takeSnapshot(long sequence)
+	{
+		return new Snapshot(sequence, this.node, this.dir, this.type, this.rooms, this.items, this.message, this.button);
+	}
+
+	/**
+	 * The subscribe method starts following the game from the last tick.
+	 * @return A Subscription, polled by one thread at a time.
+	 */
+	public Subscription subscribe()
+	{
+		return this.subscribe(null);
+	}
+
+	/**
+	 * The subscribe method starts following the game from the last tick.
+	 * @param wakeup Run by the game's thread when a flush published deltas
+	 * 			since the last poll, or null for a subscriber that polls on its own.
+	 * @return A Subscription, polled by one thread at a time.
+	 */
+	public Subscription subscribe(Runnable wakeup)
+	{
+		Subscription subscription = new Subscription(this, wakeup);
+
+		if(wakeup != null)
+			this.woken.add(subscription);
+		return subscription;
+	}
+
+	/**
+	 * The unsubscribe method stops waking a subscriber up.
+	 * @param subscription The subscriber's Subscription.
+	 */
+	public void unsubscribe(Subscription subscription)
+	{
+		this.woken.remove(subscription);
+	}
+
+
+	// Deltas:
+	public static long move(int node, int dir, int type)
+	{
+		return ((long) MOVE << 60) | ((long) type << 34) | ((long) dir << 32) | node;
+	}
+
+	public static long pickUp(int item)
+	{
+		return ((long) PICK_UP << 60) | item;
+	}
+
+	public static long use(int item, int room)
+	{
+		return ((long) USE << 60) | ((long) room << 32) | item;
+	}
+
+	/**
+	 * The of method makes a delta of a kind that carries nothing else, like
+	 * a MESSAGE, whose text is published with it.
+	 */
+	public static long of(int kind)
+	{
+		return (long) kind << 60;
+	}
+
+	public static int kindOf(long delta)
+	{
+		return (int) (delta >>> 60);
+	}
+
+	/**
+	 * The nodeOf method gets the node of a move.
+	 */
+	public static int nodeOf(long delta)
+	{
+		return (int) delta;
+	}
+
+	public static int itemOf(long delta)
+	{
+		return (int) delta;
+	}
+
+	public static int dirOf(long delta)
+	{
+		return (int) (delta >>> 32) & 3;
+	}
+
+	public static int typeOf(long delta)
+	{
+		return (int) (delta >>> 34) & 15;
+	}
+
+	public static int roomOf(long delta)
+	{
+		return (int) (delta >>> 32) & 0xFFFFFFF;
+	}
+
+	/**
+	 * The Snapshot class is the game at the end of a tick. It is never changed.
+	 */
+	public static final class Snapshot
+	{
+		private final long sequence;
+		private final int node, dir, type;
+		private final PersistentIntMap rooms, items;
+		private final String message, button;
+
+		private Snapshot(long sequence, int node, int dir, int type, PersistentIntMap rooms, PersistentIntMap items,
+				String message, String button)
+		{
+			this.sequence = sequence;
+			this.node = node;
+			this.dir = dir;
+			this.type = type;
+			this.rooms = rooms;
+			this.items = items;
+			this.message = message;
+			this.button = button;
+		}
+
+		public long getSequence()
+		{
+			return this.sequence;
+		}
+
+		public int getNode()
+		{
+			return this.node;
+		}
+
+		public int getDirection()
+		{
+			return this.dir;
+		}
+
+		public int getType()
+		{
+			return this.type;
+		}
+
+		/**
+		 * Get the UNLOCKED flag of each room unlocked so far.
+		 */
+		public PersistentIntMap getRooms()
+		{
+			return this.rooms;
+		}
+
+		/**
+		 * Get the PICKED_UP and USED flags of each item picked up or used so far.
+		 */
+		public PersistentIntMap getItems()
+		{
+			return this.items;
+		}
+
+		/**
+		 * Get the last message shown to the Player, or null if there was none.
+		 */
+		public String getMessage()
+		{
+			return this.message;
+		}
+
+		/**
+		 * Get the text of the use item button, or null if it was never set.
+		 */
+		public String getButtonText()
+		{
+			return this.button;
+		}
+	}
+
+	/**
+	 * The Listener interface is told the deltas a subscriber polled, or the
+	 * snapshot it skipped to.
+	 */
+	public interface Listener
+	{
+		/**
+		 * Called when the subscriber starts, fell behind or read up to a
+		 * restore, instead of the deltas it skipped.
+		 */
+		void onSnapshot(Snapshot snapshot);
+
+		/**
+		 * Called for each delta, in order.
+		 * @param delta The delta, see kindOf.
+		 * @param text The text of a MESSAGE or BUTTON, otherwise null.
+		 */
+		void onDelta(long delta, String text);
+	}
+
+	/**
+	 * The Subscription class is one spectator's place in the stream.
+	 */
+	public static final class Subscription
+	{
+		private static final int CHUNK = 64;	// Deltas copied out of the ring at a time.
+
+		private final DeltaStream stream;
+		private final Runnable wakeup;
+		private final AtomicBoolean signalled = new AtomicBoolean();
+		private final long[] batch = new long[CHUNK];
+		private final String[] batchTexts = new String[CHUNK];
+		private long sequence;		// Next delta to read.
+		private long skips;			// Times the subscriber fell behind.
+		private boolean started;
+
+		private Subscription(DeltaStream stream, Runnable wakeup)
+		{
+			this.stream = stream;
+			this.wakeup = wakeup;
+		}
+
+		public long getSkips()
+		{
+			return this.skips;
+		}
+
+		/**
+		 * The signal method runs the wakeup, unless it already ran since
+		 * the last poll.
+		 */
+		private void signal()
+		{
+			if(!this.signalled.get() && this.signalled.compareAndSet(false, true))
+				this.wakeup.run();
+		}
+
+		/**
+		 * The poll method hands the listener every delta published since the
+		 * last poll, or the last snapshot if the ring went round meanwhile.
+		 * Deltas are copied out of the ring first and only handed on once it
+		 * is sure the game didn't overwrite them while they were copied.
+		 * @param listener Told about the deltas.
+		 * @return The number of deltas, or -1 if a snapshot was handed on.
+		 */
+		public int poll(Listener listener)
+		{
+			this.signalled.set(false);	// Flushes from now on wake the subscriber again.
+
+			if(!this.started) // Start from the last tick.
+				return this.skipToSnapshot(listener, false);
+
+			long published = this.stream.published.get();
+			long count = published - this.sequence;
+			int ring = this.stream.ring.length();
+
+			if(count > ring)
+				return this.skipToSnapshot(listener, true);
+
+			while(this.sequence < published)
+			{
+				int chunk = (int) Math.min(CHUNK, published - this.sequence);
+
+				for(int i = 0; i < chunk; i++)
+				{
+					int slot = (int) (this.sequence + i) & this.stream.mask;
+
+					this.batch[i] = this.stream.ring.get(slot);
+					this.batchTexts[i] = this.stream.texts.get(slot);
+				}
+
+				// The slot of the first delta is overwritten once the head gets a ring past it.
+				if(this.stream.head.get() >= this.sequence + ring)
+					return this.skipToSnapshot(listener, true);
+
+				for(int i = 0; i < chunk; i++)
+				{
+					if(kindOf(this.batch[i]) == RESTORE) // The snapshot of the tick has it all.
+						return this.skipToSnapshot(listener, false);
+
+					listener.onDelta(this.batch[i], this.batchTexts[i]);
+					this.batchTexts[i] = null;
+					this.sequence++;
+				}
+			}
+			return (int) count;
+		}
+
+		private int skipToSnapshot(Listener listener, boolean behind)
+		{
+			Snapshot snapshot = this.stream.snapshot;
+
+			Arrays.fill(this.batchTexts, null);
+			if(behind)
+				this.skips++;
+			this.started = true;
+			this.sequence = snapshot.sequence;
+			listener.onSnapshot(snapshot);
+			return -1;
+		}
+	}
+
+	/**
+	 * The Follower class rebuilds the game from a subscription, like a spectator would.
+	 */
+	private static final class Follower implements Listener
+	{
+		private final Subscription subscription;
+		private final int pause;		// Polls skipped between polls, to make slow spectators.
+		private int node, dir, type, waited;
+		private long deltas;
+		private PersistentIntMap rooms, items;
+		private String message, button;
+
+		Follower(Subscription subscription, int pause)
+		{
+			this.subscription = subscription;
+			this.pause = pause;
+		}
+
+		void poll()
+		{
+			if(this.waited++ < this.pause)
+				return;
+			this.waited = 0;
+			this.subscription.poll(this);
+		}
+
+		public void onSnapshot(Snapshot snapshot)
+		{
+			this.node = snapshot.node;
+			this.dir = snapshot.dir;
+			this.type = snapshot.type;
+			this.rooms = snapshot.rooms;
+			this.items = snapshot.items;
+			this.message = snapshot.message;
+			this.button = snapshot.button;
+		}
+
+		public void onDelta(long delta, String text)
+		{
+			this.deltas++;
+
+			switch(kindOf(delta))
+			{
+				case MOVE:
+					this.node = nodeOf(delta);
+					this.dir = dirOf(delta);
+					this.type = typeOf(delta);
+					break;
+				case PICK_UP:
+					this.items = this.items.with(itemOf(delta), this.items.get(itemOf(delta)) | PICKED_UP);
+					break;
+				case USE:
+					this.items = this.items.with(itemOf(delta), this.items.get(itemOf(delta)) | USED);
+					this.rooms = this.rooms.with(roomOf(delta), UNLOCKED);
+					break;
+				case MESSAGE:
+					this.message = text;
+					break;
+				default:
+					this.button = text;
+					break;
+			}
+		}
+
+		boolean matches(Snapshot snapshot)
+		{
+			boolean[] same = { this.node == snapshot.node && this.dir == snapshot.dir && this.type == snapshot.type
+					&& this.message == snapshot.message && this.button == snapshot.button };
+
+			this.rooms.diff(snapshot.rooms, room -> same[0] = false);
+			this.items.diff(snapshot.items, item -> same[0] = false);
+			return same[0];
+		}
+	}
+
+	/**
+	 * Let a bot play and sometimes undo while thousands of spectators follow
+	 * it, some of them slowly and one woken up by every tick like a window,
+	 * and check that every spectator ends up seeing the same game.
+	 * @param args -subscribers=<n> -actions=<n> -tick=<actions per tick> -pace=<microseconds between ticks>
+	 * 			-capacity=<n> -threads=<n> -nodes=<n> -undo=<one action in n is an undo>.
+	 */
+	public static void main(String[] args) throws InterruptedException
+	{
+		int subscribers = 2000, actions = 2000000, tick = 16, pace = 0, capacity = 1024, nodes = 0, undo = 100;
+		int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+		for(String arg : args)
+		{
+			int value = Integer.parseInt(arg.substring(arg.indexOf('=') + 1));
+
+			if(arg.startsWith("-subscribers="))
+				subscribers = value;
+			else if(arg.startsWith("-actions="))
+				actions = value;
+			else if(arg.startsWith("-tick="))
+				tick = value;
+			else if(arg.startsWith("-pace="))
+				pace = value;
+			else if(arg.startsWith("-capacity="))
+				capacity = value;
+			else if(arg.startsWith("-threads="))
+				threads = value;
+			else if(arg.startsWith("-nodes="))
+				nodes = value;
+			else if(arg.startsWith("-undo="))
+				undo = value;
+		}
+
+		MansionMap mansion = nodes > 0 ? new MansionGenerator(1).generate(nodes) : MansionDefinition.getDefault();
+		DeltaStream stream = new DeltaStream(mansion, capacity);
+		Scene scene = new Scene(mansion, null, null);
+		Player player = new Player(new ArrayList<Item>(), scene);
+		GameHistory history = new GameHistory(scene, player);
+		scene.setDeltaStream(stream);
+
+		ExecutorService dispatch = Executors.newSingleThreadExecutor();	// Stands in for the event dispatch thread.
+		AtomicLong wakeups = new AtomicLong();
+		Follower[] window = new Follower[1];
+		window[0] = new Follower(stream.subscribe(() -> {
+			wakeups.incrementAndGet();
+			dispatch.execute(() -> window[0].subscription.poll(window[0]));
+		}), 0);
+
+		// One spectator in ten only looks every 50 polls.
+		List<Follower> followers = new ArrayList<Follower>();
+		for(int i = 0; i < subscribers; i++)
+			followers.add(new Follower(stream.subscribe(), i % 10 == 0 ? 50 : 0));
+
+		ExecutorService pool = Executors.newFixedThreadPool(threads - 1);
+		AtomicLong done = new AtomicLong();
+		int slice = (subscribers + threads - 2) / (threads - 1);
+
+		for(int from = 0; from < subscribers; from += slice)
+		{
+			List<Follower> mine = followers.subList(from, Math.min(subscribers, from + slice));
+
+			pool.execute(() -> {
+				while(done.get() == 0)
+				{
+					for(Follower follower : mine)
+						follower.poll();
+					Thread.yield();
+				}
+			});
+		}
+
+		SplittableRandom random = new SplittableRandom(1);
+		Runnable[] moves = { player::moveForward, player::turnLeft, player::turnRight, player::moveBack,
+				player::pickUp, player::useItem };
+		long start = System.nanoTime();
+
+		for(int action = 1; action <= actions; action++)
+		{
+			if(undo > 0 && random.nextInt(undo) == 0)
+				history.undo();
+			else
+				history.perform(moves[random.nextInt(moves.length)]);
+			if(action % tick == 0)
+			{
+				stream.flush();
+				if(pace > 0)
+					LockSupport.parkNanos(pace * 1000L);
+			}
+		}
+		stream.flush();
+
+		double seconds = (System.nanoTime() - start) / 1e9;
+		done.set(1);
+		pool.shutdown();
+		pool.awaitTermination(1, TimeUnit.MINUTES);
+		dispatch.shutdown();
+		dispatch.awaitTermination(1, TimeUnit.MINUTES);
+
+		// Catch everybody up to the end and compare.
+		long delivered = 0, skips = 0, wrong = 0;
+		for(Follower follower : followers)
+		{
+			follower.subscription.poll(follower);
+			delivered += follower.deltas;
+			skips += follower.subscription.getSkips();
+			if(!follower.matches(stream.getSnapshot()))
+				wrong++;
+		}
+
+		System.out.printf("%d actions in %.2f s, %d deltas published (%.0f/s), ticks of %d actions, ring of %d%n",
+				actions, seconds, stream.getPublished(), stream.getPublished() / seconds, tick, stream.getCapacity());
+		System.out.printf("%d subscribers on %d threads: %d deltas delivered (%.0f/s), %d skips to a snapshot, %d ended out of sync%n",
+				subscribers, threads - 1, delivered, delivered / seconds, skips, wrong);
+		System.out.printf("woken subscriber: %d wakeups for %d ticks, %d deltas, %s%n", wakeups.get(), actions / tick,
+				window[0].deltas, window[0].matches(stream.getSnapshot()) ? "in sync" : "OUT OF SYNC");
+	}
+}
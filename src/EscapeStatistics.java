@@ -0,0 +1,520 @@
+/**
+ * EscapeStatistics Class
+ * The EscapeStatistics class estimates how long a mansion takes to escape by
+ * simulating many playthroughs, spread over every core with a parallel stream.
+ * Each playthrough plays a headless Scene and Player with its own
+ * SplittableRandom, following one of the player models:
+ * 	random: Presses any button.
+ * 	exploratory: Picks up everything, heads for the places it has seen the least
+ * 		and tries its items on a door once the door turned out to be locked.
+ * 	hint: Follows the lore to the next thing to do, the nearest item to pick
+ * 		up, door to unlock or the way out.
+ * It reports a histogram of the actions taken to escape, how often each room
+ * is visited and how long players are stuck behind each locked door, from the
+ * first time they find it locked until they unlock it.
+ * fields:
+ * 	mansion: The mansion being played, shared and never changed by the playthroughs.
+ * 	model: The player model, one of RANDOM, EXPLORATORY and HINT.
+ * 	steps: The most actions a playthrough takes before giving up.
+ * Date: 19 October 2026
+ * OOP Project 2: The Mansion
+ * @author Team 7
+ * @version 1.0
+ * @since 1.0
+ */
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.stream.LongStream;
+
+public class EscapeStatistics
+{
+	public static final int RANDOM = 0, EXPLORATORY = 1, HINT = 2;	// Player models.
+	public static final String[] MODELS = { "random", "exploratory", "hint" };
+
+	// Actions, the same buttons a player has.
+	private static final int FORWARD = 0, LEFT = 1, RIGHT = 2, BACK = 3, PICK_UP = 4, USE = 5;
+	private static final int ACTIONS = 6;
+
+	private MansionMap mansion;
+	private int model;
+	private int steps;
+
+	/**
+	 * This constructor creates the statistics of a player model.
+	 * @param mansion The mansion to be played. It has to be safe to read from many threads.
+	 * @param model The player model.
+	 * @param steps The most actions a playthrough takes before giving up.
+	 */
+	public EscapeStatistics(MansionMap mansion, int model, int steps)
+	{
+		this.mansion = mansion;
+		this.model = model;
+		this.steps = steps;
+	}
+
+
+	// Functions:
+	/**
+	 * The simulate method plays many playthroughs in parallel. Playthrough i
+	 * always uses the same random numbers, so the results don't depend on how
+	 * the stream is split between threads. Its seed is the seed and i mixed,
+	 * so no two playthroughs share a run of random numbers.
+	 * @param runs The number of playthroughs.
+	 * @param seed The seed of the random numbers.
+	 * @return The playthroughs added up.
+	 */
+	public Tally simulate(long runs, long seed)
+	{
+		return LongStream.range(0, runs).parallel()
+				.mapToObj(i -> new Playthrough(new SplittableRandom(mix64(seed ^ mix64(i)))).play())
+				.collect(() -> new Tally(this.mansion.getRoomCount()), Tally::add, Tally::merge);
+	}
+
+	/**
+	 * The mix64 method scrambles the bits of a number, with the finalizer of
+	 * SplittableRandom, so close numbers give unrelated seeds. Stepping the
+	 * seed by SplittableRandom's own gamma would only shift the numbers of
+	 * one playthrough into the next.
+	 */
+	private static long mix64(long z)
+	{
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	/**
+	 * The Playthrough class is one player escaping the mansion.
+	 */
+	private class Playthrough
+	{
+		private SplittableRandom random;
+		private Scene scene;
+		private Player player;
+		private MansionMap mansion = EscapeStatistics.this.mansion;
+
+		private int taken;				// Actions taken.
+		private boolean escaped;
+		private int[] visits;			// Times each room was walked into.
+		private int[] stuckSince;		// Action a locked room was found locked, or -1.
+		private int[] stuck;			// Actions spent stuck behind each room.
+
+		private int[] seen;				// Times each state was seen, for exploratory players.
+		private boolean bumped;			// The last move was stopped by a locked door.
+		private ArrayDeque<Integer> plan = new ArrayDeque<Integer>();	// Actions left to the next goal, for hint players.
+
+		Playthrough(SplittableRandom random)
+		{
+			this.random = random;
+		}
+
+		Playthrough play()
+		{
+			int rooms = this.mansion.getRoomCount();
+
+			this.scene = new Scene(this.mansion, null, null);			// Headless.
+			this.player = new Player(new ArrayList<Item>(), this.scene);	// No cheat.
+			this.visits = new int[rooms];
+			this.stuck = new int[rooms];
+			this.stuckSince = new int[rooms];
+			Arrays.fill(this.stuckSince, -1);
+
+			if(EscapeStatistics.this.model == EXPLORATORY)
+				this.seen = new int[this.mansion.getNodeCount() * MansionDefinition.DIRECTIONS];
+
+			while(this.taken < EscapeStatistics.this.steps && !this.escaped)
+			{
+				int state = this.scene.getState();
+				int action = this.choose(state);
+
+				this.act(state, action);
+				this.taken++;
+			}
+
+			// Players that gave up are still stuck.
+			for(int room = 0; room < rooms; room++)
+			{
+				if(this.stuckSince[room] >= 0)
+					this.stuck[room] += this.taken - this.stuckSince[room];
+			}
+			return this;
+		}
+
+		private int choose(int state)
+		{
+			switch(EscapeStatistics.this.model)
+			{
+				case EXPLORATORY: return this.chooseExploratory(state);
+				case HINT: return this.chooseHint(state);
+				default: return this.random.nextInt(ACTIONS);
+			}
+		}
+
+		private void act(int state, int action)
+		{
+			int gate = this.mansion.getGateRoom(state);
+			int unlock = this.mansion.getUnlockRoom(state);
+			boolean locked = unlock >= 0 && this.scene.getRoom(unlock).isLocked();
+
+			if(action == USE && this.player.canEscape())
+				this.escaped = true;
+
+			switch(action)
+			{
+				case FORWARD: this.player.moveForward(); break;
+				case LEFT: this.player.turnLeft(); break;
+				case RIGHT: this.player.turnRight(); break;
+				case BACK: this.player.moveBack(); break;
+				case PICK_UP: this.player.pickUp(); break;
+				default: this.player.useItem(); break;
+			}
+
+			this.bumped = action == FORWARD && this.scene.getState() == state && gate >= 0;
+
+			if(this.bumped && this.stuckSince[gate] < 0)
+				this.stuckSince[gate] = this.taken;
+
+			if(locked && !this.scene.getRoom(unlock).isLocked() && this.stuckSince[unlock] >= 0)
+			{
+				this.stuck[unlock] += this.taken - this.stuckSince[unlock];
+				this.stuckSince[unlock] = -1;
+			}
+
+			int node = this.scene.getNode();
+
+			if(this.scene.getState() != state && MansionDefinition.nodeOf(state) != node && this.mansion.entersRoom(node))
+				this.visits[this.mansion.getNodeRoom(node)]++;
+		}
+
+		/**
+		 * The chooseExploratory method picks up what it finds, uses its items
+		 * on a door it just found locked and otherwise moves to the state it
+		 * has seen the least.
+		 */
+		private int chooseExploratory(int state)
+		{
+			Room room = this.scene.getRoomByPosition();
+
+			this.seen[state]++;
+
+			if(this.bumped) // A locked door counts as seen, so the player stops trying it over and over.
+				this.seen[this.mansion.forward(state)]++;
+
+			if(this.player.canEscape())
+				return USE;
+			if(room.getItem() != null && !room.getItem().isPickedUp())
+				return PICK_UP;
+			if(this.bumped && !this.player.getItems().isEmpty())
+				return USE;
+
+			int best = -1, least = Integer.MAX_VALUE, ties = 0;
+
+			for(int action = FORWARD; action <= BACK; action++)
+			{
+				int target = this.target(state, action);
+
+				if(target < 0 || (this.bumped && action == FORWARD))
+					continue;
+
+				if(this.seen[target] < least)
+				{
+					best = action;
+					least = this.seen[target];
+					ties = 1;
+				}
+				else if(this.seen[target] == least && this.random.nextInt(++ties) == 0)
+					best = action;
+			}
+			return best < 0 ? this.random.nextInt(ACTIONS) : best;
+		}
+
+		/**
+		 * The chooseHint method does the next thing to do where the player
+		 * stands, or follows the shortest way to the nearest state where there
+		 * is something to do.
+		 */
+		private int chooseHint(int state)
+		{
+			if(this.isGoal(state))
+				return this.player.canEscape() || this.isUnlockable(state) ? USE : PICK_UP;
+
+			if(this.plan.isEmpty())
+				this.planRoute(state);
+
+			return this.plan.isEmpty() ? this.random.nextInt(ACTIONS) : this.plan.poll();
+		}
+
+		private boolean isGoal(int state)
+		{
+			int escape = this.mansion.getEscapeItem(state);
+			Room room = this.scene.getRoom(this.mansion.getNodeRoom(MansionDefinition.nodeOf(state)));
+
+			if(escape >= 0 && this.player.getItemById(escape) != null)
+				return true;
+			if(this.isUnlockable(state))
+				return true;
+			return room.getItem() != null && !room.getItem().isPickedUp();
+		}
+
+		private boolean isUnlockable(int state)
+		{
+			int[] items = this.mansion.getUnlockItems(state);
+
+			return items.length > 0 && this.player.getItems().containsAll(items)
+					&& this.scene.getRoom(this.mansion.getUnlockRoom(state)).isLocked();
+		}
+
+		/**
+		 * The planRoute method searches breadth first, not through locked
+		 * doors, for the nearest goal and plans the actions to get there.
+		 */
+		private void planRoute(int start)
+		{
+			int states = this.mansion.getNodeCount() * MansionDefinition.DIRECTIONS;
+			int[] from = new int[states];		// State each state was reached from, +1 so 0 is unseen.
+			byte[] by = new byte[states];		// Action it was reached with.
+			int[] queue = new int[states];
+			int head = 0, tail = 0;
+
+			from[start] = start + 1;
+			queue[tail++] = start;
+
+			while(head < tail)
+			{
+				int state = queue[head++];
+
+				if(state != start && this.isGoal(state))
+				{
+					for(int at = state; at != start; at = from[at] - 1)
+						this.plan.addFirst((int) by[at]);
+					return;
+				}
+
+				for(int action = FORWARD; action <= BACK; action++)
+				{
+					int target = this.target(state, action);
+					int gate = this.mansion.getGateRoom(state);
+
+					if(target < 0 || from[target] != 0)
+						continue;
+					if(action == FORWARD && gate >= 0 && this.scene.getRoom(gate).isLocked())
+						continue;
+
+					from[target] = state + 1;
+					by[target] = (byte) action;
+					queue[tail++] = target;
+				}
+			}
+		}
+
+		private int target(int state, int action)
+		{
+			switch(action)
+			{
+				case FORWARD: return this.mansion.forward(state);
+				case LEFT: return this.mansion.left(state);
+				case RIGHT: return this.mansion.right(state);
+				default: return this.mansion.back(state);
+			}
+		}
+	}
+
+	/**
+	 * The Tally class adds up playthroughs. Tallies of different threads
+	 * are merged at the end of the stream.
+	 */
+	public static class Tally
+	{
+		private long runs, escapes;
+		private int[] actions = new int[64];	// Actions taken by each escaped playthrough.
+		private long[] visits, stuck;
+		private long[] stuckRuns;				// Playthroughs that were ever stuck behind each room.
+
+		private Tally(int rooms)
+		{
+			this.visits = new long[rooms];
+			this.stuck = new long[rooms];
+			this.stuckRuns = new long[rooms];
+		}
+
+		private void add(Playthrough playthrough)
+		{
+			this.runs++;
+
+			if(playthrough.escaped)
+				this.addActions(playthrough.taken);
+
+			for(int room = 0; room < this.visits.length; room++)
+			{
+				this.visits[room] += playthrough.visits[room];
+				this.stuck[room] += playthrough.stuck[room];
+
+				if(playthrough.stuck[room] > 0)
+					this.stuckRuns[room]++;
+			}
+		}
+
+		private void merge(Tally other)
+		{
+			this.runs += other.runs;
+
+			for(int i = 0; i < other.escapes; i++)
+				this.addActions(other.actions[i]);
+
+			for(int room = 0; room < this.visits.length; room++)
+			{
+				this.visits[room] += other.visits[room];
+				this.stuck[room] += other.stuck[room];
+				this.stuckRuns[room] += other.stuckRuns[room];
+			}
+		}
+
+		private void addActions(int taken)
+		{
+			if(this.escapes == this.actions.length)
+				this.actions = Arrays.copyOf(this.actions, this.actions.length * 2);
+			this.actions[(int) this.escapes++] = taken;
+		}
+
+		public long getRuns()
+		{
+			return this.runs;
+		}
+
+		public double getEscapeRate()
+		{
+			return this.runs == 0 ? 0 : (double) this.escapes / this.runs;
+		}
+
+		/**
+		 * The getActions method returns the actions each escaped playthrough took, sorted.
+		 * @return The actions taken to escape.
+		 */
+		public int[] getActions()
+		{
+			int[] sorted = Arrays.copyOf(this.actions, (int) this.escapes);
+			Arrays.sort(sorted);
+			return sorted;
+		}
+
+		/**
+		 * The getVisits method returns how often a room is walked into, per playthrough.
+		 * @param room The room.
+		 * @return The mean visits.
+		 */
+		public double getVisits(int room)
+		{
+			return this.runs == 0 ? 0 : (double) this.visits[room] / this.runs;
+		}
+
+		/**
+		 * The getStuck method returns how many actions players spend stuck
+		 * behind a locked room, counting only the players that got stuck.
+		 * @param room The room.
+		 * @return The mean actions stuck, or NaN if nobody was stuck.
+		 */
+		public double getStuck(int room)
+		{
+			return this.stuckRuns[room] == 0 ? Double.NaN : (double) this.stuck[room] / this.stuckRuns[room];
+		}
+
+		/**
+		 * The printHistogram method prints the actions taken to escape in
+		 * buckets of the same width, up to the 99th percentile.
+		 * @param buckets The number of buckets.
+		 */
+		public void printHistogram(int buckets)
+		{
+			int[] sorted = this.getActions();
+
+			if(sorted.length == 0)
+			{
+				System.out.println("  nobody escaped");
+				return;
+			}
+
+			int low = sorted[0];
+			int high = sorted[Math.min(sorted.length - 1, (int) (sorted.length * 0.99))];
+			buckets = Math.min(buckets, high - low + 1);
+			int width = (high - low + buckets) / buckets;
+			long[] counts = new long[buckets + 1];	// The last bucket holds the rest.
+			long most = 1;
+
+			for(int taken : sorted)
+				counts[Math.min(buckets, (taken - low) / width)]++;
+			for(long count : counts)
+				most = Math.max(most, count);
+
+			System.out.printf("  min %d, median %d, p90 %d, p99 %d, max %d%n", low, sorted[sorted.length / 2],
+					sorted[(int) (sorted.length * 0.9)], high, sorted[sorted.length - 1]);
+
+			for(int bucket = 0; bucket <= buckets; bucket++)
+			{
+				if(counts[bucket] == 0 && bucket == buckets)
+					continue;
+
+				String range = bucket == buckets ? ">= " + (low + bucket * width)
+						: (low + bucket * width) + "-" + (low + (bucket + 1) * width - 1);
+				char[] bar = new char[(int) (40 * counts[bucket] / most)];
+				Arrays.fill(bar, '#');
+
+				System.out.printf("  %15s %8d %s%n", range, counts[bucket], new String(bar));
+			}
+		}
+	}
+
+	/**
+	 * Simulate playthroughs of the default mansion, or a generated one,
+	 * and print the statistics of each player model.
+	 * @param args -runs=<n> -steps=<n> -seed=<n> -model=<random|exploratory|hint> -nodes=<n> (generate a mansion).
+	 */
+	public static void main(String[] args)
+	{
+		long runs = 20000, seed = 1;
+		int steps = 100000, nodes = 0;
+		String only = null;
+
+		for(String arg : args)
+		{
+			String value = arg.substring(arg.indexOf('=') + 1);
+
+			if(arg.startsWith("-runs="))
+				runs = Long.parseLong(value);
+			else if(arg.startsWith("-steps="))
+				steps = Integer.parseInt(value);
+			else if(arg.startsWith("-seed="))
+				seed = Long.parseLong(value);
+			else if(arg.startsWith("-model="))
+				only = value;
+			else if(arg.startsWith("-nodes="))
+				nodes = Integer.parseInt(value);
+		}
+
+		MansionMap mansion = nodes > 0 ? new MansionGenerator(seed).generate(nodes) : MansionDefinition.getDefault();
+
+		for(int model = RANDOM; model <= HINT; model++)
+		{
+			if(only != null && !only.equals(MODELS[model]))
+				continue;
+
+			long start = System.nanoTime();
+			Tally tally = new EscapeStatistics(mansion, model, steps).simulate(runs, seed);
+			double seconds = (System.nanoTime() - start) / 1e9;
+
+			System.out.printf("%n%s: %d playthroughs in %.2f s, %.1f%% escaped within %d actions%n",
+					MODELS[model], tally.getRuns(), seconds, tally.getEscapeRate() * 100, steps);
+			System.out.println("Actions to escape:");
+			tally.printHistogram(20);
+
+			System.out.printf("  %-15s %14s %16s%n", "room", "visits/play", "stuck (actions)");
+			for(int room = 0; room < mansion.getRoomCount() && room < 50; room++)
+			{
+				System.out.printf("  %-15s %14.2f %16s%n", mansion.getRoomName(room), tally.getVisits(room),
+						Double.isNaN(tally.getStuck(room)) ? "-" : String.format("%.1f", tally.getStuck(room)));
+			}
+		}
+	}
+}
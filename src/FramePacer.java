@@ -0,0 +1,316 @@
+/**
+ * FramePacer Class
+ * The FramePacer class shows the changes of a game at most once a frame. A
+ * Swing Timer ticks at the frame rate on the event dispatch thread, and each
+ * tick flushes the game's DeltaStream, ending the tick of the spectators too,
+ * then polls the deltas published since the last one and renders them at
+ * once, so however fast the Player clicks the scene is repainted at most once
+ * a frame and only with the latest state.
+ * The timer only runs while there is something to show: the first delta after
+ * a frame starts it and a tick that finds nothing stops it, so an idle game
+ * wakes nothing up. While the window is minimized the ticks only flush, for
+ * the spectators, and nothing is polled or rendered. The window is refreshed
+ * once when it is shown again.
+ * fields:
+ * 	frames: The frames rendered.
+ * 	coalesced: The scene repaints saved by rendering a frame's events at once.
+ * 	dropped: The ticks that never came because the event dispatch thread was busy.
+ * 	skipped: The bursts of deltas that came while the window was minimized.
+ * 	last: When the timer last ticked, 0 when it was just started.
+ * 	minimized, refresh: Whether the window is minimized, and whether it has to be refreshed.
+ * 	period: The time of a frame.
+ * 	renderer: Shows the deltas of a frame.
+ * 	stream, subscription: The changes of the game and the renderer's place in them.
+ * 	timer: The Swing Timer ticking every frame.
+ * Date: 19 October 2026
+ * OOP Project 2: The Mansion
+ * @author Team 7
+ * @version 1.0
+ * @since 1.0
+ */
+
+import java.awt.EventQueue;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.swing.JFrame;
+import javax.swing.JTextPane;
+import javax.swing.Timer;
+
+public class FramePacer
+{
+	public static final int DEFAULT_FPS = 60;
+
+	private final DeltaStream stream;
+	private final DeltaStream.Subscription subscription;
+	private final Renderer renderer;
+	private final Timer timer;
+	private final long period;
+
+	private long last;
+	private boolean minimized, refresh;
+	private long frames, coalesced, dropped, skipped;
+
+	/**
+	 * This constructor paces the rendering of a game's changes and becomes
+	 * the flusher of its stream. The changes have to be published on the
+	 * event dispatch thread, like every action of the Player in the window.
+	 * @param stream The changes of the game.
+	 * @param fps The frames a second.
+	 * @param renderer Shows the deltas of a frame.
+	 */
+	public FramePacer(DeltaStream stream, int fps, Renderer renderer)
+	{
+		this.stream = stream;
+		this.renderer = renderer;
+		this.period = 1000000000L / fps;
+		this.timer = new Timer(Math.max(1, 1000 / fps), e -> this.tick());
+		this.timer.setInitialDelay(0); // The first frame after an idle time isn't waited for.
+		this.timer.setCoalesce(true);
+		this.subscription = stream.subscribe();	// Polled right after the flush, no need to be woken.
+		stream.setFlusher(this::wake);
+	}
+
+
+	// Getters:
+	public long getFrames()
+	{
+		return this.frames;
+	}
+
+	public long getCoalesced()
+	{
+		return this.coalesced;
+	}
+
+	public long getDropped()
+	{
+		return this.dropped;
+	}
+
+	/**
+	 * The getReport method tells how the frames went so far.
+	 * @return The frames, the repaints saved and the frames dropped.
+	 */
+	public String getReport()
+	{
+		return String.format("%d frames at %d fps, %d scene repaints coalesced, %d frames dropped, %d bursts skipped while minimized",
+				this.frames, 1000000000L / this.period, this.coalesced, this.dropped, this.skipped);
+	}
+
+
+	// Functions:
+	/**
+	 * The attach method stops rendering while a window is minimized.
+	 * @param frame The window the events are shown in.
+	 */
+	public void attach(JFrame frame)
+	{
+		frame.addWindowListener(new WindowAdapter()
+		{
+			@Override
+			public void windowIconified(WindowEvent e)
+			{
+				FramePacer.this.minimized = true;
+			}
+
+			@Override
+			public void windowDeiconified(WindowEvent e)
+			{
+				FramePacer.this.minimized = false;
+				FramePacer.this.refresh = true;
+				FramePacer.this.start();
+			}
+		});
+	}
+
+	/**
+	 * The wake method starts the timer when the first delta after a frame
+	 * is written.
+	 */
+	private void wake()
+	{
+		if(this.minimized)
+			this.skipped++;
+		if(!this.timer.isRunning())
+			this.start();
+	}
+
+	private void start()
+	{
+		this.last = 0;
+		this.timer.start();
+	}
+
+	/**
+	 * The tick method ends the tick of the stream and renders its deltas,
+	 * or stops the timer if there are none.
+	 */
+	private void tick()
+	{
+		long now = System.nanoTime();
+
+		if(this.last != 0 && now - this.last > this.period * 3 / 2)
+			this.dropped += (now - this.last - this.period / 2) / this.period;
+		this.last = now;
+
+		boolean flushed = this.stream.flush();
+
+		if(this.minimized)
+		{
+			if(!flushed)
+				this.timer.stop();
+			return;	// Polled once shown again, from a snapshot if it fell behind.
+		}
+
+		boolean refresh = this.refresh;
+		this.refresh = false;
+
+		if(this.subscription.poll(this.renderer) == 0 && !refresh)
+		{
+			this.timer.stop(); // Nothing to show, the next delta starts it again.
+			return;
+		}
+
+		int repaints = this.renderer.render(refresh);
+		this.frames++;
+		this.coalesced += Math.max(0, repaints - 1);
+	}
+
+	/**
+	 * The Renderer interface gathers the deltas of a frame and shows them.
+	 */
+	public interface Renderer extends DeltaStream.Listener
+	{
+		/**
+		 * Called once a frame, after the deltas of the frame, to show them.
+		 * @param refresh True when anything may have changed, like after the window was minimized.
+		 * @return How many scene repaints the deltas of the frame asked for.
+		 */
+		int render(boolean refresh);
+	}
+
+	/**
+	 * The Bench class renders like the window does: the scene composed and
+	 * rescaled once a frame, whatever number of deltas asked for it.
+	 */
+	private static final class Bench implements Renderer
+	{
+		private final Scene scene;
+		private final int width, height;
+		private int repaints;
+		long rendered, nanos;
+
+		Bench(Scene scene, int width, int height)
+		{
+			this.scene = scene;
+			this.width = width;
+			this.height = height;
+		}
+
+		public void onDelta(long delta, String text)
+		{
+			int kind = DeltaStream.kindOf(delta);
+
+			if(kind != DeltaStream.MESSAGE && kind != DeltaStream.BUTTON)
+				this.repaints++;
+		}
+
+		public void onSnapshot(DeltaStream.Snapshot snapshot)
+		{
+			this.repaints++;
+		}
+
+		public int render(boolean refresh)
+		{
+			int repaints = this.repaints;
+
+			this.repaints = 0;
+			if(repaints > 0 || refresh)
+			{
+				long started = System.nanoTime();
+				BufferedImage image = this.scene.getScene();
+
+				if(image != null)
+					ScenePanel.rescale(image, this.width, this.height);
+				this.nanos += System.nanoTime() - started;
+				this.rendered++;
+			}
+			return repaints;
+		}
+	}
+
+	/**
+	 * Click through the mansion faster than the screen refreshes, rendering
+	 * after every action and then paced, and compare the time spent rendering.
+	 * @param args -fps=<frames a second> -rate=<actions a second> -seconds=<n> -width=<n> -height=<n>
+	 */
+	public static void main(String[] args) throws Exception
+	{
+		int fps = DEFAULT_FPS, rate = 500, seconds = 3, width = 960, height = 720;
+
+		for(String arg : args)
+		{
+			int value = Integer.parseInt(arg.substring(arg.indexOf('=') + 1));
+
+			if(arg.startsWith("-fps="))
+				fps = value;
+			else if(arg.startsWith("-rate="))
+				rate = value;
+			else if(arg.startsWith("-seconds="))
+				seconds = value;
+			else if(arg.startsWith("-width="))
+				width = value;
+			else if(arg.startsWith("-height="))
+				height = value;
+		}
+
+		int frameRate = fps;
+
+		for(boolean paced : new boolean[] { false, true })
+		{
+			Scene scene = new Scene(MansionDefinition.getDefault(), new JTextPane(), null);	// Loads images, like the window.
+			Player player = new Player(scene);
+			DeltaStream stream = new DeltaStream(scene.getMansion(), 256);
+			Bench bench = new Bench(scene, width, height);
+			FramePacer[] pacer = new FramePacer[1];
+			long[] actions = new long[1];
+			Runnable[] moves = { player::moveForward, player::turnLeft, player::turnRight, player::moveBack,
+					player::pickUp, player::useItem };
+
+			EventQueue.invokeAndWait(() -> {
+				scene.setDeltaStream(stream);
+				if(paced)
+					pacer[0] = new FramePacer(stream, frameRate, bench);
+			});
+			DeltaStream.Subscription immediate = paced ? null : stream.subscribe();
+
+			ScheduledExecutorService input = Executors.newSingleThreadScheduledExecutor();
+			long started = System.nanoTime();
+			input.scheduleAtFixedRate(() -> EventQueue.invokeLater(() -> {
+				moves[(int) (actions[0]++ % moves.length)].run();
+				if(!paced && stream.flush() && immediate.poll(bench) != 0)
+					bench.render(false);	// Every action repainted at once.
+			}), 0, 1000000L / rate, TimeUnit.MICROSECONDS);
+
+			Thread.sleep(seconds * 1000L);
+			input.shutdown();
+			input.awaitTermination(1, TimeUnit.SECONDS);
+			CountDownLatch done = new CountDownLatch(1);
+			EventQueue.invokeLater(done::countDown);
+			done.await();
+			double took = (System.nanoTime() - started) / 1e9;
+
+			System.out.printf("%s: %d actions in %.2f s, %d renders taking %.0f ms (%.0f%% of the time)%n",
+					paced ? "paced at " + fps + " fps" : "every action", actions[0], took, bench.rendered,
+					bench.nanos / 1e6, bench.nanos / 1e7 / took);
+			if(paced)
+				System.out.println("  " + pacer[0].getReport());
+		}
+		System.exit(0);
+	}
+}
@@ -4,10 +4,22 @@
  * GameHandler class creates the JFrame game window that contains all the window components.
  * GameHandler class Creates the scene and player, which takes the game scene.
  * All button actions are handled here.
+ * The window is shown as soon as it is created. The mansion, lore and images
+ * are loaded in the background by a GameLoader and the controls are enabled
+ * once they are ready.
  * variables:
+ * 	LOADER: A GameLoader object used to load the game and time the start.
  * 	WINDOW: A GameWindow object used to create the GUI.
  * 	SCENE: A Scene object used to create the game scene that the Player is in.
  * 	PLAYER: The Player object that navigates through the game.
+ * 	HISTORY: A GameHistory object used to undo and redo the Player's actions.
+ * 	JOURNAL: A JournalWindow object used to look back at the lore shown so far.
+ * 	MAP: A MinimapPanel object used to show the Player where they are.
+ * 	EVENTS: A DeltaStream object the changes of the game are published to, flushed by PACER.
+ * 	PACER: A FramePacer object that shows the changes in the window at most once a frame,
+ * 		at mansion.fps frames a second (60 if not set). Its report is printed on exit if
+ * 		mansion.fps.report is true.
+ * 	STATS: A GameStats object used to count the Player's actions and unlock achievements, saved in ~/.mansion/stats.dat.
  * Date: 02 December 2017
  * @authors Team 7
  * @version 1.0
@@ -22,27 +34,46 @@ import java.awt.event.ActionListener;
 
 import javax.swing.JButton;
 import javax.swing.JLabel;
+import javax.swing.JMenuItem;
+import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 
 public class GameHandler
 {
-	private static final GameWindow WINDOW = new GameWindow();	// Create JFrame.
-	private static final Scene SCENE = new Scene(WINDOW.getInformationText(), WINDOW.getBtnUse());	// Create game scene.
-	private static final Player PLAYER = new Player(SCENE);	// Create player and pass the scene.
+	private static GameLoader LOADER;	// Loads the game in the background.
+	private static GameWindow WINDOW;	// JFrame, created on the event dispatch thread.
+	private static Scene SCENE;			// Game scene, created once loaded.
+	private static Player PLAYER;		// Player, in the scene.
+	private static GameHistory HISTORY;	// Undo and redo the player's actions.
+	private static JournalWindow JOURNAL;	// Lore shown so far.
+	private static MinimapPanel MAP;	// Map of the mansion.
+	private static GameStats STATS;		// Stats and achievements, kept between games.
+	private static DeltaStream EVENTS;	// Changes of the game.
+	private static FramePacer PACER;	// Shows them once a frame.
 	
 	/**
 	 * Launch the application.
 	 */
 	public static void main(String[] args) 
 	{
+		LOADER = new GameLoader(LoreTable.DEFAULT_LOCALE); // Start loading before the window is created.
+		
 		EventQueue.invokeLater(new Runnable() {
 			public void run() 
 			{
 				try 
 				{
+					long started = System.nanoTime();
+					WINDOW = new GameWindow();	// Create JFrame.
+					WINDOW.setControlsEnabled(false);
+					WINDOW.getInformationText().setText("Loading the mansion...");
+					LOADER.mark("window", started);
+					
+					started = System.nanoTime();
 					WINDOW.getFrame().setVisible(true);
-					createActionListeners();
-					WINDOW.setSceneImage(SCENE.getScene()); // Set start image.
+					LOADER.mark("first frame", started);
+					
+					LOADER.whenReady(GameHandler::startGame, GameHandler::failToStart);
 				} 
 				catch (Exception e) 
 				{
@@ -52,12 +83,136 @@ public class GameHandler
 		
 	}
 	
+	/**
+	 * Create the scene, player and history once the game is loaded and
+	 * enable the controls.
+	 */
+	private static void startGame()
+	{
+		long started = System.nanoTime();
+		
+		SCENE = new Scene(LOADER.getMansion(), LOADER.getLore(), LOADER.getImages(),
+				WINDOW.getInformationText(), null);	// Create game scene, items are shown in the inventory list.
+		PLAYER = new Player(SCENE);	// Create player and pass the scene.
+		WINDOW.getInventoryList().setItems(PLAYER.getItems());
+		HISTORY = new GameHistory(SCENE, PLAYER);
+		
+		STATS = GameStats.open(GameStats.getDefaultFile("stats.dat"), SCENE.getMansion().getRoomCount(), 30);
+		SCENE.setStats(STATS);
+		
+		LoreIndex journal = new LoreIndex();
+		SCENE.getInfo().setJournal(journal);
+		journal.add(SCENE.getInfo().getText()); // Already displayed.
+		JOURNAL = new JournalWindow(WINDOW.getFrame(), journal);
+		
+		MAP = new MinimapPanel(SCENE.getMansion());
+		MAP.update(SCENE);
+		WINDOW.setMinimap(MAP);
+		
+		EVENTS = new DeltaStream(SCENE.getMansion(), 256);
+		SCENE.setDeltaStream(EVENTS);
+		STATS.setListener(achievement -> EventQueue.invokeLater(() -> showAchievement(achievement)));
+		PACER = new FramePacer(EVENTS, Integer.getInteger("mansion.fps", FramePacer.DEFAULT_FPS), new Changes());
+		PACER.attach(WINDOW.getFrame());
+		if(Boolean.getBoolean("mansion.fps.report"))
+			Runtime.getRuntime().addShutdownHook(new Thread(() -> System.out.println(PACER.getReport())));
+		
+		createActionListeners();
+		WINDOW.setSceneImage(SCENE.getScene()); // Set start image.
+		WINDOW.getFrame().getContentPane().repaint();
+		WINDOW.setControlsEnabled(true);
+		
+		LOADER.mark("controls", started);
+		LOADER.printTimings();
+	}
+	
+	/**
+	 * Tell the Player of an achievement under what the scene says, until
+	 * the next message replaces it.
+	 * @param achievement The index of the achievement in GameStats.ACHIEVEMENTS.
+	 */
+	private static void showAchievement(int achievement)
+	{
+		SCENE.publish(DeltaStream.of(DeltaStream.MESSAGE), SCENE.getInfo().getText()
+				+ "\n\nAchievement unlocked: " + GameStats.ACHIEVEMENTS[achievement] + ".");
+	}
+	
+	/**
+	 * Tell the Player the game couldn't be loaded, instead of leaving the
+	 * window loading with its controls disabled.
+	 * @param e Why it couldn't be loaded.
+	 */
+	private static void failToStart(Throwable e)
+	{
+		String reason = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+		
+		WINDOW.getInformationText().setText("The mansion couldn't be loaded: " + reason);
+		JOptionPane.showMessageDialog(WINDOW.getFrame(), "The mansion couldn't be loaded:\n" + reason,
+				"The Mansion", JOptionPane.ERROR_MESSAGE);
+	}
+	
 	/**
 	 * Create Button Action Listeners.
 	 */
 	public static void createActionListeners()
 	{
 		
+		// Language listeners.
+		for(int i = 0; i < WINDOW.getLanguageMenu().getItemCount(); i++)
+		{
+			JMenuItem item = WINDOW.getLanguageMenu().getItem(i);
+			
+			item.addActionListener(new ActionListener()
+			{
+				/**
+				 * Switch the lore locale, loaded in the background.
+				 */
+				@Override
+				public void actionPerformed(ActionEvent e)
+				{
+					SCENE.getInfo().setLocale(e.getActionCommand());
+				}
+			});
+		}
+		
+		// Undo and redo listeners.
+		WINDOW.getUndoItem().addActionListener(new ActionListener()
+		{
+			/**
+			 * Undo the player's last action.
+			 */
+			@Override
+			public void actionPerformed(ActionEvent e)
+			{
+				HISTORY.undo();
+			}
+		});
+		
+		WINDOW.getRedoItem().addActionListener(new ActionListener()
+		{
+			/**
+			 * Redo the last undone action.
+			 */
+			@Override
+			public void actionPerformed(ActionEvent e)
+			{
+				HISTORY.redo();
+			}
+		});
+		
+		// Journal listener.
+		WINDOW.getJournalItem().addActionListener(new ActionListener()
+		{
+			/**
+			 * Open the journal of the lore shown so far.
+			 */
+			@Override
+			public void actionPerformed(ActionEvent e)
+			{
+				JOURNAL.show();
+			}
+		});
+		
 		// Button listeners.
 		WINDOW.getBtnForward().addActionListener(new ActionListener() 
 		{
@@ -68,8 +223,7 @@ public class GameHandler
 			@Override
 			public void actionPerformed(ActionEvent e) 
 			{	
-				PLAYER.moveForward();
-				WINDOW.setSceneImage(SCENE.getScene());
+				HISTORY.perform(PLAYER::moveForward);
 			}
 			
 		});
@@ -83,8 +237,7 @@ public class GameHandler
 			@Override
 			public void actionPerformed(ActionEvent e) 
 			{	
-				PLAYER.turnLeft();
-				WINDOW.setSceneImage(SCENE.getScene());
+				HISTORY.perform(PLAYER::turnLeft);
 			}
 			
 		});
@@ -98,8 +251,7 @@ public class GameHandler
 			@Override
 			public void actionPerformed(ActionEvent e) 
 			{	
-				PLAYER.turnRight();
-				WINDOW.setSceneImage(SCENE.getScene());
+				HISTORY.perform(PLAYER::turnRight);
 			}
 			
 		});
@@ -113,8 +265,7 @@ public class GameHandler
 			@Override
 			public void actionPerformed(ActionEvent e) 
 			{	
-				PLAYER.moveBack();
-				WINDOW.setSceneImage(SCENE.getScene());
+				HISTORY.perform(PLAYER::moveBack);
 			}
 			
 		});
@@ -128,7 +279,7 @@ public class GameHandler
 			@Override
 			public void actionPerformed(ActionEvent e) 
 			{	
-				PLAYER.pickUp();
+				HISTORY.perform(PLAYER::pickUp);
 			}
 			
 		});
@@ -138,16 +289,18 @@ public class GameHandler
 			/**
 			 * Use item.
 			 * 
-			 * End game if facing entrance and lever is picked up.
+			 * End game if facing the way out with the item that opens it.
 			 */
 			@Override
 			public void actionPerformed(ActionEvent e)
 			{
-				if(PLAYER.hasItem("Lever") && SCENE.getNode() == 1 && SCENE.getDirection() == 3) // END GAME
+				if(PLAYER.canEscape()) // END GAME
 				{
+					STATS.add(GameStats.ESCAPES);
+					
 					// New JPanel:
 					JPanel end = new JPanel();
-					end.setBounds(0, 0, 600, 600);
+					end.setBounds(0, 0, WINDOW.getFrame().getContentPane().getWidth(), WINDOW.getFrame().getContentPane().getHeight());
 					
 					JLabel lbl_end = new JLabel();
 					lbl_end.setText("YOU ESCAPED!");
@@ -166,8 +319,82 @@ public class GameHandler
 					WINDOW.getFrame().getContentPane().repaint();
 				}
 				else
-					PLAYER.useItem();
+				{
+					HISTORY.perform(PLAYER::useItem);
+				}
 			}
 		});
 	}
+	
+	/**
+	 * The Changes class gathers what the window has to show for a frame of
+	 * deltas and shows it at once: however many deltas came, the text, the
+	 * scene image and the map are each set once.
+	 */
+	private static class Changes implements FramePacer.Renderer
+	{
+		private String message, button;	// The last ones, or null.
+		private boolean map;			// The map changed.
+		private int repaints;			// Events that changed the scene image.
+		private boolean refresh;		// Anything may have changed.
+		
+		@Override
+		public void onDelta(long delta, String text)
+		{
+			switch(DeltaStream.kindOf(delta))
+			{
+				case DeltaStream.MOVE:
+				case DeltaStream.USE: // A door was unlocked.
+					this.repaints++;
+					this.map = true;
+					break;
+				case DeltaStream.PICK_UP: // The item is gone from the scene.
+					this.repaints++;
+					break;
+				case DeltaStream.MESSAGE:
+					this.message = text;
+					break;
+				default:
+					this.button = text;
+					break;
+			}
+		}
+		
+		@Override
+		public void onSnapshot(DeltaStream.Snapshot snapshot)
+		{
+			this.repaints++;
+			this.refresh = true; // Started, fell behind or restored, rooms anywhere may have changed back.
+		}
+		
+		@Override
+		public int render(boolean refresh)
+		{
+			int repaints = this.repaints;
+			
+			if(refresh || this.refresh) // Rooms anywhere may have changed back.
+			{
+				this.message = SCENE.getInfo().getText();
+				this.button = SCENE.getButtonText();
+				repaints = Math.max(1, repaints);
+			}
+			
+			if(this.message != null)
+				WINDOW.getInformationText().setText(this.message);
+			if(this.button != null && SCENE.getButton() != null)
+				SCENE.getButton().setText(this.button);
+			if(repaints > 0)
+				WINDOW.setSceneImage(SCENE.getScene());
+			
+			if(refresh || this.refresh)
+				MAP.refresh(SCENE);
+			else if(this.map)
+				MAP.update(SCENE);
+			
+			this.message = this.button = null;
+			this.map = this.refresh = false;
+			this.repaints = 0;
+			return repaints;
+		}
+	}
 }
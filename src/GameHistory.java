@@ -0,0 +1,456 @@
+/**
+ * GameHistory Class
+ * The GameHistory class lets the player undo and redo their actions. Every
+ * action that changes anything leaves a snapshot of the Scene, Room, Item and
+ * Player state. Snapshots are persistent: the rooms and items are kept in
+ * PersistentIntMaps and the inventory in a list that shares its tail, so a
+ * snapshot only costs the fields the action changed. The oldest snapshots are
+ * dropped once the history takes more than its cap.
+ * fields:
+ * 	bytes: The estimated memory of every snapshot kept.
+ * 	current: The snapshot of the game as it is now.
+ * 	maxBytes: The most memory the snapshots may take.
+ * 	originals: The state of each room and item before it was first changed.
+ * 	player, scene: The game whose history is kept.
+ * 	undo, redo: The snapshots before and after the current one, the nearest first.
+ * Date: 19 October 2026
+ * OOP Project 2: The Mansion
+ * @author Team 7
+ * @version 1.0
+ * @since 1.0
+ */
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.SplittableRandom;
+
+public class GameHistory
+{
+	public static final long DEFAULT_MAX_BYTES = 16L << 20;
+
+	// Flags of rooms and items in the maps, SET tells a flag apart from a missing key.
+	private static final int LOCKED = 1, ENTERED = 2;
+	private static final int PICKED_UP = 1, USED = 2;
+	private static final int SET = 4;
+
+	private static final int SNAPSHOT_BYTES = 48;	// Estimated size of a Snapshot.
+	private static final int CELL_BYTES = 24;		// Estimated size of an Inventory cell.
+
+	private Scene scene;
+	private Player player;
+	private MansionMap mansion;
+
+	private Snapshot current;
+	private ArrayDeque<Snapshot> undo = new ArrayDeque<Snapshot>();
+	private ArrayDeque<Snapshot> redo = new ArrayDeque<Snapshot>();
+	private HashMap<Integer, Integer> originals = new HashMap<Integer, Integer>();	// Room ids, then item ids + room count.
+
+	private long maxBytes;
+	private long bytes;
+
+	/**
+	 * This constructor starts the history of a game with the default cap.
+	 * @param scene The scene of the game.
+	 * @param player The player of the game.
+	 */
+	public GameHistory(Scene scene, Player player)
+	{
+		this(scene, player, DEFAULT_MAX_BYTES);
+	}
+
+	/**
+	 * This constructor starts the history of a game at its current state.
+	 * @param scene The scene of the game.
+	 * @param player The player of the game.
+	 * @param maxBytes The most memory the snapshots may take.
+	 */
+	public GameHistory(Scene scene, Player player, long maxBytes)
+	{
+		this.scene = scene;
+		this.player = player;
+		this.mansion = scene.getMansion();
+		this.maxBytes = maxBytes;
+
+		Inventory inventory = null;
+		for(Item item : player.getItems())
+			inventory = new Inventory(item.getId(), inventory);
+
+		this.current = new Snapshot(scene.getNode(), scene.getDirection(), inventory,
+				PersistentIntMap.empty(this.mansion.getRoomCount()), PersistentIntMap.empty(this.mansion.getItemCount()),
+				this.scene.getButtonText());
+		this.bytes = this.current.bytes;
+	}
+
+
+	// Getters:
+	public boolean canUndo()
+	{
+		return !this.undo.isEmpty();
+	}
+
+	public boolean canRedo()
+	{
+		return !this.redo.isEmpty();
+	}
+
+	public int getUndoCount()
+	{
+		return this.undo.size();
+	}
+
+	/**
+	 * The getBytes method estimates the memory of the snapshots kept.
+	 * @return The bytes of every snapshot, not counting the originals.
+	 */
+	public long getBytes()
+	{
+		return this.bytes;
+	}
+
+
+	// Functions:
+	/**
+	 * The perform method does an action of the player and keeps a snapshot
+	 * if it changed anything. Only the rooms and items the action can reach
+	 * from where the player stands are compared, the room the player is in
+	 * or next to and the rooms and items of the rules there.
+	 * @param action The action, like player::moveForward.
+	 */
+	public void perform(Runnable action)
+	{
+		int state = this.scene.getState();
+		int[] rooms = {
+			this.mansion.getNodeRoom(this.scene.getNode()),
+			this.roomAt(this.mansion.forward(state)),
+			this.roomAt(this.mansion.back(state)),
+			this.mansion.getGateRoom(state),
+			this.mansion.getUnlockRoom(state)
+		};
+		int[] unlock = this.mansion.getUnlockItems(state);
+		int inventorySize = this.player.getItems().size();
+
+		// Remember how rooms and items were before they are first changed.
+		for(int room : rooms)
+		{
+			if(room >= 0)
+			{
+				this.remember(room, this.current.rooms, this.roomFlags(room));
+				if(this.mansion.getRoomItem(room) >= 0)
+					this.remember(this.itemKey(this.mansion.getRoomItem(room)), this.current.items,
+							this.itemFlags(this.mansion.getRoomItem(room)));
+			}
+		}
+		for(int item : unlock)
+			this.remember(this.itemKey(item), this.current.items, this.itemFlags(item));
+
+		action.run();
+
+		PersistentIntMap roomMap = this.current.rooms, itemMap = this.current.items;
+		long bytes = SNAPSHOT_BYTES;
+
+		for(int room : rooms)
+		{
+			if(room < 0)
+				continue;
+
+			PersistentIntMap changed = this.update(roomMap, room, room, this.roomFlags(room));
+			if(changed != roomMap)
+				bytes += roomMap.getPathBytes();
+			roomMap = changed;
+
+			int item = this.mansion.getRoomItem(room);
+			if(item >= 0)
+			{
+				changed = this.update(itemMap, item, this.itemKey(item), this.itemFlags(item));
+				if(changed != itemMap)
+					bytes += itemMap.getPathBytes();
+				itemMap = changed;
+			}
+		}
+		for(int item : unlock)
+		{
+			PersistentIntMap changed = this.update(itemMap, item, this.itemKey(item), this.itemFlags(item));
+			if(changed != itemMap)
+				bytes += itemMap.getPathBytes();
+			itemMap = changed;
+		}
+
+		// Items are only ever added at the end, so a pick up shares the whole list.
+		ArrayList<Item> items = this.player.getItems();
+		Inventory inventory = this.current.inventory;
+
+		if(items.size() == inventorySize + 1)
+		{
+			inventory = new Inventory(items.get(items.size() - 1).getId(), inventory);
+			bytes += CELL_BYTES;
+		}
+		else if(items.size() != inventorySize)
+		{
+			inventory = null;
+			for(Item item : items)
+				inventory = new Inventory(item.getId(), inventory);
+			bytes += (long) items.size() * CELL_BYTES;
+		}
+
+		if(this.scene.getNode() == this.current.node && this.scene.getDirection() == this.current.dir
+				&& roomMap == this.current.rooms && itemMap == this.current.items && inventory == this.current.inventory)
+			return; // Nothing changed.
+
+		this.clearRedo();
+		this.undo.push(this.current);
+		this.current = new Snapshot(this.scene.getNode(), this.scene.getDirection(), inventory, roomMap, itemMap,
+				this.scene.getButtonText());
+		this.current.bytes = bytes;
+		this.bytes += bytes;
+
+		// Drop the oldest snapshots once over the cap.
+		while(this.bytes > this.maxBytes && !this.undo.isEmpty())
+			this.bytes -= this.undo.removeLast().bytes;
+	}
+
+	/**
+	 * The undo method takes the game back to before the last action.
+	 * @return True if there was an action to undo. Otherwise, false.
+	 */
+	public boolean undo()
+	{
+		if(this.undo.isEmpty())
+			return false;
+
+		this.redo.push(this.current);
+		this.restore(this.undo.pop());
+		return true;
+	}
+
+	/**
+	 * The redo method does the last undone action again.
+	 * @return True if there was an action to redo. Otherwise, false.
+	 */
+	public boolean redo()
+	{
+		if(this.redo.isEmpty())
+			return false;
+
+		this.undo.push(this.current);
+		this.restore(this.redo.pop());
+		return true;
+	}
+
+	/**
+	 * The restore method sets the game to a snapshot. Only the rooms and
+	 * items that differ from the current snapshot are set.
+	 * @param target The snapshot to go to.
+	 */
+	private void restore(Snapshot target)
+	{
+		this.current.rooms.diff(target.rooms, room -> {
+			int flags = this.flags(room, target.rooms.get(room));
+			Room view = this.scene.getRoom(room);
+
+			view.setLocked((flags & LOCKED) != 0);
+			view.setHasEntered((flags & ENTERED) != 0);
+		});
+
+		this.current.items.diff(target.items, item -> {
+			int flags = this.flags(this.itemKey(item), target.items.get(item));
+			Item view = this.scene.getItem(item);
+
+			view.setPickedUp((flags & PICKED_UP) != 0);
+			view.setUsed((flags & USED) != 0);
+		});
+
+		if(target.inventory != this.current.inventory)
+		{
+			ArrayList<Item> items = this.player.getItems();
+
+			items.clear();
+			for(Inventory cell = target.inventory; cell != null; cell = cell.next)
+				items.add(0, this.scene.getItem(cell.item));
+		}
+
+		this.scene.setButtonText(target.button);
+
+		this.current = target;
+		this.scene.updateScene(target.node, target.dir);
+
+		this.scene.publish(DeltaStream.of(DeltaStream.RESTORE), null); // Rooms anywhere may have changed.
+	}
+
+	private void clearRedo()
+	{
+		for(Snapshot snapshot : this.redo)
+			this.bytes -= snapshot.bytes;
+		this.redo.clear();
+	}
+
+	private void remember(int key, PersistentIntMap map, int flags)
+	{
+		int id = key < this.mansion.getRoomCount() ? key : key - this.mansion.getRoomCount();
+
+		if(map.get(id) == 0)
+			this.originals.putIfAbsent(key, flags);
+	}
+
+	/**
+	 * The update method sets the flags of a room or item in a map, unless
+	 * they were never changed from how they were at first.
+	 */
+	private PersistentIntMap update(PersistentIntMap map, int id, int key, int flags)
+	{
+		if(map.get(id) == 0 && this.originals.get(key) == flags)
+			return map;
+		return map.with(id, flags);
+	}
+
+	private int flags(int key, int value)
+	{
+		return value != 0 ? value : this.originals.get(key);
+	}
+
+	private int itemKey(int item)
+	{
+		return this.mansion.getRoomCount() + item;
+	}
+
+	private int roomAt(int state)
+	{
+		return state < 0 ? -1 : this.mansion.getNodeRoom(MansionDefinition.nodeOf(state));
+	}
+
+	private int roomFlags(int room)
+	{
+		Room view = this.scene.getRoom(room);
+		return SET | (view.isLocked() ? LOCKED : 0) | (view.hasEntered() ? ENTERED : 0);
+	}
+
+	private int itemFlags(int item)
+	{
+		Item view = this.scene.getItem(item);
+		return SET | (view.isPickedUp() ? PICKED_UP : 0) | (view.isUsed() ? USED : 0);
+	}
+
+	/**
+	 * The Snapshot class is the game after an action.
+	 */
+	private static final class Snapshot
+	{
+		private final int node, dir;
+		private final Inventory inventory;
+		private final PersistentIntMap rooms, items;
+		private final String button;
+		private long bytes = SNAPSHOT_BYTES;	// Memory this snapshot added to the ones before it.
+
+		Snapshot(int node, int dir, Inventory inventory, PersistentIntMap rooms, PersistentIntMap items, String button)
+		{
+			this.node = node;
+			this.dir = dir;
+			this.inventory = inventory;
+			this.rooms = rooms;
+			this.items = items;
+			this.button = button;
+		}
+	}
+
+	/**
+	 * The Inventory class is a cell of the items of a snapshot, the last item first.
+	 */
+	private static final class Inventory
+	{
+		private final int item;
+		private final Inventory next;
+
+		Inventory(int item, Inventory next)
+		{
+			this.item = item;
+			this.next = next;
+		}
+	}
+
+	/**
+	 * Play random actions with a history, report the memory it takes per
+	 * 10,000 actions and check that undoing and redoing everything gives
+	 * the same game back.
+	 * @param args -steps=<n> -nodes=<n> (generate a mansion) -cap=<bytes> -seed=<n>.
+	 */
+	public static void main(String[] args)
+	{
+		int steps = 10000, nodes = 0;
+		long cap = Long.MAX_VALUE, seed = 1;
+
+		for(String arg : args)
+		{
+			String value = arg.substring(arg.indexOf('=') + 1);
+
+			if(arg.startsWith("-steps="))
+				steps = Integer.parseInt(value);
+			else if(arg.startsWith("-nodes="))
+				nodes = Integer.parseInt(value);
+			else if(arg.startsWith("-cap="))
+				cap = Long.parseLong(value);
+			else if(arg.startsWith("-seed="))
+				seed = Long.parseLong(value);
+		}
+
+		MansionMap mansion = nodes > 0 ? new MansionGenerator(seed).generate(nodes) : MansionDefinition.getDefault();
+		Scene scene = new Scene(mansion, null, null);
+		Player player = new Player(new ArrayList<Item>(), scene);
+		SplittableRandom random = new SplittableRandom(seed);
+		Runnable[] actions = { player::moveForward, player::turnLeft, player::turnRight, player::moveBack,
+				player::pickUp, player::useItem };
+
+		// Create every room first, so the heap measured is only the history.
+		for(int room = 0; room < mansion.getRoomCount(); room++)
+			scene.getRoom(room);
+
+		String start = signature(scene, player);
+		Runtime runtime = Runtime.getRuntime();
+		System.gc();
+		long before = runtime.totalMemory() - runtime.freeMemory();
+
+		GameHistory history = new GameHistory(scene, player, cap);
+		for(int step = 0; step < steps; step++)
+			history.perform(actions[random.nextInt(actions.length)]);
+
+		System.gc();
+		long heap = runtime.totalMemory() - runtime.freeMemory() - before;
+		String end = signature(scene, player);
+
+		System.out.printf("%d nodes, %d actions, %d snapshots kept%n", mansion.getNodeCount(), steps, history.getUndoCount());
+		System.out.printf("estimated %d bytes (%.0f per 10,000 actions), heap grew %d bytes, cap %s%n",
+				history.getBytes(), history.getBytes() * 10000.0 / steps, heap, cap == Long.MAX_VALUE ? "none" : cap);
+
+		int undone = 0;
+		while(history.undo())
+			undone++;
+		boolean startMatches = cap != Long.MAX_VALUE || signature(scene, player).equals(start);
+
+		while(history.redo())
+			undone--;
+		boolean endMatches = signature(scene, player).equals(end);
+
+		System.out.println("undo to the start: " + (startMatches ? "ok" : "FAILED")
+				+ ", redo to the end: " + (endMatches && undone == 0 ? "ok" : "FAILED"));
+	}
+
+	private static String signature(Scene scene, Player player)
+	{
+		StringBuilder text = new StringBuilder();
+		MansionMap mansion = scene.getMansion();
+
+		text.append(scene.getNode()).append(',').append(scene.getDirection()).append(" [");
+		for(Item item : player.getItems())
+			text.append(item.getId()).append(' ');
+		text.append(']');
+
+		for(int room = 0; room < mansion.getRoomCount(); room++)
+		{
+			Room view = scene.getRoom(room);
+			text.append(view.isLocked() ? 'L' : '-').append(view.hasEntered() ? 'E' : '-');
+
+			if(view.getItem() != null)
+				text.append(view.getItem().isPickedUp() ? 'P' : '-').append(view.getItem().isUsed() ? 'U' : '-');
+		}
+		return text.toString();
+	}
+}
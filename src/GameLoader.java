@@ -0,0 +1,204 @@
+/**
+ * GameLoader Class
+ * The GameLoader class loads what the game needs before it can be played,
+ * on background threads, so the window can be shown at once. The mansion,
+ * the lore and the scene images are loaded at the same time, the images
+ * spread over the loader's threads as soon as the mansion says which files
+ * they are. The time of each phase of the start is recorded, so the time to
+ * the first frame can be followed from one version of the game to the next.
+ * fields:
+ * 	images: The scene images of the mansion, indexed like its images, a null where one couldn't be read.
+ * 	lore: The lore of the locale, or null if it couldn't be read and is read on first use instead.
+ * 	mansion: The mansion to be played.
+ * 	phases: The phases of the start that are done, in the order they finished.
+ * 	pool: The threads loading.
+ * 	start: When the loader was created, the start of every phase time.
+ * Date: 19 October 2026
+ * OOP Project 2: The Mansion
+ * @author Team 7
+ * @version 1.0
+ * @since 1.0
+ */
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import javax.swing.SwingUtilities;
+
+public class GameLoader
+{
+	private final long start = System.nanoTime();	// Phase times are from here.
+	private final ArrayList<String[]> phases = new ArrayList<String[]>();	// Name, thread, started and took.
+	private final ExecutorService pool;
+
+	private final CompletableFuture<MansionDefinition> mansion;
+	private final CompletableFuture<LoreTable> lore;
+	private final CompletableFuture<BufferedImage[]> images;
+
+	/**
+	 * This constructor starts loading the default mansion.
+	 * @param locale The locale of the lore to be loaded.
+	 */
+	public GameLoader(String locale)
+	{
+		this.pool = Executors.newFixedThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors()), runnable -> {
+			Thread thread = new Thread(runnable, "game-loader");
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		this.mansion = this.load("mansion", MansionDefinition::getDefault);
+		this.lore = this.load("lore", () -> {
+			try
+			{
+				return LoreTable.load(locale);
+			}
+			catch(IOException e)
+			{
+				e.printStackTrace();
+				System.out.println("Error loading lore [locale " + locale + "]");
+				return null; // Information reads it on first use.
+			}
+		});
+		this.images = this.mansion.thenCompose(this::loadImages);
+		this.images.whenComplete((images, e) -> this.pool.shutdown());
+	}
+
+
+	// Getters: only once ready.
+	public MansionDefinition getMansion()
+	{
+		return this.mansion.join();
+	}
+
+	public LoreTable getLore()
+	{
+		return this.lore.join();
+	}
+
+	public BufferedImage[] getImages()
+	{
+		return this.images.join();
+	}
+
+
+	// Functions:
+	/**
+	 * The mark method records a phase of the start done by the caller.
+	 * @param phase The name of the phase.
+	 * @param started When the phase started, from System.nanoTime.
+	 */
+	public void mark(String phase, long started)
+	{
+		long now = System.nanoTime();
+
+		synchronized(this.phases)
+		{
+			this.phases.add(new String[] { phase, Thread.currentThread().getName(),
+					millis(started - this.start), millis(now - started) });
+		}
+	}
+
+	/**
+	 * The whenReady method runs code on the event dispatch thread once
+	 * everything is loaded, or other code if the mansion couldn't be loaded,
+	 * like to tell the Player why.
+	 * @param ready The code to be run once loaded.
+	 * @param failed The code to be run with the error instead.
+	 */
+	public void whenReady(Runnable ready, Consumer<Throwable> failed)
+	{
+		CompletableFuture.allOf(this.mansion, this.lore, this.images).whenComplete((done, e) -> {
+			if(e != null)
+			{
+				Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+
+				e.printStackTrace();
+				System.out.println("Error loading the mansion");
+				SwingUtilities.invokeLater(() -> failed.accept(cause));
+				return;
+			}
+			SwingUtilities.invokeLater(ready);
+		});
+	}
+
+	/**
+	 * The printTimings method prints every phase of the start so far, with
+	 * when it started, how long it took and the thread it ran on.
+	 */
+	public void printTimings()
+	{
+		long jvm = System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+
+		System.out.println("Startup, " + millis(System.nanoTime() - this.start) + " ms since main, "
+				+ jvm + " ms since the JVM started:");
+		System.out.printf("  %-14s %-22s %10s %10s%n", "phase", "thread", "at ms", "took ms");
+
+		synchronized(this.phases)
+		{
+			for(String[] phase : this.phases)
+				System.out.printf("  %-14s %-22s %10s %10s%n", (Object[]) phase);
+		}
+		System.out.println("  " + ImageCache.getDefault().getReport());
+		if(this.lore.isDone() && this.getLore() != null)
+			System.out.println("  " + this.getLore().getReport());
+		System.out.println("  " + ConsoleGame.getFootprint());	// Like the console game, to compare.
+	}
+
+	private <T> CompletableFuture<T> load(String phase, Supplier<T> loader)
+	{
+		return CompletableFuture.supplyAsync(() -> {
+			long started = System.nanoTime();
+			T value = loader.get();
+
+			this.mark(phase, started);
+			return value;
+		}, this.pool);
+	}
+
+	/**
+	 * The loadImages method reads every scene image of a mansion, each on
+	 * whichever loader thread is free, decoded by the ImageCache unless it
+	 * already has them.
+	 */
+	private CompletableFuture<BufferedImage[]> loadImages(MansionDefinition mansion)
+	{
+		long started = System.nanoTime();
+		BufferedImage[] images = new BufferedImage[mansion.getImageCount()];
+		CompletableFuture<?>[] reads = new CompletableFuture<?>[images.length];
+
+		for(int i = 0; i < images.length; i++)
+		{
+			int image = i;
+
+			reads[i] = CompletableFuture.runAsync(() -> {
+				try
+				{
+					images[image] = ImageCache.getDefault().readAsset("img/" + mansion.getImageFile(image));
+				}
+				catch(IOException e)
+				{
+					e.printStackTrace();
+					System.out.println("Error loading image [" + mansion.getImageFile(image) + "]"); // Scene tries again.
+				}
+			}, this.pool);
+		}
+
+		return CompletableFuture.allOf(reads).thenApply(done -> {
+			this.mark("images", started);
+			return images;
+		});
+	}
+
+	private static String millis(long nanos)
+	{
+		return String.format("%.1f", nanos / 1e6);
+	}
+}
@@ -0,0 +1,383 @@
+/**
+ * GameStats Class
+ * The GameStats class counts what players do: steps, turns, items picked up
+ * and used, doors unlocked and bumped into, escapes and the time spent in
+ * each room. One GameStats can be shared by any number of players on any
+ * threads, like the bots of a simulation or the sessions of a server. Each
+ * counter is a LongAdder, so players on different threads add to different
+ * cells and never wait for each other, and counting costs an action no more
+ * than an addition.
+ * Everything else is done by a background thread: every period it sums the
+ * counters, unlocks the achievements they reach and writes them to a small
+ * binary file, replacing it at once so a crash never leaves half a file.
+ * Achievements are shown by the game, which is told of them on that thread.
+ * The totals already in the file are loaded first, so they grow from one
+ * game to the next.
+ * fields:
+ * 	achieved: The achievements unlocked, a bit each, and when they were unlocked.
+ * 	counters: The counters, indexed by the stat constants.
+ * 	file: The file the stats are written to, or null if they are only counted.
+ * 	flusher: The background thread writing the file.
+ * 	listener: The Listener told of each achievement unlocked, or null.
+ * 	roomNanos: The nanoseconds spent in each room.
+ * Date: 19 October 2026
+ * OOP Project 2: The Mansion
+ * @author Team 7
+ * @version 1.0
+ * @since 1.0
+ */
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+public class GameStats
+{
+	// Stats, the index of each counter.
+	public static final int STEPS = 0, TURNS = 1, PICK_UPS = 2, ITEMS_USED = 3, DOORS_UNLOCKED = 4,
+			BUMPS = 5, ESCAPES = 6;
+	public static final String[] NAMES = { "steps", "turns", "pick ups", "items used", "doors unlocked",
+			"bumps into locked doors", "escapes" };
+
+	// Achievements, the stat each needs and how much of it.
+	public static final String[] ACHIEVEMENTS = { "First Steps", "Collector", "Locksmith", "Persistent",
+			"Escape Artist", "Regular" };
+	private static final int[] ACHIEVEMENT_STAT = { STEPS, PICK_UPS, DOORS_UNLOCKED, BUMPS, ESCAPES, ESCAPES };
+	private static final long[] ACHIEVEMENT_COUNT = { 1, 5, 3, 10, 1, 10 };
+
+	private static final int MAGIC = 0x4d535431;	// "MST1", the version of the file.
+
+	private final LongAdder[] counters = new LongAdder[NAMES.length];
+	private final LongAdder[] roomNanos;
+
+	private long achieved;	// Only read and written while flushing.
+	private final long[] achievedAt = new long[ACHIEVEMENTS.length];
+
+	private File file;
+	private ScheduledExecutorService flusher;
+	private volatile Listener listener;
+
+	/**
+	 * This constructor creates stats that are only counted, not written.
+	 * @param roomCount The number of rooms of the mansion.
+	 */
+	public GameStats(int roomCount)
+	{
+		for(int i = 0; i < this.counters.length; i++)
+			this.counters[i] = new LongAdder();
+
+		this.roomNanos = new LongAdder[roomCount];
+		for(int i = 0; i < roomCount; i++)
+			this.roomNanos[i] = new LongAdder();
+	}
+
+	/**
+	 * The open method creates stats that start from the totals of a file
+	 * and are written back to it every period, and once more on exit.
+	 * @param file The file, created if it doesn't exist.
+	 * @param roomCount The number of rooms of the mansion.
+	 * @param seconds How often the file is written.
+	 * @return The stats.
+	 */
+	public static GameStats open(File file, int roomCount, long seconds)
+	{
+		GameStats stats = new GameStats(roomCount);
+
+		stats.file = file;
+		if(file.exists())
+		{
+			try
+			{
+				stats.read(file);
+			}
+			catch(IOException e)
+			{
+				e.printStackTrace();
+				System.out.println("Error reading stats [" + file + "], starting from zero");
+			}
+		}
+
+		stats.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "stats-flush");
+			thread.setDaemon(true);
+			thread.setPriority(Thread.MIN_PRIORITY);
+			return thread;
+		});
+		stats.flusher.scheduleWithFixedDelay(stats::flush, seconds, seconds, TimeUnit.SECONDS);
+		Runtime.getRuntime().addShutdownHook(new Thread(stats::flush, "stats-exit"));
+		return stats;
+	}
+
+
+	// Getters:
+	public long get(int stat)
+	{
+		return this.counters[stat].sum();
+	}
+
+	public long getRoomNanos(int room)
+	{
+		return this.roomNanos[room].sum();
+	}
+
+	public int getRoomCount()
+	{
+		return this.roomNanos.length;
+	}
+
+	/**
+	 * Get whether an achievement was unlocked, by the last flush.
+	 * @param achievement The index of the achievement in ACHIEVEMENTS.
+	 * @return True if it was unlocked.
+	 */
+	public synchronized boolean isAchieved(int achievement)
+	{
+		return (this.achieved & (1L << achievement)) != 0;
+	}
+
+
+	// Setters:
+	/**
+	 * The setListener method sets what is told of the achievements unlocked.
+	 * @param listener The Listener, or null.
+	 */
+	public void setListener(Listener listener)
+	{
+		this.listener = listener;
+	}
+
+
+	// Functions:
+	/**
+	 * The add method counts one of a stat.
+	 * @param stat The stat, like STEPS.
+	 */
+	public void add(int stat)
+	{
+		this.counters[stat].increment();
+	}
+
+	/**
+	 * The add method counts some of a stat.
+	 * @param stat The stat, like ITEMS_USED.
+	 * @param count How many.
+	 */
+	public void add(int stat, long count)
+	{
+		this.counters[stat].add(count);
+	}
+
+	/**
+	 * The addRoomTime method counts time spent in a room.
+	 * @param room The room.
+	 * @param nanos The nanoseconds spent.
+	 */
+	public void addRoomTime(int room, long nanos)
+	{
+		if(room >= 0 && room < this.roomNanos.length)
+			this.roomNanos[room].add(nanos);
+	}
+
+	/**
+	 * The flush method unlocks the achievements the counters reach and
+	 * writes the stats to their file, if they have one. Players go on
+	 * counting meanwhile, their actions are in the next flush.
+	 */
+	public synchronized void flush()
+	{
+		Listener listener = this.listener;
+
+		for(int i = 0; i < ACHIEVEMENTS.length; i++)
+		{
+			if(!this.isAchieved(i) && this.get(ACHIEVEMENT_STAT[i]) >= ACHIEVEMENT_COUNT[i])
+			{
+				this.achieved |= 1L << i;
+				this.achievedAt[i] = System.currentTimeMillis();
+
+				if(listener != null)
+					listener.achieved(i);
+			}
+		}
+
+		if(this.file == null)
+			return;
+
+		File parent = this.file.getAbsoluteFile().getParentFile();
+		File temp = new File(parent, this.file.getName() + ".tmp");
+
+		try
+		{
+			parent.mkdirs();
+			this.write(temp);
+			Files.move(temp.toPath(), this.file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		}
+		catch(IOException e)
+		{
+			e.printStackTrace();
+			System.out.println("Error writing stats [" + this.file + "]");
+		}
+	}
+
+	/**
+	 * The close method stops writing the stats in the background and
+	 * writes them one last time.
+	 */
+	public void close()
+	{
+		if(this.flusher != null)
+			this.flusher.shutdownNow();
+		this.flush();
+	}
+
+	/**
+	 * The write method writes the stats: the counters, the time of each
+	 * room, then the achievements and when each was unlocked.
+	 */
+	private void write(File file) throws IOException
+	{
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+
+		try
+		{
+			out.writeInt(MAGIC);
+			out.writeByte(this.counters.length);
+			for(LongAdder counter : this.counters)
+				out.writeLong(counter.sum());
+
+			out.writeInt(this.roomNanos.length);
+			for(LongAdder nanos : this.roomNanos)
+				out.writeLong(nanos.sum());
+
+			out.writeLong(this.achieved);
+			for(int i = 0; i < ACHIEVEMENTS.length; i++)
+			{
+				if(this.isAchieved(i))
+					out.writeLong(this.achievedAt[i]);
+			}
+		}
+		finally
+		{
+			out.close();
+		}
+	}
+
+	/**
+	 * The read method adds the totals of a file to the counters. Stats and
+	 * rooms the file doesn't have stay at zero, ones it has extra are skipped.
+	 */
+	private void read(File file) throws IOException
+	{
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+
+		try
+		{
+			if(in.readInt() != MAGIC)
+				throw new IOException("not a stats file");
+
+			int counters = in.readUnsignedByte();
+			for(int i = 0; i < counters; i++)
+			{
+				long value = in.readLong();
+				if(i < this.counters.length)
+					this.counters[i].add(value);
+			}
+
+			int rooms = in.readInt();
+			for(int i = 0; i < rooms; i++)
+			{
+				long nanos = in.readLong();
+				if(i < this.roomNanos.length)
+					this.roomNanos[i].add(nanos);
+			}
+
+			long achieved = in.readLong();
+			for(int i = 0; i < 64; i++)
+			{
+				if((achieved & (1L << i)) == 0)
+					continue;
+
+				long at = in.readLong();
+				if(i < ACHIEVEMENTS.length)
+				{
+					this.achieved |= 1L << i;
+					this.achievedAt[i] = at;
+				}
+			}
+		}
+		finally
+		{
+			in.close();
+		}
+	}
+
+	/**
+	 * The getDefaultFile method finds where the game keeps its stats.
+	 * @param name The name of the file.
+	 * @return The file in the .mansion directory of the user's home.
+	 */
+	public static File getDefaultFile(String name)
+	{
+		return new File(new File(System.getProperty("user.home"), ".mansion"), name);
+	}
+
+	/**
+	 * Print a stats file.
+	 * @param args The file, the game's stats if not given.
+	 */
+	public static void main(String[] args)
+	{
+		File file = args.length > 0 ? new File(args[0]) : getDefaultFile("stats.dat");
+		MansionMap mansion = MansionDefinition.getDefault();
+		GameStats stats = new GameStats(mansion.getRoomCount());
+
+		try
+		{
+			stats.read(file);
+		}
+		catch(IOException e)
+		{
+			e.printStackTrace();
+			System.out.println("Error reading stats [" + file + "]");
+			return;
+		}
+
+		System.out.println(file + ", " + file.length() + " bytes:");
+		for(int i = 0; i < NAMES.length; i++)
+			System.out.printf("  %-24s %d%n", NAMES[i], stats.get(i));
+
+		for(int room = 0; room < stats.getRoomCount(); room++)
+		{
+			if(stats.getRoomNanos(room) > 0)
+				System.out.printf("  %-24s %.1f s%n", "time in " + mansion.getRoomName(room), stats.getRoomNanos(room) / 1e9);
+		}
+
+		for(int i = 0; i < ACHIEVEMENTS.length; i++)
+			System.out.printf("  %-24s %s%n", ACHIEVEMENTS[i], stats.isAchieved(i)
+					? "unlocked " + new java.util.Date(stats.achievedAt[i]) : "locked");
+	}
+
+	/**
+	 * The Listener interface is told of each achievement as it is unlocked,
+	 * on the thread flushing the stats, so it shouldn't touch the game itself.
+	 */
+	public interface Listener
+	{
+		/**
+		 * The achieved method is told of an achievement just unlocked.
+		 * @param achievement The index of the achievement in ACHIEVEMENTS.
+		 */
+		void achieved(int achievement);
+	}
+}
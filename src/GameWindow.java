@@ -3,7 +3,7 @@
  * The GameWindow class creates the GUI that allows a user to navigate through
  * the game with a Player character and interact with Item objects.
  * fields:
- * 	bg: A JLabel object that is used to hold the scene attributes.
+ * 	bg: A ScenePanel object that is used to show the scene image, rescaled to the window.
  * 	btn_Back: A JButton object that is used to hold the attributes that represent a "Back" button in the game.
  * 	btn_Forward: A JButton object that is used to hold the attributes that represent a "Forward" button in the game.
  * 	btn_Left: A JButton object that is used to hold the attributes that represent a "Turn Left" button in the game.
@@ -11,11 +11,17 @@
  * 	btn_Right: A JButton object that is used to hold the attributes that represent a "Turn Right" button in the game.
  * 	btn_Use: A JButton object that is used to hold the attributes that represent a "Use Item" button in the game.
  * 	frame: A JFram object used to hold the GUI components
- * 	ii: An ImageIcon object used to hold a scene image
+ * 	list_Inventory: An InventoryList object used to show every Item in the Player's inventory.
+ * 	item_Journal: A JMenuItem object used to open the journal of the lore shown so far.
+ * 	item_Undo, item_Redo: JMenuItem objects used to undo and redo the Player's actions.
+ * 	menu_Language: A JMenu object used to hold one item per available lore locale.
  * 	panel_Buttons: A JPanel object used to hold all JButtons
+ * 	panel_Map: A JPanel object used to hold the minimap once the mansion is loaded.
  * 	panel_Information: A JPanel object used to hold the information that will be displayed to the Player.
  * 	panel_Inventory: A JPanel object used to hold a Player's Inventory
  * 	txt_Information: A JtextPane object used to hold information that corresponds to the lore of the game.
+ * The window can be resized: the scene, the information and the map grow with
+ * it, the inventory and the buttons keep their size.
  * Date: 02 December 2017
  * OOP Project 2: The Mansion
  * @author Team 7
@@ -23,6 +29,7 @@
  * @since 1.0
  */
 
+import java.awt.BorderLayout;
 import java.awt.EventQueue;
 import javax.swing.JFrame;
 import java.awt.Color;
@@ -38,9 +45,20 @@ import javax.swing.JDesktopPane;
 import java.awt.FlowLayout;
 import java.awt.Graphics2D;
 import java.awt.event.ActionListener;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
 import java.awt.image.BufferedImage;
 import java.awt.event.ActionEvent;
 import javax.swing.JLabel;
+import javax.swing.JMenu;
+import javax.swing.JMenuBar;
+import javax.swing.JMenuItem;
+import javax.swing.KeyStroke;
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
+import javax.swing.JRadioButtonMenuItem;
+import javax.swing.ButtonGroup;
+import javax.swing.JScrollPane;
 import javax.swing.JSeparator;
 import javax.swing.JTextPane;
 import javax.swing.SwingConstants;
@@ -63,15 +81,23 @@ public class GameWindow {
 
 	private JFrame frame; // to hold the GUI components
 	
-	private JLabel bg; // to hold the attributes of a scene
-	private ImageIcon ii; // to hold an image for a scene
+	private ScenePanel bg; // to show the scene image
 	
 	private JPanel panel_Information, // to hold the information to be displayed to the Player
 		   panel_Inventory, // to hold a Player's inventory of Items
-		   panel_Buttons; // to hold the JButtons
+		   panel_Buttons, // to hold the JButtons
+		   panel_Map; // to hold the minimap
 	
 	private JTextPane txt_Information; // to hold information regarding the lore of the game.
 	
+	private InventoryList list_Inventory; // to show the Player's Items
+	
+	private JMenu menu_Language; // to hold the available lore locales
+	
+	private JMenuItem item_Undo, // to undo the Player's last action
+		    item_Redo, // to redo the last undone action
+		    item_Journal; // to open the journal
+	
 	// these buttons are used to allow the Player to move and interact within the game.
 	private JButton btn_PickUp,
 		    btn_Forward,
@@ -99,9 +125,45 @@ public class GameWindow {
 		frame = new JFrame();
 		frame.getContentPane().setBackground(Color.LIGHT_GRAY);
 		frame.getContentPane().setLayout(null);
-		frame.setResizable(false);
+		frame.setResizable(true);
 		frame.setTitle("The Mansion");
 		
+		JMenuBar menuBar = new JMenuBar();
+		frame.setJMenuBar(menuBar);
+		
+		JMenu menu_Edit = new JMenu("Edit");
+		menuBar.add(menu_Edit);
+		
+		int shortcut = InputEvent.CTRL_DOWN_MASK;
+		
+		this.item_Undo = new JMenuItem("Undo");
+		item_Undo.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_Z, shortcut));
+		menu_Edit.add(item_Undo);
+		
+		this.item_Redo = new JMenuItem("Redo");
+		item_Redo.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_Y, shortcut));
+		menu_Edit.add(item_Redo);
+		
+		JMenu menu_View = new JMenu("View");
+		menuBar.add(menu_View);
+		
+		this.item_Journal = new JMenuItem("Journal");
+		item_Journal.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_J, shortcut));
+		menu_View.add(item_Journal);
+		
+		this.menu_Language = new JMenu("Language");
+		menuBar.add(menu_Language);
+		
+		ButtonGroup group_Language = new ButtonGroup();
+		for(String locale : LoreTable.getAvailableLocales())
+		{
+			JRadioButtonMenuItem item = new JRadioButtonMenuItem(locale);
+			item.setActionCommand(locale);
+			item.setSelected(locale.equals(LoreTable.DEFAULT_LOCALE));
+			group_Language.add(item);
+			menu_Language.add(item);
+		}
+		
 		this.panel_Information = new JPanel();
 		panel_Information.setBounds(370, 11, 204, 300);
 		frame.getContentPane().add(panel_Information);
@@ -114,7 +176,9 @@ public class GameWindow {
 		txt_Information.setBounds(10, 29, 184, 260);
 		panel_Information.add(txt_Information);
 		
-		this.bg = new JLabel();
+		this.bg = new ScenePanel();
+		bg.setBounds(10, 11, 350, 300);
+		frame.getContentPane().add(bg);
 		
 		JLabel lbl_Information = new JLabel("Information");
 		lbl_Information.setHorizontalAlignment(SwingConstants.CENTER);
@@ -131,11 +195,26 @@ public class GameWindow {
 		lbl_Inventory.setBounds(10, 0, 184, 30);
 		panel_Inventory.add(lbl_Inventory);
 		
-		this.btn_Use = new JButton("");
+		this.list_Inventory = new InventoryList();
+		JScrollPane scroll_Inventory = new JScrollPane(list_Inventory);
+		scroll_Inventory.setBounds(10, 31, 184, 146);
+		panel_Inventory.add(scroll_Inventory);
+		
+		this.btn_Use = new JButton("Use");
 		btn_Use.setFont(new Font("Tahoma", Font.PLAIN, 18));
-		btn_Use.setBounds(10, 31, 184, 186);
+		btn_Use.setBounds(10, 183, 184, 34);
 		panel_Inventory.add(btn_Use);
 		
+		this.panel_Map = new JPanel();
+		panel_Map.setBounds(584, 11, 200, 539);
+		frame.getContentPane().add(panel_Map);
+		panel_Map.setLayout(new BorderLayout());
+		
+		JLabel lbl_Map = new JLabel("Map");
+		lbl_Map.setHorizontalAlignment(SwingConstants.CENTER);
+		lbl_Map.setPreferredSize(new Dimension(184, 30));
+		panel_Map.add(lbl_Map, BorderLayout.NORTH);
+		
 		this.panel_Buttons = new JPanel();
 		panel_Buttons.setBounds(224, 322, 350, 228);
 		frame.getContentPane().add(panel_Buttons);
@@ -205,8 +284,41 @@ public class GameWindow {
 		JLabel label_19 = new JLabel("");
 		panel_Buttons.add(label_19, "cell 4 4,grow");
 		
-		frame.setBounds(100, 100, 600, 600);
+		frame.setBounds(100, 100, 800, 600 + menuBar.getPreferredSize().height);
+		frame.setMinimumSize(frame.getSize());
 		frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+		
+		frame.getContentPane().addComponentListener(new ComponentAdapter()
+		{
+			/**
+			 * Lay the panels out again for the new size.
+			 */
+			@Override
+			public void componentResized(ComponentEvent e)
+			{
+				layoutPanels();
+			}
+		});
+	}
+	
+	/**
+	 * The layoutPanels method fits the panels to the size of the window.
+	 * The scene takes the room the inventory, the information and the map
+	 * don't need, the information and the map are as tall as it lets them.
+	 */
+	private void layoutPanels()
+	{
+		int width = frame.getContentPane().getWidth(), height = frame.getContentPane().getHeight();
+		int sceneWidth = Math.max(350, width - 434), sceneHeight = Math.max(300, height - 250);
+		int bottom = 11 + sceneHeight + 11;
+		
+		bg.setBounds(10, 11, sceneWidth, sceneHeight);
+		panel_Information.setBounds(sceneWidth + 20, 11, 204, sceneHeight);
+		txt_Information.setBounds(10, 29, 184, sceneHeight - 40);
+		panel_Inventory.setBounds(10, bottom, 204, 228);
+		panel_Buttons.setBounds(224, bottom, sceneWidth, 228);
+		panel_Map.setBounds(sceneWidth + 234, 11, 200, bottom + 228 - 11);
+		frame.getContentPane().revalidate();
 	}
 
 	
@@ -233,6 +345,35 @@ public class GameWindow {
 		return this.panel_Buttons;
 	}
 	
+	public JPanel getMapPanel()
+	{
+		return this.panel_Map;
+	}
+	
+	
+	// JMenu Getter
+	public JMenu getLanguageMenu()
+	{
+		return this.menu_Language;
+	}
+	
+	
+	// JMenuItem Getters
+	public JMenuItem getUndoItem()
+	{
+		return this.item_Undo;
+	}
+	
+	public JMenuItem getRedoItem()
+	{
+		return this.item_Redo;
+	}
+	
+	public JMenuItem getJournalItem()
+	{
+		return this.item_Journal;
+	}
+	
 	
 	// JTextPane Getter
 	public JTextPane getInformationText()
@@ -241,6 +382,13 @@ public class GameWindow {
 	}
 	
 	
+	// InventoryList Getter
+	public InventoryList getInventoryList()
+	{
+		return this.list_Inventory;
+	}
+	
+	
 	// JButton Getters
 	public JButton getBtnPickUp()
 	{
@@ -272,14 +420,38 @@ public class GameWindow {
 		return this.btn_Use;
 	}
 	
+	/**
+	 * The setMinimap method puts the minimap in its panel.
+	 * @param minimap The MinimapPanel of the mansion being played.
+	 */
+	public void setMinimap(MinimapPanel minimap)
+	{
+		panel_Map.add(minimap, BorderLayout.CENTER);
+		panel_Map.revalidate();
+	}
+	
+	/**
+	 * The setControlsEnabled method enables or disables everything the
+	 * Player can act with, like while the game is still loading.
+	 * @param enabled True to enable the controls.
+	 */
+	public void setControlsEnabled(boolean enabled)
+	{
+		JButton[] buttons = { btn_Forward, btn_Back, btn_Left, btn_Right, btn_PickUp, btn_Use };
+		
+		for(JButton button : buttons)
+			button.setEnabled(enabled);
+		
+		for(int i = 0; i < frame.getJMenuBar().getMenuCount(); i++)
+			frame.getJMenuBar().getMenu(i).setEnabled(enabled);
+	}
+	
 	/**
 	 * The setSceneImage method sets the image of the current scene.
-	 * @param img The image to be added to the ImageIcon
+	 * @param img The image to be shown, rescaled to the window.
 	 */
 	public void setSceneImage(BufferedImage img)
 	{
-		this.bg.setBounds(10, 11, 350, 300); // Set image bounds and size.
-		this.bg.setIcon(new ImageIcon(img)); // Set the background of JLabel.
-		this.frame.getContentPane().add(bg); // Add JLabel to our game window.
+		this.bg.setImage(img);
 	}
 }
@@ -0,0 +1,346 @@
+/**
+ * ImageCache Class
+ * The ImageCache class keeps the scene images decoded on disk, so a game
+ * started again doesn't decode the same PNG files again. Each image is kept
+ * as its pixels, already in the format the screen draws fastest, in a file
+ * named by a hash of the asset's name and the SHA-256 of the PNG's bytes.
+ * Hashing a file is much faster than decoding it, and a changed asset has
+ * another hash, so it is never read from an old entry: it is decoded and
+ * cached again, and the old entries of the asset are deleted.
+ * Each entry also keeps how long its PNG took to decode, so every image read
+ * from the cache adds the time it saved to a total for the report.
+ * fields:
+ * 	directory: The directory the entries are kept in.
+ * 	hits, misses: How many images were read from the cache and how many were decoded.
+ * 	readNanos, savedNanos: The time spent reading entries and the decode time they saved.
+ * Date: 19 October 2026
+ * OOP Project 2: The Mansion
+ * @author Team 7
+ * @version 1.0
+ * @since 1.0
+ */
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.imageio.ImageIO;
+
+public class ImageCache
+{
+	private static final int MAGIC = 0x4d494331;	// "MIC1", the version of the entries.
+	private static final int HEADER = 24;			// Magic, width, height, type and decode nanos.
+
+	private static ImageCache defaultCache;
+
+	private final File directory;
+	private final AtomicLong hits = new AtomicLong(), misses = new AtomicLong();
+	private final AtomicLong readNanos = new AtomicLong(), savedNanos = new AtomicLong();
+
+	/**
+	 * This constructor creates a cache in a directory, created on the first write.
+	 * @param directory The directory of the entries.
+	 */
+	public ImageCache(File directory)
+	{
+		this.directory = directory;
+	}
+
+	/**
+	 * The getDefault method gets the cache of the game, in the user's cache
+	 * directory: XDG_CACHE_HOME or ~/.cache, or LOCALAPPDATA on Windows.
+	 * @return The cache, the same one every time.
+	 */
+	public static synchronized ImageCache getDefault()
+	{
+		if(defaultCache == null)
+		{
+			String base = System.getenv("XDG_CACHE_HOME");
+
+			if(base == null && System.getProperty("os.name").startsWith("Windows"))
+				base = System.getenv("LOCALAPPDATA");
+			if(base == null)
+				base = new File(System.getProperty("user.home"), ".cache").getPath();
+
+			defaultCache = new ImageCache(new File(new File(base, "mansion"), "images"));
+		}
+		return defaultCache;
+	}
+
+
+	// Getters:
+	public File getDirectory()
+	{
+		return this.directory;
+	}
+
+	public long getHits()
+	{
+		return this.hits.get();
+	}
+
+	public long getMisses()
+	{
+		return this.misses.get();
+	}
+
+	public long getSavedNanos()
+	{
+		return this.savedNanos.get();
+	}
+
+	/**
+	 * The getReport method tells how the cache did so far.
+	 * @return The hits, the misses and the decode time saved.
+	 */
+	public String getReport()
+	{
+		return String.format("%d images from the cache in %.1f ms, %d decoded, %.1f ms of decoding saved",
+				this.hits.get(), this.readNanos.get() / 1e6, this.misses.get(), this.savedNanos.get() / 1e6);
+	}
+
+
+	// Functions:
+	/**
+	 * The read method reads an image from the cache, or decodes it and
+	 * keeps it in the cache if the cache has no entry for these bytes.
+	 * @param source The image file.
+	 * @return The image, an INT_RGB or INT_ARGB BufferedImage.
+	 * @throws IOException If the file can't be read or decoded.
+	 */
+	public BufferedImage read(File source) throws IOException
+	{
+		long started = System.nanoTime();
+		return this.read(source.getPath(), Files.readAllBytes(source.toPath()), started);
+	}
+
+	/**
+	 * The readAsset method reads an image of the Assets, like read does a file.
+	 * @param name The name of the asset, like img/node_0_Mansion.png.
+	 * @return The image, an INT_RGB or INT_ARGB BufferedImage.
+	 * @throws IOException If the asset can't be read or decoded.
+	 */
+	public BufferedImage readAsset(String name) throws IOException
+	{
+		long started = System.nanoTime();
+		return this.read(name, Assets.getDefault().read(name), started);
+	}
+
+	private BufferedImage read(String source, byte[] bytes, long started) throws IOException
+	{
+		String prefix = hash(source.getBytes(StandardCharsets.UTF_8)).substring(0, 16) + "-";	// The entries of the asset.
+		File entry = new File(this.directory, prefix + hash(bytes) + ".px");
+
+		if(entry.isFile())
+		{
+			try
+			{
+				long[] decodeNanos = new long[1];
+				BufferedImage image = this.readEntry(entry, decodeNanos);
+				long took = System.nanoTime() - started;	// Hashing included.
+
+				this.hits.incrementAndGet();
+				this.readNanos.addAndGet(took);
+				this.savedNanos.addAndGet(Math.max(0, decodeNanos[0] - took));
+				return image;
+			}
+			catch(IOException e)
+			{
+				System.out.println("Error reading cached image [" + entry + "], decoding again");
+			}
+		}
+
+		started = System.nanoTime();
+		BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(bytes));
+
+		if(decoded == null)
+			throw new IOException("not an image: " + source);
+
+		BufferedImage image = toDisplay(decoded);
+		long took = System.nanoTime() - started;
+
+		this.misses.incrementAndGet();
+		try
+		{
+			this.writeEntry(entry, image, took);
+			this.deleteOthers(prefix, entry);
+		}
+		catch(IOException e)
+		{
+			e.printStackTrace();
+			System.out.println("Error caching image [" + entry + "]"); // Decoded again next time.
+		}
+		return image;
+	}
+
+	/**
+	 * The toDisplay method copies an image into an INT_RGB image, or INT_ARGB
+	 * if it has transparency, which Java2D draws without converting the pixels.
+	 */
+	private static BufferedImage toDisplay(BufferedImage image)
+	{
+		int type = image.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+
+		if(image.getType() == type)
+			return image;
+
+		BufferedImage display = new BufferedImage(image.getWidth(), image.getHeight(), type);
+		display.getRaster().setDataElements(0, 0, image.getWidth(), image.getHeight(),
+				image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth()));
+		return display;
+	}
+
+	/**
+	 * The readEntry method maps an entry and copies its pixels straight into
+	 * the image's own pixel array.
+	 * @param decodeNanos Gets how long the image took to decode when it was cached.
+	 */
+	private BufferedImage readEntry(File entry, long[] decodeNanos) throws IOException
+	{
+		try(FileChannel channel = FileChannel.open(entry.toPath(), StandardOpenOption.READ))
+		{
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+			if(channel.size() < HEADER || buffer.getInt() != MAGIC)
+				throw new IOException("not a cached image");
+
+			int width = buffer.getInt(), height = buffer.getInt(), type = buffer.getInt();
+			decodeNanos[0] = buffer.getLong();
+
+			if(width <= 0 || height <= 0 || channel.size() != HEADER + 4L * width * height
+					|| (type != BufferedImage.TYPE_INT_RGB && type != BufferedImage.TYPE_INT_ARGB))
+				throw new IOException("corrupt cached image");
+
+			BufferedImage image = new BufferedImage(width, height, type);
+			buffer.asIntBuffer().get(((DataBufferInt) image.getRaster().getDataBuffer()).getData());
+
+			return image;
+		}
+	}
+
+	/**
+	 * The writeEntry method writes an entry to a file of its own, then moves
+	 * it in place, so a reader never sees half an entry.
+	 */
+	private void writeEntry(File entry, BufferedImage image, long decodeNanos) throws IOException
+	{
+		this.directory.mkdirs();
+		Path temp = Files.createTempFile(this.directory.toPath(), "entry", ".tmp");
+		int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+		ByteBuffer buffer = ByteBuffer.allocate(HEADER + 4 * pixels.length);
+
+		buffer.putInt(MAGIC).putInt(image.getWidth()).putInt(image.getHeight()).putInt(image.getType())
+				.putLong(decodeNanos);
+		buffer.asIntBuffer().put(pixels);
+
+		try(OutputStream out = Files.newOutputStream(temp))
+		{
+			out.write(buffer.array());
+		}
+		Files.move(temp, entry.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * The deleteOthers method deletes the entries of an older version of an
+	 * asset, so the cache only grows with new assets.
+	 * @param prefix The start of the names of the asset's entries.
+	 * @param kept The entry of the asset as it is now.
+	 */
+	private void deleteOthers(String prefix, File kept)
+	{
+		File[] stale = this.directory.listFiles((directory, name) ->
+				name.startsWith(prefix) && name.endsWith(".px") && !name.equals(kept.getName()));
+
+		for(File entry : stale == null ? new File[0] : stale)
+		{
+			if(!entry.delete())
+				System.out.println("Error deleting old cached image [" + entry + "]");
+		}
+	}
+
+	private static String hash(byte[] bytes)
+	{
+		try
+		{
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+			StringBuilder hex = new StringBuilder();
+
+			for(byte b : digest)
+				hex.append(Character.forDigit((b >> 4) & 15, 16)).append(Character.forDigit(b & 15, 16));
+			return hex.toString();
+		}
+		catch(NoSuchAlgorithmException e)
+		{
+			throw new IllegalStateException(e); // Every JDK has SHA-256.
+		}
+	}
+
+	/**
+	 * Time reading every image of a directory decoded, then cold from an
+	 * empty cache and warm from the filled one.
+	 * @param args -dir=<images> -cache=<directory> -rounds=<n>
+	 */
+	public static void main(String[] args) throws IOException
+	{
+		File images = new File("src/assets/img");
+		File cache = null;
+		int rounds = 5;
+
+		for(String arg : args)
+		{
+			String value = arg.substring(arg.indexOf('=') + 1);
+
+			if(arg.startsWith("-dir="))
+				images = new File(value);
+			else if(arg.startsWith("-cache="))
+				cache = new File(value);
+			else if(arg.startsWith("-rounds="))
+				rounds = Integer.parseInt(value);
+		}
+
+		if(cache == null)
+			cache = Files.createTempDirectory("mansion-cache").toFile();
+
+		File[] files = images.listFiles((directory, name) -> name.endsWith(".png"));
+
+		for(int round = 0; round < rounds; round++)
+		{
+			long started = System.nanoTime();
+			for(File file : files)
+				ImageIO.read(file);
+			long decode = System.nanoTime() - started;
+
+			for(File entry : cache.listFiles())
+				entry.delete();
+			ImageCache cold = new ImageCache(cache);
+			started = System.nanoTime();
+			for(File file : files)
+				cold.read(file);
+			long miss = System.nanoTime() - started;
+
+			ImageCache warm = new ImageCache(cache);
+			started = System.nanoTime();
+			for(File file : files)
+				warm.read(file);
+			long hit = System.nanoTime() - started;
+
+			System.out.printf("%d images: ImageIO %.1f ms, cold cache %.1f ms, warm cache %.1f ms%n",
+					files.length, decode / 1e6, miss / 1e6, hit / 1e6);
+			if(round == rounds - 1)
+				System.out.println("  " + warm.getReport());
+		}
+	}
+}
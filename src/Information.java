@@ -4,8 +4,19 @@
  * that is to be displayed to the viewer. This is what creates
  * the lore of the game.
  * fields:
- * 	infoPane: A JTextPane object used to hold and display information to the Player.
- * Information class reads from the src/assets/info/info.dat file
+ * 	dir: The direction of the information that is currently displayed.
+ * 	publisher: The Scene the displayed text is published through instead of written to infoPane, or null.
+ * 	journal: The LoreIndex every text displayed in infoPane is added to, or null.
+ * 	infoPane: A JTextPane object used to hold and display information to the Player,
+ * 		or null when nothing is displayed, like when bots play the game.
+ * 	locale: The locale that is being displayed, or being loaded in the background.
+ * 	lore: The LoreTable of the locale, loaded on first use.
+ * 	node: The node of the information that is currently displayed.
+ * 	text: The text that is currently displayed, or null if it is the lore
+ * 		of node, dir and type and there is no infoPane it was read for.
+ * 	type: The type of the information that is currently displayed.
+ * Information class reads from the info/info.dat asset
+ * and the info/info_<locale>.dat assets through LoreTable.
  * Date: 02 December 2017
  * OOP Project 2: The Mansion
  * @author Team 7
@@ -13,15 +24,30 @@
  * @since 1.0
  */
 
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.util.Scanner;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import javax.swing.JTextPane;
+import javax.swing.SwingUtilities;
 
 public class Information 
 {
+	// Loads lore tables off the event dispatch thread when the locale is switched.
+	private static final ExecutorService LOADER = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "lore-loader");
+		thread.setDaemon(true);
+		return thread;
+	});
 	
 	private JTextPane infoPane;	// Our JTextPane to write information to.
+	
+	private volatile String locale = LoreTable.DEFAULT_LOCALE;	// Requested locale.
+	private volatile LoreTable lore;	// Lore of the current locale, null until first use.
+	
+	private int node, dir, type;	// Last information displayed.
+	private String text;			// Last text displayed, null until the lore is asked for.
+	private LoreIndex journal;		// Lore displayed so far, or null.
+	private Scene publisher;		// Publishes the text to be displayed, or null to write infoPane.
     
 	/**
 	 * This constructor accepts a JTextPane object and uses it to
@@ -30,6 +56,18 @@ public class Information
 	 */
     public Information(JTextPane infoPane)
     {
+        this(infoPane, null);
+    }
+    
+    /**
+     * This constructor accepts a JTextPane object and the lore of the
+     * default locale, already loaded.
+     * @param infoPane The JTextPane whose information is to be updated.
+     * @param lore The lore to be displayed, or null to read it on first use.
+     */
+    public Information(JTextPane infoPane, LoreTable lore)
+    {
+        this.lore = lore;
         this.setInformationPanel(infoPane); // add the current JTextPane to the JFrame.
         this.updateInformation(0, 0, 0); 	// Start of game information.
     }
@@ -47,6 +85,67 @@ public class Information
     }
     
 
+    /**
+     * The setLocale method switches the lore to another locale.
+     * The new LoreTable is loaded on a background thread and the
+     * current table stays in use until it is ready. The old table
+     * is then dropped so only one locale is ever kept in memory.
+     * @param locale The locale to switch to (e.g. "en", "es").
+     */
+    public void setLocale(String locale)
+    {
+    	if(locale.equals(this.locale))
+    		return;
+    	
+    	this.locale = locale;
+    	
+    	LOADER.execute(() -> {
+    		if(!locale.equals(this.locale)) // Another locale was requested meanwhile.
+    			return;
+    		
+    		try
+    		{
+    			LoreTable table = LoreTable.load(locale);
+    			
+    			SwingUtilities.invokeLater(() -> {
+    				if(!locale.equals(this.locale))
+    					return;
+    				
+    				this.lore = table;
+    				this.updateInformation(this.node, this.dir, this.type); // Redisplay in the new locale.
+    			});
+    		}
+    		catch(IOException e)
+    		{
+    			e.printStackTrace();
+    			System.out.println("Error loading lore [locale " + locale + "]");
+    		}
+    	});
+    }
+    
+
+    /**
+     * The setPublisher method publishes the displayed text as a MESSAGE
+     * through a Scene instead of writing it to infoPane, for whoever follows
+     * the Scene's DeltaStream to show.
+     * @param publisher The Scene, or null to write infoPane again.
+     */
+    public void setPublisher(Scene publisher)
+    {
+    	this.publisher = publisher;
+    }
+    
+
+    /**
+     * The setJournal method sets the journal the displayed lore is added to.
+     * @param journal The LoreIndex, or null to stop adding to it.
+     */
+    public void setJournal(LoreIndex journal)
+    {
+    	this.journal = journal;
+    }
+    
+
     // Getter:
     /**
      * The getInformationPanel gets the current JTextPane.
@@ -57,6 +156,36 @@ public class Information
         return this.infoPane;
     }
     
+    /**
+     * The getText method gets the text that is currently displayed. Without
+     * an infoPane the lore is only read when it is asked for here.
+     * @return The text.
+     */
+    public String getText()
+    {
+    	if(this.text == null)
+    		this.text = this.getInformationFromFile(this.node, this.dir, this.type);
+    	return this.text;
+    }
+    
+    /**
+     * The getJournal method gets the journal the displayed lore is added to.
+     * @return The LoreIndex, or null.
+     */
+    public LoreIndex getJournal()
+    {
+    	return this.journal;
+    }
+    
+    /**
+     * The getLocale method gets the locale that was last requested.
+     * @return The requested locale.
+     */
+    public String getLocale()
+    {
+    	return this.locale;
+    }
+    
 
     // Functions:
     /**
@@ -66,53 +195,47 @@ public class Information
      */
     public void writeInformation(String info)
     {
-        this.infoPane.setText(info);
+    	this.text = info;
+    	this.display(info);
+    }
+    
+    /**
+     * The display method shows a text, published if there is a Scene to
+     * publish it through, otherwise written to infoPane.
+     * @param text The text.
+     */
+    private void display(String text)
+    {
+    	if(this.publisher != null)
+    		this.publisher.publish(DeltaStream.of(DeltaStream.MESSAGE), text);
+    	else if(this.infoPane != null)
+    		this.infoPane.setText(text);
     }
     
     /**
-     * The getInformationFromFile method reads the information from the 
-     * file based on the Player's position and direction they are facing.
-     * It then writes the appropriate information to the JTextPane referenced
-     * by the infoPane field.
+     * The getInformationFromFile method gets the information for the
+     * Player's position and direction they are facing from the lore of
+     * the current locale. The lore file is only read the first time.
      * @param node The value that indicates the scene the Player is currently on.
      * @param dir The value that indicates the Player's direction.
      * @param type The value that determines the information to be displayed.
      */
     public String getInformationFromFile(int node, int dir, int type)
     {
-    	File file = new File("src/assets/info/info.dat");	// Get file from src.
-    	String line; // Each line of text on the file.
+    	LoreTable table = this.lore;
     	
-    	try {
-    		Scanner infoFile = new Scanner(file);
+    	try
+    	{
+    		if(table == null) // First use, load the lore of the current locale.
+    		{
+    			table = LoreTable.load(this.locale);
+    			this.lore = table;
+    		}
     		
-        	int _node; 	 // Node at information being looked at.
-        	int _dir;  	 // Dir at information being looked at.
-        	int _type; 	 // Type of information being looked at.
-        	String info; // Information string to be returned.
-        	
-        	while(infoFile.hasNext())
-        	{
-        		String[] token;
-        		line = infoFile.nextLine();
-        		token = line.split(":");
-        		
-        		_node = Integer.parseInt(token[0]);	// Get node from line.
-        		_dir = Integer.parseInt(token[1]);	// Get dir from line.
-        		_type = Integer.parseInt(token[2]); // Get type from line.
-        		info = token[3];					// Get the String of info from line.
-        		
-        		if(_node == node && _dir == dir && _type == type)
-        		{
-        			infoFile.close();
-        			return info;
-        		}
-        	}
-        	
-        	infoFile.close();
-    	}
-    	catch(FileNotFoundException e) {
-    		e.printStackTrace();
+    		String info = table.lookup(node, dir, type);
+    		
+    		if(info != null)
+    			return info;
     	}
     	catch(Exception e) {
     		e.printStackTrace();
@@ -131,7 +254,19 @@ public class Information
      */
     public void updateInformation(int node, int dir, int type)
     {
-    	this.infoPane.setText(this.getInformationFromFile(node, dir, type));
+    	this.node = node;
+    	this.dir = dir;
+    	this.type = type;
+    	this.text = null;
+    	
+    	if(this.infoPane != null || this.publisher != null) // Nothing to display to, don't read the lore until asked.
+    	{
+    		this.text = this.getInformationFromFile(node, dir, type);
+    		this.display(this.text);
+    		
+    		if(this.journal != null)
+    			this.journal.add(this.text);
+    	}
     }
 
 }
@@ -0,0 +1,170 @@
+/**
+ * InventoryList Class
+ * The InventoryList class shows every Item object in a Player's inventory,
+ * one row each, with an icon and the item's name. Rows all have the same
+ * size, so the list finds the rows in view without measuring any and only
+ * those rows are painted, however many items there are. The list follows
+ * the player's ItemList, a pick up or a use only repaints the rows it moved.
+ * Icons are drawn once per item type and kept.
+ * fields:
+ * 	ICONS: The icon of each item type drawn so far.
+ * 	model: The rows of the list, the items of the ItemList.
+ * Date: 19 October 2026
+ * OOP Project 2: The Mansion
+ * @author Team 7
+ * @version 1.0
+ * @since 1.0
+ */
+
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import javax.swing.AbstractListModel;
+import javax.swing.DefaultListCellRenderer;
+import javax.swing.Icon;
+import javax.swing.ImageIcon;
+import javax.swing.JList;
+
+public class InventoryList extends JList<Item>
+{
+	private static final long serialVersionUID = 1L;
+
+	private static final int ROW_HEIGHT = 26, ICON_SIZE = 18;
+	private static final HashMap<Integer, Icon> ICONS = new HashMap<Integer, Icon>();	// By item type.
+
+	private Model model;
+
+	/**
+	 * This constructor creates an empty list.
+	 */
+	public InventoryList()
+	{
+		this.model = new Model();
+		this.setModel(this.model);
+		this.setFixedCellHeight(ROW_HEIGHT);	// No row is measured.
+		this.setFixedCellWidth(1);				// Rows are as wide as the list.
+		this.setFont(new Font("Tahoma", Font.PLAIN, 14));
+		this.setCellRenderer(new DefaultListCellRenderer()
+		{
+			private static final long serialVersionUID = 1L;
+
+			/**
+			 * Show an item with the icon of its type.
+			 */
+			@Override
+			public Component getListCellRendererComponent(JList<?> list, Object value, int index,
+					boolean selected, boolean focused)
+			{
+				Item item = (Item) value;
+
+				super.getListCellRendererComponent(list, item.getName(), index, selected, focused);
+				this.setIcon(InventoryList.getIcon(item.getType()));
+				return this;
+			}
+		});
+	}
+
+
+	// Setters:
+	/**
+	 * The setItems method shows the items of a list and follows its changes.
+	 * @param items The ItemList of the Player.
+	 */
+	public void setItems(ItemList items)
+	{
+		this.model.setItems(items);
+	}
+
+
+	// Functions:
+	/**
+	 * The getIcon method gets the icon of an item type, drawing it the
+	 * first time. There are no item images, so each type gets a colour.
+	 * @param type The type of the item.
+	 * @return The icon.
+	 */
+	public static Icon getIcon(int type)
+	{
+		Icon icon = ICONS.get(type);
+
+		if(icon == null)
+		{
+			BufferedImage image = new BufferedImage(ICON_SIZE, ICON_SIZE, BufferedImage.TYPE_INT_ARGB);
+			Graphics2D g = image.createGraphics();
+			Color color = Color.getHSBColor((type * 0.618034f) % 1f, 0.55f, 0.85f);
+
+			g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+			g.setColor(color);
+			g.fillRoundRect(1, 1, ICON_SIZE - 2, ICON_SIZE - 2, 6, 6);
+			g.setColor(color.darker());
+			g.drawRoundRect(1, 1, ICON_SIZE - 3, ICON_SIZE - 3, 6, 6);
+			g.dispose();
+
+			icon = new ImageIcon(image);
+			ICONS.put(type, icon);
+		}
+		return icon;
+	}
+
+	/**
+	 * The Model class is the rows of the list, read straight from the
+	 * ItemList and told of its changes.
+	 */
+	private static class Model extends AbstractListModel<Item> implements ItemList.Listener
+	{
+		private static final long serialVersionUID = 1L;
+
+		private ItemList items = new ItemList();
+
+		void setItems(ItemList items)
+		{
+			int old = this.items.size();
+
+			this.items.setListener(null);
+			this.items = items;
+			items.setListener(this);
+
+			if(old > 0)
+				this.fireIntervalRemoved(this, 0, old - 1);
+			if(items.size() > 0)
+				this.fireIntervalAdded(this, 0, items.size() - 1);
+		}
+
+		@Override
+		public int getSize()
+		{
+			return this.items.size();
+		}
+
+		@Override
+		public Item getElementAt(int index)
+		{
+			return this.items.get(index);
+		}
+
+		@Override
+		public void itemsAdded(int first, int last)
+		{
+			this.fireIntervalAdded(this, first, last);
+		}
+
+		@Override
+		public void itemsRemoved(int first, int last)
+		{
+			this.fireIntervalRemoved(this, first, last);
+		}
+
+		@Override
+		public void itemsChanged(int first, int last)
+		{
+			if(first < 0)
+				this.fireContentsChanged(this, 0, Integer.MAX_VALUE);
+			else
+				this.fireContentsChanged(this, first, last);
+		}
+	}
+}
@@ -2,9 +2,13 @@
  * Item class
  * The Item class contains fields and methods needed to realize an in game Item.
  * Fields:
+ * 	id: The id of the Item in the mansion, or -1.
  * 	name: A String containing the Item name to be displayed.
  * 	pickedUp: A boolean value to determine if the Item has been picked up by the player.
+ * 	store: The WorldStore holding the state of the Item when the Item is a view over it, otherwise null.
  * 	type: An integer value that determines what Node the item is used on.
+ * An Item that is a view reads and writes its state through the store and its
+ * name and type can't be changed. Views of the same item are equal.
  *  Date: 02 December 2017
  * OOP Project 2: The Mansion
  * @author Team 7
@@ -14,16 +18,20 @@
 
 public class Item 
 {
+	private int id;		  // Item id in the mansion.
 	private String name;  // Item name to be displayed.
 	private int type;	  // Item type that determines what it is used for -- value represents Node it is USED ON.
 	private boolean used; // Has the item been used?
 	private boolean pickedUp; // Has the item been picked up by the player?
 	
+	private WorldStore store;	// Holds the state when the item is a view.
+	
 	/**
 	 * Initial creation of an item.
 	 */
 	public Item()
 	{
+		this.setId(-1);
 		this.setName("");
 		this.setType(-1);
 		this.used = false;
@@ -37,6 +45,7 @@ public class Item
 	 */
 	public Item(String name, int type)
 	{
+		this.setId(-1);
 		this.setName(name);
 		this.setType(type);
 		this.used = false;
@@ -44,46 +53,137 @@ public class Item
 	}
 
 
+	/**
+	 * This constructor creates a view over an item in a WorldStore.
+	 * @param store The WorldStore that holds the state of the item.
+	 * @param id The id of the item in the store.
+	 */
+	public Item(WorldStore store, int id)
+	{
+		this.store = store;
+		this.id = id;
+	}
+
+
 	// Getters:
+	public int getId()
+	{
+		return this.id;
+	}
+	
 	public String getName()
 	{
+		if(this.store != null)
+			return this.store.getItemName(this.id);
 		return this.name;
 	}
 	
 	public int getType()
 	{
+		if(this.store != null)
+			return this.store.getItemType(this.id);
 		return this.type;
 	}
 	
 	public boolean isUsed()
 	{
+		if(this.store != null)
+			return this.store.isUsed(this.id);
 		return this.used;
 	}
 	
 	public boolean isPickedUp()
 	{
+		if(this.store != null)
+			return this.store.isPickedUp(this.id);
 		return this.pickedUp;
 	}
 
 
 	// Setters:	
+	public void setId(int id)
+	{
+		this.checkNotView();
+		this.id = id;
+	}
+	
 	public void setName(String name)
 	{
+		this.checkNotView();
 		this.name = name;
 	}
 	
 	public void setType(int type)
 	{
+		this.checkNotView();
 		this.type = type;
 	}
 	
 	public void setUsed(boolean used)
 	{
-		this.used = used;
+		if(this.store != null)
+			this.store.setUsed(this.id, used);
+		else
+			this.used = used;
 	}
 	
 	public void setPickedUp(boolean pickedUp)
 	{
-		this.pickedUp = pickedUp;
+		if(this.store != null)
+			this.store.setPickedUp(this.id, pickedUp);
+		else
+			this.pickedUp = pickedUp;
+	}
+	
+	
+	/**
+	 * The tryPickUp method marks the item as picked up unless it already is.
+	 * When the item is a view over a shared store, only one player can pick
+	 * it up even if several try at the same time.
+	 * @return True if this call picked the item up. Otherwise, false.
+	 */
+	public boolean tryPickUp()
+	{
+		if(this.store != null)
+			return this.store.tryPickUp(this.id);
+		
+		if(this.pickedUp)
+			return false;
+		this.pickedUp = true;
+		return true;
+	}
+	
+	
+	// Operations:
+	/**
+	 * Views are equal when they are over the same item of the same store,
+	 * other items are only equal to themselves.
+	 */
+	@Override
+	public boolean equals(Object other)
+	{
+		if(this.store == null || !(other instanceof Item))
+			return this == other;
+		
+		Item item = (Item) other;
+		return this.store == item.store && this.id == item.id;
+	}
+	
+	@Override
+	public int hashCode()
+	{
+		if(this.store == null)
+			return System.identityHashCode(this);
+		return System.identityHashCode(this.store) * 31 + this.id;
+	}
+	
+	/**
+	 * The checkNotView method stops the name and type of a view from being
+	 * changed, they belong to the mansion.
+	 */
+	private void checkNotView()
+	{
+		if(this.store != null)
+			throw new UnsupportedOperationException("The items of a WorldStore can't be renamed");
 	}
 }
@@ -0,0 +1,275 @@
+/**
+ * ItemList Class
+ * The ItemList class is the list of Item objects in a Player's inventory. It
+ * also keeps the items by id, so finding whether the Player holds an item
+ * takes the same time however many items they carry. Every way of changing
+ * the list keeps the ids up to date and tells the listener, if there is
+ * one, which items changed. Several items may share an id, like the items
+ * that have none, so the items of each id are counted and an id is only
+ * dropped when the last of them is removed.
+ * fields:
+ * 	byId: An item of the list for each id.
+ * 	held: How many items of the list have each id.
+ * 	listener: The Listener told of every change, or null.
+ * Date: 19 October 2026
+ * OOP Project 2: The Mansion
+ * @author Team 7
+ * @version 1.0
+ * @since 1.0
+ */
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+public class ItemList extends ArrayList<Item>
+{
+	private static final long serialVersionUID = 1L;
+
+	private HashMap<Integer, Item> byId = new HashMap<Integer, Item>();
+	private HashMap<Integer, Integer> held = new HashMap<Integer, Integer>();
+	private Listener listener;
+
+	/**
+	 * This constructor creates an empty list.
+	 */
+	public ItemList()
+	{
+	}
+
+	/**
+	 * This constructor copies the items of another list.
+	 * @param items The items to be copied.
+	 */
+	public ItemList(Collection<Item> items)
+	{
+		super(items);
+		this.reindex();
+	}
+
+
+	// Getters:
+	/**
+	 * The getById method finds an item of the list by its id.
+	 * @param id The id of the item.
+	 * @return The item, or null if it isn't in the list.
+	 */
+	public Item getById(int id)
+	{
+		return this.byId.get(id);
+	}
+
+	/**
+	 * The containsAll method finds whether every item of some ids is in the list.
+	 * @param ids The ids of the items.
+	 * @return True if they all are. Otherwise, false.
+	 */
+	public boolean containsAll(int[] ids)
+	{
+		for(int id : ids)
+		{
+			if(!this.byId.containsKey(id))
+				return false;
+		}
+		return true;
+	}
+
+
+	// Setters:
+	/**
+	 * The setListener method sets what is told of the changes to the list.
+	 * @param listener The Listener, or null.
+	 */
+	public void setListener(Listener listener)
+	{
+		this.listener = listener;
+	}
+
+
+	// Functions: every change to the list also changes byId and is told to the listener.
+	@Override
+	public boolean add(Item item)
+	{
+		this.add(this.size(), item);
+		return true;
+	}
+
+	@Override
+	public void add(int index, Item item)
+	{
+		super.add(index, item);
+		this.index(item);
+
+		if(this.listener != null)
+			this.listener.itemsAdded(index, index);
+	}
+
+	@Override
+	public Item set(int index, Item item)
+	{
+		Item old = super.set(index, item);
+		this.unindex(old);
+		this.index(item);
+
+		if(this.listener != null)
+			this.listener.itemsChanged(index, index);
+		return old;
+	}
+
+	@Override
+	public Item remove(int index)
+	{
+		Item old = super.remove(index);
+		this.unindex(old);
+
+		if(this.listener != null)
+			this.listener.itemsRemoved(index, index);
+		return old;
+	}
+
+	@Override
+	public boolean remove(Object item)
+	{
+		int index = this.indexOf(item);
+
+		if(index < 0)
+			return false;
+		this.remove(index);
+		return true;
+	}
+
+	@Override
+	public void clear()
+	{
+		int size = this.size();
+
+		super.clear();
+		this.byId.clear();
+		this.held.clear();
+
+		if(this.listener != null && size > 0)
+			this.listener.itemsRemoved(0, size - 1);
+	}
+
+	@Override
+	public boolean addAll(Collection<? extends Item> items)
+	{
+		return this.addAll(this.size(), items);
+	}
+
+	@Override
+	public boolean addAll(int index, Collection<? extends Item> items)
+	{
+		boolean changed = super.addAll(index, items);
+
+		for(Item item : items)
+			this.index(item);
+
+		if(this.listener != null && changed)
+			this.listener.itemsAdded(index, index + items.size() - 1);
+		return changed;
+	}
+
+	// Changes of many items at once are rare, the ids are found again.
+	@Override
+	public boolean removeAll(Collection<?> items)
+	{
+		boolean changed = super.removeAll(items);
+		this.reindex();
+		return changed;
+	}
+
+	@Override
+	public boolean retainAll(Collection<?> items)
+	{
+		boolean changed = super.retainAll(items);
+		this.reindex();
+		return changed;
+	}
+
+	@Override
+	public boolean removeIf(Predicate<? super Item> filter)
+	{
+		boolean changed = super.removeIf(filter);
+		this.reindex();
+		return changed;
+	}
+
+	@Override
+	public void replaceAll(UnaryOperator<Item> operator)
+	{
+		super.replaceAll(operator);
+		this.reindex();
+	}
+
+	@Override
+	protected void removeRange(int from, int to)
+	{
+		super.removeRange(from, to);
+		this.reindex();
+	}
+
+	private void index(Item item)
+	{
+		this.byId.putIfAbsent(item.getId(), item);
+		this.held.merge(item.getId(), 1, Integer::sum);
+	}
+
+	/**
+	 * The unindex method counts an item out of its id once it has left the
+	 * list. If another item with the id is still held it is kept by id instead.
+	 * @param item The item removed.
+	 */
+	private void unindex(Item item)
+	{
+		int id = item.getId();
+		int left = this.held.merge(id, -1, Integer::sum);
+
+		if(left == 0)
+		{
+			this.held.remove(id);
+			this.byId.remove(id);
+		}
+		else if(this.byId.get(id) == item)
+		{
+			for(Item other : this)
+			{
+				if(other.getId() == id)
+				{
+					this.byId.put(id, other);
+					break;
+				}
+			}
+		}
+	}
+
+	private void reindex()
+	{
+		this.byId.clear();
+		this.held.clear();
+		for(Item item : this)
+			this.index(item);
+
+		if(this.listener != null)
+			this.listener.itemsChanged(-1, -1);
+	}
+
+	/**
+	 * The Listener interface is told which items of a list changed, from
+	 * the first to the last index, both included.
+	 */
+	public interface Listener
+	{
+		void itemsAdded(int first, int last);
+		void itemsRemoved(int first, int last);
+
+		/**
+		 * The itemsChanged method is told of items replaced in place.
+		 * @param first The first index, or -1 if any item may have changed.
+		 * @param last The last index, or -1 if any item may have changed.
+		 */
+		void itemsChanged(int first, int last);
+	}
+}
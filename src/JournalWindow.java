@@ -0,0 +1,160 @@
+/**
+ * JournalWindow Class
+ * The JournalWindow class creates the window that shows the lore the Player
+ * has been shown so far and searches it as the Player types. The entries are
+ * searched through the LoreIndex, so the search stays instant however long
+ * the journal grows. New entries are shown each time the window is focused.
+ * fields:
+ * 	dialog: A JDialog object used to hold the journal components.
+ * 	journal: The LoreIndex that is searched.
+ * 	lbl_Status: A JLabel object used to show how many entries were found and how long it took.
+ * 	list_Entries: A JList object used to show the entries found.
+ * 	model_Entries: The entries in list_Entries.
+ * 	txt_Search: A JTextField object used to type the words to be searched for.
+ * Date: 19 October 2026
+ * OOP Project 2: The Mansion
+ * @author Team 7
+ * @version 1.0
+ * @since 1.0
+ */
+
+import java.awt.BorderLayout;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import javax.swing.BorderFactory;
+import javax.swing.DefaultListModel;
+import javax.swing.JDialog;
+import javax.swing.JFrame;
+import javax.swing.JLabel;
+import javax.swing.JList;
+import javax.swing.JScrollPane;
+import javax.swing.JTextField;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+
+public class JournalWindow
+{
+	private JDialog dialog; // to hold the journal components
+
+	private JTextField txt_Search; // to type the words to be searched for
+	private JList<String> list_Entries; // to show the entries found
+	private DefaultListModel<String> model_Entries; // the entries found
+	private JLabel lbl_Status; // to show how many entries were found
+
+	private LoreIndex journal; // the lore shown so far
+
+	/**
+	 * The constructor creates the journal window of a game window.
+	 * @param owner The JFrame of the game.
+	 * @param journal The LoreIndex to be shown and searched.
+	 */
+	public JournalWindow(JFrame owner, LoreIndex journal)
+	{
+		this.journal = journal;
+		initialize(owner);
+	}
+
+	/**
+	 * The initialize method creates the search field, the list of entries
+	 * and the status line and adds them to the JDialog.
+	 */
+	private void initialize(JFrame owner)
+	{
+		dialog = new JDialog(owner, "Journal", false);
+		dialog.setBounds(owner.getX() + owner.getWidth(), owner.getY(), 380, 500);
+		dialog.getContentPane().setLayout(new BorderLayout(0, 4));
+
+		this.txt_Search = new JTextField();
+		txt_Search.setBorder(BorderFactory.createTitledBorder("Search"));
+		dialog.getContentPane().add(txt_Search, BorderLayout.NORTH);
+
+		this.model_Entries = new DefaultListModel<String>();
+		this.list_Entries = new JList<String>(model_Entries);
+		dialog.getContentPane().add(new JScrollPane(list_Entries), BorderLayout.CENTER);
+
+		this.lbl_Status = new JLabel(" ");
+		lbl_Status.setBorder(BorderFactory.createEmptyBorder(0, 6, 4, 6));
+		dialog.getContentPane().add(lbl_Status, BorderLayout.SOUTH);
+
+		txt_Search.getDocument().addDocumentListener(new DocumentListener()
+		{
+			/**
+			 * Search again on every change to the query.
+			 */
+			@Override
+			public void insertUpdate(DocumentEvent e)
+			{
+				refresh();
+			}
+
+			@Override
+			public void removeUpdate(DocumentEvent e)
+			{
+				refresh();
+			}
+
+			@Override
+			public void changedUpdate(DocumentEvent e)
+			{
+				refresh();
+			}
+		});
+
+		dialog.addWindowFocusListener(new WindowAdapter()
+		{
+			/**
+			 * Show the entries added since the window was last looked at.
+			 */
+			@Override
+			public void windowGainedFocus(WindowEvent e)
+			{
+				refresh();
+			}
+		});
+	}
+
+
+	// JDialog Getter
+	public JDialog getDialog()
+	{
+		return this.dialog;
+	}
+
+
+	// Functions
+	/**
+	 * The show method shows the journal window.
+	 */
+	public void show()
+	{
+		refresh();
+		dialog.setVisible(true);
+		txt_Search.requestFocusInWindow();
+	}
+
+	/**
+	 * The refresh method searches the journal for the words in txt_Search
+	 * and shows the entries found, the newest first.
+	 */
+	public void refresh()
+	{
+		long started = System.nanoTime();
+		int[] found = journal.search(txt_Search.getText());
+		long took = System.nanoTime() - started;
+
+		model_Entries.clear();
+		for(int i = found.length - 1; i >= 0; i--)
+			model_Entries.addElement(html(journal.getEntry(found[i])));
+
+		lbl_Status.setText(String.format("%d of %d entries (%.2f ms)", found.length, journal.size(), took / 1e6));
+	}
+
+	/**
+	 * The html method wraps an entry so the JList shows it on several lines.
+	 */
+	private static String html(String entry)
+	{
+		String text = entry.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+		return "<html><body style='width:290px;padding:4px'>" + text + "</body></html>";
+	}
+}
@@ -0,0 +1,284 @@
+/**
+ * LoreIndex Class
+ * The LoreIndex class is the journal of the lore the player has been shown.
+ * Each entry is kept once, in the order it was first shown, and its words
+ * are added to an inverted index, mapping each word to the entries it
+ * appears in. A search only reads the entries of its words, so it takes as
+ * long as the words are common rather than as long as the journal is.
+ * Every word of a search has to be found, the last one as the start of a
+ * word so the journal can be searched while the query is typed.
+ * fields:
+ * 	entries: The text of each entry, by entry id.
+ * 	ids: The id of each text, so an entry shown again isn't added twice.
+ * 	postings: The ids of the entries of each word, sorted by word so words can be found by their start.
+ * Date: 19 October 2026
+ * OOP Project 2: The Mansion
+ * @author Team 7
+ * @version 1.0
+ * @since 1.0
+ */
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+
+public class LoreIndex
+{
+	private ArrayList<String> entries = new ArrayList<String>();
+	private HashMap<String, Integer> ids = new HashMap<String, Integer>();
+	private TreeMap<String, Postings> postings = new TreeMap<String, Postings>();
+
+
+	// Getters:
+	public synchronized int size()
+	{
+		return this.entries.size();
+	}
+
+	public synchronized String getEntry(int id)
+	{
+		return this.entries.get(id);
+	}
+
+	public synchronized int getWordCount()
+	{
+		return this.postings.size();
+	}
+
+
+	// Functions:
+	/**
+	 * The add method adds an entry to the journal, unless it is already in it.
+	 * Only the words of the new entry are indexed.
+	 * @param text The lore entry.
+	 * @return The id of the entry.
+	 */
+	public synchronized int add(String text)
+	{
+		Integer known = this.ids.get(text);
+
+		if(known != null)
+			return known;
+
+		int id = this.entries.size();
+		this.entries.add(text);
+		this.ids.put(text, id);
+
+		for(String word : words(text))
+		{
+			Postings list = this.postings.get(word);
+
+			if(list == null)
+			{
+				list = new Postings();
+				this.postings.put(word, list);
+			}
+			list.add(id);	// Ids only grow, so every list stays sorted.
+		}
+		return id;
+	}
+
+	/**
+	 * The search method finds the entries that have every word of a query.
+	 * The last word of the query also matches the words it starts, unless
+	 * the query ends with a space.
+	 * @param query The words to be found.
+	 * @return The ids of the entries found, oldest first, or every entry if the query has no words.
+	 */
+	public synchronized int[] search(String query)
+	{
+		String[] words = words(query);
+
+		if(words.length == 0)
+		{
+			int[] all = new int[this.entries.size()];
+			for(int i = 0; i < all.length; i++)
+				all[i] = i;
+			return all;
+		}
+
+		boolean prefix = !Character.isWhitespace(query.charAt(query.length() - 1));
+		BitSet found = null;
+
+		for(int i = 0; i < words.length; i++)
+		{
+			BitSet matches = new BitSet(this.entries.size());
+
+			if(prefix && i == words.length - 1)
+			{
+				for(Postings list : this.postings.subMap(words[i], words[i] + Character.MAX_VALUE).values())
+					list.addTo(matches);
+			}
+			else
+			{
+				Postings list = this.postings.get(words[i]);
+				if(list != null)
+					list.addTo(matches);
+			}
+
+			if(found == null)
+				found = matches;
+			else
+				found.and(matches);
+
+			if(found.isEmpty())
+				break;
+		}
+		return found.stream().toArray();
+	}
+
+	/**
+	 * The words method splits a text into its distinct words, in lower case.
+	 * A word is a run of letters and digits, so accented words are kept whole.
+	 * @param text The text to be split.
+	 * @return The words, each once.
+	 */
+	public static String[] words(String text)
+	{
+		ArrayList<String> words = new ArrayList<String>();
+		String lower = text.toLowerCase(Locale.ROOT);
+		int start = -1;
+
+		for(int i = 0; i <= lower.length(); i++)
+		{
+			boolean letter = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+
+			if(letter && start < 0)
+				start = i;
+			else if(!letter && start >= 0)
+			{
+				String word = lower.substring(start, i);
+				if(!words.contains(word)) // Entries are a few dozen words long.
+					words.add(word);
+				start = -1;
+			}
+		}
+		return words.toArray(new String[words.size()]);
+	}
+
+	/**
+	 * The Postings class is the ids of the entries a word appears in, sorted.
+	 */
+	private static class Postings
+	{
+		private int[] ids = new int[4];
+		private int size;
+
+		void add(int id)
+		{
+			if(this.size == this.ids.length)
+				this.ids = Arrays.copyOf(this.ids, this.size * 2);
+			this.ids[this.size++] = id;
+		}
+
+		void addTo(BitSet set)
+		{
+			for(int i = 0; i < this.size; i++)
+				set.set(this.ids[i]);
+		}
+	}
+
+	/**
+	 * Fill journals of growing size with entries made of the words of the
+	 * lore and report how long adding an entry and searching take, next to
+	 * searching by reading every entry.
+	 * @param args -entries=<n,n,..> -queries=<n> -seed=<n>.
+	 */
+	public static void main(String[] args) throws IOException
+	{
+		int[] sizes = { 100, 1000, 10000, 50000 };
+		int queries = 2000;
+		long seed = 1;
+
+		for(String arg : args)
+		{
+			String value = arg.substring(arg.indexOf('=') + 1);
+
+			if(arg.startsWith("-entries="))
+			{
+				String[] counts = value.split(",");
+				sizes = new int[counts.length];
+				for(int i = 0; i < counts.length; i++)
+					sizes[i] = Integer.parseInt(counts[i]);
+			}
+			else if(arg.startsWith("-queries="))
+				queries = Integer.parseInt(value);
+			else if(arg.startsWith("-seed="))
+				seed = Long.parseLong(value);
+		}
+
+		LoreTable lore = LoreTable.load(LoreTable.DEFAULT_LOCALE);
+		ArrayList<String> vocabulary = new ArrayList<String>();
+
+		for(int i = 0; i < lore.size(); i++)
+			vocabulary.addAll(Arrays.asList(lore.getEntry(i).split("\\s+"))); // Repeated words stay as common.
+
+		System.out.printf("%d lore entries, %d words%n", lore.size(), vocabulary.size());
+		System.out.printf("%8s %8s %12s %12s %12s %10s%n", "entries", "words", "add us", "search us", "scan us", "found");
+
+		for(int size : sizes)
+		{
+			SplittableRandom random = new SplittableRandom(seed);
+			String[] texts = new String[size];
+
+			for(int i = 0; i < size; i++)
+			{
+				StringBuilder text = new StringBuilder();
+				for(int w = 20 + random.nextInt(40); w > 0; w--)
+					text.append(vocabulary.get(random.nextInt(vocabulary.size()))).append(' ');
+				texts[i] = text.toString();
+			}
+
+			LoreIndex index = new LoreIndex();
+			long begin = System.nanoTime();
+			for(String text : texts)
+				index.add(text);
+			double add = (System.nanoTime() - begin) / 1e3 / size;
+
+			String[] asked = new String[queries];
+			for(int q = 0; q < queries; q++)
+			{
+				String[] words = words(texts[random.nextInt(size)]);
+				String last = words[random.nextInt(words.length)];
+
+				asked[q] = words[random.nextInt(words.length)] + " " + last.substring(0, Math.max(1, last.length() - 2));
+			}
+
+			long found = 0;
+			for(int q = 0; q < queries; q++) // Warm up.
+				index.search(asked[q]);
+			begin = System.nanoTime();
+			for(int q = 0; q < queries; q++)
+				found += index.search(asked[q]).length;
+			double search = (System.nanoTime() - begin) / 1e3 / queries;
+
+			begin = System.nanoTime();
+			int scans = Math.min(queries, 200);
+			for(int q = 0; q < scans; q++)
+			{
+				String[] words = words(asked[q]);
+				for(String text : texts)
+				{
+					String[] have = words(text);
+					boolean all = true;
+					for(int w = 0; w < words.length && all; w++)
+					{
+						boolean one = false;
+						for(String word : have)
+							one |= w == words.length - 1 ? word.startsWith(words[w]) : word.equals(words[w]);
+						all = one;
+					}
+				}
+			}
+			double scan = (System.nanoTime() - begin) / 1e3 / scans;
+
+			System.out.printf("%8d %8d %12.2f %12.2f %12.0f %10d%n", size, index.getWordCount(), add, search, scan,
+					found / queries);
+		}
+	}
+}
@@ -0,0 +1,664 @@
+/**
+ * LoreTable Class
+ * The LoreTable class holds the lore of a single locale in a compact,
+ * read-only table so that a lookup never has to touch the disk.
+ * Each entry is kept as its UTF-8 bytes compressed on its own, so any entry
+ * can be read without the others, with a preset dictionary shared by the
+ * whole table. An entry of lore is too short to compress well alone, but the
+ * dictionary is made of the phrases the entries have most in common, so an
+ * entry only keeps what is its own. The dictionary is trained on the lore
+ * when the table is loaded. Entries are inflated when they are looked up and
+ * the last ones looked up are kept, the lore of the scenes around the Player.
+ * fields:
+ * 	data: Every entry compressed, back to back. An entry that didn't get smaller is kept as it is.
+ * 	dictionary: The preset dictionary of every entry.
+ * 	hits, misses, inflateNanos: The lookups found in recent, the ones inflated and the time inflating took.
+ * 	inflater: Inflates the entries, one at a time.
+ * 	keys: A sorted array of packed (node, dir, type) keys, one per entry.
+ * 	lengths: The UTF-8 length of each entry.
+ * 	locale: The locale this table was loaded for (e.g. "en", "es").
+ * 	offsets: The start of each entry in data; offsets[keys.length] is the end of the last entry.
+ * 	recent: The entries looked up last, by index, the least recently looked up first.
+ * LoreTable class reads from the info/info_<locale>.dat files of the Assets.
+ * The default locale is stored in info/info.dat.
+ * Date: 19 October 2026
+ * OOP Project 2: The Mansion
+ * @author Team 7
+ * @version 1.0
+ * @since 1.0
+ */
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+public class LoreTable
+{
+	public static final String DEFAULT_LOCALE = "en";		// Locale stored in info.dat.
+	public static final String INFO_DIRECTORY = "info";	// Where the lore files are among the Assets.
+
+	private static final int RECENT_SIZE = 16;				// Entries kept inflated.
+	private static final int GRAM = 8;						// Bytes of the substrings counted to train the dictionary.
+	private static final int SEGMENT = 32;					// Bytes of the pieces the dictionary is made of.
+	private static final int MAX_DICTIONARY = 4 << 10;		// Larger ones barely compress better and slow every entry down.
+	private static final int MAX_TRAINING = 256 << 10;		// Bytes of lore the dictionary is trained on at most.
+
+	private final String locale;	// Locale of this table.
+	private final int[] keys;		// Sorted packed (node, dir, type) keys.
+	private final int[] offsets;	// Start of each entry in data.
+	private final int[] lengths;	// UTF-8 length of each entry.
+	private final byte[] data;		// All entries compressed back to back.
+	private final byte[] dictionary;	// Shared by every entry.
+
+	private final Inflater inflater = new Inflater(true);	// Guarded by recent.
+	private final LinkedHashMap<Integer, String> recent;
+	private long hits, misses, inflateNanos;
+
+	/**
+	 * This constructor stores an already compiled table.
+	 * @param locale The locale of the table.
+	 * @param keys The sorted packed keys.
+	 * @param offsets The start offset of each entry in data, plus the end offset.
+	 * @param lengths The UTF-8 length of each entry.
+	 * @param data The compressed entries.
+	 * @param dictionary The preset dictionary of the entries.
+	 */
+	private LoreTable(String locale, int[] keys, int[] offsets, int[] lengths, byte[] data, byte[] dictionary)
+	{
+		this.locale = locale;
+		this.keys = keys;
+		this.offsets = offsets;
+		this.lengths = lengths;
+		this.data = data;
+		this.dictionary = dictionary;
+		this.recent = new LinkedHashMap<Integer, String>(RECENT_SIZE * 2, 0.75f, true)
+		{
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Integer, String> eldest)
+			{
+				return this.size() > RECENT_SIZE;
+			}
+		};
+	}
+
+
+	// Getters:
+	public String getLocale()
+	{
+		return this.locale;
+	}
+
+	/**
+	 * Get the number of entries in the table.
+	 * @return The number of lore entries.
+	 */
+	public int size()
+	{
+		return this.keys.length;
+	}
+
+	/**
+	 * Get the memory the table keeps its entries in, without the recent ones.
+	 * @return The bytes of the compressed entries, the dictionary and the arrays.
+	 */
+	public long getBytes()
+	{
+		return this.data.length + this.dictionary.length + 4L * (this.keys.length + this.offsets.length + this.lengths.length);
+	}
+
+	/**
+	 * Get the memory the entries took as one String, like before they were
+	 * compressed: a byte a character if every character is Latin-1, else two.
+	 * @return The bytes of the String and of the keys and offsets.
+	 */
+	public long getTextBytes()
+	{
+		long chars = 0;
+		boolean latin1 = true;
+
+		for(int i = 0; i < this.size(); i++)
+		{
+			String entry = this.inflate(i);
+
+			chars += entry.length();
+			for(int c = 0; c < entry.length() && latin1; c++)
+				latin1 = entry.charAt(c) < 256;
+		}
+		return (latin1 ? chars : chars * 2) + 4L * (this.keys.length + this.offsets.length);
+	}
+
+	public int getDictionarySize()
+	{
+		return this.dictionary.length;
+	}
+
+	/**
+	 * The getReport method tells how much memory the entries take and how
+	 * the lookups went so far.
+	 * @return The memory per entry, the lookups found recent and the inflate time.
+	 */
+	public String getReport()
+	{
+		synchronized(this.recent)
+		{
+			return String.format("lore %s: %d entries, %.1f bytes each with a %d byte dictionary, %d of %d lookups recent,"
+					+ " %.1f us per inflate", this.locale, this.size(), (double) this.getBytes() / Math.max(1, this.size()),
+					this.dictionary.length, this.hits, this.hits + this.misses,
+					this.misses == 0 ? 0 : this.inflateNanos / 1e3 / this.misses);
+		}
+	}
+
+
+	// Functions:
+	/**
+	 * The key method packs a node, direction and type into a single int.
+	 * Direction and type must each be below 16.
+	 * @param node The scene the information belongs to.
+	 * @param dir The direction the information belongs to.
+	 * @param type The type of the information.
+	 * @return The packed key.
+	 */
+	public static int key(int node, int dir, int type)
+	{
+		return (node << 8) | (dir << 4) | type;
+	}
+
+	/**
+	 * The lookup method finds the lore entry for a node, direction and type.
+	 * @param node The value that indicates the scene the Player is currently on.
+	 * @param dir The value that indicates the Player's direction.
+	 * @param type The value that determines the information to be displayed.
+	 * @return The lore entry, or null if this locale has no such entry.
+	 */
+	public String lookup(int node, int dir, int type)
+	{
+		int index = Arrays.binarySearch(this.keys, key(node, dir, type));
+
+		if(index < 0)
+			return null;
+
+		return this.getEntry(index);
+	}
+
+	/**
+	 * The getEntry method gets a lore entry by its place in the table,
+	 * inflated unless it was looked up lately.
+	 * @param index The place of the entry, from 0 to size() - 1.
+	 * @return The lore entry.
+	 */
+	public String getEntry(int index)
+	{
+		synchronized(this.recent)
+		{
+			String entry = this.recent.get(index);
+
+			if(entry != null)
+			{
+				this.hits++;
+				return entry;
+			}
+
+			long started = System.nanoTime();
+			entry = this.inflate(index);
+			this.inflateNanos += System.nanoTime() - started;
+			this.misses++;
+			this.recent.put(index, entry);
+			return entry;
+		}
+	}
+
+	/**
+	 * The inflate method decompresses an entry.
+	 */
+	private String inflate(int index)
+	{
+		int start = this.offsets[index], size = this.offsets[index + 1] - start;
+		int length = this.lengths[index];
+
+		if(size == length) // Kept as it is.
+			return new String(this.data, start, length, StandardCharsets.UTF_8);
+
+		byte[] bytes = new byte[length];
+
+		synchronized(this.recent)
+		{
+			try
+			{
+				this.inflater.reset();
+				this.inflater.setDictionary(this.dictionary);
+				this.inflater.setInput(this.data, start, size);
+
+				for(int done = 0; done < length; )
+				{
+					int inflated = this.inflater.inflate(bytes, done, length - done);
+
+					if(inflated == 0 && (this.inflater.finished() || this.inflater.needsInput()))
+						throw new DataFormatException("entry " + index + " ends early");
+					done += inflated;
+				}
+			}
+			catch(DataFormatException e)
+			{
+				throw new IllegalStateException(e); // Compressed by compile, never read from outside.
+			}
+		}
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * The getAssetName method returns the lore file of a locale.
+	 * @param locale The locale to find the file of.
+	 * @return info/info.dat for the default locale, otherwise info/info_<locale>.dat.
+	 */
+	public static String getAssetName(String locale)
+	{
+		if(DEFAULT_LOCALE.equals(locale))
+			return INFO_DIRECTORY + "/info.dat";
+
+		return INFO_DIRECTORY + "/info_" + locale + ".dat";
+	}
+
+	/**
+	 * The getAvailableLocales method lists every locale that has a lore file.
+	 * @return The default locale followed by every info_<locale>.dat found.
+	 */
+	public static String[] getAvailableLocales()
+	{
+		ArrayList<String> locales = new ArrayList<String>();
+		locales.add(DEFAULT_LOCALE);
+
+		for(String file : Assets.getDefault().list(INFO_DIRECTORY))
+		{
+			if(file.startsWith("info_") && file.endsWith(".dat"))
+				locales.add(file.substring(5, file.length() - 4));
+		}
+
+		return locales.toArray(new String[locales.size()]);
+	}
+
+	/**
+	 * The load method reads the lore file of a locale once and compiles it
+	 * into a table. Each line of the file has the form node:dir:type:text.
+	 * @param locale The locale to be loaded.
+	 * @return The compiled table.
+	 * @throws IOException If the lore file can't be read.
+	 */
+	public static LoreTable load(String locale) throws IOException
+	{
+		BufferedReader reader = new BufferedReader(new InputStreamReader(
+				Assets.getDefault().openStream(getAssetName(locale)), StandardCharsets.UTF_8));
+
+		try
+		{
+			return compile(locale, reader);
+		}
+		finally
+		{
+			reader.close();
+		}
+	}
+
+	/**
+	 * The compile method compiles lines of lore into a table.
+	 * @param locale The locale of the lore.
+	 * @param reader The lines, of the form node:dir:type:text.
+	 * @return The compiled table.
+	 */
+	private static LoreTable compile(String locale, BufferedReader reader) throws IOException
+	{
+		ArrayList<long[]> entries = new ArrayList<long[]>(); // Packed key and index into lines.
+		ArrayList<String> lines = new ArrayList<String>();
+		String line;
+
+		while((line = reader.readLine()) != null)
+		{
+			if(line.isEmpty())
+				continue;
+
+			String[] token = line.split(":", 4);
+
+			int _node = Integer.parseInt(token[0].trim());	// Get node from line.
+			int _dir = Integer.parseInt(token[1].trim());	// Get dir from line.
+			int _type = Integer.parseInt(token[2].trim());	// Get type from line.
+
+			entries.add(new long[] { key(_node, _dir, _type), lines.size() });
+			lines.add(token[3].trim());
+		}
+
+		// Sort by key so lookups can binary search, keeping the first entry for a duplicate key.
+		entries.sort((a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+
+		int[] keys = new int[entries.size()];
+		ArrayList<byte[]> texts = new ArrayList<byte[]>();
+		int count = 0;
+
+		for(long[] entry : entries)
+		{
+			if(count > 0 && keys[count - 1] == (int) entry[0])
+				continue;
+
+			keys[count++] = (int) entry[0];
+			texts.add(lines.get((int) entry[1]).getBytes(StandardCharsets.UTF_8));
+		}
+
+		byte[] dictionary = train(texts);
+		int[] offsets = new int[count + 1];
+		int[] lengths = new int[count];
+		ByteArrayOutputStream data = new ByteArrayOutputStream();
+		Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION, true);
+		byte[] buffer = new byte[4096];
+
+		for(int i = 0; i < count; i++)
+		{
+			byte[] text = texts.get(i);
+			ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+
+			deflater.reset();
+			if(dictionary.length > 0)
+				deflater.setDictionary(dictionary);
+			deflater.setInput(text);
+			deflater.finish();
+			while(!deflater.finished())
+				compressed.write(buffer, 0, deflater.deflate(buffer));
+
+			offsets[i] = data.size();
+			lengths[i] = text.length;
+			if(compressed.size() < text.length)
+				compressed.writeTo(data);
+			else
+				data.write(text); // Too short to get smaller, the same size as it is tells them apart.
+		}
+		offsets[count] = data.size();
+		deflater.end();
+
+		return new LoreTable(locale, Arrays.copyOf(keys, count), offsets, lengths, data.toByteArray(), dictionary);
+	}
+
+	/**
+	 * The train method makes a dictionary of the pieces of lore that have the
+	 * most substrings in common with the rest of it. Every GRAM bytes long
+	 * substring is counted, then pieces are taken the best first, each scored
+	 * only by the substrings no piece taken before has, so the dictionary
+	 * doesn't repeat itself. The best pieces go at the end of the dictionary,
+	 * nearest to the entry, where deflate finds them with the shortest codes.
+	 * @param texts The entries, as UTF-8.
+	 * @return The dictionary, about a sixteenth of the lore, empty if there is too little lore.
+	 */
+	private static byte[] train(List<byte[]> texts)
+	{
+		long total = 0;
+		for(byte[] text : texts)
+			total += text.length;
+
+		int size = (int) Math.min(MAX_DICTIONARY, total / 16);
+		if(size < SEGMENT)
+			return new byte[0];
+
+		// Every substring is counted once an entry, a phrase of many entries beats a word repeated in one.
+		int grams = 0, trained = 0, limit = 0;
+
+		while(limit < texts.size() && trained < MAX_TRAINING)
+		{
+			trained += texts.get(limit).length;
+			grams += Math.max(0, texts.get(limit++).length - GRAM + 1);
+		}
+
+		Grams counts = new Grams(grams);
+		for(int t = 0; t < limit; t++)
+		{
+			byte[] text = texts.get(t);
+
+			for(int i = 0; i + GRAM <= text.length; i++)
+				counts.add(gram(text, i), t);
+		}
+
+		// Pieces by score, a score is only worked out again when its piece comes up.
+		PriorityQueue<long[]> pieces = new PriorityQueue<long[]>((a, b) -> Long.compare(b[0], a[0]));	// Score, entry, start.
+
+		for(int t = 0; t < limit; t++)
+		{
+			byte[] text = texts.get(t);
+
+			for(int start = 0; start + SEGMENT <= text.length; start += SEGMENT / 2)
+				pieces.add(new long[] { score(text, start, counts), t, start });
+		}
+
+		ArrayList<long[]> chosen = new ArrayList<long[]>();
+		int used = 0;
+
+		while(used + SEGMENT <= size && !pieces.isEmpty())
+		{
+			long[] piece = pieces.poll();
+			byte[] text = texts.get((int) piece[1]);
+			long score = score(text, (int) piece[2], counts);
+
+			if(score <= 0)
+				continue;
+			if(!pieces.isEmpty() && score < pieces.peek()[0])
+			{
+				piece[0] = score; // Others are better now.
+				pieces.add(piece);
+				continue;
+			}
+
+			for(int i = (int) piece[2]; i + GRAM <= piece[2] + SEGMENT; i++)
+				counts.take(gram(text, i));
+			chosen.add(piece);
+			used += SEGMENT;
+		}
+
+		byte[] dictionary = new byte[used];
+		int end = used;
+
+		for(long[] piece : chosen) // The best last.
+		{
+			end -= SEGMENT;
+			System.arraycopy(texts.get((int) piece[1]), (int) piece[2], dictionary, end, SEGMENT);
+		}
+		return dictionary;
+	}
+
+	/**
+	 * The score method adds up how many entries have each substring of a
+	 * piece that no piece taken has, the substrings only one entry has left out.
+	 */
+	private static long score(byte[] text, int start, Grams counts)
+	{
+		long score = 0;
+
+		for(int i = start; i + GRAM <= start + SEGMENT; i++)
+		{
+			int count = counts.get(gram(text, i));
+
+			if(count > 1)
+				score += count;
+		}
+		return score;
+	}
+
+	private static long gram(byte[] text, int start)
+	{
+		long gram = 0;
+
+		for(int i = start; i < start + GRAM; i++)
+			gram = gram << 8 | (text[i] & 0xFF);
+		return gram;
+	}
+
+	/**
+	 * The Grams class counts the entries each substring is in, in an open
+	 * addressing table of primitives, as there are as many substrings as
+	 * bytes of lore.
+	 */
+	private static final class Grams
+	{
+		private final long[] grams;
+		private final int[] counts;
+		private final int[] last;		// The last entry counted, plus one, 0 for a free slot.
+		private final int mask;
+
+		Grams(int expected)
+		{
+			int size = Integer.highestOneBit(Math.max(16, expected * 2) - 1) << 1;
+
+			this.grams = new long[size];
+			this.counts = new int[size];
+			this.last = new int[size];
+			this.mask = size - 1;
+		}
+
+		private int slot(long gram)
+		{
+			int slot = (int) ((gram * 0x9E3779B97F4A7C15L) >>> 40) & this.mask;
+
+			while(this.last[slot] != 0 && this.grams[slot] != gram)
+				slot = (slot + 1) & this.mask;
+			return slot;
+		}
+
+		void add(long gram, int entry)
+		{
+			int slot = this.slot(gram);
+
+			if(this.last[slot] != entry + 1)
+			{
+				this.grams[slot] = gram;
+				this.last[slot] = entry + 1;
+				this.counts[slot]++;
+			}
+		}
+
+		int get(long gram)
+		{
+			return this.counts[this.slot(gram)];
+		}
+
+		/**
+		 * The take method stops counting a substring, once a piece of the dictionary has it.
+		 */
+		void take(long gram)
+		{
+			int slot = this.slot(gram);
+
+			if(this.last[slot] != 0)
+				this.counts[slot] = 0;
+		}
+	}
+
+	/**
+	 * Load the lore of every locale, and of made up lore as large as many
+	 * mansions' with the words of the default locale, and report the memory
+	 * an entry takes compressed and as a String, and how long a lookup takes
+	 * when the entry is recent and when it has to be inflated.
+	 * @param args -entries=<n,n,..> -lookups=<n> -seed=<n>
+	 */
+	public static void main(String[] args) throws IOException
+	{
+		int[] sizes = { 1000, 10000, 100000 };
+		int lookups = 200000;
+		long seed = 1;
+
+		for(String arg : args)
+		{
+			String value = arg.substring(arg.indexOf('=') + 1);
+
+			if(arg.startsWith("-entries="))
+			{
+				String[] counts = value.split(",");
+				sizes = new int[counts.length];
+				for(int i = 0; i < counts.length; i++)
+					sizes[i] = Integer.parseInt(counts[i]);
+			}
+			else if(arg.startsWith("-lookups="))
+				lookups = Integer.parseInt(value);
+			else if(arg.startsWith("-seed="))
+				seed = Long.parseLong(value);
+		}
+
+		ArrayList<LoreTable> tables = new ArrayList<LoreTable>();
+		for(String locale : getAvailableLocales())
+			tables.add(load(locale));
+
+		// Made up lore: sentences of the lore, their words shuffled a little, like generated rooms.
+		LoreTable lore = tables.get(0);
+		SplittableRandom random = new SplittableRandom(seed);
+
+		for(int size : sizes)
+		{
+			StringBuilder lines = new StringBuilder();
+
+			for(int i = 0; i < size; i++)
+			{
+				String[] words = lore.getEntry(random.nextInt(lore.size())).split(" ");
+				String[] other = lore.getEntry(random.nextInt(lore.size())).split(" ");
+
+				words[random.nextInt(words.length)] = other[random.nextInt(other.length)];
+				lines.append(i / 4).append(':').append(i % 4).append(":0:").append(String.join(" ", words))
+						.append(' ').append(i).append('\n');
+			}
+
+			long started = System.nanoTime();
+			LoreTable table = compile("made up", new BufferedReader(new StringReader(lines.toString())));
+			System.out.printf("compiled %d entries in %.0f ms%n", size, (System.nanoTime() - started) / 1e6);
+			tables.add(table);
+		}
+
+		System.out.printf("%-8s %8s %10s %10s %8s %10s %10s %10s%n", "locale", "entries", "bytes/ent", "text/ent",
+				"dict", "recent us", "inflate us", "string us");
+
+		for(LoreTable table : tables)
+		{
+			int[] indexes = new int[lookups];
+			for(int i = 0; i < lookups; i++)
+				indexes[i] = random.nextInt(table.size());
+
+			// Warm up, then the same lookups again and again: recent. Every entry once: inflated.
+			for(int i = 0; i < lookups; i++)
+				table.getEntry(indexes[i % RECENT_SIZE]);
+			long started = System.nanoTime();
+			for(int i = 0; i < lookups; i++)
+				table.getEntry(indexes[i % RECENT_SIZE]);
+			double recent = (System.nanoTime() - started) / 1e3 / lookups;
+
+			started = System.nanoTime();
+			for(int i = 0; i < lookups; i++)
+				table.inflate(indexes[i]);
+			double inflate = (System.nanoTime() - started) / 1e3 / lookups;
+
+			// Like the String table was: a substring of the whole text.
+			StringBuilder whole = new StringBuilder();
+			int[] offsets = new int[table.size() + 1];
+			for(int i = 0; i < table.size(); i++)
+			{
+				offsets[i] = whole.length();
+				whole.append(table.inflate(i));
+			}
+			offsets[table.size()] = whole.length();
+			String text = whole.toString();
+			long chars = 0;
+			started = System.nanoTime();
+			for(int i = 0; i < lookups; i++)
+				chars += text.substring(offsets[indexes[i]], offsets[indexes[i] + 1]).length();
+			double string = (System.nanoTime() - started) / 1e3 / lookups;
+
+			System.out.printf("%-8s %8d %10.1f %10.1f %8d %10.3f %10.3f %10.3f%s%n", table.locale, table.size(),
+					(double) table.getBytes() / table.size(), (double) table.getTextBytes() / table.size(),
+					table.dictionary.length, recent, inflate, string, chars > 0 ? "" : " ");
+		}
+	}
+}
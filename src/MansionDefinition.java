@@ -0,0 +1,1134 @@
+/**
+ * MansionDefinition Class
+ * The MansionDefinition class holds a mansion compiled into primitive lookup
+ * tables. Every table is indexed by a room id, an item id, a node, or a
+ * state, where a state packs a node and a direction (node * DIRECTIONS + dir).
+ * Names and messages are only kept for display, so the game never compares
+ * strings while the player moves or uses items.
+ * fields:
+ * 	back, forward, left, right: The state each action leads to from a state, or -1.
+ * 	image, imageFiles: The scene image of a state, and the file name of each image.
+ * 	sprites, spriteFiles: The sprites drawn over the image of a state, or null, and the file name of each sprite.
+ * 	rule: The rule of a state, or -1. Only doors and rooms have rules, so the
+ * 		tables below are indexed by rule rather than by state:
+ * 	escapeItem: The item that escapes the mansion, or -1.
+ * 	gateRoom, gateMessage: The room whose lock blocks moving forward, and the message shown.
+ * 	loreKind, loreRoom: When lore type 1 is shown, and the room it depends on.
+ * 	unlockItem, unlockMessage, unlockRoom: The first item that unlocks a room.
+ * 	unlockItems: Every item that has to be used together to unlock the room.
+ * 	itemNames, itemRoom, itemTypes: The name, origin room and type of each item.
+ * 	messages: Every message the mansion can show.
+ * 	nodeEnters, nodeRoom: The room each node belongs to, and whether being there enters it.
+ * 	roomItem, roomLocked, roomNames: The item, initial lock and name of each room.
+ * 	roomIds, itemIds: Name lookups, only used while loading and by name based getters.
+ * 	startState, exitState: The state the player starts in, and the state the mansion is escaped from.
+ * Rooms and items without a name, as in generated mansions, are named after their id.
+ * MansionDefinition class reads from the mansion/mansion.def file of the Assets.
+ * Date: 19 October 2026
+ * OOP Project 2: The Mansion
+ * @author Team 7
+ * @version 1.0
+ * @since 1.0
+ */
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+public class MansionDefinition implements MansionMap
+{
+	public static final int DIRECTIONS = 4;		// Forward, left, right, back.
+	public static final String DEFAULT_ASSET = "mansion/mansion.def";
+
+	private static final int[] NO_ITEMS = new int[0];	// Unlock items of a state without an unlock rule.
+	private static final int[] NO_SPRITES = new int[0];	// Sprites of a state without any.
+	
+	public static final int LORE_NONE = 0;		// Always lore type 0.
+	public static final int LORE_ENTERED = 1;	// Lore type 1 once the room is entered.
+	public static final int LORE_PICKED_UP = 2;	// Lore type 1 once the room's item is picked up.
+
+	private static MansionDefinition defaultMansion;	// The compiled default mansion.
+
+	private int nodeCount;
+	private int startState;
+	private int exitState = -1;
+
+	// Per state tables.
+	private int[] forward, back, left, right;
+	private int[] image;
+	private int[][] sprites;
+	private int[] rule;
+	
+	// Per rule tables.
+	private int ruleCount;
+	private int[] gateRoom, gateMessage;
+	private byte[] loreKind;
+	private int[] loreRoom;
+	private int[] unlockItem, unlockRoom, unlockMessage;
+	private int[][] unlockItems;
+	private int[] escapeItem;
+
+	// Per node tables.
+	private int[] nodeRoom;
+	private boolean[] nodeEnters;
+
+	// Per room and per item tables.
+	private String[] roomNames;
+	private boolean[] roomLocked;
+	private int[] roomItem;
+	private String[] itemNames;
+	private int[] itemTypes;
+	private int[] itemRoom;
+
+	private ArrayList<String> messages;
+	private ArrayList<String> imageFiles;
+	private ArrayList<String> spriteFiles;
+	private HashMap<String, Integer> roomIds;
+	private HashMap<String, Integer> itemIds;
+
+	/**
+	 * This constructor allocates empty tables: no moves, gates, rules or images.
+	 * @param nodeCount The number of nodes in the mansion.
+	 * @param roomCount The number of rooms in the mansion.
+	 * @param itemCount The number of items in the mansion.
+	 */
+	public MansionDefinition(int nodeCount, int roomCount, int itemCount)
+	{
+		int states = nodeCount * DIRECTIONS;
+
+		this.nodeCount = nodeCount;
+		this.forward = filled(states);
+		this.back = filled(states);
+		this.left = filled(states);
+		this.right = filled(states);
+		this.image = filled(states);
+		this.sprites = new int[states][];
+		this.rule = filled(states);
+		this.growRules(16);
+
+		this.nodeRoom = filled(nodeCount);
+		this.nodeEnters = new boolean[nodeCount];
+
+		this.roomLocked = new boolean[roomCount];
+		this.roomItem = filled(roomCount);
+		this.itemTypes = new int[itemCount];
+		this.itemRoom = filled(itemCount);
+
+		this.messages = new ArrayList<String>();
+		this.imageFiles = new ArrayList<String>();
+		this.spriteFiles = new ArrayList<String>();
+		this.roomIds = new HashMap<String, Integer>();
+		this.itemIds = new HashMap<String, Integer>();
+	}
+
+
+	// Getters:
+	/**
+	 * The getDefault method returns the mansion in DEFAULT_ASSET,
+	 * compiling it the first time it is asked for.
+	 * @return The default mansion.
+	 */
+	public static synchronized MansionDefinition getDefault()
+	{
+		if(defaultMansion == null)
+		{
+			try
+			{
+				BufferedReader reader = new BufferedReader(new InputStreamReader(
+						Assets.getDefault().openStream(DEFAULT_ASSET), StandardCharsets.UTF_8));
+				
+				try
+				{
+					defaultMansion = parse(reader, DEFAULT_ASSET);
+				}
+				finally
+				{
+					reader.close();
+				}
+			}
+			catch(IOException e)
+			{
+				throw new UncheckedIOException("Error loading mansion [" + DEFAULT_ASSET + "]", e);
+			}
+		}
+		return defaultMansion;
+	}
+
+	/**
+	 * The getNodeCount method returns the number of nodes.
+	 * @return The number of nodes, states are four times as many.
+	 */
+	public int getNodeCount()
+	{
+		return this.nodeCount;
+	}
+
+	/**
+	 * The getRoomCount method returns the number of rooms.
+	 * @return The number of rooms, room 0 included.
+	 */
+	public int getRoomCount()
+	{
+		return this.roomLocked.length;
+	}
+
+	/**
+	 * The getItemCount method returns the number of items.
+	 * @return The number of items.
+	 */
+	public int getItemCount()
+	{
+		return this.itemTypes.length;
+	}
+	
+	/**
+	 * The getRuleCount method returns the number of states that have a rule.
+	 * @return The number of rules.
+	 */
+	public int getRuleCount()
+	{
+		return this.ruleCount;
+	}
+
+	/**
+	 * The getStartState method returns where the player starts.
+	 * @return The start state.
+	 */
+	public int getStartState()
+	{
+		return this.startState;
+	}
+	
+	/**
+	 * The getExitState method returns where the mansion is escaped.
+	 * @return The state with the escape rule, or -1 if there is none.
+	 */
+	public int getExitState()
+	{
+		return this.exitState;
+	}
+
+	/**
+	 * The state method packs a node and direction into a state.
+	 * @param node The node.
+	 * @param dir The direction at that node.
+	 * @return The state.
+	 */
+	public static int state(int node, int dir)
+	{
+		return node * DIRECTIONS + dir;
+	}
+
+	/**
+	 * The nodeOf method unpacks the node of a state.
+	 * @param state The state.
+	 * @return The node.
+	 */
+	public static int nodeOf(int state)
+	{
+		return state / DIRECTIONS;
+	}
+
+	/**
+	 * The directionOf method unpacks the direction of a state.
+	 * @param state The state.
+	 * @return The direction, from 0 to DIRECTIONS - 1.
+	 */
+	public static int directionOf(int state)
+	{
+		return state % DIRECTIONS;
+	}
+
+	/**
+	 * The forward method finds where moving forward leads.
+	 * @param state The state.
+	 * @return The state moved to, or -1 if the player can't move forward.
+	 */
+	public int forward(int state)
+	{
+		return this.forward[state];
+	}
+
+	/**
+	 * The back method finds where moving back leads.
+	 * @param state The state.
+	 * @return The state moved to, or -1 if the player can't move back.
+	 */
+	public int back(int state)
+	{
+		return this.back[state];
+	}
+
+	/**
+	 * The left method finds where turning left leads.
+	 * @param state The state.
+	 * @return The state turned to, or -1 if the player can't turn.
+	 */
+	public int left(int state)
+	{
+		return this.left[state];
+	}
+
+	/**
+	 * The right method finds where turning right leads.
+	 * @param state The state.
+	 * @return The state turned to, or -1 if the player can't turn.
+	 */
+	public int right(int state)
+	{
+		return this.right[state];
+	}
+
+	/**
+	 * The getGateRoom method finds the room whose lock blocks moving forward.
+	 * @param state The state.
+	 * @return The room, or -1 if nothing blocks the way.
+	 */
+	public int getGateRoom(int state)
+	{
+		int rule = this.rule[state];
+		return rule < 0 ? -1 : this.gateRoom[rule];
+	}
+
+	/**
+	 * The getGateMessage method finds what is shown when the gate is locked.
+	 * @param state A state with a gate.
+	 * @return The message.
+	 */
+	public String getGateMessage(int state)
+	{
+		return this.messages.get(this.gateMessage[this.rule[state]]);
+	}
+
+	/**
+	 * The getLoreKind method finds when lore type 1 is shown at a state.
+	 * @param state The state.
+	 * @return LORE_NONE, LORE_ENTERED or LORE_PICKED_UP.
+	 */
+	public int getLoreKind(int state)
+	{
+		int rule = this.rule[state];
+		return rule < 0 ? LORE_NONE : this.loreKind[rule];
+	}
+
+	/**
+	 * The getLoreRoom method finds the room the lore of a state depends on.
+	 * @param state The state.
+	 * @return The room, or -1 if the lore depends on none.
+	 */
+	public int getLoreRoom(int state)
+	{
+		int rule = this.rule[state];
+		return rule < 0 ? -1 : this.loreRoom[rule];
+	}
+
+	/**
+	 * The getUnlockItem method finds the first item used to unlock a room here.
+	 * @param state The state.
+	 * @return The item, or -1 if nothing is unlocked here.
+	 */
+	public int getUnlockItem(int state)
+	{
+		int rule = this.rule[state];
+		return rule < 0 ? -1 : this.unlockItem[rule];
+	}
+
+	/**
+	 * The getUnlockItems method finds every item used together to unlock a room here.
+	 * @param state The state.
+	 * @return The items, none if nothing is unlocked here. Not to be changed.
+	 */
+	public int[] getUnlockItems(int state)
+	{
+		int rule = this.rule[state];
+		return rule < 0 || this.unlockItems[rule] == null ? NO_ITEMS : this.unlockItems[rule];
+	}
+
+	/**
+	 * The getUnlockRoom method finds the room unlocked here.
+	 * @param state The state.
+	 * @return The room, or -1 if nothing is unlocked here.
+	 */
+	public int getUnlockRoom(int state)
+	{
+		int rule = this.rule[state];
+		return rule < 0 ? -1 : this.unlockRoom[rule];
+	}
+
+	/**
+	 * The getUnlockMessage method finds what is shown when the room is unlocked.
+	 * @param state A state with an unlock rule.
+	 * @return The message.
+	 */
+	public String getUnlockMessage(int state)
+	{
+		return this.messages.get(this.unlockMessage[this.rule[state]]);
+	}
+
+	/**
+	 * The getEscapeItem method finds the item that escapes the mansion here.
+	 * @param state The state.
+	 * @return The item, or -1 if the mansion can't be escaped here.
+	 */
+	public int getEscapeItem(int state)
+	{
+		int rule = this.rule[state];
+		return rule < 0 ? -1 : this.escapeItem[rule];
+	}
+
+	/**
+	 * The getImage method finds the scene image of a state.
+	 * @param state The state.
+	 * @return The image, or -1 if the state has none.
+	 */
+	public int getImage(int state)
+	{
+		return this.image[state];
+	}
+
+	/**
+	 * The getImageCount method returns the number of scene images.
+	 * @return The number of images.
+	 */
+	public int getImageCount()
+	{
+		return this.imageFiles.size();
+	}
+
+	/**
+	 * The getImageFile method returns the file of a scene image.
+	 * @param image The image.
+	 * @return The file name in the img assets.
+	 */
+	public String getImageFile(int image)
+	{
+		return this.imageFiles.get(image);
+	}
+
+	/**
+	 * The getSprites method finds the sprites drawn over the image of a state.
+	 * @param state The state.
+	 * @return The sprites, SPRITE_FIELDS ints each, none if there are none. Not to be changed.
+	 */
+	public int[] getSprites(int state)
+	{
+		return this.sprites[state] == null ? NO_SPRITES : this.sprites[state];
+	}
+
+	/**
+	 * The getSpriteFile method returns the file of a sprite.
+	 * @param file The file of the sprite, or -1.
+	 * @return The file name in the img/sprites assets, or null if the sprite is drawn.
+	 */
+	public String getSpriteFile(int file)
+	{
+		return file < 0 ? null : this.spriteFiles.get(file);
+	}
+
+	/**
+	 * The getNodeRoom method finds the room a node belongs to.
+	 * @param node The node.
+	 * @return The room, or -1 if the node is in none.
+	 */
+	public int getNodeRoom(int node)
+	{
+		return this.nodeRoom[node];
+	}
+
+	/**
+	 * The entersRoom method finds whether being at a node enters its room.
+	 * @param node The node.
+	 * @return True if it does. Otherwise, false.
+	 */
+	public boolean entersRoom(int node)
+	{
+		return this.nodeEnters[node];
+	}
+
+	/**
+	 * The getRoomName method returns the name of a room.
+	 * @param room The room.
+	 * @return The name, or Room and the id if it has none.
+	 */
+	public String getRoomName(int room)
+	{
+		if(this.roomNames == null || this.roomNames[room] == null)
+			return "Room " + room;
+		return this.roomNames[room];
+	}
+
+	/**
+	 * The hasRoomName method finds whether a room was given a name.
+	 * @param room The room.
+	 * @return True if it was. Otherwise, false.
+	 */
+	public boolean hasRoomName(int room)
+	{
+		return this.roomNames != null && this.roomNames[room] != null;
+	}
+
+	/**
+	 * The isRoomLocked method finds whether a room starts locked.
+	 * @param room The room.
+	 * @return True if it does. Otherwise, false.
+	 */
+	public boolean isRoomLocked(int room)
+	{
+		return this.roomLocked[room];
+	}
+
+	/**
+	 * The getRoomItem method finds the item found in a room.
+	 * @param room The room.
+	 * @return The item, or -1 if the room has none.
+	 */
+	public int getRoomItem(int room)
+	{
+		return this.roomItem[room];
+	}
+
+	/**
+	 * The getItemName method returns the name of an item.
+	 * @param item The item.
+	 * @return The name, or Key and the id if it has none.
+	 */
+	public String getItemName(int item)
+	{
+		if(this.itemNames == null || this.itemNames[item] == null)
+			return "Key " + item;
+		return this.itemNames[item];
+	}
+
+	/**
+	 * The hasItemName method finds whether an item was given a name.
+	 * @param item The item.
+	 * @return True if it was. Otherwise, false.
+	 */
+	public boolean hasItemName(int item)
+	{
+		return this.itemNames != null && this.itemNames[item] != null;
+	}
+
+	/**
+	 * The getItemType method finds the node an item is used on.
+	 * @param item The item.
+	 * @return The type.
+	 */
+	public int getItemType(int item)
+	{
+		return this.itemTypes[item];
+	}
+
+	/**
+	 * The getItemRoom method finds the room an item is found in.
+	 * @param item The item.
+	 * @return The room.
+	 */
+	public int getItemRoom(int item)
+	{
+		return this.itemRoom[item];
+	}
+
+	/**
+	 * The getFootprintBytes method estimates the memory used by the
+	 * tables, not counting names, messages and object headers.
+	 * @return The size of the tables in bytes.
+	 */
+	public long getFootprintBytes()
+	{
+		long states = (long) this.forward.length;
+		long rules = (long) this.gateRoom.length;
+		
+		return states * 4 * 6										// forward, back, left, right, image, rule.
+				+ rules * (4 * 7 + 1)								// Rule tables.
+				+ (long) this.nodeCount * 5							// nodeRoom, nodeEnters.
+				+ (long) this.roomLocked.length * 5					// roomLocked, roomItem.
+				+ (long) this.itemTypes.length * 8;					// itemTypes, itemRoom.
+	}
+	
+	/**
+	 * The getRoomId method finds a room by name.
+	 * @param name The name of the room.
+	 * @return The room id, or -1 if there is no such room.
+	 */
+	public int getRoomId(String name)
+	{
+		Integer id = this.roomIds.get(name);
+		return id == null ? -1 : id;
+	}
+
+	/**
+	 * The getItemId method finds an item by name.
+	 * @param name The name of the item.
+	 * @return The item id, or -1 if there is no such item.
+	 */
+	public int getItemId(String name)
+	{
+		Integer id = this.itemIds.get(name);
+		return id == null ? -1 : id;
+	}
+
+
+	// Setters: used while compiling a mansion.
+	/**
+	 * The setStartState method sets where the player starts.
+	 * @param state The start state.
+	 */
+	public void setStartState(int state)
+	{
+		this.startState = state;
+	}
+
+	/**
+	 * The setForward method sets where moving forward leads.
+	 * @param state The state.
+	 * @param target The state moved to, or -1.
+	 */
+	public void setForward(int state, int target)
+	{
+		this.forward[state] = target;
+	}
+
+	/**
+	 * The setBack method sets where moving back leads.
+	 * @param state The state.
+	 * @param target The state moved to, or -1.
+	 */
+	public void setBack(int state, int target)
+	{
+		this.back[state] = target;
+	}
+
+	/**
+	 * The setTurns method lets the player turn around at a node.
+	 * Turning left goes forward, left, back, right and turning right
+	 * goes the other way around.
+	 * @param node The node the player can turn at.
+	 */
+	public void setTurns(int node)
+	{
+		this.left[state(node, 0)] = state(node, 1);
+		this.left[state(node, 1)] = state(node, 3);
+		this.left[state(node, 3)] = state(node, 2);
+		this.left[state(node, 2)] = state(node, 0);
+
+		this.right[state(node, 0)] = state(node, 2);
+		this.right[state(node, 2)] = state(node, 3);
+		this.right[state(node, 3)] = state(node, 1);
+		this.right[state(node, 1)] = state(node, 0);
+	}
+
+	/**
+	 * The setGate method blocks moving forward while a room is locked.
+	 * @param state The state.
+	 * @param room The locked room.
+	 * @param message What is shown while it is locked.
+	 */
+	public void setGate(int state, int room, String message)
+	{
+		int rule = this.ruleOf(state);
+		this.gateRoom[rule] = room;
+		this.gateMessage[rule] = this.addMessage(message);
+	}
+
+	/**
+	 * The setLore method sets when lore type 1 is shown at a state.
+	 * @param state The state.
+	 * @param kind LORE_ENTERED or LORE_PICKED_UP.
+	 * @param room The room it depends on.
+	 */
+	public void setLore(int state, int kind, int room)
+	{
+		int rule = this.ruleOf(state);
+		this.loreKind[rule] = (byte) kind;
+		this.loreRoom[rule] = room;
+	}
+
+	/**
+	 * This setUnlock method lets a single item unlock a room.
+	 * @param state The state the item is used at.
+	 * @param item The item.
+	 * @param room The room unlocked.
+	 * @param message What is shown when it is unlocked.
+	 */
+	public void setUnlock(int state, int item, int room, String message)
+	{
+		this.setUnlock(state, new int[] { item }, room, message);
+	}
+
+	/**
+	 * This setUnlock method lets items used together unlock a room.
+	 * @param state The state the items are used at.
+	 * @param items The items, all needed at once.
+	 * @param room The room unlocked.
+	 * @param message What is shown when it is unlocked.
+	 */
+	public void setUnlock(int state, int[] items, int room, String message)
+	{
+		int rule = this.ruleOf(state);
+		this.unlockItem[rule] = items[0];
+		this.unlockItems[rule] = items.clone();
+		this.unlockRoom[rule] = room;
+		this.unlockMessage[rule] = this.addMessage(message);
+	}
+
+	/**
+	 * The setEscape method sets where and with which item the mansion is escaped.
+	 * @param state The state, also the exit state.
+	 * @param item The item.
+	 */
+	public void setEscape(int state, int item)
+	{
+		int rule = this.ruleOf(state);	// Grows the tables, so read escapeItem after it.
+		this.escapeItem[rule] = item;
+		this.exitState = state;
+	}
+
+	/**
+	 * The addSprite method adds a sprite drawn over the image of a state.
+	 * @param state The state.
+	 * @param kind SPRITE_ITEM or SPRITE_DOOR.
+	 * @param id The item, or the room behind the door.
+	 * @param x The left of the sprite on the image.
+	 * @param y The top of the sprite on the image.
+	 * @param file The sprite file in the img/sprites assets, or null to draw one.
+	 */
+	public void addSprite(int state, int kind, int id, int x, int y, String file)
+	{
+		int index = -1;
+
+		if(file != null)
+		{
+			index = this.spriteFiles.indexOf(file);
+			if(index < 0)
+			{
+				index = this.spriteFiles.size();
+				this.spriteFiles.add(file);
+			}
+		}
+
+		int[] old = this.getSprites(state);
+		int[] sprites = Arrays.copyOf(old, old.length + SPRITE_FIELDS);
+
+		sprites[old.length] = kind;
+		sprites[old.length + 1] = id;
+		sprites[old.length + 2] = x;
+		sprites[old.length + 3] = y;
+		sprites[old.length + 4] = index;
+		this.sprites[state] = sprites;
+	}
+
+	/**
+	 * The setImage method sets the scene image of a state.
+	 * @param state The state.
+	 * @param file The image file in the img assets.
+	 */
+	public void setImage(int state, String file)
+	{
+		int index = this.imageFiles.indexOf(file);
+
+		if(index < 0)
+		{
+			index = this.imageFiles.size();
+			this.imageFiles.add(file);
+		}
+		this.image[state] = index;
+	}
+
+	/**
+	 * The setNodeRoom method sets the room a node belongs to.
+	 * @param node The node.
+	 * @param room The room.
+	 * @param enters Whether being at the node enters the room.
+	 */
+	public void setNodeRoom(int node, int room, boolean enters)
+	{
+		this.nodeRoom[node] = room;
+		this.nodeEnters[node] = enters;
+	}
+
+	/**
+	 * This setRoom method sets a room with a name.
+	 * @param room The room id.
+	 * @param name The name of the room.
+	 * @param locked Whether the room starts locked.
+	 */
+	public void setRoom(int room, String name, boolean locked)
+	{
+		if(this.roomNames == null)
+			this.roomNames = new String[this.roomLocked.length];
+		
+		this.roomNames[room] = name;
+		this.roomIds.put(name, room);
+		this.setRoom(room, locked);
+	}
+	
+	/**
+	 * This setRoom method sets a room without a name, it is named after its id.
+	 * @param room The room id.
+	 * @param locked Whether the room starts locked.
+	 */
+	public void setRoom(int room, boolean locked)
+	{
+		this.roomLocked[room] = locked;
+	}
+
+	/**
+	 * This setItem method sets an item with a name.
+	 * @param item The item id.
+	 * @param name The name of the item.
+	 * @param type The node the item is used on.
+	 * @param room The room the item is found in.
+	 */
+	public void setItem(int item, String name, int type, int room)
+	{
+		if(this.itemNames == null)
+			this.itemNames = new String[this.itemTypes.length];
+		
+		this.itemNames[item] = name;
+		this.itemIds.put(name, item);
+		this.setItem(item, type, room);
+	}
+	
+	/**
+	 * The setItemType method sets the node an item is used on.
+	 * @param item The item id.
+	 * @param type The node.
+	 */
+	public void setItemType(int item, int type)
+	{
+		this.itemTypes[item] = type;
+	}
+	
+	/**
+	 * This setItem method sets an item without a name, it is named after its id.
+	 * @param item The item id.
+	 * @param type The node the item is used on.
+	 * @param room The room the item is found in.
+	 */
+	public void setItem(int item, int type, int room)
+	{
+		this.itemTypes[item] = type;
+		this.itemRoom[item] = room;
+		this.roomItem[room] = item;
+	}
+
+
+	// Functions:
+	/**
+	 * The load method reads a mansion definition file and compiles it.
+	 * @param file The mansion definition file.
+	 * @return The compiled mansion.
+	 * @throws IOException If the file can't be read or is malformed.
+	 */
+	public static MansionDefinition load(File file) throws IOException
+	{
+		BufferedReader reader = new BufferedReader(new InputStreamReader(
+				new FileInputStream(file), StandardCharsets.UTF_8));
+
+		try
+		{
+			return parse(reader, file.getPath());
+		}
+		finally
+		{
+			reader.close();
+		}
+	}
+
+	/**
+	 * The parse method compiles a mansion definition. Nodes, rooms and
+	 * items are counted first so every table can be allocated once, and
+	 * the other lines are then resolved against them.
+	 * @param reader The definition to be read.
+	 * @param source The name of the definition, used in error messages.
+	 * @return The compiled mansion.
+	 * @throws IOException If the definition can't be read or is malformed.
+	 */
+	public static MansionDefinition parse(BufferedReader reader, String source) throws IOException
+	{
+		ArrayList<String[]> lines = new ArrayList<String[]>();
+		ArrayList<Integer> numbers = new ArrayList<Integer>(); // Line number of each line, for errors.
+		String line;
+		int number = 0;
+		int nodes = -1, rooms = 0, items = 0;
+
+		while((line = reader.readLine()) != null)
+		{
+			number++;
+			line = line.trim();
+
+			if(line.isEmpty() || line.startsWith("#"))
+				continue;
+
+			int colon = line.indexOf(':');
+			String[] token = line.split(":", fields(colon < 0 ? line : line.substring(0, colon).trim()));
+			for(int i = 0; i < token.length; i++)
+				token[i] = token[i].trim();
+
+			try
+			{
+				if(token[0].equals("nodes"))
+					nodes = Integer.parseInt(token[1]);
+				else if(token[0].equals("room"))
+				{
+					rooms++;
+					if(token.length > 3)
+						items++;
+				}
+			}
+			catch(RuntimeException e)
+			{
+				throw new IOException(source + ":" + number + ": " + e.getMessage(), e);
+			}
+
+			lines.add(token);
+			numbers.add(number);
+		}
+
+		if(nodes < 0)
+			throw new IOException(source + ": missing nodes line");
+
+		MansionDefinition mansion = new MansionDefinition(nodes, rooms, items);
+		int room = 0, item = 0;
+
+		for(int i = 0; i < lines.size(); i++)
+		{
+			String[] token = lines.get(i);
+
+			try
+			{
+				switch(token[0])
+				{
+				case "nodes":
+					break;
+				case "start":
+					mansion.setStartState(state(Integer.parseInt(token[1]), Integer.parseInt(token[2])));
+					break;
+				case "room":
+					mansion.setRoom(room, token[1], token[2].equals("locked"));
+					if(token.length > 3)
+						mansion.setItem(item++, token[3], Integer.parseInt(token[4]), room);
+					room++;
+					break;
+				case "node":
+					mansion.setNodeRoom(Integer.parseInt(token[1]), mansion.room(token[2]),
+							token.length > 3 && token[3].equals("enter"));
+					break;
+				case "turns":
+					mansion.setTurns(Integer.parseInt(token[1]));
+					break;
+				default:
+					mansion.parseStateLine(token);
+				}
+			}
+			catch(RuntimeException e)
+			{
+				throw new IOException(source + ":" + numbers.get(i) + ": " + e.getMessage(), e);
+			}
+		}
+
+		mansion.trim();
+		return mansion;
+	}
+
+	/**
+	 * The fields method gives the number of fields of a line kind whose last
+	 * field is free text, so a message or file name may contain ':'.
+	 * @param keyword The first field of the line.
+	 * @return The split limit, 0 when every field is split.
+	 */
+	private static int fields(String keyword)
+	{
+		switch(keyword)
+		{
+		case "gate":
+			return 5;	// gate:node:dir:room:message
+		case "unlock":
+			return 6;	// unlock:node:dir:items:room:message
+		case "sprite":
+			return 8;	// sprite:node:dir:kind:name:x:y:file
+		default:
+			return 0;
+		}
+	}
+
+	/**
+	 * The parseStateLine method compiles a line that applies to a node
+	 * and a direction, or to every direction of a node when dir is *.
+	 * @param token The fields of the line.
+	 */
+	private void parseStateLine(String[] token)
+	{
+		int node = Integer.parseInt(token[1]);
+		int first = token[2].equals("*") ? 0 : Integer.parseInt(token[2]);
+		int last = token[2].equals("*") ? DIRECTIONS - 1 : first;
+
+		for(int dir = first; dir <= last; dir++)
+		{
+			int state = state(node, dir);
+
+			switch(token[0])
+			{
+			case "image":
+				this.setImage(state, token[3]);
+				break;
+			case "forward":
+				this.setForward(state, state(Integer.parseInt(token[3]), Integer.parseInt(token[4])));
+				break;
+			case "back":
+				this.setBack(state, state(Integer.parseInt(token[3]), Integer.parseInt(token[4])));
+				break;
+			case "gate":
+				this.setGate(state, this.room(token[3]), token[4]);
+				break;
+			case "lore":
+				this.setLore(state, token[3].equals("pickedup") ? LORE_PICKED_UP : LORE_ENTERED, this.room(token[4]));
+				break;
+			case "unlock":
+				String[] names = token[3].split("\\+");	// Items used together.
+				int[] items = new int[names.length];
+				for(int i = 0; i < names.length; i++)
+					items[i] = this.item(names[i]);
+				this.setUnlock(state, items, this.room(token[4]), token[5]);
+				break;
+			case "escape":
+				this.setEscape(state, this.item(token[3]));
+				break;
+			case "sprite":
+				boolean item = token[3].equals("item");
+				this.addSprite(state, item ? SPRITE_ITEM : SPRITE_DOOR, item ? this.item(token[4]) : this.room(token[4]),
+						Integer.parseInt(token[5]), Integer.parseInt(token[6]), token.length > 7 ? token[7] : null);
+				break;
+			default:
+				throw new IllegalArgumentException("unknown keyword " + token[0]);
+			}
+		}
+	}
+
+	/**
+	 * The room method resolves a room name while loading.
+	 * @param name The name of a room declared earlier.
+	 * @return The room id.
+	 */
+	private int room(String name)
+	{
+		int id = this.getRoomId(name);
+
+		if(id < 0)
+			throw new IllegalArgumentException("unknown room " + name);
+		return id;
+	}
+
+	/**
+	 * The item method resolves an item name while loading.
+	 * @param name The name of an item declared earlier.
+	 * @return The item id.
+	 */
+	private int item(String name)
+	{
+		int id = this.getItemId(name);
+
+		if(id < 0)
+			throw new IllegalArgumentException("unknown item " + name);
+		return id;
+	}
+
+	/**
+	 * The addMessage method stores a message once.
+	 * @param message The message to be stored.
+	 * @return The index of the message.
+	 */
+	private int addMessage(String message)
+	{
+		int index = this.messages.indexOf(message);
+
+		if(index < 0)
+		{
+			index = this.messages.size();
+			this.messages.add(message);
+		}
+		return index;
+	}
+
+	/**
+	 * The trim method shrinks the per rule tables to the rules in use,
+	 * once a mansion is fully compiled.
+	 */
+	public void trim()
+	{
+		this.growRules(Math.max(this.ruleCount, 1));
+	}
+	
+	/**
+	 * The ruleOf method returns the rule of a state, adding one if the
+	 * state has none yet.
+	 * @param state The state.
+	 * @return The rule index.
+	 */
+	private int ruleOf(int state)
+	{
+		if(this.rule[state] < 0)
+		{
+			if(this.ruleCount == this.gateRoom.length)
+				this.growRules(this.ruleCount * 2);
+			
+			this.rule[state] = this.ruleCount++;
+		}
+		return this.rule[state];
+	}
+	
+	/**
+	 * The growRules method resizes the per rule tables, new rules are empty.
+	 * @param capacity The new number of rules the tables can hold.
+	 */
+	private void growRules(int capacity)
+	{
+		this.gateRoom = grown(this.gateRoom, capacity);
+		this.gateMessage = grown(this.gateMessage, capacity);
+		this.loreKind = this.loreKind == null ? new byte[capacity] : Arrays.copyOf(this.loreKind, capacity);
+		this.loreRoom = grown(this.loreRoom, capacity);
+		this.unlockItem = grown(this.unlockItem, capacity);
+		this.unlockRoom = grown(this.unlockRoom, capacity);
+		this.unlockMessage = grown(this.unlockMessage, capacity);
+		this.unlockItems = this.unlockItems == null ? new int[capacity][] : Arrays.copyOf(this.unlockItems, capacity);
+		this.escapeItem = grown(this.escapeItem, capacity);
+	}
+	
+	/**
+	 * The grown method copies a table into one of another size, filling new entries with -1.
+	 * @param table The table, or null.
+	 * @param capacity The new length.
+	 * @return The resized table.
+	 */
+	private static int[] grown(int[] table, int capacity)
+	{
+		if(table == null)
+			return filled(capacity);
+		
+		int length = table.length;
+		table = Arrays.copyOf(table, capacity);
+		if(capacity > length)
+			Arrays.fill(table, length, capacity, -1);
+		return table;
+	}
+	
+	/**
+	 * The filled method allocates a table with every entry set to -1.
+	 * @param length The length of the table.
+	 * @return The table.
+	 */
+	private static int[] filled(int length)
+	{
+		int[] table = new int[length];
+		Arrays.fill(table, -1);
+		return table;
+	}
+}
@@ -0,0 +1,360 @@
+/**
+ * MansionGenerator Class
+ * The MansionGenerator class builds random mansions of any size from a seed.
+ * A generated mansion is a tree of hallway nodes, laid out like the hallway of
+ * the default mansion, with rooms as leaves. Rooms are numbered in the order
+ * they are generated and a locked room is always opened by the item of a room
+ * numbered before it, like the Key, Study and Note chain, so the mansion can
+ * always be escaped with the item of the last room.
+ * fields:
+ * 	hallwayChance: The chance that a free side of a hallway leads to more hallway instead of a room.
+ * 	lockedChance: The chance that a room is locked.
+ * 	seed: The seed of the random numbers, the same seed gives the same mansion.
+ * Date: 19 October 2026
+ * OOP Project 2: The Mansion
+ * @author Team 7
+ * @version 1.0
+ * @since 1.0
+ */
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+public class MansionGenerator
+{
+	private static final byte HALLWAY = 0;	// Node kinds while generating.
+	private static final byte ROOM = 1;
+
+	private long seed;
+	private double hallwayChance;
+	private double lockedChance;
+
+	/**
+	 * This constructor creates a generator with the default chances.
+	 * @param seed The seed of the random numbers.
+	 */
+	public MansionGenerator(long seed)
+	{
+		this(seed, 0.4, 0.6);
+	}
+
+	/**
+	 * This constructor creates a generator.
+	 * @param seed The seed of the random numbers.
+	 * @param hallwayChance The chance that a free side of a hallway leads to more hallway.
+	 * @param lockedChance The chance that a room is locked.
+	 */
+	public MansionGenerator(long seed, double hallwayChance, double lockedChance)
+	{
+		this.seed = seed;
+		this.hallwayChance = hallwayChance;
+		this.lockedChance = lockedChance;
+	}
+
+
+	// Functions:
+	/**
+	 * The generate method builds a mansion. Node 0 is outside the front door
+	 * and node 1 is the first hallway, facing the entrance in direction 3
+	 * where the item of the last room escapes the mansion. Nodes are numbered
+	 * breadth first so nodes near each other have ids near each other.
+	 * @param nodeCount The number of nodes, at least 3.
+	 * @return The compiled mansion.
+	 */
+	public MansionDefinition generate(int nodeCount)
+	{
+		if(nodeCount < 3)
+			throw new IllegalArgumentException("A mansion needs at least 3 nodes");
+
+		SplittableRandom random = new SplittableRandom(this.seed);
+
+		byte[] kind = new byte[nodeCount];		// Hallway or room.
+		int[] parent = new int[nodeCount];		// Hallway the node is reached from.
+		byte[] parentDir = new byte[nodeCount];	// Direction of the node from its parent.
+		int[] queue = new int[nodeCount];		// Hallways that still have free sides.
+		int head = 0, tail = 0;
+		int count = 2;
+		int roomCount = 0;
+
+		queue[tail++] = 1;
+
+		// Lay out the tree: every hallway has three free sides, its fourth side leads back.
+		while(count < nodeCount && head < tail)
+		{
+			int hallway = queue[head++];
+
+			for(int dir = 0; dir < 3 && count < nodeCount; dir++)
+			{
+				int node = count++;
+				boolean last = node == nodeCount - 1;
+				boolean more = head == tail && dir == 2; // Keep the tree growing.
+
+				parent[node] = hallway;
+				parentDir[node] = (byte) dir;
+
+				if(!(last && roomCount == 0) && (more || random.nextDouble() < this.hallwayChance))
+				{
+					kind[node] = HALLWAY;
+					queue[tail++] = node;
+				}
+				else
+				{
+					kind[node] = ROOM;
+					roomCount++;
+				}
+			}
+		}
+
+		// Room 0 is the hallway, items are numbered like the rooms they are found in minus one.
+		MansionDefinition mansion = new MansionDefinition(nodeCount, roomCount + 1, roomCount);
+		mansion.setRoom(0, "Hallway", false);
+		mansion.setStartState(MansionDefinition.state(0, 0));
+
+		mansion.setNodeRoom(0, 0, false);
+		for(int dir = 0; dir < MansionDefinition.DIRECTIONS; dir++)
+			mansion.setForward(MansionDefinition.state(0, dir), MansionDefinition.state(1, 0));
+
+		mansion.setNodeRoom(1, 0, true);
+		mansion.setTurns(1);
+
+		int[] pool = new int[roomCount];	// Items not used as a key yet.
+		int poolSize = 0;
+		int room = 0;
+
+		for(int node = 2; node < nodeCount; node++)
+		{
+			int door = MansionDefinition.state(parent[node], parentDir[node]);
+
+			mansion.setForward(door, MansionDefinition.state(node, 0));
+			mansion.setBack(MansionDefinition.state(node, 0), door);
+
+			if(kind[node] == HALLWAY)
+			{
+				int away = MansionDefinition.state(parent[node], 3 - parentDir[node]); // Facing away from the node.
+
+				mansion.setNodeRoom(node, 0, false);
+				mansion.setTurns(node);
+				mansion.setForward(MansionDefinition.state(node, 3), away);
+				mansion.setBack(away, MansionDefinition.state(node, 3));
+				continue;
+			}
+
+			room++;
+			int item = room - 1;
+			boolean locked = room > 1 && poolSize > 0 && random.nextDouble() < this.lockedChance;
+
+			mansion.setRoom(room, locked);
+			mansion.setItem(item, -1, room);
+			mansion.setNodeRoom(node, room, true);
+			mansion.setLore(door, MansionDefinition.LORE_ENTERED, room);
+			mansion.setLore(MansionDefinition.state(node, 0), MansionDefinition.LORE_PICKED_UP, room);
+
+			if(locked)
+			{
+				// Any item found before this room can be its key.
+				int index = random.nextInt(poolSize);
+				int key = pool[index];
+
+				pool[index] = pool[--poolSize];
+				mansion.setItemType(key, parent[node]);
+				mansion.setGate(door, room, "The door is locked.");
+				mansion.setUnlock(door, key, room, "The key has been used to unlock the door.");
+			}
+
+			if(room < roomCount)
+				pool[poolSize++] = item;
+		}
+
+		mansion.setEscape(MansionDefinition.state(1, 3), roomCount - 1);
+		mansion.setItemType(roomCount - 1, 1);
+		mansion.trim();
+		return mansion;
+	}
+
+	/**
+	 * The getLongestChain method measures the longest chain of rooms that
+	 * have to be opened one after another, following each locked room back
+	 * to the room its key is found in.
+	 * @param mansion A generated mansion.
+	 * @return The number of locks in the longest chain.
+	 */
+	public static int getLongestChain(MansionDefinition mansion)
+	{
+		int[] chain = new int[mansion.getRoomCount()];
+		int[] door = new int[mansion.getRoomCount()];
+		int longest = 0;
+
+		for(int node = 0; node < mansion.getNodeCount(); node++)
+		{
+			if(mansion.entersRoom(node) && mansion.getNodeRoom(node) > 0)
+				door[mansion.getNodeRoom(node)] = mansion.back(MansionDefinition.state(node, 0));
+		}
+
+		// A key always comes from a room numbered lower, so one pass in order is enough.
+		for(int room = 1; room < chain.length; room++)
+		{
+			int key = mansion.getUnlockItem(door[room]);
+
+			if(key >= 0)
+				chain[room] = chain[mansion.getItemRoom(key)] + 1;
+			longest = Math.max(longest, chain[room]);
+		}
+		return longest;
+	}
+
+	/**
+	 * The isSolvable method checks that the escape item can be reached by
+	 * opening rooms with the items found in rooms that are already open.
+	 * @param mansion A generated mansion.
+	 * @return True if the mansion can be escaped. Otherwise, false.
+	 */
+	public static boolean isSolvable(MansionDefinition mansion)
+	{
+		int rooms = mansion.getRoomCount();
+		int[] lockedBy = new int[mansion.getItemCount()];	// Room each item unlocks, or -1.
+		boolean[] open = new boolean[rooms];
+		int[] queue = new int[rooms];
+		int head = 0, tail = 0;
+
+		Arrays.fill(lockedBy, -1);
+
+		for(int node = 0; node < mansion.getNodeCount(); node++)
+		{
+			int room = mansion.getNodeRoom(node);
+
+			if(!mansion.entersRoom(node) || room == 0)
+				continue;
+
+			int key = mansion.getUnlockItem(mansion.back(MansionDefinition.state(node, 0)));
+
+			if(!mansion.isRoomLocked(room))
+			{
+				open[room] = true;
+				queue[tail++] = room;
+			}
+			else if(key >= 0)
+				lockedBy[key] = room;
+		}
+
+		while(head < tail)
+		{
+			int item = mansion.getRoomItem(queue[head++]);
+			int next = item < 0 ? -1 : lockedBy[item];
+
+			if(next >= 0 && !open[next])
+			{
+				open[next] = true;
+				queue[tail++] = next;
+			}
+		}
+
+		int escape = mansion.getEscapeItem(MansionDefinition.state(1, 3));
+		return escape >= 0 && open[mansion.getItemRoom(escape)];
+	}
+
+	/**
+	 * The check method generates a mansion for every seed and size in a
+	 * range and checks that each one can be escaped, printing the ones that
+	 * can't or that fail to generate.
+	 * @param seeds The number of seeds, from 1.
+	 * @param smallest The smallest number of nodes.
+	 * @param largest The largest number of nodes.
+	 * @return Whether every mansion was generated and can be escaped.
+	 */
+	public static boolean check(int seeds, int smallest, int largest)
+	{
+		int failed = 0, total = 0;
+
+		for(long seed = 1; seed <= seeds; seed++)
+		{
+			MansionGenerator generator = new MansionGenerator(seed);
+
+			for(int size = smallest; size <= largest; size++)
+			{
+				total++;
+				try
+				{
+					if(!isSolvable(generator.generate(size)))
+					{
+						failed++;
+						System.out.println("seed " + seed + ", " + size + " nodes: can't be escaped");
+					}
+				}
+				catch(RuntimeException e)
+				{
+					failed++;
+					System.out.println("seed " + seed + ", " + size + " nodes: " + e);
+				}
+			}
+		}
+		System.out.println(failed + " of " + total + " mansions failed");
+		return failed == 0;
+	}
+
+	/**
+	 * Generate mansions of growing size and report the generation throughput
+	 * and the memory used per node.
+	 * @param args The sizes to generate, and optionally -seed=<seed>, or
+	 * -check=<seeds> to check every mansion of 3 to 300 nodes for that many seeds.
+	 */
+	public static void main(String[] args)
+	{
+		long seed = 7;
+		int[] sizes = { 24, 1000, 10000, 100000, 1000000 };
+		int count = 0;
+		int check = 0;
+
+		for(String arg : args)
+		{
+			if(arg.startsWith("-seed="))
+				seed = Long.parseLong(arg.substring(6));
+			else if(arg.startsWith("-check="))
+				check = Integer.parseInt(arg.substring(7));
+			else
+			{
+				if(count == 0)
+					sizes = new int[args.length];
+				sizes[count++] = Integer.parseInt(arg);
+			}
+		}
+		if(count > 0)
+			sizes = Arrays.copyOf(sizes, count);
+
+		if(check > 0)	// Sweep seeds 1 to check and sizes 3 to 300 instead.
+			System.exit(check(check, 3, 300) ? 0 : 1);
+
+		MansionGenerator generator = new MansionGenerator(seed);
+		Runtime runtime = Runtime.getRuntime();
+
+		generator.generate(100000); // Warm up.
+
+		System.out.printf("%10s %8s %8s %7s %10s %12s %10s %10s %s%n",
+				"nodes", "rooms", "locks", "chain", "ms", "nodes/s", "B/node", "heap B/n", "solvable");
+
+		for(int size : sizes)
+		{
+			System.gc();
+			long before = runtime.totalMemory() - runtime.freeMemory();
+			long start = System.nanoTime();
+
+			MansionDefinition mansion = generator.generate(size);
+
+			long time = System.nanoTime() - start;
+			System.gc();
+			long heap = runtime.totalMemory() - runtime.freeMemory() - before;
+
+			int locks = 0;
+			for(int room = 0; room < mansion.getRoomCount(); room++)
+			{
+				if(mansion.isRoomLocked(room))
+					locks++;
+			}
+
+			System.out.printf("%10d %8d %8d %7d %10.2f %12.0f %10.1f %10.1f %s%n",
+					size, mansion.getRoomCount() - 1, locks, getLongestChain(mansion),
+					time / 1e6, size / (time / 1e9),
+					(double) mansion.getFootprintBytes() / size, (double) Math.max(heap, 0) / size,
+					isSolvable(mansion));
+		}
+	}
+}
@@ -0,0 +1,100 @@
+/**
+ * MansionMap Interface
+ * The MansionMap interface is what the Scene and Player read a mansion
+ * through. States pack a node and a direction, see MansionDefinition.state.
+ * MansionDefinition keeps the whole mansion in memory and RegionStreamedMap
+ * only keeps the regions around the player.
+ * Date: 19 October 2026
+ * OOP Project 2: The Mansion
+ * @author Team 7
+ * @version 1.0
+ * @since 1.0
+ */
+
+public interface MansionMap
+{
+	int getNodeCount();
+	int getRoomCount();
+	int getItemCount();
+	int getStartState();
+
+	/**
+	 * The getExitState method finds where the mansion is escaped.
+	 * @return The state with an escape rule, or -1 if there is none.
+	 */
+	int getExitState();
+
+	// Moves, -1 if the player can't move.
+	int forward(int state);
+	int back(int state);
+	int left(int state);
+	int right(int state);
+
+	// Rules, -1 if the state has none.
+	int getGateRoom(int state);
+	String getGateMessage(int state);
+	int getLoreKind(int state);
+	int getLoreRoom(int state);
+	int getUnlockItem(int state);
+	int getUnlockRoom(int state);
+	String getUnlockMessage(int state);
+	int getEscapeItem(int state);
+
+	/**
+	 * The getUnlockItems method finds every item the unlock rule of a state
+	 * needs. They are all used at once, the first one is getUnlockItem.
+	 * @param state The state.
+	 * @return The items, none if the state has no unlock rule. Not to be changed.
+	 */
+	default int[] getUnlockItems(int state)
+	{
+		int item = this.getUnlockItem(state);
+		return item < 0 ? new int[0] : new int[] { item };
+	}
+
+	// Images, -1 if the state has none.
+	int getImage(int state);
+	int getImageCount();
+	String getImageFile(int image);
+
+	// Sprites drawn over the image of a state, SPRITE_FIELDS ints each.
+	int SPRITE_ITEM = 0, SPRITE_DOOR = 1;	// Kinds: an item shown until picked up, a door shown while locked.
+	int SPRITE_FIELDS = 5;					// Kind, item or room id, x, y and sprite file, or -1 to draw one.
+
+	/**
+	 * The getSprites method finds the sprites drawn over the image of a
+	 * state, packed one after the other: kind, id, x, y and file.
+	 * @param state The state.
+	 * @return The sprites, none if the state has no sprites. Not to be changed.
+	 */
+	default int[] getSprites(int state)
+	{
+		return new int[0];
+	}
+
+	default String getSpriteFile(int file)
+	{
+		return null;
+	}
+
+	// Nodes, rooms and items.
+	int getNodeRoom(int node);
+	boolean entersRoom(int node);
+	String getRoomName(int room);
+	boolean isRoomLocked(int room);
+	int getRoomItem(int room);
+	String getItemName(int item);
+	int getItemType(int item);
+	int getItemRoom(int item);
+	int getRoomId(String name);
+	int getItemId(String name);
+
+	/**
+	 * The setPosition method tells the map where the player is, so a map
+	 * that doesn't keep the whole mansion in memory can load what is near.
+	 * @param node The node the player is on.
+	 */
+	default void setPosition(int node)
+	{
+	}
+}
@@ -0,0 +1,442 @@
+/**
+ * MinimapPanel Class
+ * The MinimapPanel class draws a map of the mansion: a cell for each node,
+ * the ways between them, the rooms the player has entered or found locked,
+ * and where the player is and which way they face.
+ * The nodes are laid out on a grid by following the ways out of the start,
+ * moving forward in direction 0 leading up, 1 left, 2 right and 3 down.
+ * What never changes, the ways and the empty cell of every node, is drawn
+ * once into an image. Over it each cell is drawn in its own state.
+ * After a move only the cells whose state changed are repainted: every
+ * cell of a room is only visited when the room itself changes, so a hall
+ * spanning many nodes costs no more than a room of one, and painting only
+ * looks at the cells under the area being repainted.
+ * fields:
+ * 	cells: The state of each node as last drawn, see the cell flags.
+ * 	grid: The node of each cell of the grid, row by row, or -1.
+ * 	layer: The image of what never changes, drawn for the current size.
+ * 	mansion: The mansion being drawn.
+ * 	roomFlags: The flags of each room as last drawn.
+ * 	roomNodes: The nodes of each room, to repaint a room when it changes.
+ * 	size: The size of a cell in pixels, for the current size of the panel.
+ * 	visited: The nodes the player has been on.
+ * 	x, y: The column and row of each node.
+ * Date: 19 October 2026
+ * OOP Project 2: The Mansion
+ * @author Team 7
+ * @version 1.0
+ * @since 1.0
+ */
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Polygon;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import javax.swing.JPanel;
+
+public class MinimapPanel extends JPanel
+{
+	private static final long serialVersionUID = 1L;
+
+	private static final int[] DX = { 0, -1, 1, 0 }, DY = { -1, 0, 0, 1 };	// Forward in each direction.
+	private static final int MAX_CELL = 36, GAP = 4;
+
+	// Cell flags, the player's direction is kept in the bits above them.
+	private static final int VISITED = 1, ENTERED = 2, LOCKED = 4, PLAYER = 8, DIR_SHIFT = 4;
+
+	private static final Color WAY = new Color(150, 150, 150), UNKNOWN = new Color(215, 215, 215),
+			SEEN = new Color(190, 205, 225), ENTERED_ROOM = new Color(150, 190, 140), LOCKED_ROOM = new Color(190, 60, 60);
+
+	private MansionMap mansion;
+	private int[] x, y;
+	private int columns, rows;
+	private int[] grid;
+	private int[][] roomNodes;
+	private int[] roomFlags;
+
+	private int[] cells;
+	private BitSet visited = new BitSet();
+	private int player = -1;
+
+	private BufferedImage layer;
+	private int size;
+
+	/**
+	 * This constructor lays out a mansion.
+	 * @param mansion The mansion to be drawn.
+	 */
+	public MinimapPanel(MansionMap mansion)
+	{
+		this.mansion = mansion;
+		this.cells = new int[mansion.getNodeCount()];
+		this.setBackground(Color.WHITE);
+		this.layOut();
+	}
+
+
+	// Getters:
+	/**
+	 * Get the place of a node on the panel, at its current size.
+	 * @param node The node.
+	 * @return The bounds of its cell.
+	 */
+	public Rectangle getCellBounds(int node)
+	{
+		return new Rectangle(GAP + this.x[node] * this.size, GAP + this.y[node] * this.size, this.size, this.size);
+	}
+
+
+	// Functions:
+	/**
+	 * The update method follows the player to the node of a scene and
+	 * repaints the cells that changed. Only the cells the player left or
+	 * moved to, and the rooms around them, can have changed.
+	 * @param scene The scene the player is in.
+	 */
+	public void update(Scene scene)
+	{
+		int node = scene.getNode();
+		int last = this.player;
+
+		this.player = node;
+		this.visited.set(node);
+
+		if(last >= 0)
+			this.updateRoomAround(scene, last);
+		this.updateRoomAround(scene, node);
+	}
+
+	/**
+	 * The refresh method checks every cell, like after an undo that may
+	 * change rooms far from the player.
+	 * @param scene The scene the player is in.
+	 */
+	public void refresh(Scene scene)
+	{
+		this.player = scene.getNode();
+		this.visited.set(this.player);
+
+		for(int node = 0; node < this.cells.length; node++)
+		{
+			if(this.mansion.getNodeRoom(node) < 0)
+				this.updateCell(scene, node, 0);
+		}
+		for(int room = 0; room < this.roomNodes.length; room++)
+		{
+			this.roomFlags[room] = flagsOf(scene.getRoom(room));
+			for(int node : this.roomNodes[room])
+				this.updateCell(scene, node, this.roomFlags[room]);
+		}
+	}
+
+	/**
+	 * The updateRoomAround method updates the cell of a node, and the rooms
+	 * of the node and of every node it leads to, which a door there may
+	 * have unlocked.
+	 */
+	private void updateRoomAround(Scene scene, int node)
+	{
+		if(this.mansion.getNodeRoom(node) < 0)
+			this.updateCell(scene, node, 0);	// In no room, only the player changes it.
+		else
+			this.updateRoom(scene, this.mansion.getNodeRoom(node), node);
+
+		for(int dir = 0; dir < 4; dir++)
+		{
+			int next = this.mansion.forward(MansionDefinition.state(node, dir));
+			if(next >= 0)
+				this.updateRoom(scene, this.mansion.getNodeRoom(MansionDefinition.nodeOf(next)), -1);
+		}
+	}
+
+	/**
+	 * The updateRoom method updates every cell of a room if the room was
+	 * entered or unlocked since it was drawn. Otherwise only the cell of
+	 * the node is updated, the other cells of the room are as they were.
+	 * @param node The node whose cell may have changed, or -1.
+	 */
+	private void updateRoom(Scene scene, int room, int node)
+	{
+		if(room < 0)
+			return;
+
+		int flags = flagsOf(scene.getRoom(room));
+
+		if(flags != this.roomFlags[room])
+		{
+			this.roomFlags[room] = flags;
+			for(int other : this.roomNodes[room])
+				this.updateCell(scene, other, flags);
+		}
+		else if(node >= 0)
+			this.updateCell(scene, node, flags);
+	}
+
+	private static int flagsOf(Room room)
+	{
+		return (room.hasEntered() ? ENTERED : 0) | (room.isLocked() ? LOCKED : 0);
+	}
+
+	/**
+	 * The updateCell method repaints a cell if its state changed.
+	 * @param flags The flags of the room of the node.
+	 */
+	private void updateCell(Scene scene, int node, int flags)
+	{
+		int cell = flags | (this.visited.get(node) ? VISITED : 0);
+
+		if(node == this.player)
+			cell |= PLAYER | (scene.getDirection() << DIR_SHIFT);
+
+		if(cell != this.cells[node])
+		{
+			this.cells[node] = cell;
+			this.repaint(this.getCellBounds(node));
+		}
+	}
+
+	/**
+	 * The layOut method gives each node a cell, walking the ways out of
+	 * the start. A node whose cell is taken goes to the nearest free one.
+	 * Nodes that can't be reached are put in a row under the others.
+	 */
+	private void layOut()
+	{
+		int count = this.mansion.getNodeCount();
+		HashMap<Long, Integer> taken = new HashMap<Long, Integer>();
+		ArrayDeque<Integer> queue = new ArrayDeque<Integer>();
+
+		this.x = new int[count];
+		this.y = new int[count];
+		boolean[] placed = new boolean[count];
+
+		int start = MansionDefinition.nodeOf(this.mansion.getStartState());
+		this.place(start, 0, 0, placed, taken);
+		queue.add(start);
+
+		while(!queue.isEmpty())
+		{
+			int node = queue.poll();
+
+			for(int dir = 0; dir < 4; dir++)
+			{
+				int state = MansionDefinition.state(node, dir);
+				int[] next = { this.mansion.forward(state), this.mansion.back(state) };
+
+				for(int way = 0; way < 2; way++)
+				{
+					if(next[way] < 0 || placed[MansionDefinition.nodeOf(next[way])])
+						continue;
+
+					int step = way == 0 ? 1 : -1;
+					int to = MansionDefinition.nodeOf(next[way]);
+
+					this.place(to, this.x[node] + DX[dir] * step, this.y[node] + DY[dir] * step, placed, taken);
+					queue.add(to);
+				}
+			}
+		}
+
+		int minX = 0, minY = 0, maxY = 0;
+		for(int node = 0; node < count; node++)
+		{
+			if(placed[node])
+			{
+				minX = Math.min(minX, this.x[node]);
+				minY = Math.min(minY, this.y[node]);
+				maxY = Math.max(maxY, this.y[node]);
+			}
+		}
+
+		int unreached = 0;
+		for(int node = 0; node < count; node++)
+		{
+			if(!placed[node])
+			{
+				this.x[node] = minX + unreached++;
+				this.y[node] = maxY + 2;
+			}
+		}
+
+		for(int node = 0; node < count; node++)
+		{
+			this.x[node] -= minX;
+			this.y[node] -= minY;
+			this.columns = Math.max(this.columns, this.x[node] + 1);
+			this.rows = Math.max(this.rows, this.y[node] + 1);
+		}
+
+		this.grid = new int[this.columns * this.rows];
+		Arrays.fill(this.grid, -1);
+		for(int node = 0; node < count; node++)
+			this.grid[this.y[node] * this.columns + this.x[node]] = node;
+
+		ArrayList<ArrayList<Integer>> rooms = new ArrayList<ArrayList<Integer>>();
+		for(int room = 0; room < this.mansion.getRoomCount(); room++)
+			rooms.add(new ArrayList<Integer>());
+		for(int node = 0; node < count; node++)
+		{
+			if(this.mansion.getNodeRoom(node) >= 0)
+				rooms.get(this.mansion.getNodeRoom(node)).add(node);
+		}
+
+		this.roomNodes = new int[rooms.size()][];
+		for(int room = 0; room < rooms.size(); room++)
+			this.roomNodes[room] = rooms.get(room).stream().mapToInt(Integer::intValue).toArray();
+		this.roomFlags = new int[rooms.size()];	// Every cell starts as 0.
+	}
+
+	private void place(int node, int x, int y, boolean[] placed, HashMap<Long, Integer> taken)
+	{
+		for(int ring = 0; ; ring++) // Look around the cell in growing squares.
+		{
+			for(int dy = -ring; dy <= ring; dy++)
+			{
+				for(int dx = -ring; dx <= ring; dx++)
+				{
+					long key = ((long) (x + dx) << 32) | ((y + dy) & 0xffffffffL);
+
+					if(Math.max(Math.abs(dx), Math.abs(dy)) != ring || taken.containsKey(key))
+						continue;
+
+					taken.put(key, node);
+					this.x[node] = x + dx;
+					this.y[node] = y + dy;
+					placed[node] = true;
+					return;
+				}
+			}
+		}
+	}
+
+	/**
+	 * The paintComponent method draws the layer of what never changes,
+	 * then the cells inside the area being repainted, found on the grid.
+	 */
+	@Override
+	protected void paintComponent(Graphics graphics)
+	{
+		super.paintComponent(graphics);
+
+		int size = Math.max(4, Math.min(MAX_CELL, Math.min((this.getWidth() - 2 * GAP) / this.columns,
+				(this.getHeight() - 2 * GAP) / this.rows)));
+
+		if(this.layer == null || size != this.size)
+		{
+			this.size = size;
+			this.layer = this.drawLayer();
+		}
+
+		Graphics2D g = (Graphics2D) graphics;
+		Rectangle clip = g.getClipBounds();
+
+		g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+		g.drawImage(this.layer, 0, 0, null);
+
+		if(clip == null)
+			clip = new Rectangle(0, 0, this.getWidth(), this.getHeight());
+
+		int fromX = Math.max(0, (clip.x - GAP) / this.size), toX = Math.min(this.columns - 1, (clip.x + clip.width - GAP) / this.size);
+		int fromY = Math.max(0, (clip.y - GAP) / this.size), toY = Math.min(this.rows - 1, (clip.y + clip.height - GAP) / this.size);
+
+		for(int row = fromY; row <= toY; row++)
+		{
+			for(int column = fromX; column <= toX; column++)
+			{
+				int node = this.grid[row * this.columns + column];
+				if(node >= 0 && this.cells[node] != 0) // Unknown cells are in the layer.
+					this.drawCell(g, node, this.cells[node]);
+			}
+		}
+	}
+
+	/**
+	 * The drawLayer method draws the ways between the nodes, an empty cell
+	 * for each node and the name of each room, at the current cell size.
+	 */
+	private BufferedImage drawLayer()
+	{
+		BufferedImage image = new BufferedImage(2 * GAP + this.columns * this.size, 2 * GAP + this.rows * this.size,
+				BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = image.createGraphics();
+		int half = this.size / 2;
+
+		g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+		g.setStroke(new BasicStroke(Math.max(1, this.size / 8)));
+		g.setColor(WAY);
+
+		for(int node = 0; node < this.cells.length; node++)
+		{
+			for(int dir = 0; dir < 4; dir++)
+			{
+				int next = this.mansion.forward(MansionDefinition.state(node, dir));
+				if(next < 0)
+					continue;
+
+				Rectangle from = this.getCellBounds(node), to = this.getCellBounds(MansionDefinition.nodeOf(next));
+				g.drawLine(from.x + half, from.y + half, to.x + half, to.y + half);
+			}
+		}
+
+		for(int node = 0; node < this.cells.length; node++)
+			this.drawCell(g, node, 0);
+
+		g.dispose();
+		return image;
+	}
+
+	/**
+	 * The drawCell method draws a node in its state: unknown, seen, part of
+	 * an entered room or locked, with an arrow where the player is. A room
+	 * of one node is named, halls span many nodes and aren't.
+	 */
+	private void drawCell(Graphics2D g, int node, int flags)
+	{
+		Rectangle cell = this.getCellBounds(node);
+		int room = this.mansion.getNodeRoom(node);
+		int inset = Math.max(1, this.size / 8);
+		Color fill = (flags & ENTERED) != 0 ? ENTERED_ROOM : (flags & VISITED) != 0 ? SEEN : UNKNOWN;
+
+		g.setColor(fill);
+		g.fillRect(cell.x + inset, cell.y + inset, cell.width - 2 * inset, cell.height - 2 * inset);
+
+		if((flags & LOCKED) != 0)
+		{
+			g.setColor(LOCKED_ROOM);
+			g.drawRect(cell.x + inset, cell.y + inset, cell.width - 2 * inset - 1, cell.height - 2 * inset - 1);
+		}
+
+		if(this.size >= 16 && room >= 0 && this.roomNodes[room].length == 1)
+		{
+			String name = this.mansion.getRoomName(room);
+
+			g.setColor(Color.DARK_GRAY);
+			g.setFont(new Font("Tahoma", Font.PLAIN, Math.max(8, this.size / 4)));
+			g.drawString(name.length() > 4 ? name.substring(0, 4) : name, cell.x + inset + 1, cell.y + cell.height - inset - 2);
+		}
+
+		if((flags & PLAYER) != 0)
+		{
+			int dir = flags >> DIR_SHIFT;
+			int cx = cell.x + cell.width / 2, cy = cell.y + cell.height / 2, r = Math.max(2, this.size / 3);
+			Polygon arrow = new Polygon();
+
+			arrow.addPoint(cx + DX[dir] * r, cy + DY[dir] * r);								// Tip.
+			arrow.addPoint(cx - DX[dir] * r / 2 + DY[dir] * r / 2, cy - DY[dir] * r / 2 - DX[dir] * r / 2);
+			arrow.addPoint(cx - DX[dir] * r / 2 - DY[dir] * r / 2, cy - DY[dir] * r / 2 + DX[dir] * r / 2);
+
+			g.setColor(Color.BLACK);
+			g.fillPolygon(arrow);
+		}
+	}
+}
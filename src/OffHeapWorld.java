@@ -0,0 +1,521 @@
+/**
+ * OffHeapWorld Class
+ * The OffHeapWorld class keeps a whole mansion, and the state of its rooms
+ * and items, in direct ByteBuffers outside the Java heap. A Scene playing it
+ * uses Room and Item views over it, so however many rooms the mansion has,
+ * the heap only holds a few small objects and the garbage collector has
+ * nothing to trace.
+ * fields:
+ * 	states: forward, back, left, right, image and rule of each state (STATE_BYTES each).
+ * 	rules: gate, lore, unlock and escape of each rule (RULE_BYTES each).
+ * 	nodes: room and enters flag of each node (NODE_BYTES each).
+ * 	rooms: item and locked and entered flags of each room (ROOM_BYTES each).
+ * 	items: type, room and picked up and used flags of each item (ITEM_BYTES each).
+ * 	roomNames, itemNames: The few rooms and items that have a name, by id.
+ * 	unlockItems: The items of the few unlock rules that need more than one, by rule.
+ * 	sprites: The sprites of the few states that have any, by state.
+ * 	messages, imageFiles, spriteFiles: The messages, images and sprite files of the mansion.
+ * Date: 19 October 2026
+ * OOP Project 2: The Mansion
+ * @author Team 7
+ * @version 1.0
+ * @since 1.0
+ */
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.HashMap;
+import javax.swing.JButton;
+import javax.swing.JTextPane;
+
+public class OffHeapWorld implements WorldStore
+{
+	private static final int STATE_BYTES = 24;
+	private static final int RULE_BYTES = 32;
+	private static final int NODE_BYTES = 8;
+	private static final int ROOM_BYTES = 8;
+	private static final int ITEM_BYTES = 12;
+
+	private static final byte LOCKED = 1, ENTERED = 2;		// Room flags.
+	private static final byte PICKED_UP = 1, USED = 2;		// Item flags.
+	private static final int[] NO_SPRITES = new int[0];		// Sprites of a state without any.
+
+	private int nodeCount, roomCount, itemCount;
+	private int startState, exitState;
+
+	private ByteBuffer states, rules, nodes, rooms, items;
+
+	private HashMap<Integer, String> roomNames, itemNames;
+	private HashMap<String, Integer> roomIds, itemIds;
+	private HashMap<Integer, int[]> unlockItems = new HashMap<Integer, int[]>();
+	private HashMap<Integer, int[]> sprites = new HashMap<Integer, int[]>();
+	private ArrayList<String> messages, imageFiles, spriteFiles;
+
+	/**
+	 * This constructor copies a compiled mansion into direct buffers. The
+	 * MansionDefinition can be dropped afterwards.
+	 * @param mansion The mansion to be copied.
+	 */
+	public OffHeapWorld(MansionDefinition mansion)
+	{
+		this.nodeCount = mansion.getNodeCount();
+		this.roomCount = mansion.getRoomCount();
+		this.itemCount = mansion.getItemCount();
+		this.startState = mansion.getStartState();
+		this.exitState = mansion.getExitState();
+
+		this.roomNames = new HashMap<Integer, String>();
+		this.itemNames = new HashMap<Integer, String>();
+		this.roomIds = new HashMap<String, Integer>();
+		this.itemIds = new HashMap<String, Integer>();
+		this.messages = new ArrayList<String>();
+		this.imageFiles = new ArrayList<String>();
+		this.spriteFiles = new ArrayList<String>();
+		HashMap<String, Integer> messageIds = new HashMap<String, Integer>();
+
+		for(int image = 0; image < mansion.getImageCount(); image++)
+			this.imageFiles.add(mansion.getImageFile(image));
+
+		int stateCount = this.nodeCount * MansionDefinition.DIRECTIONS;
+		this.states = allocate(stateCount, STATE_BYTES);
+		this.rules = allocate(mansion.getRuleCount(), RULE_BYTES);
+		this.nodes = allocate(this.nodeCount, NODE_BYTES);
+		this.rooms = allocate(this.roomCount, ROOM_BYTES);
+		this.items = allocate(this.itemCount, ITEM_BYTES);
+
+		int ruleCount = 0;
+
+		for(int state = 0; state < stateCount; state++)
+		{
+			int at = state * STATE_BYTES;
+			int gate = mansion.getGateRoom(state);
+			int unlock = mansion.getUnlockItem(state);
+			int rule = -1;
+
+			if(gate >= 0 || unlock >= 0 || mansion.getEscapeItem(state) >= 0
+					|| mansion.getLoreKind(state) != MansionDefinition.LORE_NONE)
+			{
+				rule = ruleCount++;
+				int r = rule * RULE_BYTES;
+
+				this.rules.putInt(r, gate);
+				this.rules.putInt(r + 4, gate < 0 ? -1 : message(mansion.getGateMessage(state), messageIds));
+				this.rules.putInt(r + 8, mansion.getLoreKind(state));
+				this.rules.putInt(r + 12, mansion.getLoreRoom(state));
+				this.rules.putInt(r + 16, unlock);
+				this.rules.putInt(r + 20, mansion.getUnlockRoom(state));
+				this.rules.putInt(r + 24, unlock < 0 ? -1 : message(mansion.getUnlockMessage(state), messageIds));
+				this.rules.putInt(r + 28, mansion.getEscapeItem(state));
+				
+				if(mansion.getUnlockItems(state).length > 1)
+					this.unlockItems.put(rule, mansion.getUnlockItems(state).clone());
+			}
+
+			this.states.putInt(at, mansion.forward(state));
+			this.states.putInt(at + 4, mansion.back(state));
+			this.states.putInt(at + 8, mansion.left(state));
+			this.states.putInt(at + 12, mansion.right(state));
+			this.states.putInt(at + 16, mansion.getImage(state));
+			this.states.putInt(at + 20, rule);
+
+			int[] sprites = mansion.getSprites(state);
+			if(sprites.length > 0)
+				this.sprites.put(state, this.copySprites(mansion, sprites));
+		}
+
+		for(int node = 0; node < this.nodeCount; node++)
+		{
+			this.nodes.putInt(node * NODE_BYTES, mansion.getNodeRoom(node));
+			this.nodes.put(node * NODE_BYTES + 4, (byte) (mansion.entersRoom(node) ? 1 : 0));
+		}
+
+		for(int room = 0; room < this.roomCount; room++)
+		{
+			this.rooms.putInt(room * ROOM_BYTES, mansion.getRoomItem(room));
+			this.rooms.put(room * ROOM_BYTES + 4, mansion.isRoomLocked(room) ? LOCKED : 0);
+
+			if(mansion.hasRoomName(room))
+			{
+				this.roomNames.put(room, mansion.getRoomName(room));
+				this.roomIds.put(mansion.getRoomName(room), room);
+			}
+		}
+
+		for(int item = 0; item < this.itemCount; item++)
+		{
+			this.items.putInt(item * ITEM_BYTES, mansion.getItemType(item));
+			this.items.putInt(item * ITEM_BYTES + 4, mansion.getItemRoom(item));
+
+			if(mansion.hasItemName(item))
+			{
+				this.itemNames.put(item, mansion.getItemName(item));
+				this.itemIds.put(mansion.getItemName(item), item);
+			}
+		}
+	}
+
+
+	// Getters:
+	public int getNodeCount()
+	{
+		return this.nodeCount;
+	}
+
+	public int getRoomCount()
+	{
+		return this.roomCount;
+	}
+
+	public int getItemCount()
+	{
+		return this.itemCount;
+	}
+
+	public int getStartState()
+	{
+		return this.startState;
+	}
+
+	public int getExitState()
+	{
+		return this.exitState;
+	}
+
+	public int forward(int state)
+	{
+		return this.states.getInt(state * STATE_BYTES);
+	}
+
+	public int back(int state)
+	{
+		return this.states.getInt(state * STATE_BYTES + 4);
+	}
+
+	public int left(int state)
+	{
+		return this.states.getInt(state * STATE_BYTES + 8);
+	}
+
+	public int right(int state)
+	{
+		return this.states.getInt(state * STATE_BYTES + 12);
+	}
+
+	public int getImage(int state)
+	{
+		return this.states.getInt(state * STATE_BYTES + 16);
+	}
+
+	public int getGateRoom(int state)
+	{
+		return this.ruleInt(state, 0, -1);
+	}
+
+	public String getGateMessage(int state)
+	{
+		return this.messages.get(this.ruleInt(state, 4, -1));
+	}
+
+	public int getLoreKind(int state)
+	{
+		return this.ruleInt(state, 8, MansionDefinition.LORE_NONE);
+	}
+
+	public int getLoreRoom(int state)
+	{
+		return this.ruleInt(state, 12, -1);
+	}
+
+	public int getUnlockItem(int state)
+	{
+		return this.ruleInt(state, 16, -1);
+	}
+
+	public int[] getUnlockItems(int state)
+	{
+		int rule = this.states.getInt(state * STATE_BYTES + 20);
+		int[] items = rule < 0 ? null : this.unlockItems.get(rule);
+
+		if(items != null)
+			return items;
+		return WorldStore.super.getUnlockItems(state);
+	}
+
+	public int getUnlockRoom(int state)
+	{
+		return this.ruleInt(state, 20, -1);
+	}
+
+	public String getUnlockMessage(int state)
+	{
+		return this.messages.get(this.ruleInt(state, 24, -1));
+	}
+
+	public int getEscapeItem(int state)
+	{
+		return this.ruleInt(state, 28, -1);
+	}
+
+	public int getImageCount()
+	{
+		return this.imageFiles.size();
+	}
+
+	public String getImageFile(int image)
+	{
+		return this.imageFiles.get(image);
+	}
+
+	public int[] getSprites(int state)
+	{
+		int[] sprites = this.sprites.get(state);
+		return sprites == null ? NO_SPRITES : sprites;
+	}
+
+	public String getSpriteFile(int file)
+	{
+		return file < 0 ? null : this.spriteFiles.get(file);
+	}
+
+	public int getNodeRoom(int node)
+	{
+		return this.nodes.getInt(node * NODE_BYTES);
+	}
+
+	public boolean entersRoom(int node)
+	{
+		return this.nodes.get(node * NODE_BYTES + 4) != 0;
+	}
+
+	public String getRoomName(int room)
+	{
+		String name = this.roomNames.get(room);
+		return name == null ? "Room " + room : name;
+	}
+
+	public boolean isRoomLocked(int room)
+	{
+		return (this.rooms.get(room * ROOM_BYTES + 4) & LOCKED) != 0;
+	}
+
+	public boolean hasEntered(int room)
+	{
+		return (this.rooms.get(room * ROOM_BYTES + 4) & ENTERED) != 0;
+	}
+
+	public int getRoomItem(int room)
+	{
+		return this.rooms.getInt(room * ROOM_BYTES);
+	}
+
+	public String getItemName(int item)
+	{
+		String name = this.itemNames.get(item);
+		return name == null ? "Key " + item : name;
+	}
+
+	public int getItemType(int item)
+	{
+		return this.items.getInt(item * ITEM_BYTES);
+	}
+
+	public int getItemRoom(int item)
+	{
+		return this.items.getInt(item * ITEM_BYTES + 4);
+	}
+
+	public boolean isPickedUp(int item)
+	{
+		return (this.items.get(item * ITEM_BYTES + 8) & PICKED_UP) != 0;
+	}
+
+	public boolean isUsed(int item)
+	{
+		return (this.items.get(item * ITEM_BYTES + 8) & USED) != 0;
+	}
+
+	public int getRoomId(String name)
+	{
+		Integer id = this.roomIds.get(name);
+		return id == null ? -1 : id;
+	}
+
+	public int getItemId(String name)
+	{
+		Integer id = this.itemIds.get(name);
+		return id == null ? -1 : id;
+	}
+
+	/**
+	 * The getOffHeapBytes method returns the size of the direct buffers.
+	 * @return The bytes held outside the heap.
+	 */
+	public long getOffHeapBytes()
+	{
+		return (long) this.states.capacity() + this.rules.capacity() + this.nodes.capacity()
+				+ this.rooms.capacity() + this.items.capacity();
+	}
+
+
+	// Setters:
+	public void setRoomLocked(int room, boolean locked)
+	{
+		setFlag(this.rooms, room * ROOM_BYTES + 4, LOCKED, locked);
+	}
+
+	public void setEntered(int room, boolean entered)
+	{
+		setFlag(this.rooms, room * ROOM_BYTES + 4, ENTERED, entered);
+	}
+
+	public void setPickedUp(int item, boolean pickedUp)
+	{
+		setFlag(this.items, item * ITEM_BYTES + 8, PICKED_UP, pickedUp);
+	}
+
+	public void setUsed(int item, boolean used)
+	{
+		setFlag(this.items, item * ITEM_BYTES + 8, USED, used);
+	}
+
+
+	// Functions:
+	/**
+	 * The ruleInt method reads a field of the rule of a state.
+	 * @param state The state.
+	 * @param offset The offset of the field in the rule.
+	 * @param none The value when the state has no rule.
+	 * @return The field.
+	 */
+	private int ruleInt(int state, int offset, int none)
+	{
+		int rule = this.states.getInt(state * STATE_BYTES + 20);
+		return rule < 0 ? none : this.rules.getInt(rule * RULE_BYTES + offset);
+	}
+
+	private static void setFlag(ByteBuffer buffer, int at, byte flag, boolean set)
+	{
+		byte flags = buffer.get(at);
+		buffer.put(at, (byte) (set ? flags | flag : flags & ~flag));
+	}
+
+	private static ByteBuffer allocate(int count, int bytes)
+	{
+		return ByteBuffer.allocateDirect(Math.max(count, 1) * bytes).order(ByteOrder.nativeOrder());
+	}
+
+	/**
+	 * The copySprites method copies the sprites of a state, numbering their
+	 * files in spriteFiles.
+	 * @param mansion The mansion being copied.
+	 * @param sprites The sprites of the state.
+	 * @return The copy.
+	 */
+	private int[] copySprites(MansionDefinition mansion, int[] sprites)
+	{
+		int[] copy = sprites.clone();
+
+		for(int at = 4; at < copy.length; at += SPRITE_FIELDS)
+		{
+			String file = mansion.getSpriteFile(copy[at]);
+
+			if(file != null)
+			{
+				copy[at] = this.spriteFiles.indexOf(file);
+				if(copy[at] < 0)
+				{
+					copy[at] = this.spriteFiles.size();
+					this.spriteFiles.add(file);
+				}
+			}
+		}
+		return copy;
+	}
+
+	private int message(String message, HashMap<String, Integer> ids)
+	{
+		Integer id = ids.get(message);
+
+		if(id == null)
+		{
+			id = this.messages.size();
+			this.messages.add(message);
+			ids.put(message, id);
+		}
+		return id;
+	}
+
+	/**
+	 * Compare a generated mansion played on the heap, with a Room and Item
+	 * object for every room, against the same mansion played off the heap.
+	 * Every room is entered and every item picked up, then the heap in use
+	 * and the time of a full garbage collection are reported.
+	 * @param args The sizes to compare, in nodes.
+	 */
+	public static void main(String[] args)
+	{
+		int[] sizes = { 10000, 100000, 1000000 };
+
+		if(args.length > 0)
+		{
+			sizes = new int[args.length];
+			for(int i = 0; i < args.length; i++)
+				sizes[i] = Integer.parseInt(args[i]);
+		}
+
+		System.out.printf("%10s %8s %8s %12s %12s %10s %10s%n",
+				"nodes", "rooms", "store", "heap KB", "direct KB", "full gc ms", "mx gc ms");
+
+		for(int size : sizes)
+		{
+			for(int mode = 0; mode < 2; mode++)
+			{
+				System.gc();
+				long base = usedHeap();
+
+				MansionDefinition generated = new MansionGenerator(7).generate(size);
+				OffHeapWorld world = mode == 1 ? new OffHeapWorld(generated) : null;
+				MansionMap mansion = mode == 1 ? world : generated;
+				generated = null;
+
+				Scene scene = new Scene(mansion, new JTextPane(), new JButton());
+
+				for(int room = 0; room < mansion.getRoomCount(); room++)
+				{
+					Room view = scene.getRoom(room);
+					view.setHasEntered(true);
+
+					if(view.getItem() != null)
+						view.getItem().setPickedUp(true);
+				}
+
+				long collections = gcMillis();
+				long start = System.nanoTime();
+				System.gc();
+				double pause = (System.nanoTime() - start) / 1e6;
+
+				// The scene is used after the collection so it stays reachable while measured.
+				System.out.printf("%10d %8d %8s %12d %12d %10.1f %10d%n", size, scene.getMansion().getRoomCount(),
+						mode == 1 ? "off-heap" : "heap", Math.max(usedHeap() - base, 0) / 1024,
+						world == null ? 0 : world.getOffHeapBytes() / 1024, pause, gcMillis() - collections);
+			}
+		}
+	}
+
+	private static long usedHeap()
+	{
+		Runtime runtime = Runtime.getRuntime();
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	private static long gcMillis()
+	{
+		long millis = 0;
+		for(GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans())
+			millis += bean.getCollectionTime();
+		return millis;
+	}
+}
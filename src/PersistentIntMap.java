@@ -0,0 +1,136 @@
+/**
+ * PersistentIntMap Class
+ * The PersistentIntMap class maps int keys to int values and is never changed.
+ * Setting a value returns a new map that shares everything but the path to
+ * the key with the old one, so keeping every version of a map costs a path
+ * per change instead of a copy per version. Keys are looked up in a trie of
+ * WIDTH way nodes, deep enough for the size the map was created with.
+ * Missing keys have the value 0.
+ * fields:
+ * 	root: The top node of the trie, an Object[] of children or an int[] of values, or null.
+ * 	shift: The bits of the key below the top node.
+ * Date: 19 October 2026
+ * OOP Project 2: The Mansion
+ * @author Team 7
+ * @version 1.0
+ * @since 1.0
+ */
+
+import java.util.function.IntConsumer;
+
+public final class PersistentIntMap
+{
+	private static final int BITS = 4;
+	private static final int WIDTH = 1 << BITS;
+	private static final int MASK = WIDTH - 1;
+
+	public static final int NODE_BYTES = 16 + WIDTH * 4;	// Estimated size of a node, an array of WIDTH.
+
+	private final Object root;
+	private final int shift;
+
+	private PersistentIntMap(Object root, int shift)
+	{
+		this.root = root;
+		this.shift = shift;
+	}
+
+	/**
+	 * The empty method creates a map with no keys.
+	 * @param size The keys will be from 0 to size - 1.
+	 * @return The empty map.
+	 */
+	public static PersistentIntMap empty(int size)
+	{
+		int levels = 1;
+
+		while((1L << (levels * BITS)) < size)
+			levels++;
+		return new PersistentIntMap(null, (levels - 1) * BITS);
+	}
+
+
+	// Getters:
+	public int get(int key)
+	{
+		Object node = this.root;
+
+		for(int s = this.shift; s > 0 && node != null; s -= BITS)
+			node = ((Object[]) node)[(key >>> s) & MASK];
+
+		return node == null ? 0 : ((int[]) node)[key & MASK];
+	}
+
+	/**
+	 * The getPathBytes method estimates the memory a change takes.
+	 * @return The bytes of the nodes copied by with.
+	 */
+	public int getPathBytes()
+	{
+		return (this.shift / BITS + 1) * NODE_BYTES;
+	}
+
+
+	// Functions:
+	/**
+	 * The with method sets the value of a key.
+	 * @param key The key.
+	 * @param value The value.
+	 * @return A map with the value set, or this map if the value is already set.
+	 */
+	public PersistentIntMap with(int key, int value)
+	{
+		if(this.get(key) == value)
+			return this;
+		return new PersistentIntMap(with(this.root, this.shift, key, value), this.shift);
+	}
+
+	private static Object with(Object node, int shift, int key, int value)
+	{
+		if(shift == 0)
+		{
+			int[] leaf = node == null ? new int[WIDTH] : ((int[]) node).clone();
+			leaf[key & MASK] = value;
+			return leaf;
+		}
+
+		Object[] inner = node == null ? new Object[WIDTH] : ((Object[]) node).clone();
+		int index = (key >>> shift) & MASK;
+
+		inner[index] = with(inner[index], shift - BITS, key, value);
+		return inner;
+	}
+
+	/**
+	 * The diff method finds the keys whose values differ from another map
+	 * created from the same empty map. Nodes shared by both are skipped, so
+	 * this takes time for the changes between them, not for their size.
+	 * @param other The other map.
+	 * @param keys Called with each key that differs.
+	 */
+	public void diff(PersistentIntMap other, IntConsumer keys)
+	{
+		diff(this.root, other.root, this.shift, 0, keys);
+	}
+
+	private static void diff(Object a, Object b, int shift, int base, IntConsumer keys)
+	{
+		if(a == b)
+			return;
+
+		for(int i = 0; i < WIDTH; i++)
+		{
+			if(shift == 0)
+			{
+				int va = a == null ? 0 : ((int[]) a)[i];
+				int vb = b == null ? 0 : ((int[]) b)[i];
+
+				if(va != vb)
+					keys.accept(base | i);
+			}
+			else
+				diff(a == null ? null : ((Object[]) a)[i], b == null ? null : ((Object[]) b)[i],
+						shift - BITS, base | (i << shift), keys);
+		}
+	}
+}
@@ -3,7 +3,7 @@
  * The Player class contains the fields and methods needed for the player character
  * to navigate through the mansion and interact with Item objects.
  * Fields:
- * 	items: An ArrayList of Items to represent the Items in the player's inventory.
+ * 	items: An ItemList of Items to represent the Items in the player's inventory, also kept by id.
  * 	scene: A Scene object used to hold the image that the player should currently  be viewing.
  * Date: 02 December 2017
  * OOP Project 2: The Mansion
@@ -16,7 +16,7 @@ import java.util.ArrayList;
 
 public class Player
 {
-	private ArrayList<Item> items;	// Items in player's inventory.
+	private ItemList items;	// Items in player's inventory.
 	private Scene scene;	// Scene player is current on.
 
 	/**
@@ -26,7 +26,7 @@ public class Player
 	 */
     public Player(Scene scene)
     {
-        this.items = new ArrayList<Item>();
+        this.items = new ItemList();
         this.scene = scene;
         
         cheat();
@@ -48,10 +48,10 @@ public class Player
     
     // Getters: 
     /**
-     * The getItems method returns the ArrayList of Items.
-     * @return An ArrayList of Item objects
+     * The getItems method returns the ItemList of Items.
+     * @return An ItemList of Item objects
      */
-    public ArrayList<Item> getItems()
+    public ItemList getItems()
     {
         return this.items;
     }
@@ -73,6 +73,17 @@ public class Player
 		return null;
 	}
     
+    /**
+     * The getItemById method returns the item whose id matches
+     * the id parameter, without searching the inventory.
+     * @param id The id of the Item to be searched for.
+     * @return The Item object, if it exists. Otherwise, null.
+     */
+    public Item getItemById(int id)
+    {
+    	return this.items.getById(id);
+    }
+    
     /**
      * The hasItem method searches through the Player's
      * ArrayList of Item objects and determines if the player
@@ -100,7 +111,17 @@ public class Player
      */
     public void setItems(ArrayList<Item> items)
     {
-    	this.items = items;
+    	this.items = new ItemList(items);
+    }
+    
+    /**
+     * The setButtonText method shows an item on the use item button
+     * of the scene, through its DeltaStream if it has one.
+     * @param text The text to show on the button.
+     */
+    private void setButtonText(String text)
+    {
+    	this.scene.setButtonText(text);
     }
     
     
@@ -109,69 +130,29 @@ public class Player
      * The moveForward method moves the Player forward based on current position and direction.
      * The node value determines the Player's current scene/orientation. This value is used to 
      * determine the scene that will be displayed next when the player moves forward.
+     * Moving into a locked room shows the message of its gate instead.
      */
     public void moveForward()
     {
-    	/**
-    	 * Check current position and then update based on current position.
-    	 */
-    	if(this.scene.getNode() == 0) // STARTING POSITION.
-    		this.scene.updateScene(1, 0);
-    	else if(this.scene.getNode() == 1 && this.scene.getDirection() == 0) // NODE 1 FACING FORWARD.
-    		this.scene.updateScene(3, 0);
-    	else if(this.scene.getNode() == 1 && this.scene.getDirection() == 1) // NODE 1 FACING LOUNGE (LEFT).
-    		this.scene.updateScene(2, 0);
-    	else if(this.scene.getNode() == 1 && this.scene.getDirection() == 2) // NODE 1 FACING STUDY (RIGHT).
-    	{
-    		if(!(this.scene.getRoomByName("Study").isLocked())) // If the room is unlocked.
-    			this.scene.updateScene(4, 0);
-    		else
-    			this.scene.getInfo().writeInformation("The door is locked.");
-    	}
-    	//else if(this.scene.getNode() == 1 && this.scene.getDirection() == 3) // NODE 1 FACING ENTRANCE (BACK).
-    		// Can't move.
-    	else if(this.scene.getNode() == 3 && this.scene.getDirection() == 0) // NODE 3 FACING FORWARD.
-    		this.scene.updateScene(6, 0);
-    	else if(this.scene.getNode() == 3 && this.scene.getDirection() == 1) // NODE 3 FACING BILLIARD ROOM (LEFT).
-    	{
-    		if(!(this.scene.getRoomByName("Billiard Room").isLocked())) // If the room is unlocked.
-    			this.scene.updateScene(7, 0);
-    		else
-    			this.scene.getInfo().writeInformation("The door is locked.");
-    	}
-    	else if(this.scene.getNode() == 3 && this.scene.getDirection() == 2) // NODE 3 FACING BALLROOM (RIGHT).
-    	{
-    		if(!(this.scene.getRoomByName("Ballroom").isLocked())) // If the room is unlocked.
-    			this.scene.updateScene(5, 0);
-    		else
-    			this.scene.getInfo().writeInformation("The door is locked.");
-    			
-    	}
-    	else if(this.scene.getNode() == 3 && this.scene.getDirection() == 3) // NODE 3 FACING NODE 1 (BACK).
-    		this.scene.updateScene(1, 3);
-    	else if(this.scene.getNode() == 6 && this.scene.getDirection() == 0) // NODE 6 FACING CONSERVATORY (FORWARD).
-    	{
-    		if(!(this.scene.getRoomByName("Conservatory").isLocked())) // If the room is unlocked.
-    			this.scene.updateScene(9, 0);
-    		else
-    			this.scene.getInfo().writeInformation("The door is locked.");
-    	}
-    	else if(this.scene.getNode() == 6 && this.scene.getDirection() == 1) // NODE 6 FACING LIBRARY (LEFT).
+    	MansionMap mansion = this.scene.getMansion();
+    	int state = this.scene.getState();
+    	int target = mansion.forward(state);
+    	
+    	if(target < 0) // Can't move.
+    		return;
+    	
+    	int gate = mansion.getGateRoom(state);
+    	
+    	if(gate >= 0 && this.scene.getRoom(gate).isLocked())
     	{
-    		if(!(this.scene.getRoomByName("Library").isLocked()))
-    			this.scene.updateScene(8, 0);
-    		else
-    			this.scene.getInfo().writeInformation("The room is too dark to enter.");
+    		this.scene.getInfo().writeInformation(mansion.getGateMessage(state));
+    		this.count(GameStats.BUMPS, 1);
     	}
-    	else if(this.scene.getNode() == 6 && this.scene.getDirection() == 2) // NODE 6 FACING KITCHEN (RIGHT).
+    	else
     	{
-    		if(!(this.scene.getRoomByName("Kitchen").isLocked()))
-    			this.scene.updateScene(10, 0);
-    		else
-    			this.scene.getInfo().writeInformation("The door is locked.");
+    		this.moveTo(target);
+    		this.count(GameStats.STEPS, 1);
     	}
-    	else if(this.scene.getNode() == 6 && this.scene.getDirection() == 3) // NODE 6 FACING NODE 3 (BACK).
-    		this.scene.updateScene(3, 3);
     }
     
     /**
@@ -181,33 +162,11 @@ public class Player
      */
     public void turnLeft()
     {
-    	/**
-    	 * Check position and direction and turn based on position and direction.
-    	 */
-    	if(this.scene.getNode() == 1 && this.scene.getDirection() == 0) 		// NODE 1 FACING NODE 3.
-    		this.scene.updateScene(1, 1);
-    	else if(this.scene.getNode() == 1 && this.scene.getDirection() == 1)	// NODE 1 FACING LOUNGE.
-    		this.scene.updateScene(1, 3);
-    	else if(this.scene.getNode() == 1 && this.scene.getDirection() == 2)	// NODE 1 FACING STUDY.
-    		this.scene.updateScene(1, 0);	
-    	else if(this.scene.getNode() == 1 && this.scene.getDirection() == 3)	// NODE 1 FACING ENTRANCE.
-    		this.scene.updateScene(1, 2);
-    	else if(this.scene.getNode() == 3 && this.scene.getDirection() == 0)	// NODE 3 FACING NODE 6.
-    		this.scene.updateScene(3, 1);
-    	else if(this.scene.getNode() == 3 && this.scene.getDirection() == 1)	// NODE 3 FACING BILLIARD ROOM.
-    		this.scene.updateScene(3, 3);
-    	else if(this.scene.getNode() == 3 && this.scene.getDirection() == 2)	// NODE 3 FACING BALLROOM.
-    		this.scene.updateScene(3, 0);
-    	else if(this.scene.getNode() == 3 && this.scene.getDirection() == 3)	// NODE 3 FACING NODE 1.
-    		this.scene.updateScene(3, 2);
-    	else if(this.scene.getNode() == 6 && this.scene.getDirection() == 0)	// NODE 6 FACING CONSERVATORY.
-    		this.scene.updateScene(6, 1);
-    	else if(this.scene.getNode() == 6 && this.scene.getDirection() == 1)	// NODE 6 FACING LIBRARY.
-    		this.scene.updateScene(6, 3);
-    	else if(this.scene.getNode() == 6 && this.scene.getDirection() == 2)	// NODE 6 FACING KITCHEN.
-    		this.scene.updateScene(6, 0);
-    	else if(this.scene.getNode() == 6 && this.scene.getDirection() == 3)	// NODE 6 FACING NODE 3.
-    		this.scene.updateScene(6, 2);
+    	int target = this.scene.getMansion().left(this.scene.getState());
+    	
+    	this.moveTo(target);
+    	if(target >= 0)
+    		this.count(GameStats.TURNS, 1);
     }
     
     /**
@@ -217,33 +176,11 @@ public class Player
      */
     public void turnRight()
     {
-    	/**
-    	 * Check position and direction and turn based on position and direction.
-    	 */
-    	if(this.scene.getNode() == 1 && this.scene.getDirection() == 0) 		// NODE 1 FACING NODE 3.
-    		this.scene.updateScene(1, 2);
-    	else if(this.scene.getNode() == 1 && this.scene.getDirection() == 1)	// NODE 1 FACING LOUNGE.
-    		this.scene.updateScene(1, 0);
-    	else if(this.scene.getNode() == 1 && this.scene.getDirection() == 2)	// NODE 1 FACING STUDY.
-    		this.scene.updateScene(1, 3);	
-    	else if(this.scene.getNode() == 1 && this.scene.getDirection() == 3)	// NODE 1 FACING ENTRANCE.
-    		this.scene.updateScene(1, 1);
-    	else if(this.scene.getNode() == 3 && this.scene.getDirection() == 0)	// NODE 3 FACING NODE 6.
-    		this.scene.updateScene(3, 2);
-    	else if(this.scene.getNode() == 3 && this.scene.getDirection() == 1)	// NODE 3 FACING BILLIARD ROOM.
-    		this.scene.updateScene(3, 0);
-    	else if(this.scene.getNode() == 3 && this.scene.getDirection() == 2)	// NODE 3 FACING BALLROOM.
-    		this.scene.updateScene(3, 3);
-    	else if(this.scene.getNode() == 3 && this.scene.getDirection() == 3)	// NODE 3 FACING NODE 1.
-    		this.scene.updateScene(3, 1);
-    	else if(this.scene.getNode() == 6 && this.scene.getDirection() == 0)	// NODE 6 FACING CONSERVATORY.
-    		this.scene.updateScene(6, 2);
-    	else if(this.scene.getNode() == 6 && this.scene.getDirection() == 1)	// NODE 6 FACING LIBRARY.
-    		this.scene.updateScene(6, 0);
-    	else if(this.scene.getNode() == 6 && this.scene.getDirection() == 2)	// NODE 6 FACING KITCHEN.
-    		this.scene.updateScene(6, 3);
-    	else if(this.scene.getNode() == 6 && this.scene.getDirection() == 3)	// NODE 6 FACING NODE 3.
-    		this.scene.updateScene(6, 1);
+    	int target = this.scene.getMansion().right(this.scene.getState());
+    	
+    	this.moveTo(target);
+    	if(target >= 0)
+    		this.count(GameStats.TURNS, 1);
     }
     
     /**
@@ -253,31 +190,32 @@ public class Player
      */
     public void moveBack()
     {
-    	//if(this.scene.getNode() == 1 && this.scene.getDirection() == 0) // NODE 1 FACING AWAY FROM ENTRANCE
-    		// CAN'T MOVE.
-    	if(this.scene.getNode() == 3 && this.scene.getDirection() == 0) // NODE 3 FACING AWAY FROM NODE 1.
-    		this.scene.updateScene(1, 0);
-    	else if(this.scene.getNode() == 6 && this.scene.getDirection() == 0) // NODE 6 FACING AWAY FROM NODE 3.
-    		this.scene.updateScene(3, 0);
-    	else if(this.scene.getNode() == 2 && this.scene.getDirection() == 0) // NODE 2 IN LOUNGE.
-    		this.scene.updateScene(1, 1);
-    	else if(this.scene.getNode() == 4 && this.scene.getDirection() == 0) // NODE 4 IN STUDY.
-    		this.scene.updateScene(1, 2);
-    	else if(this.scene.getNode() == 7 && this.scene.getDirection() == 0) // NODE 7 IN BILLIARD ROOM.
-    		this.scene.updateScene(3, 1);
-    	else if(this.scene.getNode() == 5 && this.scene.getDirection() == 0) // NODE 5 IN BALLROOM.
-    		this.scene.updateScene(3, 2);
-    	else if(this.scene.getNode() == 8 && this.scene.getDirection() == 0) // NODE 8 IN LIBRARY.
-    		this.scene.updateScene(6, 1);
-    	else if(this.scene.getNode() == 10 && this.scene.getDirection() == 0) // NODE 10 IN KITCHEN.
-    		this.scene.updateScene(6, 2);
-    	else if(this.scene.getNode() == 9 && this.scene.getDirection() == 0) // NODE 9 IN CONSERVATORY.
-    		this.scene.updateScene(6, 0);
-    	else if(this.scene.getNode() == 1 && this.scene.getDirection() == 3)
-    		this.scene.updateScene(3, 3);
-    	else if(this.scene.getNode() == 3 && this.scene.getDirection() == 3)
-    		this.scene.updateScene(6, 3);
+    	int target = this.scene.getMansion().back(this.scene.getState());
     	
+    	this.moveTo(target);
+    	if(target >= 0)
+    		this.count(GameStats.STEPS, 1);
+    }
+    
+    /**
+     * The moveTo method updates the scene to a state of the mansion.
+     * @param state The state to move to, or -1 if the Player can't move.
+     */
+    private void moveTo(int state)
+    {
+    	if(state >= 0)
+    		this.scene.updateScene(MansionDefinition.nodeOf(state), MansionDefinition.directionOf(state));
+    }
+    
+    /**
+     * The count method counts an action in the stats of the scene, if it has any.
+     * @param stat The stat, like GameStats.STEPS.
+     * @param count How many.
+     */
+    private void count(int stat, int count)
+    {
+    	if(this.scene.getStats() != null)
+    		this.scene.getStats().add(stat, count);
     }
     
     /**
@@ -290,107 +228,105 @@ public class Player
     	// Get room player is in.
     	Room room = this.scene.getRoomByPosition();
     	
-    	// If the player is not in the hallway.
-    	if(!(room.getName().equals("Hallway")))
+    	// If the room has an item, unlike the hallway.
+    	if(room.getItem() != null)
     	{
-    		// If item has not been picked up, then pick it up.
-    		if(!(room.getItem().isPickedUp()))
+    		Item item = room.getItem();
+    		
+    		// If item has not been picked up, then pick it up. In a shared mansion
+    		// another player may get it first.
+    		if(item.tryPickUp())
     		{
 	    		// Add item to player's inventory.
-	    		this.items.add(room.getItem());
+	    		this.items.add(item);
 	    		
 	    		// Tell user item has been picked up.
-	    		this.scene.getInfo().writeInformation("You picked up a " + room.getItem().getName());
-	    		
-	    		// Item has now been picked up.
-	    		room.getItem().setPickedUp(true);
+	    		this.scene.getInfo().writeInformation("You picked up a " + item.getName());
 	    		
 	    		// Show item in inventory.
-	    		this.scene.getButton().setText(room.getItem().getName());
+	    		this.setButtonText(item.getName());
+	    		
+	    		this.scene.publish(DeltaStream.pickUp(item.getId()), null);
+	    		this.count(GameStats.PICK_UPS, 1);
     		}
     	}
     }
     
     /**
      * The cheat method gets an Item object into the Player's inventory
-     * without them having to find it the normal way.
+     * without them having to find it the normal way. The item given is
+     * the one that escapes the mansion.
      */
     public void cheat()
     {
-    	Room room = this.scene.getRoomByName("Conservatory");
+    	int exit = this.scene.getMansion().getExitState();
+    	
+    	if(exit >= 0)
+    	{
+    		Item item = this.scene.getItem(this.scene.getMansion().getEscapeItem(exit));
+    		
+    		this.items.add(item);
+    		this.setButtonText(item.getName());
+    	}
+    }
+    
+    /**
+     * The canEscape method determines if the Player is facing the way out
+     * of the mansion with the item that opens it.
+     * @return True if using the item escapes the mansion. Otherwise, false.
+     */
+    public boolean canEscape()
+    {
+    	int item = this.scene.getMansion().getEscapeItem(this.scene.getState());
     	
-    	this.items.add(room.getItem());
-    	this.scene.getButton().setText(room.getItem().getName());
+    	return item >= 0 && this.getItemById(item) != null;
     }
     
     /**
      * The useItem method uses the current scene nodes and the Player's Item inventory
-     * to use the correct Item object on the scene.
+     * to use the correct Item object on the scene. The unlock rule of the mansion at
+     * the Player's node and direction tells which items are needed, all used at once,
+     * and which room they unlock. The rule and each item are found without a search.
      */
     public void useItem()
     {
-    	int node = this.scene.getNode();
-    	int dir = this.scene.getDirection();
+    	MansionMap mansion = this.scene.getMansion();
+    	int state = this.scene.getState();
+    	int[] required = mansion.getUnlockItems(state);
     	
     	/**
-    	 * Each unlocks appropriate door,
-    	 * removes item from inventory,
-    	 * sets item from its origin to used,
-    	 * lets the player know an item was used,
+    	 * Unlocks appropriate door,
+    	 * removes the items from inventory,
+    	 * sets items from their origin to used,
+    	 * lets the player know the items were used,
     	 * and then sets button text to blank again.
     	 */
-    	if(node == 1 && dir == 2 && this.hasItem("Key")) // Facing the Study.
+    	if(required.length > 0 && this.items.containsAll(required))
     	{
-    		this.scene.getRoomByName("Study").unlock();
-    		this.items.remove(this.getItemByName("Key"));
-    		this.scene.getRoomByName("Lounge").getItem().setUsed(true);
-    		this.scene.getInfo().writeInformation("Key has been used to unlock the door.");
-    		this.scene.getButton().setText("");
-    	}
-    	else if(node == 3 && dir == 2 && this.hasItem("Note"))
-    	{
-    		this.scene.getRoomByName("Ballroom").unlock();
-    		this.items.remove(this.getItemByName("Note"));
-    		this.scene.getRoomByName("Study").getItem().setUsed(true);
-    		this.scene.getInfo().writeInformation("Note has been used to unlock the door.");
-    		this.scene.getButton().setText("");
-    	}
-    	else if(node == 3 && dir == 1 && this.hasItem("Fancy Key"))
-    	{
-    		this.scene.getRoomByName("Billiard Room").unlock();
-    		this.items.remove(this.getItemByName("Fancy Key"));
-    		this.scene.getRoomByName("Ballroom").getItem().setUsed(true);
-    		this.scene.getInfo().writeInformation("Fancy Key has been used to unlock the door.");
-    		this.scene.getButton().setText("");
-    	}
-    	else if(node == 6 && dir == 1 && this.hasItem("Candle"))
-    	{
-    		this.scene.getRoomByName("Library").unlock();
-    		this.items.remove(this.getItemByName("Candle"));
-    		this.scene.getRoomByName("Billiard Room").getItem().setUsed(true);
-    		this.scene.getInfo().writeInformation("The Candle was used to light up the Library.");
-    		this.scene.getButton().setText("");
-    	}
-    	else if(node == 6 && dir == 2 && this.hasItem("Button"))
-    	{
-    		this.scene.getRoomByName("Kitchen").unlock();
-    		this.items.remove(this.getItemByName("Button"));
-    		this.scene.getRoomByName("Library").getItem().setUsed(true);
-    		this.scene.getInfo().writeInformation("The Button was used to unlock the door.");
-    		this.scene.getButton().setText("");
-    	}
-    	else if(node == 6 && dir == 0 && this.hasItem("Master Key"))
-    	{
-    		this.scene.getRoomByName("Conservatory").unlock();
-    		this.items.remove(this.getItemByName("Master Key"));
-    		this.scene.getRoomByName("Kitchen").getItem().setUsed(true);
-    		this.scene.getInfo().writeInformation("Master Key was used to unlock the door.");
-    		this.scene.getButton().setText("");
+    		int room = mansion.getUnlockRoom(state);
+    		
+    		this.scene.getRoom(room).unlock();
+    		
+    		for(int id : required)
+    		{
+    			Item item = this.items.getById(id);
+    			
+    			this.items.remove(item);
+    			item.setUsed(true);
+    			
+    			this.scene.publish(DeltaStream.use(id, room), null);
+    		}
+    		
+    		this.scene.getInfo().writeInformation(mansion.getUnlockMessage(state));
+    		this.setButtonText("");
+    		this.count(GameStats.ITEMS_USED, required.length);
+    		this.count(GameStats.DOORS_UNLOCKED, 1);
     	}
-    	else if(node == 1 && dir == 3 && this.hasItem("Lever"))
+    	else if(this.canEscape())
     	{
-    		System.out.println("GAME OVER!");
-    		
+    		if(!this.scene.isHeadless())
+    			System.out.println("GAME OVER!");
+    		this.count(GameStats.ESCAPES, 1);
     	}	
     }
 }
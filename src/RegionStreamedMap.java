@@ -0,0 +1,1072 @@
+/**
+ * RegionStreamedMap Class
+ * The RegionStreamedMap class plays a mansion that is stored on disk in
+ * regions of consecutive nodes, so only the regions around the player are
+ * ever in memory. Whenever the player moves, the regions within a few moves
+ * are loaded on a background thread and regions that are no longer near
+ * are evicted once more than maxRegions are loaded.
+ * A mansion is split into regions with the write method. Rooms and items are
+ * renumbered so each region holds a consecutive range of them, which lets a
+ * small index find the region of any node, room or item.
+ * fields:
+ * 	directory: The directory holding index.dat and the region_<n>.dat files.
+ * 	firstRoom, firstItem: The first room and item id of each region.
+ * 	horizon: How many moves ahead regions are loaded.
+ * 	loader: The background thread regions are loaded on.
+ * 	maxRegions: How many regions may stay loaded.
+ * 	messages, imageFiles, spriteFiles: The messages, images and sprite files of the mansion.
+ * 	pending, regions: The regions being loaded and the regions loaded.
+ * 	loads, evictions, stalls, stallNanos: What streaming has done so far.
+ * Date: 19 October 2026
+ * OOP Project 2: The Mansion
+ * @author Team 7
+ * @version 1.0
+ * @since 1.0
+ */
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.Random;
+import javax.swing.JButton;
+import javax.swing.JTextPane;
+
+public class RegionStreamedMap implements MansionMap
+{
+	private static final int[] NO_SPRITES = new int[0];	// Sprites of a state without any.
+
+	private File directory;
+	private int nodeCount, roomCount, itemCount;
+	private int regionSize;
+	private int startState, exitState;
+	private int[] firstRoom, firstItem;
+	private String[] messages, imageFiles, spriteFiles;
+
+	private int horizon;
+	private int maxRegions;
+	private ExecutorService loader;
+	private ConcurrentHashMap<Integer, Region> regions;
+	private ConcurrentHashMap<Integer, Future<Region>> pending;
+	private AtomicLong tick;
+
+	private AtomicLong loads, evictions, stalls, stallNanos;
+
+	/**
+	 * This constructor reads the index of a mansion written by the write method.
+	 * @param directory The directory the mansion was written to.
+	 * @param horizon How many moves ahead regions are loaded.
+	 * @param maxRegions How many regions may stay loaded.
+	 * @throws IOException If the index can't be read.
+	 */
+	public RegionStreamedMap(File directory, int horizon, int maxRegions) throws IOException
+	{
+		this.directory = directory;
+		this.horizon = horizon;
+		this.maxRegions = maxRegions;
+
+		DataInputStream in = new DataInputStream(new BufferedInputStream(
+				new FileInputStream(new File(directory, "index.dat"))));
+
+		try
+		{
+			this.nodeCount = in.readInt();
+			this.roomCount = in.readInt();
+			this.itemCount = in.readInt();
+			this.regionSize = in.readInt();
+			this.startState = in.readInt();
+			this.exitState = in.readInt();
+
+			int count = in.readInt();
+			this.firstRoom = readInts(in, count + 1);
+			this.firstItem = readInts(in, count + 1);
+			this.messages = readStrings(in);
+			this.imageFiles = readStrings(in);
+			this.spriteFiles = readStrings(in);
+		}
+		finally
+		{
+			in.close();
+		}
+
+		this.regions = new ConcurrentHashMap<Integer, Region>();
+		this.pending = new ConcurrentHashMap<Integer, Future<Region>>();
+		this.tick = new AtomicLong();
+		this.loads = new AtomicLong();
+		this.evictions = new AtomicLong();
+		this.stalls = new AtomicLong();
+		this.stallNanos = new AtomicLong();
+		this.loader = Executors.newSingleThreadExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "region-loader");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+
+	// Getters:
+	public int getNodeCount()
+	{
+		return this.nodeCount;
+	}
+
+	public int getRoomCount()
+	{
+		return this.roomCount;
+	}
+
+	public int getItemCount()
+	{
+		return this.itemCount;
+	}
+
+	public int getStartState()
+	{
+		return this.startState;
+	}
+
+	public int getExitState()
+	{
+		return this.exitState;
+	}
+
+	public int forward(int state)
+	{
+		Region region = this.regionOfState(state);
+		return region.forward[region.index(state)];
+	}
+
+	public int back(int state)
+	{
+		Region region = this.regionOfState(state);
+		return region.back[region.index(state)];
+	}
+
+	public int left(int state)
+	{
+		Region region = this.regionOfState(state);
+		return region.left[region.index(state)];
+	}
+
+	public int right(int state)
+	{
+		Region region = this.regionOfState(state);
+		return region.right[region.index(state)];
+	}
+
+	public int getGateRoom(int state)
+	{
+		Region region = this.regionOfState(state);
+		int rule = region.rule[region.index(state)];
+		return rule < 0 ? -1 : region.gateRoom[rule];
+	}
+
+	public String getGateMessage(int state)
+	{
+		Region region = this.regionOfState(state);
+		return this.messages[region.gateMessage[region.rule[region.index(state)]]];
+	}
+
+	public int getLoreKind(int state)
+	{
+		Region region = this.regionOfState(state);
+		int rule = region.rule[region.index(state)];
+		return rule < 0 ? MansionDefinition.LORE_NONE : region.loreKind[rule];
+	}
+
+	public int getLoreRoom(int state)
+	{
+		Region region = this.regionOfState(state);
+		int rule = region.rule[region.index(state)];
+		return rule < 0 ? -1 : region.loreRoom[rule];
+	}
+
+	public int getUnlockItem(int state)
+	{
+		Region region = this.regionOfState(state);
+		int rule = region.rule[region.index(state)];
+		return rule < 0 ? -1 : region.unlockItem[rule];
+	}
+
+	public int[] getUnlockItems(int state)
+	{
+		Region region = this.regionOfState(state);
+		int rule = region.rule[region.index(state)];
+
+		if(rule >= 0 && region.unlockItems[rule] != null)
+			return region.unlockItems[rule];
+		return MansionMap.super.getUnlockItems(state);
+	}
+
+	public int getUnlockRoom(int state)
+	{
+		Region region = this.regionOfState(state);
+		int rule = region.rule[region.index(state)];
+		return rule < 0 ? -1 : region.unlockRoom[rule];
+	}
+
+	public String getUnlockMessage(int state)
+	{
+		Region region = this.regionOfState(state);
+		return this.messages[region.unlockMessage[region.rule[region.index(state)]]];
+	}
+
+	public int getEscapeItem(int state)
+	{
+		Region region = this.regionOfState(state);
+		int rule = region.rule[region.index(state)];
+		return rule < 0 ? -1 : region.escapeItem[rule];
+	}
+
+	public int getImage(int state)
+	{
+		Region region = this.regionOfState(state);
+		return region.image[region.index(state)];
+	}
+
+	public int getImageCount()
+	{
+		return this.imageFiles.length;
+	}
+
+	public String getImageFile(int image)
+	{
+		return this.imageFiles[image];
+	}
+
+	public int[] getSprites(int state)
+	{
+		Region region = this.regionOfState(state);
+		int[] sprites = region.sprites.get(region.index(state));
+		return sprites == null ? NO_SPRITES : sprites;
+	}
+
+	public String getSpriteFile(int file)
+	{
+		return file < 0 ? null : this.spriteFiles[file];
+	}
+
+	public int getNodeRoom(int node)
+	{
+		Region region = this.region(node / this.regionSize);
+		return region.nodeRoom[node - region.firstNode];
+	}
+
+	public boolean entersRoom(int node)
+	{
+		Region region = this.region(node / this.regionSize);
+		return region.nodeEnters[node - region.firstNode];
+	}
+
+	public String getRoomName(int room)
+	{
+		Region region = this.region(regionOf(this.firstRoom, room));
+		String name = region.roomNames[room - region.firstRoom];
+		return name == null ? "Room " + room : name;
+	}
+
+	public boolean isRoomLocked(int room)
+	{
+		Region region = this.region(regionOf(this.firstRoom, room));
+		return region.roomLocked[room - region.firstRoom];
+	}
+
+	public int getRoomItem(int room)
+	{
+		Region region = this.region(regionOf(this.firstRoom, room));
+		return region.roomItem[room - region.firstRoom];
+	}
+
+	public String getItemName(int item)
+	{
+		Region region = this.region(regionOf(this.firstItem, item));
+		String name = region.itemNames[item - region.firstItem];
+		return name == null ? "Key " + item : name;
+	}
+
+	public int getItemType(int item)
+	{
+		Region region = this.region(regionOf(this.firstItem, item));
+		return region.itemTypes[item - region.firstItem];
+	}
+
+	public int getItemRoom(int item)
+	{
+		Region region = this.region(regionOf(this.firstItem, item));
+		return region.itemRoom[item - region.firstItem];
+	}
+
+	/**
+	 * Rooms are not indexed by name, a streamed mansion is played by id.
+	 * @return Always -1.
+	 */
+	public int getRoomId(String name)
+	{
+		return -1;
+	}
+
+	/**
+	 * Items are not indexed by name, a streamed mansion is played by id.
+	 * @return Always -1.
+	 */
+	public int getItemId(String name)
+	{
+		return -1;
+	}
+
+	public int getLoadedRegions()
+	{
+		return this.regions.size();
+	}
+
+	public long getLoads()
+	{
+		return this.loads.get();
+	}
+
+	public long getEvictions()
+	{
+		return this.evictions.get();
+	}
+
+	public long getStalls()
+	{
+		return this.stalls.get();
+	}
+
+	public long getStallNanos()
+	{
+		return this.stallNanos.get();
+	}
+
+
+	// Functions:
+	/**
+	 * The setPosition method finds the regions within horizon moves of the
+	 * player, starts loading the ones that are missing on the background
+	 * thread, and evicts regions that are no longer near. Moves are only
+	 * followed through regions that are already loaded so this never waits.
+	 * @param node The node the player is on.
+	 */
+	@Override
+	public void setPosition(int node)
+	{
+		HashSet<Integer> near = new HashSet<Integer>();
+		int[] frontier = { node };
+		int size = 1;
+
+		near.add(node / this.regionSize);
+
+		for(int step = 0; step < this.horizon && size > 0; step++)
+		{
+			int[] next = new int[size * MansionDefinition.DIRECTIONS * 2];
+			int count = 0;
+
+			for(int i = 0; i < size; i++)
+			{
+				Region region = this.regions.get(frontier[i] / this.regionSize);
+
+				if(region == null) // Not loaded yet, its neighbours are found once it is.
+					continue;
+
+				region.used = this.tick.incrementAndGet();
+
+				for(int dir = 0; dir < MansionDefinition.DIRECTIONS; dir++)
+				{
+					int index = region.index(MansionDefinition.state(frontier[i], dir));
+
+					count = addNeighbour(next, count, region.forward[index], near);
+					count = addNeighbour(next, count, region.back[index], near);
+				}
+			}
+			frontier = next;
+			size = count;
+		}
+
+		for(int region : near)
+			this.prefetch(region);
+
+		this.evict(near);
+	}
+
+	/**
+	 * The addNeighbour method adds the node of a move to the next frontier.
+	 * @param next The next frontier.
+	 * @param count The number of nodes in next.
+	 * @param state The state a move leads to, or -1.
+	 * @param near The regions found so far.
+	 * @return The new number of nodes in next.
+	 */
+	private int addNeighbour(int[] next, int count, int state, HashSet<Integer> near)
+	{
+		if(state < 0)
+			return count;
+
+		int node = MansionDefinition.nodeOf(state);
+		near.add(node / this.regionSize);
+		next[count] = node;
+		return count + 1;
+	}
+
+	/**
+	 * The prefetch method starts loading a region in the background,
+	 * unless it is loaded or already being loaded.
+	 * @param index The region.
+	 */
+	private void prefetch(int index)
+	{
+		if(this.regions.containsKey(index))
+			return;
+
+		this.pending.computeIfAbsent(index, key -> this.loader.submit(() -> {
+			Region region = this.readRegion(key);
+			this.regions.put(key, region);
+			this.pending.remove(key);
+			return region;
+		}));
+	}
+
+	/**
+	 * The evict method drops the least recently used regions that are not
+	 * near the player until at most maxRegions are loaded.
+	 * @param near The regions near the player.
+	 */
+	private void evict(HashSet<Integer> near)
+	{
+		while(this.regions.size() > this.maxRegions)
+		{
+			Integer oldest = null;
+			long used = Long.MAX_VALUE;
+
+			for(Region region : this.regions.values())
+			{
+				if(!near.contains(region.index) && region.used < used)
+				{
+					oldest = region.index;
+					used = region.used;
+				}
+			}
+
+			if(oldest == null) // Everything loaded is near.
+				return;
+
+			this.regions.remove(oldest);
+			this.evictions.incrementAndGet();
+		}
+	}
+
+	/**
+	 * The region method returns a loaded region. If it isn't loaded yet
+	 * the caller waits for it, which is counted as a stall.
+	 * @param index The region.
+	 * @return The region.
+	 */
+	private Region region(int index)
+	{
+		Region region = this.regions.get(index);
+
+		if(region != null)
+			return region;
+
+		long start = System.nanoTime();
+		this.prefetch(index);
+
+		try
+		{
+			Future<Region> future = this.pending.get(index);
+			region = future != null ? future.get() : this.regions.get(index);
+
+			if(region == null) // Loaded and evicted in between.
+				region = this.readRegion(index);
+		}
+		catch(InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted loading region " + index, e);
+		}
+		catch(ExecutionException e)
+		{
+			throw new UncheckedIOException("Error loading region " + index,
+					e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause()));
+		}
+		catch(IOException e)
+		{
+			throw new UncheckedIOException("Error loading region " + index, e);
+		}
+
+		this.stalls.incrementAndGet();
+		this.stallNanos.addAndGet(System.nanoTime() - start);
+		return region;
+	}
+
+	private Region regionOfState(int state)
+	{
+		return this.region(MansionDefinition.nodeOf(state) / this.regionSize);
+	}
+
+	/**
+	 * The regionOf method finds the region holding a room or item.
+	 * @param first The first room or item id of each region.
+	 * @param id The room or item id.
+	 * @return The region.
+	 */
+	private static int regionOf(int[] first, int id)
+	{
+		int index = Arrays.binarySearch(first, id);
+
+		if(index < 0)
+			return -index - 2;
+
+		while(index + 1 < first.length && first[index + 1] == id) // Skip regions without rooms or items.
+			index++;
+		return index;
+	}
+
+	/**
+	 * The close method stops the background thread.
+	 */
+	public void close()
+	{
+		this.loader.shutdownNow();
+	}
+
+	/**
+	 * The readRegion method reads a region file.
+	 * @param index The region.
+	 * @return The region.
+	 * @throws IOException If the region can't be read.
+	 */
+	private Region readRegion(int index) throws IOException
+	{
+		ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(new File(this.directory, "region_" + index + ".dat").toPath()));
+		Region region = new Region();
+
+		region.index = index;
+		region.firstNode = index * this.regionSize;
+		region.firstRoom = this.firstRoom[index];
+		region.firstItem = this.firstItem[index];
+
+		int states = in.getInt() * MansionDefinition.DIRECTIONS;
+		region.forward = readInts(in, states);
+		region.back = readInts(in, states);
+		region.left = readInts(in, states);
+		region.right = readInts(in, states);
+		region.image = readInts(in, states);
+		region.rule = readInts(in, states);
+
+		int rules = in.getInt();
+		region.gateRoom = readInts(in, rules);
+		region.gateMessage = readInts(in, rules);
+		region.loreKind = new byte[rules];
+		in.get(region.loreKind);
+		region.loreRoom = readInts(in, rules);
+		region.unlockItem = readInts(in, rules);
+		region.unlockRoom = readInts(in, rules);
+		region.unlockMessage = readInts(in, rules);
+		region.escapeItem = readInts(in, rules);
+		region.unlockItems = new int[rules][];
+		for(int rule = 0; rule < rules; rule++)
+		{
+			int count = in.getInt();
+			if(count > 0)
+				region.unlockItems[rule] = readInts(in, count);
+		}
+
+		int sprites = in.getInt();
+		region.sprites = new HashMap<Integer, int[]>();
+		for(int i = 0; i < sprites; i++)
+		{
+			int at = in.getInt();
+			region.sprites.put(at, readInts(in, in.getInt()));
+		}
+
+		int nodes = states / MansionDefinition.DIRECTIONS;
+		region.nodeRoom = readInts(in, nodes);
+		region.nodeEnters = readBooleans(in, nodes);
+
+		int rooms = this.firstRoom[index + 1] - region.firstRoom;
+		region.roomLocked = readBooleans(in, rooms);
+		region.roomItem = readInts(in, rooms);
+		region.roomNames = readNames(in, rooms);
+
+		int items = this.firstItem[index + 1] - region.firstItem;
+		region.itemTypes = readInts(in, items);
+		region.itemRoom = readInts(in, items);
+		region.itemNames = readNames(in, items);
+
+		this.loads.incrementAndGet();
+		return region;
+	}
+
+	/**
+	 * The write method splits a mansion into regions on disk.
+	 * @param mansion The mansion to be written.
+	 * @param directory The directory to write index.dat and the region files to.
+	 * @param regionSize The number of nodes in each region.
+	 * @throws IOException If the files can't be written.
+	 */
+	public static void write(MansionDefinition mansion, File directory, int regionSize) throws IOException
+	{
+		int nodes = mansion.getNodeCount();
+		int regionCount = (nodes + regionSize - 1) / regionSize;
+
+		// A room belongs to the region of its first node, an item to the region of its room.
+		int[] roomRegion = new int[mansion.getRoomCount()];
+		Arrays.fill(roomRegion, -1);
+		for(int node = 0; node < nodes; node++)
+		{
+			int room = mansion.getNodeRoom(node);
+			if(room >= 0 && roomRegion[room] < 0)
+				roomRegion[room] = node / regionSize;
+		}
+		for(int room = 0; room < roomRegion.length; room++)
+			roomRegion[room] = Math.max(roomRegion[room], 0);
+
+		int[] itemRegion = new int[mansion.getItemCount()];
+		for(int item = 0; item < itemRegion.length; item++)
+			itemRegion[item] = roomRegion[mansion.getItemRoom(item)];
+
+		int[] firstRoom = new int[regionCount + 1];
+		int[] roomId = renumber(roomRegion, firstRoom);		// New id of each room.
+		int[] firstItem = new int[regionCount + 1];
+		int[] itemId = renumber(itemRegion, firstItem);		// New id of each item.
+
+		int[] roomOf = new int[roomId.length];				// Old id of each new room id.
+		for(int room = 0; room < roomId.length; room++)
+			roomOf[roomId[room]] = room;
+		int[] itemOf = new int[itemId.length];
+		for(int item = 0; item < itemId.length; item++)
+			itemOf[itemId[item]] = item;
+
+		ArrayList<String> messages = new ArrayList<String>();
+		HashMap<String, Integer> messageIds = new HashMap<String, Integer>();
+		ArrayList<String> spriteFiles = new ArrayList<String>();
+		HashMap<String, Integer> spriteFileIds = new HashMap<String, Integer>();
+
+		directory.mkdirs();
+
+		for(int index = 0; index < regionCount; index++)
+		{
+			int first = index * regionSize;
+			int count = Math.min(regionSize, nodes - first);
+			int states = count * MansionDefinition.DIRECTIONS;
+			int firstState = first * MansionDefinition.DIRECTIONS;
+
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+					new FileOutputStream(new File(directory, "region_" + index + ".dat")), 1 << 16));
+
+			try
+			{
+				int[] rule = new int[states];
+				int rules = 0;
+
+				out.writeInt(count);
+				for(int i = 0; i < states; i++)
+					out.writeInt(mansion.forward(firstState + i));
+				for(int i = 0; i < states; i++)
+					out.writeInt(mansion.back(firstState + i));
+				for(int i = 0; i < states; i++)
+					out.writeInt(mansion.left(firstState + i));
+				for(int i = 0; i < states; i++)
+					out.writeInt(mansion.right(firstState + i));
+				for(int i = 0; i < states; i++)
+					out.writeInt(mansion.getImage(firstState + i));
+				for(int i = 0; i < states; i++)
+				{
+					int state = firstState + i;
+					boolean hasRule = mansion.getGateRoom(state) >= 0 || mansion.getLoreKind(state) != MansionDefinition.LORE_NONE
+							|| mansion.getUnlockItem(state) >= 0 || mansion.getEscapeItem(state) >= 0;
+					rule[i] = hasRule ? rules++ : -1;
+					out.writeInt(rule[i]);
+				}
+
+				out.writeInt(rules);
+				for(int i = 0; i < states; i++)
+					if(rule[i] >= 0)
+						out.writeInt(mapped(roomId, mansion.getGateRoom(firstState + i)));
+				for(int i = 0; i < states; i++)
+					if(rule[i] >= 0)
+						out.writeInt(mansion.getGateRoom(firstState + i) < 0 ? -1
+								: message(mansion.getGateMessage(firstState + i), messages, messageIds));
+				for(int i = 0; i < states; i++)
+					if(rule[i] >= 0)
+						out.writeByte(mansion.getLoreKind(firstState + i));
+				for(int i = 0; i < states; i++)
+					if(rule[i] >= 0)
+						out.writeInt(mapped(roomId, mansion.getLoreRoom(firstState + i)));
+				for(int i = 0; i < states; i++)
+					if(rule[i] >= 0)
+						out.writeInt(mapped(itemId, mansion.getUnlockItem(firstState + i)));
+				for(int i = 0; i < states; i++)
+					if(rule[i] >= 0)
+						out.writeInt(mapped(roomId, mansion.getUnlockRoom(firstState + i)));
+				for(int i = 0; i < states; i++)
+					if(rule[i] >= 0)
+						out.writeInt(mansion.getUnlockItem(firstState + i) < 0 ? -1
+								: message(mansion.getUnlockMessage(firstState + i), messages, messageIds));
+				for(int i = 0; i < states; i++)
+					if(rule[i] >= 0)
+						out.writeInt(mapped(itemId, mansion.getEscapeItem(firstState + i)));
+				for(int i = 0; i < states; i++) // Rules needing several items list them all, others none.
+				{
+					if(rule[i] < 0)
+						continue;
+
+					int[] items = mansion.getUnlockItems(firstState + i);
+					out.writeInt(items.length > 1 ? items.length : 0);
+					for(int item = 0; items.length > 1 && item < items.length; item++)
+						out.writeInt(mapped(itemId, items[item]));
+				}
+
+				int sprites = 0;	// Only states with sprites are written, each with its index.
+				for(int i = 0; i < states; i++)
+					if(mansion.getSprites(firstState + i).length > 0)
+						sprites++;
+				out.writeInt(sprites);
+				for(int i = 0; i < states; i++)
+				{
+					int[] sprite = mansion.getSprites(firstState + i);
+
+					if(sprite.length == 0)
+						continue;
+
+					out.writeInt(i);
+					out.writeInt(sprite.length);
+					for(int at = 0; at < sprite.length; at += SPRITE_FIELDS)
+					{
+						out.writeInt(sprite[at]);
+						out.writeInt(mapped(sprite[at] == SPRITE_ITEM ? itemId : roomId, sprite[at + 1]));
+						out.writeInt(sprite[at + 2]);
+						out.writeInt(sprite[at + 3]);
+						out.writeInt(sprite[at + 4] < 0 ? -1
+								: message(mansion.getSpriteFile(sprite[at + 4]), spriteFiles, spriteFileIds));
+					}
+				}
+
+				for(int node = first; node < first + count; node++)
+					out.writeInt(mapped(roomId, mansion.getNodeRoom(node)));
+				for(int node = first; node < first + count; node++)
+					out.writeBoolean(mansion.entersRoom(node));
+
+				for(int room = firstRoom[index]; room < firstRoom[index + 1]; room++)
+					out.writeBoolean(mansion.isRoomLocked(roomOf[room]));
+				for(int room = firstRoom[index]; room < firstRoom[index + 1]; room++)
+					out.writeInt(mapped(itemId, mansion.getRoomItem(roomOf[room])));
+				for(int room = firstRoom[index]; room < firstRoom[index + 1]; room++)
+					out.writeUTF(mansion.hasRoomName(roomOf[room]) ? mansion.getRoomName(roomOf[room]) : "");
+
+				for(int item = firstItem[index]; item < firstItem[index + 1]; item++)
+					out.writeInt(mansion.getItemType(itemOf[item]));
+				for(int item = firstItem[index]; item < firstItem[index + 1]; item++)
+					out.writeInt(mapped(roomId, mansion.getItemRoom(itemOf[item])));
+				for(int item = firstItem[index]; item < firstItem[index + 1]; item++)
+					out.writeUTF(mansion.hasItemName(itemOf[item]) ? mansion.getItemName(itemOf[item]) : "");
+			}
+			finally
+			{
+				out.close();
+			}
+		}
+
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+				new FileOutputStream(new File(directory, "index.dat"))));
+
+		try
+		{
+			out.writeInt(nodes);
+			out.writeInt(mansion.getRoomCount());
+			out.writeInt(mansion.getItemCount());
+			out.writeInt(regionSize);
+			out.writeInt(mansion.getStartState());
+			out.writeInt(mansion.getExitState());
+			out.writeInt(regionCount);
+			for(int value : firstRoom)
+				out.writeInt(value);
+			for(int value : firstItem)
+				out.writeInt(value);
+
+			out.writeInt(messages.size());
+			for(String message : messages)
+				out.writeUTF(message);
+			out.writeInt(mansion.getImageCount());
+			for(int image = 0; image < mansion.getImageCount(); image++)
+				out.writeUTF(mansion.getImageFile(image));
+			out.writeInt(spriteFiles.size());
+			for(String file : spriteFiles)
+				out.writeUTF(file);
+		}
+		finally
+		{
+			out.close();
+		}
+	}
+
+	/**
+	 * The renumber method numbers rooms or items region by region,
+	 * keeping their order within a region.
+	 * @param region The region of each room or item.
+	 * @param first Filled with the first new id of each region.
+	 * @return The new id of each room or item.
+	 */
+	private static int[] renumber(int[] region, int[] first)
+	{
+		for(int value : region)
+			first[value + 1]++;
+		for(int i = 1; i < first.length; i++)
+			first[i] += first[i - 1];
+
+		int[] next = Arrays.copyOf(first, first.length);
+		int[] id = new int[region.length];
+		for(int i = 0; i < region.length; i++)
+			id[i] = next[region[i]]++;
+		return id;
+	}
+
+	private static int mapped(int[] ids, int id)
+	{
+		return id < 0 ? -1 : ids[id];
+	}
+
+	private static int message(String message, ArrayList<String> messages, HashMap<String, Integer> ids)
+	{
+		Integer id = ids.get(message);
+
+		if(id == null)
+		{
+			id = messages.size();
+			messages.add(message);
+			ids.put(message, id);
+		}
+		return id;
+	}
+
+	private static int[] readInts(DataInputStream in, int count) throws IOException
+	{
+		int[] values = new int[count];
+		for(int i = 0; i < count; i++)
+			values[i] = in.readInt();
+		return values;
+	}
+
+	private static String[] readStrings(DataInputStream in) throws IOException
+	{
+		String[] values = new String[in.readInt()];
+		for(int i = 0; i < values.length; i++)
+			values[i] = in.readUTF();
+		return values;
+	}
+
+	private static int[] readInts(ByteBuffer in, int count)
+	{
+		int[] values = new int[count];
+		in.asIntBuffer().get(values);
+		in.position(in.position() + count * 4);
+		return values;
+	}
+
+	private static boolean[] readBooleans(ByteBuffer in, int count)
+	{
+		boolean[] values = new boolean[count];
+		for(int i = 0; i < count; i++)
+			values[i] = in.get() != 0;
+		return values;
+	}
+
+	/**
+	 * The readNames method reads names written with writeUTF, keeping only
+	 * the ones that aren't empty. writeUTF writes modified UTF-8, so each
+	 * name is decoded by readUTF along with its length.
+	 * @return The names, with null for an unnamed room or item.
+	 * @throws IOException If a name isn't valid modified UTF-8.
+	 */
+	private static String[] readNames(ByteBuffer in, int count) throws IOException
+	{
+		String[] names = new String[count];
+		for(int i = 0; i < count; i++)
+		{
+			int start = in.position();
+			int length = in.getShort() & 0xFFFF;
+
+			if(length > 0)
+			{
+				byte[] bytes = new byte[length + 2];
+				in.position(start);
+				in.get(bytes);
+				names[i] = new DataInputStream(new ByteArrayInputStream(bytes)).readUTF();
+			}
+		}
+		return names;
+	}
+
+	/**
+	 * Generate a mansion, split it into regions and walk through it,
+	 * reporting how many regions stayed in memory and how often a move
+	 * had to wait for a region. The walker makes trips from the first
+	 * hallway to nodes deep in the mansion and back, thinking for a moment
+	 * between steps like a player would. Only the first load is sure to
+	 * stall. Later ones stall when the walker gets more than horizon moves
+	 * ahead of the loader, as with 200,000 nodes in regions of 4096 and no
+	 * think time, which stalls about ten times. The regions are written to a
+	 * temporary directory that is deleted at the end.
+	 * @param args Nodes, region size, horizon, max regions, steps and think time in ms.
+	 * @throws IOException If the regions can't be written or read.
+	 * @throws InterruptedException If the walk is interrupted.
+	 */
+	public static void main(String[] args) throws IOException, InterruptedException
+	{
+		int nodes = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		int regionSize = args.length > 1 ? Integer.parseInt(args[1]) : 4096;
+		int horizon = args.length > 2 ? Integer.parseInt(args[2]) : 2;
+		int maxRegions = args.length > 3 ? Integer.parseInt(args[3]) : 16;
+		int steps = args.length > 4 ? Integer.parseInt(args[4]) : 3000;
+		int think = args.length > 5 ? Integer.parseInt(args[5]) : 5;
+
+		File directory = Files.createTempDirectory("mansion-regions").toFile();
+
+		try
+		{
+			MansionDefinition generated = new MansionGenerator(7).generate(nodes);
+			long footprint = generated.getFootprintBytes();
+			Random random = new Random(7);
+
+			// Plan trips from the first hallway to nodes deep in the mansion, as the doors to go through.
+			int[][] trips = new int[64][];
+			for(int trip = 0; trip < trips.length; trip++)
+			{
+				ArrayList<Integer> doors = new ArrayList<Integer>();
+				int node = nodes - 1 - random.nextInt(Math.max(nodes / 10, 1));
+
+				while(node > 1)
+				{
+					int door = generated.back(MansionDefinition.state(node, 0));
+					doors.add(0, door);
+					node = MansionDefinition.nodeOf(door);
+				}
+				trips[trip] = doors.stream().mapToInt(Integer::intValue).toArray();
+			}
+
+			long start = System.nanoTime();
+			write(generated, directory, regionSize);
+			System.out.printf("Wrote %d nodes in %d regions to %s in %.1f ms%n", nodes,
+					(nodes + regionSize - 1) / regionSize, directory, (System.nanoTime() - start) / 1e6);
+			generated = null;
+
+			RegionStreamedMap map = new RegionStreamedMap(directory, horizon, maxRegions);
+			Scene scene = new Scene(map, new JTextPane(), new JButton());
+			Player player = new Player(new ArrayList<Item>(), scene);
+			int maxLoaded = 0;
+			long slowest = 0;
+			long busy = 0;
+			int trip = -1, door = 0;
+			int deepest = 0;
+
+			player.moveForward(); // Enter the mansion.
+
+			for(int step = 0; step < steps; step++)
+			{
+				Thread.sleep(think);
+				long before = System.nanoTime();
+				int node = scene.getNode();
+
+				if(trip < 0) // Head back to the first hallway.
+				{
+					if(node == 1)
+					{
+						trip = step % trips.length;
+						door = 0;
+					}
+					else if(map.left(scene.getState()) < 0)
+						player.moveBack();
+					else if(scene.getDirection() != 3)
+						player.turnRight();
+					else
+						player.moveForward();
+				}
+				else if(door == trips[trip].length || MansionDefinition.nodeOf(trips[trip][door]) != node)
+					trip = -1;
+				else if(scene.getDirection() != MansionDefinition.directionOf(trips[trip][door]))
+					player.turnRight();
+				else
+				{
+					player.useItem();
+					player.moveForward();
+					player.pickUp();
+
+					if(scene.getNode() != node)
+						door++;
+					else
+						trip = -1; // Locked.
+				}
+
+				long time = System.nanoTime() - before;
+				busy += time;
+				slowest = Math.max(slowest, time);
+				maxLoaded = Math.max(maxLoaded, map.getLoadedRegions());
+				deepest = Math.max(deepest, scene.getNode());
+			}
+
+			System.out.printf("%d steps, %.3f ms per step on average, slowest step %.2f ms, deepest node %d%n",
+					steps, busy / 1e6 / steps, slowest / 1e6, deepest);
+			System.out.printf("Regions: %d loads, %d evictions, at most %d loaded (%d KB of %d KB)%n",
+					map.getLoads(), map.getEvictions(), maxLoaded,
+					footprint * maxLoaded * regionSize / nodes / 1024, footprint / 1024);
+			System.out.printf("Stalls: %d, %.2f ms waiting in total%n", map.getStalls(), map.getStallNanos() / 1e6);
+			map.close();
+		}
+		finally	// About 140 MB of regions at the default size.
+		{
+			for(File file : directory.listFiles())
+				file.delete();
+			directory.delete();
+		}
+	}
+
+	/**
+	 * Region Class
+	 * The Region class holds the tables of the nodes, rooms and items of one region.
+	 * Tables are indexed like MansionDefinition, relative to the first node, room or item.
+	 */
+	private static class Region
+	{
+		int index;
+		int firstNode, firstRoom, firstItem;
+		volatile long used;		// When the region was last near the player.
+
+		int[] forward, back, left, right, image, rule;
+		int[] gateRoom, gateMessage;
+		byte[] loreKind;
+		int[] loreRoom, unlockItem, unlockRoom, unlockMessage, escapeItem;
+		int[][] unlockItems;	// Only for rules needing several items.
+		HashMap<Integer, int[]> sprites;	// Only for states with sprites, by index.
+		int[] nodeRoom;
+		boolean[] nodeEnters;
+		boolean[] roomLocked;
+		int[] roomItem;
+		String[] roomNames;
+		int[] itemTypes, itemRoom;
+		String[] itemNames;
+
+		int index(int state)
+		{
+			return state - this.firstNode * MansionDefinition.DIRECTIONS;
+		}
+	}
+}
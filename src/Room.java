@@ -3,9 +3,13 @@
  * The Room class contains fields and methods needed to create a room within the game.
  * fields:
  * 	hasEntered: A boolean used to hold the state of whether the player has entered the room or not.
+ * 	id: The id of the room in its WorldStore.
  * 	item: An Item object in a room that can be picked up by the Player.
  * 	locked: A boolean used to hold the state of whether or not a room is locked.
  * 	name: A String that holds the name of the room.
+ * 	store: The WorldStore holding the state of the room when the room is a view over it, otherwise null.
+ * A Room that is a view reads and writes its state through the store and its
+ * name and item can't be changed.
  * Date: 02 December 2017
  * OOP Project 2: The Mansion
  * @author Team 7
@@ -20,6 +24,9 @@ public class Room
 	
 	private boolean locked; 	// Is the room locked or not?
 	private boolean hasEntered; // Has the player been to the room or not?
+	
+	private WorldStore store;	// Holds the state when the room is a view.
+	private int id;				// Id of the room in the store.
 
 	/**
 	 * The default constructor creates a room object
@@ -60,25 +67,48 @@ public class Room
 		this.hasEntered = false;
 	}
 	
+	/**
+	 * This constructor creates a view over a room in a WorldStore.
+	 * It holds no state of its own so it is cheap to create and drop.
+	 * @param store The WorldStore that holds the state of the room.
+	 * @param id The id of the room in the store.
+	 */
+	public Room(WorldStore store, int id)
+	{
+		this.store = store;
+		this.id = id;
+	}
+	
 	
 	// Getters:
 	public String getName()
 	{
+		if(this.store != null)
+			return this.store.getRoomName(this.id);
 		return this.name;
 	}
 
 	public Item getItem()
 	{
+		if(this.store != null)
+		{
+			int item = this.store.getRoomItem(this.id);
+			return item < 0 ? null : new Item(this.store, item);
+		}
 		return this.item;
 	}
 
 	public boolean isLocked()
 	{
+		if(this.store != null)
+			return this.store.isRoomLocked(this.id);
 		return this.locked;
 	}
 
 	public boolean hasEntered()
 	{
+		if(this.store != null)
+			return this.store.hasEntered(this.id);
 		return this.hasEntered;
 	}
 
@@ -86,16 +116,19 @@ public class Room
 	// Setters:
 	public void setName(String name)
 	{
+		this.checkNotView();
 		this.name = name;
 	}
 	
 	public void setItem(Item item)
 	{
+		this.checkNotView();
 		this.item = item;
 	}
 
 	public void setItemName(String name)
 	{
+		this.checkNotView();
 		this.item.setName(name);
 	}
 	
@@ -107,18 +140,25 @@ public class Room
 	 */
 	public void setItemType(int type)
 	{
+		this.checkNotView();
 		this.item.setType(type);
 	}
 	
 
 	public void setLocked(boolean locked)
 	{
-		this.locked = locked;
+		if(this.store != null)
+			this.store.setRoomLocked(this.id, locked);
+		else
+			this.locked = locked;
 	}
 	
 	public void setHasEntered(boolean hasEntered)
 	{
-		this.hasEntered = hasEntered;
+		if(this.store != null)
+			this.store.setEntered(this.id, hasEntered);
+		else
+			this.hasEntered = hasEntered;
 	}
 
 	
@@ -129,7 +169,7 @@ public class Room
 	 */
 	public void lock()
 	{
-		this.locked = true;
+		this.setLocked(true);
 	}
 	
 	/**
@@ -137,6 +177,16 @@ public class Room
 	 */
 	public void unlock()
 	{
-		this.locked = false;
+		this.setLocked(false);
+	}
+	
+	/**
+	 * The checkNotView method stops the name and item of a view from being
+	 * changed, they belong to the mansion.
+	 */
+	private void checkNotView()
+	{
+		if(this.store != null)
+			throw new UnsupportedOperationException("The rooms of a WorldStore can't be renamed or refurnished");
 	}
 }
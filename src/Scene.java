@@ -5,14 +5,24 @@
  * This class also loads the images based on the player's position
  * and direction and is used to update them into the game.
  * fields:
- * 	btn_Use: A JButton that changes the text that is displayed to the Player.
+ * 	btn_Use: A JButton that changes the text that is displayed to the Player, or null.
+ * 	buttonText: The text of the use item button, the name of the last item picked up.
+ * 	composer: The SceneComposer that draws the mansion's item and door sprites over the scene image.
  * 	dir: An integer value between 0 and 3 that determines the direction the Player is facing.
+ * 	stream: The DeltaStream the window, the terminal or spectators follow the game through, or null.
+ * 		Without it the scene displays straight to its JTextPane and JButton.
+ * 	headless: True when the scene has no JTextPane to display to, then no images are loaded.
+ * 	images: The scene images already loaded, indexed like the images of the mansion.
  * 	info: An Information object that is used to store and display information about each scene.
- * 	node: An integer value between 0 and 10 that represents which scene the player is currently on.
- * 	rooms: An ArrayList of Room objects to hold the 8 rooms that the player can navigate through.
+ * 	mansion: The MansionMap that holds the nodes, rooms, items and rules of the mansion.
+ * 	node: An integer value that represents which scene the player is currently on.
+ * 	rooms: A HashMap of Room objects by room id, created the first time the player gets near a room.
+ * 		When the mansion is a WorldStore the rooms are views over it and none are kept.
  * 	scene: A Scene object to be displayed to the Player.
+ * 	stats: The GameStats the Player's actions are counted in, or null.
+ * 	statsRoom, statsSince: The room the time is being counted for and since when.
  * 	type: An integer value that indicates the type of information being displayed.
- * Scene Class uses the src/assets/img file to get images for the Room objects.
+ * Scene Class uses the img directory of the Assets to get images for the Room objects, through the ImageCache.
  * Date: 02 December 2017
  * OOP Project 2: The Mansions
  * @author Team 7
@@ -21,24 +31,32 @@
  */
 
 import java.awt.image.BufferedImage;
-import java.io.File;
 import java.io.IOException;
-import java.util.ArrayList;
-import javax.imageio.ImageIO;
+import java.util.HashMap;
 import javax.swing.JButton;
 import javax.swing.JTextPane;
 
 public class Scene 
 {
-	private int node;			 	// The digit value of the scene the player is currently on (0 - 10).
+	private int node;			 	// The digit value of the scene the player is currently on.
 	private int dir;			 	// The direction the player is facing at node position (0 - 3).
 	private int type; 				// Handles different information at the same node and direction.
 	private BufferedImage scene; 	// Actual image of the scene.
+	private SceneComposer composer;	// Draws the sprites over it, created when first shown.
 	
 	private Information info;	 	// The information provided for each scene.
 	private JButton btn_Use;		// changes the text that is displayed to the Player
+	private String buttonText = "";	// Text of the use item button.
+	private boolean headless;		// Nothing is displayed, like when bots play.
 	
-	private ArrayList<Room> rooms; 	// ArrayList of the 8 rooms.
+	private MansionMap mansion;		// Compiled nodes, rooms, items and rules.
+	private HashMap<Integer, Room> rooms; 	// Rooms created so far, by room id.
+	private WorldStore world;		// The mansion when it holds the room state, otherwise null.
+	private BufferedImage[] images;	// Scene images loaded so far.
+	private DeltaStream stream;		// Changes published to the window or spectators, or null.
+	private GameStats stats;		// Actions counted, or null.
+	private int statsRoom;			// Room the time is counted for.
+	private long statsSince;		// When the Player got into statsRoom.
 	
 	/**
 	 * This constructor doesn't take a node value and sets the scene
@@ -50,10 +68,46 @@ public class Scene
 	 */
 	public Scene(JTextPane windowText, JButton btn_Use)
 	{
-		this.setNode(0); 		 		// Default node position at 0.
-		this.setDirection(0);	 		// Default direction at 0.
+		this(MansionDefinition.getDefault(), windowText, btn_Use);
+	}
+	
+	/**
+	 * This constructor sets the scene at the start of a mansion.
+	 * @param mansion The compiled mansion to be played.
+	 * @param windowText A reference to the JTextPane. The String value
+	 * 			in it will be used to create an Information object.
+	 * 			If null, the scene is headless.
+	 * @param btn_Use A reference to the JButton to be copied into the
+	 * 			btn_Use field.
+	 */
+	public Scene(MansionMap mansion, JTextPane windowText, JButton btn_Use)
+	{
+		this(mansion, null, new BufferedImage[mansion.getImageCount()], windowText, btn_Use);
+	}
+	
+	/**
+	 * This constructor sets the scene at the start of a mansion whose lore
+	 * and images were loaded beforehand, like by a GameLoader.
+	 * @param mansion The compiled mansion to be played.
+	 * @param lore The lore to be displayed, or null to read it on first use.
+	 * @param images The scene images of the mansion, indexed like its images.
+	 * 			Images that are null are read the first time they are shown.
+	 * @param windowText A reference to the JTextPane. The String value
+	 * 			in it will be used to create an Information object.
+	 * 			If null, the scene is headless.
+	 * @param btn_Use A reference to the JButton to be copied into the
+	 * 			btn_Use field.
+	 */
+	public Scene(MansionMap mansion, LoreTable lore, BufferedImage[] images, JTextPane windowText, JButton btn_Use)
+	{
+		this.mansion = mansion;
+		this.headless = windowText == null;
+		this.world = mansion instanceof WorldStore ? (WorldStore) mansion : null;
+		this.images = images;
+		this.setNode(MansionDefinition.nodeOf(mansion.getStartState())); 		 // Start node.
+		this.setDirection(MansionDefinition.directionOf(mansion.getStartState())); // Start direction.
 		this.setType(0);				// Default type of information.
-		this.info = new Information(windowText); // Create information object.
+		this.info = new Information(windowText, lore); // Create information object.
 		this.btn_Use = btn_Use; // Set button to change text.
 		this.createRooms(); // Create room objects.
 	}
@@ -71,6 +125,9 @@ public class Scene
 	 */
 	public Scene(int node, int dir, JTextPane windowText, JButton btn_Use)
 	{
+		this.mansion = MansionDefinition.getDefault();
+		this.headless = windowText == null;
+		this.images = new BufferedImage[this.mansion.getImageCount()];
 		this.setNode(node);				// Set node position.
 		this.setDirection(dir);			// Set dir.
 		this.setType(0);				// Set type.
@@ -110,12 +167,36 @@ public class Scene
 	}
 	
 	/**
-	 * Get the current scene image.
+	 * Get the current scene image, with the sprites of the items still
+	 * there and of the doors still locked drawn over it.
 	 * @return image of the scene.
 	 */
 	public BufferedImage getScene()
 	{
-		return this.scene;
+		if(this.scene == null || this.headless)
+			return this.scene;
+		
+		if(this.composer == null)
+			this.composer = new SceneComposer(this.mansion);
+		return this.composer.compose(this.getState(), this.scene, this);
+	}
+	
+	/**
+	 * Get the state (node and direction packed together) of the scene.
+	 * @return The state used to index the tables of the mansion.
+	 */
+	public int getState()
+	{
+		return MansionDefinition.state(this.node, this.dir);
+	}
+	
+	/**
+	 * Get the mansion being played.
+	 * @return A reference to the MansionMap.
+	 */
+	public MansionMap getMansion()
+	{
+		return this.mansion;
 	}
 	
 	/**
@@ -127,6 +208,33 @@ public class Scene
 		return this.info;
 	}
 	
+	/**
+	 * Get whether the scene displays anything.
+	 * @return True if the scene has no JTextPane to display to.
+	 */
+	public boolean isHeadless()
+	{
+		return this.headless;
+	}
+	
+	/**
+	 * Get the stream the changes of the game are published to.
+	 * @return The DeltaStream, or null if the scene displays them itself.
+	 */
+	public DeltaStream getDeltaStream()
+	{
+		return this.stream;
+	}
+	
+	/**
+	 * Get the stats the Player's actions are counted in.
+	 * @return The GameStats, or null if nothing is counted.
+	 */
+	public GameStats getStats()
+	{
+		return this.stats;
+	}
+	
 	/**
 	 * Get the use item button.
 	 * @return A reference to the use item JButton
@@ -135,6 +243,15 @@ public class Scene
 	{
 		return this.btn_Use;
 	}
+	
+	/**
+	 * Get the text of the use item button, whether the scene has one or not.
+	 * @return The text.
+	 */
+	public String getButtonText()
+	{
+		return this.buttonText;
+	}
 
 	
 // Setters
@@ -167,6 +284,43 @@ public class Scene
 		this.type = type;
 	}
 	
+	/**
+	 * Set the stream the changes of the game are published to, instead of
+	 * displaying them to the JTextPane and JButton of the scene.
+	 * @param stream The DeltaStream, or null to display them again.
+	 */
+	public void setDeltaStream(DeltaStream stream)
+	{
+		this.stream = stream;
+		this.info.setPublisher(stream == null ? null : this);
+	}
+	
+	/**
+	 * Set the text of the use item button.
+	 * @param text The text, like the name of the item picked up.
+	 */
+	public void setButtonText(String text)
+	{
+		this.buttonText = text;
+		
+		if(this.stream != null)
+			this.publish(DeltaStream.of(DeltaStream.BUTTON), text);
+		else if(this.btn_Use != null)
+			this.btn_Use.setText(text);
+	}
+	
+	/**
+	 * Set the stats the Player's actions are counted in. The time in the
+	 * current room is counted from now.
+	 * @param stats The GameStats, or null to stop counting.
+	 */
+	public void setStats(GameStats stats)
+	{
+		this.stats = stats;
+		this.statsRoom = this.mansion.getNodeRoom(this.node);
+		this.statsSince = System.nanoTime();
+	}
+	
 	/**
 	 * Update player's current direction and position.
 	 * @param node The scene the player is currently on.
@@ -176,16 +330,63 @@ public class Scene
 	{
 		this.node = node;
 		this.dir = dir;
+		this.mansion.setPosition(node);
 		this.setInformation(node, dir);
 		this.updateRoom(node);
 		this.loadImage();
+		
+		this.publish(DeltaStream.move(node, dir, this.type), null);
+		if(this.stats != null)
+			this.countRoomTime();
 	}
 
 // Functions
+	/**
+	 * The publish method publishes a change of the game to the stream, if
+	 * the scene has one. A RESTORE publishes the whole game, as it is now.
+	 * @param delta The change, see DeltaStream.
+	 * @param text The text of a MESSAGE or BUTTON, otherwise null.
+	 */
+	public void publish(long delta, String text)
+	{
+		if(this.stream == null)
+			return;
+		
+		if(DeltaStream.kindOf(delta) != DeltaStream.RESTORE)
+		{
+			this.stream.publish(delta, text);
+			return;
+		}
+		
+		// Rooms never created are still as they were at first. A WorldStore
+		// only knows whether a room is locked now, so every room it doesn't
+		// lock counts as unlocked.
+		PersistentIntMap unlocked = PersistentIntMap.empty(this.mansion.getRoomCount());
+		PersistentIntMap items = PersistentIntMap.empty(this.mansion.getItemCount());
+		int count = this.world != null ? this.mansion.getRoomCount() : this.rooms.size();
+		Integer[] ids = this.world != null ? null : this.rooms.keySet().toArray(new Integer[count]);
+		
+		for(int i = 0; i < count; i++)
+		{
+			int id = ids == null ? i : ids[i];
+			Room room = this.getRoom(id);
+			Item item = room.getItem();
+			
+			if(!room.isLocked() && (this.world != null || this.mansion.isRoomLocked(id)))
+				unlocked = unlocked.with(id, DeltaStream.UNLOCKED);
+			if(item != null && (item.isPickedUp() || item.isUsed()))
+				items = items.with(item.getId(), (item.isPickedUp() ? DeltaStream.PICKED_UP : 0)
+						| (item.isUsed() ? DeltaStream.USED : 0));
+		}
+		this.stream.publishRestore(this.node, this.dir, this.type, unlocked, items);
+	}
+	
 	/**
 	 * The setInfomation method uses the node and player direction values to
 	 * determine the appropriate information that should be set for the Room
-	 * objects.
+	 * objects. The lore rule of the mansion at that node and direction tells
+	 * which room has to be entered, or whose item has to be picked up, before
+	 * type 1 information is shown.
 	 * @param node Value that represents which scene the player is on.
 	 * 			Used to determine the type of information to be set on a Room.
 	 * @param dir Value that represents the direction the player is facing.
@@ -193,64 +394,58 @@ public class Scene
 	 */
 	public void setInformation(int node, int dir)
 	{
-		if(node == 1) // Check NODE 1 type.
-		{
-			if(this.dir == 0 && this.getRoomByName("Hallway").hasEntered())
-				this.setType(1);
-			else if(this.dir == 1 && this.getRoomByName("Lounge").hasEntered())
-				this.setType(1);
-			else if(this.dir == 2 && this.getRoomByName("Study").hasEntered()) // Study is unlocked.
-				this.setType(1);
-			else
-				this.setType(0);	
-		}
-		else if(node == 2) // Check Lounge.
-		{
-			if(this.getRoomByName("Lounge").getItem().isPickedUp())
-				this.setType(1);
-			else
-				this.setType(0);
-		}
-		else if(node == 3) // Check NODE 3 type.
-		{
-			if(this.dir == 1 && this.getRoomByName("Billiard Room").hasEntered())
-				this.setType(1);
-			else if(this.dir == 2 && this.getRoomByName("Ballroom").hasEntered())
-				this.setType(1);
-			else
-				this.setType(0);
-		}
-		else if(node == 4) // Check Study.
-		{
-			if(this.getRoomByName("Study").getItem().isPickedUp())
-				this.setType(1);
-			else
-				this.setType(0);
-		}
-		else if(node == 5) // Check Ballroom.
-		{
-			if(this.getRoomByName("Ballroom").getItem().isPickedUp())
-				this.setType(1);
-			else
-				this.setType(0);
-		}
-		else if(node == 6) // Check NODE 6 type.
-		{
-			if(this.dir == 0 && this.getRoomByName("Conservatory").hasEntered())
-				this.setType(1);
-			else if(this.dir == 1 && this.getRoomByName("Library").hasEntered())
-				this.setType(1);
-			else if(this.dir == 2 && this.getRoomByName("Kitchen").hasEntered())
-				this.setType(1);
-			else
-				this.setType(0);
-		}
+		int state = MansionDefinition.state(node, dir);
+		int kind = this.mansion.getLoreKind(state);
+		
+		Room room = null;
+		
+		if(kind != MansionDefinition.LORE_NONE)
+			room = this.world != null ? this.getRoom(this.mansion.getLoreRoom(state)) : this.rooms.get(this.mansion.getLoreRoom(state));
+		
+		if(room == null) // A room that was never created was never entered either.
+			this.setType(0);
+		else if(kind == MansionDefinition.LORE_ENTERED && room.hasEntered())
+			this.setType(1);
+		else if(kind == MansionDefinition.LORE_PICKED_UP && room.getItem().isPickedUp())
+			this.setType(1);
 		else
 			this.setType(0);
 		
 		this.info.updateInformation(node, dir, this.type);
 	}
 	
+	/**
+	 * The getRoom method returns a Room object by its id, creating
+	 * it the first time it is asked for. When the mansion is a
+	 * WorldStore a new view over the room is returned instead.
+	 * @param id The id of the room in the mansion.
+	 * @return The Room object.
+	 */
+	public Room getRoom(int id)
+	{
+		if(this.world != null)
+			return new Room(this.world, id);
+		
+		Room room = this.rooms.get(id);
+		
+		if(room == null)
+		{
+			room = this.createRoom(id);
+			this.rooms.put(id, room);
+		}
+		return room;
+	}
+	
+	/**
+	 * The getItem method returns an Item object by its id.
+	 * @param id The id of the item in the mansion.
+	 * @return The Item object, held by the room it comes from.
+	 */
+	public Item getItem(int id)
+	{
+		return this.getRoom(this.mansion.getItemRoom(id)).getItem();
+	}
+	
 	/**
 	 * The getRoomByName method searches the ArrayList of Room objects
 	 * to find a Room whose value in its name field matches the name parameter.
@@ -260,37 +455,21 @@ public class Scene
 	 */
 	public Room getRoomByName(String name)
 	{
-		for(Room room : this.rooms)
-		{
-			if(room.getName().equals(name))
-				return room;
-		}
-		return null;
+		int id = this.mansion.getRoomId(name);
+		
+		if(id < 0)
+			return null;
+		return this.getRoom(id);
 	}
 	
 	/**
 	 * The getRoomByPosition method uses the node value to
 	 * determine which Room object to return
-	 * @return The Room object whose node value is indicated below.
+	 * @return The Room object the current node belongs to.
 	 */
 	public Room getRoomByPosition()
 	{
-		if(this.node == 2)
-			return this.getRoomByName("Lounge");
-		else if(this.node == 4)
-			return this.getRoomByName("Study");
-		else if(this.node == 5)
-			return this.getRoomByName("Ballroom");
-		else if(this.node == 7)
-			return this.getRoomByName("Billiard Room");
-		else if(this.node == 8)
-			return this.getRoomByName("Library");
-		else if(this.node == 9)
-			return this.getRoomByName("Conservatory");
-		else if(this.node == 10)
-			return this.getRoomByName("Kitchen");
-		else
-			return this.getRoomByName("Hallway");
+		return this.getRoom(this.mansion.getNodeRoom(this.node));
 	}
 	
 	/**
@@ -302,75 +481,58 @@ public class Scene
 	 */
 	public void updateRoom(int node)
 	{
-		if(node == 1)
-			this.getRoomByName("Hallway").setHasEntered(true);
-		else if(node == 2)
-			this.getRoomByName("Lounge").setHasEntered(true);
-		else if(node == 4)
-			this.getRoomByName("Study").setHasEntered(true);
-		else if(node == 5)
-			this.getRoomByName("Ballroom").setHasEntered(true);
-		else if(node == 7)
-			this.getRoomByName("Billiard Room").setHasEntered(true);
-		else if(node == 8)
-			this.getRoomByName("Library").setHasEntered(true);
-		else if(node == 9)
-			this.getRoomByName("Conservatory").setHasEntered(true);
-		else if(node == 10)
-			this.getRoomByName("Kitchen").setHasEntered(true);
+		if(this.mansion.entersRoom(node))
+			this.getRoom(this.mansion.getNodeRoom(node)).setHasEntered(true);
+	}
+	
+	/**
+	 * The countRoomTime method adds the time spent in the room the Player
+	 * was in to the stats when they get into another one.
+	 */
+	private void countRoomTime()
+	{
+		int room = this.mansion.getNodeRoom(this.node);
 		
+		if(room != this.statsRoom)
+		{
+			long now = System.nanoTime();
+			
+			this.stats.addRoomTime(this.statsRoom, now - this.statsSince);
+			this.statsRoom = room;
+			this.statsSince = now;
+		}
 	}
 	
 	/**
-	 * The createRooms method creates the rooms and adds the Items to the rooms.
+	 * The createRooms method starts the mansion with no rooms created.
+	 * Each Room object and its Item are created the first time they are
+	 * needed, so a large mansion only holds the rooms the player has been near.
 	 */
 	public void createRooms()
 	{
-		rooms = new ArrayList<Room>();	// Initialize rooms ArrayList.
-		
-		Room lounge = new Room("Lounge");
-		Room billiard = new Room("Billiard Room", true); 	// Locked
-		Room library = new Room("Library", true); 			// Locked
-		Room study = new Room("Study", true); 				// Locked
-		Room ballroom = new Room("Ballroom", true);			// Locked
-		Room kitchen = new Room("Kitchen", true);			// Locked
-		Room conservatory = new Room("Conservatory", true); // Locked
-		Room hallway = new Room("Hallway");
-		
-		/**
-		 * Add rooms to ArrayList and add items to each room.
-		 */
-		this.rooms.add(lounge);
-		this.getRoomByName("Lounge").setItemName("Key");
-		this.getRoomByName("Lounge").setItemType(4);
-		
-		this.rooms.add(billiard);
-		this.getRoomByName("Billiard Room").setItemName("Candle");
-		this.getRoomByName("Billiard Room").setItemType(8);
-		
-		this.rooms.add(library);
-		this.getRoomByName("Library").setItemName("Button");
-		this.getRoomByName("Library").setItemType(10);
-		
-		this.rooms.add(study);
-		this.getRoomByName("Study").setItemName("Note");
-		this.getRoomByName("Study").setItemType(5);
-		
-		this.rooms.add(ballroom);
-		this.getRoomByName("Ballroom").setItemName("Fancy Key");
-		this.getRoomByName("Ballroom").setItemType(7);
-		
-		this.rooms.add(kitchen);
-		this.getRoomByName("Kitchen").setItemName("Master Key");
-		this.getRoomByName("Kitchen").setItemType(9);
-		
-		this.rooms.add(conservatory);
-		this.getRoomByName("Conservatory").setItemName("Lever");
-		this.getRoomByName("Conservatory").setItemType(0);
+		rooms = new HashMap<Integer, Room>();	// Initialize rooms HashMap.
+	}
+	
+	/**
+	 * The createRoom method creates a room and adds its Item to it.
+	 * @param id The id of the room in the mansion.
+	 * @return The new Room object.
+	 */
+	private Room createRoom(int id)
+	{
+		Room room = new Room(this.mansion.getRoomName(id), this.mansion.isRoomLocked(id));
+		int item = this.mansion.getRoomItem(id);
 		
-		this.rooms.add(hallway);
-		this.getRoomByName("Hallway").setItem(null);
+		if(item >= 0)
+		{
+			room.getItem().setId(item);
+			room.setItemName(this.mansion.getItemName(item));
+			room.setItemType(this.mansion.getItemType(item));
+		}
+		else
+			room.setItem(null); // Nothing to pick up, like the Hallway.
 		
+		return room;
 	}
 	
 	/**
@@ -383,271 +545,36 @@ public class Scene
 	}
 	
 	/**
-	 * The loadImage method uses the src/assets/img file to load
+	 * The loadImage method uses the img directory of the Assets to load
 	 * an image and set the scene to the loaded image based on 
-	 * the player's position (this.node).
+	 * the player's position (this.node) and direction (this.dir).
+	 * Each image is only read the first time it is shown, from the
+	 * ImageCache when it was decoded before. If the mansion has no
+	 * image for a position, or the scene is headless, the scene stays
+	 * the same.
 	 */
 	private void loadImage()
 	{
-		if(this.node == 0) // START.
-		{
-			try
-			{
-				this.scene = ImageIO.read(new File("src/assets/img", "node_0_Mansion.png"));
-				this.printNodeDir();
-			}
-			catch(IOException e)
-			{
-				e.printStackTrace();
-				System.out.println("Error loading image [scene " + this.node + "]");
-			}
-		}
-		else if(this.node == 1 && this.dir == 0) // Hallway facing forward.
-		{
-			try 
-			{
-				this.scene = ImageIO.read(new File("src/assets/img", "node_1_0_Hallway.png"));
-				this.printNodeDir();
-			}
-			catch(IOException e)
-			{
-				e.printStackTrace();
-				System.out.println("Error loading image [scene " + this.node + "]");
-			}
-		}
-		if(this.node == 1 && this.dir == 1) // Hallway facing left (door of Lounge).
-		{
-			try
-			{
-				this.scene = ImageIO.read(new File("src/assets/img", "node_1_1_Hallway.png"));
-				this.printNodeDir();
-			}
-			catch(IOException e)
-			{
-				e.printStackTrace();
-				System.out.println("Error loading image [scene " + this.node + "]");
-			}
-		}
-		if(this.node == 1 && this.dir == 2) // Hallway facing right (door of Study).
-		{
-			try
-			{
-				this.scene = ImageIO.read(new File("src/assets/img", "node_1_2_Hallway.png"));
-				this.printNodeDir();
-			}
-			catch(IOException e)
-			{
-				e.printStackTrace();
-				System.out.println("Error loading image [scene " + this.node + "]");
-			}
-		}
-		if(this.node == 1 && this.dir == 3) // Hallway facing entrance.
-		{
-			try
-			{
-				this.scene = ImageIO.read(new File("src/assets/img", "node_1_3_Hallway.png"));
-				this.printNodeDir();
-			}
-			catch(IOException e)
-			{
-				e.printStackTrace();
-				System.out.println("Error loading image [scene " + this.node + "]");
-			}
-		}
-		else if(this.node == 2) // THE LOUNGE.
-		{
-			try
-			{
-				this.scene = ImageIO.read(new File("src/assets/img", "node_2_Lounge.png"));
-				this.printNodeDir();
-			}
-			catch(IOException e)
-			{
-				e.printStackTrace();
-				System.out.println("Error loading image [scene " + this.node + "]");
-			}
-		}
-		if(this.node == 3 && this.dir == 0) // Hallway middle facing forward.
-		{
-			try
-			{
-				this.scene = ImageIO.read(new File("src/assets/img", "node_3_0_Hallway.png"));
-				this.printNodeDir();
-			}
-			catch(IOException e)
-			{
-				e.printStackTrace();
-				System.out.println("Error loading image [scene " + this.node + "]");
-			}
-		}
-		if(this.node == 3 && this.dir == 1) // Hallway middle facing left (door of Billiard Room).
-		{
-			try
-			{
-				this.scene = ImageIO.read(new File("src/assets/img", "node_3_1_Hallway.png"));
-				this.printNodeDir();
-			}
-			catch(IOException e)
-			{
-				e.printStackTrace();
-				System.out.println("Error loading image [scene " + this.node + "]");
-			}
-		}
-		if(this.node == 3 && this.dir == 2) // Hallway middle facing right (door of Ballroom).
-		{
-			try
-			{
-				this.scene = ImageIO.read(new File("src/assets/img", "node_3_2_Hallway.png"));
-				this.printNodeDir();
-			}
-			catch(IOException e)
-			{
-				e.printStackTrace();
-				System.out.println("Error loading image [scene " + this.node + "]");
-			}
-		}
-		if(this.node == 3 && this.dir == 3) // Hallway middle facing entrance.
-		{
-			try
-			{
-				this.scene = ImageIO.read(new File("src/assets/img", "node_3_3_Hallway.png"));
-				this.printNodeDir();
-			}
-			catch(IOException e)
-			{
-				e.printStackTrace();
-				System.out.println("Error loading image [scene " + this.node + "]");
-			}
-		}
-		else if(this.node == 4) // THE STUDY.
-		{
-			try
-			{
-				this.scene = ImageIO.read(new File("src/assets/img", "node_4_Study.png"));
-				this.printNodeDir();
-			}
-			catch(IOException e)
-			{
-				e.printStackTrace();
-				System.out.println("Error loading image [scene " + this.node + "]");
-			}
-		}
-		else if(this.node == 5) // THE BALLROOM.
-		{
-			try
-			{
-				this.scene = ImageIO.read(new File("src/assets/img", "node_5_Ballroom.png"));
-				this.printNodeDir();
-			}
-			catch(IOException e)
-			{
-				e.printStackTrace();
-				System.out.println("Error loading image [scene " + this.node + "]");
-			}
-		}
-		else if(this.node == 6 && this.dir == 0) // Hallway end facing forward (door to Conservatory).
-		{
-			try
-			{
-				this.scene = ImageIO.read(new File("src/assets/img", "node_6_0_Hallway.png"));
-				this.printNodeDir();
-			}
-			catch(IOException e)
-			{
-				e.printStackTrace();
-				System.out.println("Error loading image [scene " + this.node + "]");
-			}
-		}
-		else if(this.node == 6 && this.dir == 1) // Hallway end facing left. (door to Library).
-		{
-			try
-			{
-				this.scene = ImageIO.read(new File("src/assets/img", "node_6_1_Hallway.png"));
-				this.printNodeDir();
-			}
-			catch(IOException e)
-			{
-				e.printStackTrace();
-				System.out.println("Error loading image [scene " + this.node + "]");
-			}
-		}
-		else if(this.node == 6 && this.dir == 2) // Hallway end facing right. (door to Kitchen).
-		{
-			try
-			{
-				this.scene = ImageIO.read(new File("src/assets/img", "node_6_2_Hallway.png"));
-				this.printNodeDir();
-			}
-			catch(IOException e)
-			{
-				e.printStackTrace();
-				System.out.println("Error loading image [scene " + this.node + "]");
-			}
-		}
-		else if(this.node == 6 && this.dir == 3) // Hallway end facing entrance.
-		{
-			try
-			{
-				this.scene = ImageIO.read(new File("src/assets/img", "node_6_3_Hallway.png"));
-				this.printNodeDir();
-			}
-			catch(IOException e)
-			{
-				e.printStackTrace();
-				System.out.println("Error loading image [scene " + this.node + "]");
-			}
-		}
-		else if(this.node == 7) // BILLIARD ROOM.
-		{
-			try
-			{
-				this.scene = ImageIO.read(new File("src/assets/img", "node_7_Billiard.png"));
-				this.printNodeDir();
-			}
-			catch(IOException e)
-			{
-				e.printStackTrace();
-				System.out.println("Error loading image [scene " + this.node + "]");
-			}
-		}
-		else if(this.node == 8) // LIBRARY.
-		{
-			try
-			{
-				this.scene = ImageIO.read(new File("src/assets/img", "node_8_Library.png"));
-				this.printNodeDir();
-			}
-			catch(IOException e)
-			{
-				e.printStackTrace();
-				System.out.println("Error loading image [scene " + this.node + "]");
-			}
-		}
-		else if(this.node == 9) // CONSERVATORY.
-		{
-			try
-			{
-				this.scene = ImageIO.read(new File("src/assets/img", "node_9_Conservatory.png"));
-				this.printNodeDir();
-			}
-			catch(IOException e)
-			{
-				e.printStackTrace();
-				System.out.println("Error loading image [scene " + this.node + "]");
-			}
-		}
-		else if(this.node == 10) // KITCHEN.
+		int image = this.mansion.getImage(this.getState());
+		
+		if(image < 0 || this.headless)
+			return;
+		
+		if(this.images[image] == null)
 		{
 			try
 			{
-				this.scene = ImageIO.read(new File("src/assets/img", "node_10_Kitchen.png"));
-				this.printNodeDir();
+				this.images[image] = ImageCache.getDefault().readAsset("img/" + this.mansion.getImageFile(image));
 			}
 			catch(IOException e)
 			{
 				e.printStackTrace();
 				System.out.println("Error loading image [scene " + this.node + "]");
+				return;
 			}
 		}
+		
+		this.scene = this.images[image];
+		this.printNodeDir();
 	}
 }
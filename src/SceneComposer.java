@@ -0,0 +1,254 @@
+/**
+ * SceneComposer Class
+ * The SceneComposer class builds what the Player sees from layers: the scene
+ * image of a state, then the sprites the mansion puts over it. An item sprite
+ * is drawn until the item is picked up and a door sprite while its room is
+ * locked, so one background image serves every way the state can look.
+ * Which sprites are drawn is a bit each, so a state and its bits are the key
+ * of the composed image. Composed images are kept, the most recently shown
+ * ones, and looking at a scene again only finds its key.
+ * Sprites without a file are drawn: an item as a tile of the colour of its
+ * type, like in the inventory, with its initial, and a door as a padlock.
+ * fields:
+ * 	composed: The composed images by state and visible sprites, the least recently shown first.
+ * 	composites, hits: How many images were composed and how many were found already composed.
+ * 	mansion: The mansion whose sprites are drawn.
+ * 	sprites: The sprite images by file, or by kind and id when drawn.
+ * Date: 19 October 2026
+ * OOP Project 2: The Mansion
+ * @author Team 7
+ * @version 1.0
+ * @since 1.0
+ */
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class SceneComposer
+{
+	private static final String SPRITE_DIRECTORY = "img/sprites";	// Among the Assets.
+	private static final int CACHE_SIZE = 64;		// Composed images kept.
+	private static final int ITEM_SIZE = 32, LOCK_WIDTH = 28, LOCK_HEIGHT = 32;
+
+	private MansionMap mansion;
+	private HashMap<Integer, BufferedImage> sprites = new HashMap<Integer, BufferedImage>();
+	private LinkedHashMap<Long, BufferedImage> composed;
+	private long composites, hits;
+
+	/**
+	 * This constructor creates a composer for the sprites of a mansion.
+	 * @param mansion The mansion.
+	 */
+	public SceneComposer(MansionMap mansion)
+	{
+		this(mansion, CACHE_SIZE);
+	}
+
+	/**
+	 * This constructor creates a composer that keeps a number of composed
+	 * images, like none when the caller keeps them its own way.
+	 * @param mansion The mansion.
+	 * @param kept The composed images kept.
+	 */
+	public SceneComposer(MansionMap mansion, int kept)
+	{
+		this.mansion = mansion;
+		this.composed = new LinkedHashMap<Long, BufferedImage>(16, 0.75f, true)
+		{
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Long, BufferedImage> eldest)
+			{
+				return this.size() > kept;
+			}
+		};
+	}
+
+
+	// Getters:
+	public long getComposites()
+	{
+		return this.composites;
+	}
+
+	public long getHits()
+	{
+		return this.hits;
+	}
+
+
+	// Functions:
+	/**
+	 * The compose method gets the image of a state with the sprites that
+	 * the scene shows now, composed only the first time it looks this way.
+	 * @param state The state.
+	 * @param background The scene image of the state.
+	 * @param scene The scene whose items and rooms decide which sprites are shown.
+	 * @return The composed image, or the background if no sprite is shown.
+	 */
+	public BufferedImage compose(int state, BufferedImage background, Scene scene)
+	{
+		return this.compose(state, background, this.getVisible(state, scene));
+	}
+
+	/**
+	 * The getVisible method tells which sprites of a state the scene shows
+	 * now, the key of its look with the state.
+	 * @param state The state.
+	 * @param scene The scene whose items and rooms decide which sprites are shown.
+	 * @return A bit for each sprite shown, in the order of the mansion's sprites.
+	 */
+	public long getVisible(int state, Scene scene)
+	{
+		int[] sprites = this.mansion.getSprites(state);
+		long visible = 0;
+
+		for(int i = 0, bit = 0; i < sprites.length && bit < 32; i += MansionMap.SPRITE_FIELDS, bit++)
+		{
+			int id = sprites[i + 1];
+			boolean shown = sprites[i] == MansionMap.SPRITE_ITEM ? !scene.getItem(id).isPickedUp()
+					: scene.getRoom(id).isLocked();
+
+			if(shown)
+				visible |= 1L << bit;
+		}
+		return visible;
+	}
+
+	/**
+	 * The compose method gets the image of a state with some of its sprites,
+	 * composed only the first time it looks this way.
+	 * @param state The state.
+	 * @param background The scene image of the state.
+	 * @param visible The sprites shown, see getVisible.
+	 * @return The composed image, or the background if no sprite is shown.
+	 */
+	public BufferedImage compose(int state, BufferedImage background, long visible)
+	{
+		int[] sprites = this.mansion.getSprites(state);
+
+		if(visible == 0)
+			return background;
+
+		long key = (long) state << 32 | visible;
+		BufferedImage image = this.composed.get(key);
+
+		if(image != null)
+		{
+			this.hits++;
+			return image;
+		}
+
+		image = new BufferedImage(background.getWidth(), background.getHeight(),
+				background.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = image.createGraphics();
+
+		g.drawImage(background, 0, 0, null);
+		for(int i = 0, bit = 0; i < sprites.length && bit < 32; i += MansionMap.SPRITE_FIELDS, bit++)
+		{
+			if((visible & (1L << bit)) != 0)
+				g.drawImage(this.getSprite(sprites[i], sprites[i + 1], sprites[i + 4]), sprites[i + 2], sprites[i + 3], null);
+		}
+		g.dispose();
+
+		this.composites++;
+		this.composed.put(key, image);
+		return image;
+	}
+
+	/**
+	 * The getSprite method gets the image of a sprite, read from its file
+	 * or drawn the first time it is needed.
+	 */
+	private BufferedImage getSprite(int kind, int id, int file)
+	{
+		int key = file >= 0 ? file : -1 - (id * 2 + kind);	// Files first, then the drawn ones.
+		BufferedImage sprite = this.sprites.get(key);
+
+		if(sprite == null)
+		{
+			if(file >= 0)
+			{
+				try
+				{
+					sprite = ImageCache.getDefault().readAsset(SPRITE_DIRECTORY + "/" + this.mansion.getSpriteFile(file));
+				}
+				catch(IOException e)
+				{
+					e.printStackTrace();
+					System.out.println("Error loading sprite [" + this.mansion.getSpriteFile(file) + "], drawing one");
+				}
+			}
+			if(sprite == null)
+				sprite = kind == MansionMap.SPRITE_ITEM ? drawItem(this.mansion.getItemName(id),
+						this.mansion.getItemType(id)) : drawLock();
+
+			this.sprites.put(key, sprite);
+		}
+		return sprite;
+	}
+
+	/**
+	 * The drawItem method draws an item as a tile of the colour of its type
+	 * with the initial of its name.
+	 */
+	private static BufferedImage drawItem(String name, int type)
+	{
+		BufferedImage sprite = new BufferedImage(ITEM_SIZE, ITEM_SIZE, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = sprite.createGraphics();
+		Color color = Color.getHSBColor((type * 0.618034f) % 1f, 0.55f, 0.85f);	// Like the inventory icons.
+		String initial = name.isEmpty() ? "?" : name.substring(0, 1).toUpperCase();
+
+		g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+		g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+		g.setColor(color);
+		g.fillRoundRect(1, 1, ITEM_SIZE - 2, ITEM_SIZE - 2, 10, 10);
+		g.setColor(Color.WHITE);
+		g.setStroke(new BasicStroke(2f));
+		g.drawRoundRect(2, 2, ITEM_SIZE - 4, ITEM_SIZE - 4, 10, 10);
+
+		g.setFont(new Font("Tahoma", Font.BOLD, 18));
+		FontMetrics metrics = g.getFontMetrics();
+		g.drawString(initial, (ITEM_SIZE - metrics.stringWidth(initial)) / 2,
+				(ITEM_SIZE - metrics.getHeight()) / 2 + metrics.getAscent());
+		g.dispose();
+		return sprite;
+	}
+
+	/**
+	 * The drawLock method draws a padlock.
+	 */
+	private static BufferedImage drawLock()
+	{
+		BufferedImage sprite = new BufferedImage(LOCK_WIDTH, LOCK_HEIGHT, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = sprite.createGraphics();
+		int body = LOCK_HEIGHT / 2 - 2;	// Top of the body, the shackle is above.
+
+		g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+		g.setColor(new Color(60, 60, 60));
+		g.setStroke(new BasicStroke(4f));
+		g.drawArc(6, 2, LOCK_WIDTH - 12, body + 4, 0, 180);
+		g.drawLine(6, body / 2 + 4, 6, body);
+		g.drawLine(LOCK_WIDTH - 6, body / 2 + 4, LOCK_WIDTH - 6, body);
+
+		g.setColor(new Color(230, 180, 40));
+		g.fillRoundRect(1, body, LOCK_WIDTH - 2, LOCK_HEIGHT - body - 1, 6, 6);
+		g.setColor(new Color(60, 60, 60));
+		g.setStroke(new BasicStroke(1.5f));
+		g.drawRoundRect(1, body, LOCK_WIDTH - 3, LOCK_HEIGHT - body - 2, 6, 6);
+		g.fillOval(LOCK_WIDTH / 2 - 3, body + 4, 6, 6);
+		g.fillRect(LOCK_WIDTH / 2 - 1, body + 8, 3, 6);
+		g.dispose();
+		return sprite;
+	}
+}
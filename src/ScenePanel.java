@@ -0,0 +1,254 @@
+/**
+ * ScenePanel Class
+ * The ScenePanel class shows the scene image as large as the window lets it,
+ * keeping its proportions. Rescaling with a high quality takes too long to be
+ * done while painting, so it is done by a background thread and the sizes
+ * made last are kept, up to mansion.scaled.mb megabytes of them (64 if not
+ * set), the least recently shown forgotten first. While the window is being
+ * resized the panel paints the kept size nearest to the new one, stretched,
+ * and repaints once the new size is ready. Only the latest size asked for is
+ * made, the sizes passed during a drag are skipped.
+ * On a HiDPI screen each size is also made with as many pixels as the screen
+ * has, and both are kept in a BaseMultiResolutionImage, so Java2D draws the
+ * sharp one. The scale of the screen is part of the size, so a window moved to
+ * a screen with another scale gets its own.
+ * fields:
+ * 	image: The scene image shown.
+ * 	scaled, scaledBytes: The sizes made, least recently shown first, and their bytes.
+ * 	scaler: The background thread rescaling images.
+ * 	wanted: The latest image and size asked for, the only one made.
+ * Date: 19 October 2026
+ * OOP Project 2: The Mansion
+ * @author Team 7
+ * @version 1.0
+ * @since 1.0
+ */
+
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.RenderingHints;
+import java.awt.image.BaseMultiResolutionImage;
+import java.awt.image.BufferedImage;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.swing.JComponent;
+import javax.swing.SwingUtilities;
+
+public class ScenePanel extends JComponent
+{
+	private static final long serialVersionUID = 1L;
+	private static final long SCALED_BYTES = Long.getLong("mansion.scaled.mb", 64) << 20;	// Sizes kept, at most.
+
+	private static final ExecutorService scaler = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "scene-scaler");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private BufferedImage image;
+
+	private final LinkedHashMap<Size, Image> scaled = new LinkedHashMap<Size, Image>(16, 0.75f, true);	// Event dispatch thread only.
+	private long scaledBytes;
+	private volatile Size wanted;
+
+
+	// Setters:
+	/**
+	 * The setImage method shows another scene image.
+	 * @param image The image.
+	 */
+	public void setImage(BufferedImage image)
+	{
+		this.image = image;
+		this.repaint();
+	}
+
+
+	// Functions:
+	/**
+	 * The paintComponent method draws the image centred in the panel at
+	 * the largest size that fits, the made size if it is ready.
+	 */
+	@Override
+	protected void paintComponent(Graphics g)
+	{
+		if(this.image == null)
+			return;
+
+		double fit = Math.min((double) this.getWidth() / this.image.getWidth(), (double) this.getHeight() / this.image.getHeight());
+		int width = Math.max(1, (int) Math.round(this.image.getWidth() * fit));
+		int height = Math.max(1, (int) Math.round(this.image.getHeight() * fit));
+		double device = ((Graphics2D) g).getTransform().getScaleX();	// 2 on a HiDPI screen at 200%.
+		Image shown = this.getScaled(this.image, width, height, device);
+
+		if(shown == null)
+			shown = this.getNearest(this.image, width);	// Stretched without interpolation, ten times faster.
+		g.drawImage(shown, (this.getWidth() - width) / 2, (this.getHeight() - height) / 2, width, height, null);
+	}
+
+	/**
+	 * The getScaled method finds a size of an image, and has it made in the
+	 * background if it isn't made yet.
+	 * @return The image at that size, or null until it is made.
+	 */
+	private Image getScaled(BufferedImage source, int width, int height, double device)
+	{
+		if(width == source.getWidth() && height == source.getHeight() && device == 1)
+			return source;
+
+		Size size = new Size(source, width, height, device);
+		Image image = this.scaled.get(size);
+
+		if(image == null && !size.equals(this.wanted))
+		{
+			this.wanted = size;
+			scaler.execute(() -> {
+				if(this.wanted != size)
+					return; // Passed during a drag.
+
+				Image made = makeSize(source, width, height, device);
+				SwingUtilities.invokeLater(() -> {
+					this.keep(size, made);
+					this.repaint();
+				});
+			});
+		}
+		return image;
+	}
+
+	/**
+	 * The keep method keeps a size made, and forgets the sizes shown the
+	 * longest ago while they take more than SCALED_BYTES.
+	 */
+	private void keep(Size size, Image made)
+	{
+		if(this.scaled.put(size, made) == null)
+			this.scaledBytes += size.getBytes();
+
+		Iterator<Size> oldest = this.scaled.keySet().iterator();
+		while(this.scaledBytes > SCALED_BYTES && this.scaled.size() > 1)
+		{
+			this.scaledBytes -= oldest.next().getBytes();
+			oldest.remove();
+		}
+	}
+
+	/**
+	 * The getNearest method finds the made size of an image nearest to a
+	 * width, or the image itself.
+	 */
+	private Image getNearest(BufferedImage source, int width)
+	{
+		Image nearest = source;
+		int distance = Math.abs(source.getWidth() - width);
+
+		for(Map.Entry<Size, Image> size : this.scaled.entrySet())
+		{
+			int sizeWidth = size.getKey().width;
+
+			if(size.getKey().image == source && Math.abs(sizeWidth - width) < distance)
+			{
+				nearest = size.getValue();
+				distance = Math.abs(sizeWidth - width);
+			}
+		}
+		return nearest;
+	}
+
+	/**
+	 * The makeSize method rescales an image to a size, with a variant with
+	 * the pixels of the screen when the screen is HiDPI.
+	 */
+	private static Image makeSize(BufferedImage source, int width, int height, double device)
+	{
+		BufferedImage base = rescale(source, width, height);
+
+		if(device <= 1)
+			return base;
+
+		int deviceWidth = (int) Math.round(width * device), deviceHeight = (int) Math.round(height * device);
+		return new BaseMultiResolutionImage(base, rescale(source, deviceWidth, deviceHeight));
+	}
+
+	/**
+	 * The rescale method rescales an image with a high quality. Shrinking
+	 * by more than half is done half at a time, so no pixel is skipped,
+	 * and the last step is bicubic.
+	 * @param source The image.
+	 * @param width The new width.
+	 * @param height The new height.
+	 * @return The new image.
+	 */
+	public static BufferedImage rescale(BufferedImage source, int width, int height)
+	{
+		BufferedImage image = source;
+		int type = source.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+
+		do
+		{
+			int stepWidth = Math.max(width, image.getWidth() / 2), stepHeight = Math.max(height, image.getHeight() / 2);
+			boolean last = stepWidth == width && stepHeight == height;
+
+			BufferedImage step = new BufferedImage(stepWidth, stepHeight, type);
+			Graphics2D g = step.createGraphics();
+
+			g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, last
+					? RenderingHints.VALUE_INTERPOLATION_BICUBIC : RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+			g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+			g.drawImage(image, 0, 0, stepWidth, stepHeight, null);
+			g.dispose();
+			image = step;
+		}
+		while(image.getWidth() != width || image.getHeight() != height);
+
+		return image;
+	}
+
+	/**
+	 * The Size class is an image and a size of it on a screen of a scale.
+	 */
+	private static class Size
+	{
+		final BufferedImage image;
+		final int width, height;
+		final double device;
+
+		Size(BufferedImage image, int width, int height, double device)
+		{
+			this.image = image;
+			this.width = width;
+			this.height = height;
+			this.device = device;
+		}
+
+		/**
+		 * Get the bytes of the size made, with the variant for the screen.
+		 */
+		long getBytes()
+		{
+			double pixels = (double) this.width * this.height * (this.device > 1 ? 1 + this.device * this.device : 1);
+			return (long) pixels * 4;
+		}
+
+		@Override
+		public boolean equals(Object other)
+		{
+			if(!(other instanceof Size))
+				return false;
+
+			Size size = (Size) other;
+			return size.image == this.image && size.width == this.width && size.height == this.height
+					&& size.device == this.device;
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return System.identityHashCode(this.image) * 31 + (this.width * 31 + this.height) * 31 + Double.hashCode(this.device);
+		}
+	}
+}
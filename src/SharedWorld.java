@@ -0,0 +1,478 @@
+/**
+ * SharedWorld Class
+ * The SharedWorld class is a mansion explored by several players at once.
+ * Each player has their own Scene and Player over it, so their positions and
+ * inventories are their own, while the rooms and items are shared: a door one
+ * player unlocks or an item they pick up is seen by everybody. The flags of
+ * rooms and items are kept in atomic arrays and read without locking. They are
+ * changed with compare and set, or under per-room striped locks when the world
+ * is created with stripes, the item of a room sharing the lock of its room.
+ * fields:
+ * 	itemFlags: The picked up and used flags of each item.
+ * 	locks: The striped locks, or null when flags are changed with compare and set.
+ * 	map: The mansion, only read.
+ * 	roomFlags: The locked and entered flags of each room.
+ * Date: 19 October 2026
+ * OOP Project 2: The Mansion
+ * @author Team 7
+ * @version 1.0
+ * @since 1.0
+ */
+
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class SharedWorld implements WorldStore
+{
+	private static final int LOCKED = 1, ENTERED = 2;		// Room flags.
+	private static final int PICKED_UP = 1, USED = 2;		// Item flags.
+
+	private MansionMap map;
+	private AtomicIntegerArray roomFlags, itemFlags;
+	private ReentrantLock[] locks;
+
+	/**
+	 * This constructor shares a mansion, changing flags with compare and set.
+	 * @param map The mansion. Its rooms start as the mansion says.
+	 */
+	public SharedWorld(MansionMap map)
+	{
+		this(map, 0);
+	}
+
+	/**
+	 * This constructor shares a mansion.
+	 * @param map The mansion. Its rooms start as the mansion says.
+	 * @param stripes The number of locks rooms are spread over, rounded up
+	 * 			to a power of two, or 0 to change flags with compare and set.
+	 */
+	public SharedWorld(MansionMap map, int stripes)
+	{
+		this.map = map;
+		this.roomFlags = new AtomicIntegerArray(map.getRoomCount());
+		this.itemFlags = new AtomicIntegerArray(map.getItemCount());
+
+		for(int room = 0; room < map.getRoomCount(); room++)
+		{
+			if(map.isRoomLocked(room))
+				this.roomFlags.set(room, LOCKED);
+		}
+
+		if(stripes > 0)
+		{
+			this.locks = new ReentrantLock[Integer.highestOneBit(stripes * 2 - 1)];
+			for(int i = 0; i < this.locks.length; i++)
+				this.locks[i] = new ReentrantLock();
+		}
+	}
+
+
+	// Getters: the mansion is read from the map, only rooms and items are shared.
+	public int getNodeCount()
+	{
+		return this.map.getNodeCount();
+	}
+
+	public int getRoomCount()
+	{
+		return this.map.getRoomCount();
+	}
+
+	public int getItemCount()
+	{
+		return this.map.getItemCount();
+	}
+
+	public int getStartState()
+	{
+		return this.map.getStartState();
+	}
+
+	public int getExitState()
+	{
+		return this.map.getExitState();
+	}
+
+	public int forward(int state)
+	{
+		return this.map.forward(state);
+	}
+
+	public int back(int state)
+	{
+		return this.map.back(state);
+	}
+
+	public int left(int state)
+	{
+		return this.map.left(state);
+	}
+
+	public int right(int state)
+	{
+		return this.map.right(state);
+	}
+
+	public int getGateRoom(int state)
+	{
+		return this.map.getGateRoom(state);
+	}
+
+	public String getGateMessage(int state)
+	{
+		return this.map.getGateMessage(state);
+	}
+
+	public int getLoreKind(int state)
+	{
+		return this.map.getLoreKind(state);
+	}
+
+	public int getLoreRoom(int state)
+	{
+		return this.map.getLoreRoom(state);
+	}
+
+	public int getUnlockItem(int state)
+	{
+		return this.map.getUnlockItem(state);
+	}
+
+	public int[] getUnlockItems(int state)
+	{
+		return this.map.getUnlockItems(state);
+	}
+
+	public int[] getSprites(int state)
+	{
+		return this.map.getSprites(state);
+	}
+
+	public String getSpriteFile(int file)
+	{
+		return this.map.getSpriteFile(file);
+	}
+
+	public int getUnlockRoom(int state)
+	{
+		return this.map.getUnlockRoom(state);
+	}
+
+	public String getUnlockMessage(int state)
+	{
+		return this.map.getUnlockMessage(state);
+	}
+
+	public int getEscapeItem(int state)
+	{
+		return this.map.getEscapeItem(state);
+	}
+
+	public int getImage(int state)
+	{
+		return this.map.getImage(state);
+	}
+
+	public int getImageCount()
+	{
+		return this.map.getImageCount();
+	}
+
+	public String getImageFile(int image)
+	{
+		return this.map.getImageFile(image);
+	}
+
+	public int getNodeRoom(int node)
+	{
+		return this.map.getNodeRoom(node);
+	}
+
+	public boolean entersRoom(int node)
+	{
+		return this.map.entersRoom(node);
+	}
+
+	public String getRoomName(int room)
+	{
+		return this.map.getRoomName(room);
+	}
+
+	public int getRoomItem(int room)
+	{
+		return this.map.getRoomItem(room);
+	}
+
+	public String getItemName(int item)
+	{
+		return this.map.getItemName(item);
+	}
+
+	public int getItemType(int item)
+	{
+		return this.map.getItemType(item);
+	}
+
+	public int getItemRoom(int item)
+	{
+		return this.map.getItemRoom(item);
+	}
+
+	public int getRoomId(String name)
+	{
+		return this.map.getRoomId(name);
+	}
+
+	public int getItemId(String name)
+	{
+		return this.map.getItemId(name);
+	}
+
+	public boolean isRoomLocked(int room)
+	{
+		return (this.roomFlags.get(room) & LOCKED) != 0;
+	}
+
+	public boolean hasEntered(int room)
+	{
+		return (this.roomFlags.get(room) & ENTERED) != 0;
+	}
+
+	public boolean isPickedUp(int item)
+	{
+		return (this.itemFlags.get(item) & PICKED_UP) != 0;
+	}
+
+	public boolean isUsed(int item)
+	{
+		return (this.itemFlags.get(item) & USED) != 0;
+	}
+
+	public boolean isStriped()
+	{
+		return this.locks != null;
+	}
+
+
+	// Setters:
+	public void setRoomLocked(int room, boolean locked)
+	{
+		this.setFlag(this.roomFlags, room, room, LOCKED, locked);
+	}
+
+	public void setEntered(int room, boolean entered)
+	{
+		this.setFlag(this.roomFlags, room, room, ENTERED, entered);
+	}
+
+	public void setPickedUp(int item, boolean pickedUp)
+	{
+		this.setFlag(this.itemFlags, item, this.map.getItemRoom(item), PICKED_UP, pickedUp);
+	}
+
+	public void setUsed(int item, boolean used)
+	{
+		this.setFlag(this.itemFlags, item, this.map.getItemRoom(item), USED, used);
+	}
+
+
+	// Functions:
+	/**
+	 * The tryPickUp method marks an item as picked up unless it already is,
+	 * so when several players pick it up at once only one of them gets it.
+	 * @param item The item.
+	 * @return True if this call picked the item up. Otherwise, false.
+	 */
+	public boolean tryPickUp(int item)
+	{
+		if(this.locks == null)
+		{
+			int flags;
+			do
+			{
+				flags = this.itemFlags.get(item);
+				if((flags & PICKED_UP) != 0)
+					return false;
+			}
+			while(!this.itemFlags.compareAndSet(item, flags, flags | PICKED_UP));
+			return true;
+		}
+
+		ReentrantLock lock = this.lock(this.map.getItemRoom(item));
+		lock.lock();
+		try
+		{
+			if(this.isPickedUp(item))
+				return false;
+			this.itemFlags.set(item, this.itemFlags.get(item) | PICKED_UP);
+			return true;
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * The setFlag method sets or clears a flag. Flags that are already right
+	 * are only read, so players walking into a room they all entered before
+	 * don't fight over it.
+	 */
+	private void setFlag(AtomicIntegerArray flags, int index, int room, int flag, boolean set)
+	{
+		if(((flags.get(index) & flag) != 0) == set)
+			return;
+
+		if(this.locks == null)
+		{
+			int old;
+			do
+				old = flags.get(index);
+			while(!flags.compareAndSet(index, old, set ? old | flag : old & ~flag));
+			return;
+		}
+
+		ReentrantLock lock = this.lock(room);
+		lock.lock();
+		try
+		{
+			int old = flags.get(index);
+			flags.set(index, set ? old | flag : old & ~flag);
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	private ReentrantLock lock(int room)
+	{
+		return this.locks[room & (this.locks.length - 1)];
+	}
+
+	/**
+	 * Let many players play the same mansion at once, each on their own
+	 * thread, and report the actions per second of each way of sharing it.
+	 * Every item has to end up picked up by one player at most.
+	 * @param args -players=<n,n,..> -steps=<n> -nodes=<n> (generate a mansion, 0 for the default) -seed=<n>.
+	 */
+	public static void main(String[] args) throws InterruptedException
+	{
+		int[] players = { 1, 4, 16, 64 };
+		int steps = 200000, nodes = 0;
+		long seed = 1;
+
+		for(String arg : args)
+		{
+			String value = arg.substring(arg.indexOf('=') + 1);
+
+			if(arg.startsWith("-players="))
+			{
+				String[] counts = value.split(",");
+				players = new int[counts.length];
+				for(int i = 0; i < counts.length; i++)
+					players[i] = Integer.parseInt(counts[i]);
+			}
+			else if(arg.startsWith("-steps="))
+				steps = Integer.parseInt(value);
+			else if(arg.startsWith("-nodes="))
+				nodes = Integer.parseInt(value);
+			else if(arg.startsWith("-seed="))
+				seed = Long.parseLong(value);
+		}
+
+		MansionMap mansion = nodes > 0 ? new MansionGenerator(seed).generate(nodes) : MansionDefinition.getDefault();
+		String[] modes = { "cas", "global lock", "striped 64" };
+		int[] stripes = { 0, 1, 64 };
+
+		System.out.printf("%d nodes, %d rooms, %d actions per player, %d cores%n", mansion.getNodeCount(),
+				mansion.getRoomCount(), steps, Runtime.getRuntime().availableProcessors());
+		System.out.printf("%8s %12s %14s %10s %s%n", "players", "mode", "actions/s", "picked up", "items ok");
+
+		for(int mode = 0; mode < modes.length; mode++) // Warm up.
+			measure(new SharedWorld(mansion, stripes[mode]), players[players.length - 1], steps / 10, seed);
+
+		for(int count : players)
+		{
+			for(int mode = 0; mode < modes.length; mode++)
+			{
+				SharedWorld world = new SharedWorld(mansion, stripes[mode]);
+				long[] result = measure(world, count, steps, seed);
+				double seconds = result[0] / 1e9;
+
+				int flagged = 0;
+				for(int item = 0; item < mansion.getItemCount(); item++)
+				{
+					if(world.isPickedUp(item))
+						flagged++;
+				}
+
+				System.out.printf("%8d %12s %14.0f %10d %s%n", count, modes[mode], (double) count * steps / seconds,
+						result[1], result[1] == flagged ? "yes" : "NO, " + flagged + " flagged");
+			}
+		}
+	}
+
+	/**
+	 * The measure method lets players take random actions in a world, each
+	 * on their own thread, all starting at once.
+	 * @return The nanoseconds taken and the items picked up by all players.
+	 */
+	private static long[] measure(SharedWorld world, int count, int steps, long seed) throws InterruptedException
+	{
+		AtomicLong pickedUp = new AtomicLong();
+		CountDownLatch start = new CountDownLatch(1);
+		Thread[] threads = new Thread[count];
+
+		for(int p = 0; p < count; p++)
+		{
+			long playerSeed = seed * 1000 + p;
+
+			threads[p] = new Thread(() -> {
+				Scene scene = new Scene(world, null, null);		// Headless, one per player.
+				Player player = new Player(new ArrayList<Item>(), scene);
+				SplittableRandom random = new SplittableRandom(playerSeed);
+				int picked = 0;
+
+				try
+				{
+					start.await();
+				}
+				catch(InterruptedException e)
+				{
+					return;
+				}
+
+				for(int step = 0; step < steps; step++)
+				{
+					switch(random.nextInt(6))
+					{
+						case 0: player.moveForward(); break;
+						case 1: player.turnLeft(); break;
+						case 2: player.turnRight(); break;
+						case 3: player.moveBack(); break;
+						case 4:
+							int before = player.getItems().size();
+							player.pickUp();
+							picked += player.getItems().size() - before;
+							break;
+						default: player.useItem(); break;
+					}
+				}
+				pickedUp.addAndGet(picked);
+			}, "player-" + p);
+			threads[p].start();
+		}
+
+		long begin = System.nanoTime();
+		start.countDown();
+		for(Thread thread : threads)
+			thread.join();
+
+		return new long[] { System.nanoTime() - begin, pickedUp.get() };
+	}
+}
@@ -0,0 +1,628 @@
+/**
+ * WebServer Class
+ * The WebServer class plays the game in a browser, without Swing, over the
+ * JDK's HttpServer. Each browser gets a session with its own headless Scene
+ * and Player, publishing to a DeltaStream flushed after every command, so
+ * others can watch the game from the snapshot of its last command without
+ * waiting for the player's commands. Requests are handled on virtual threads when the JDK has them,
+ * otherwise on a thread pool.
+ * Scene images are served as the bytes of their files, read once and kept in
+ * memory with a strong ETag, so a browser that already has an image gets a
+ * 304 Not Modified and nothing is read, encoded or sent again. A session's
+ * image is composed with the item and door sprites its scene shows, like in
+ * the window. A composed image is keyed by its state and visible sprites and
+ * its ETag is the background's with the sprites, so it is only composed and
+ * encoded when no browser had it yet, and the last ones are kept.
+ * Paths:
+ * 	/: A page with the game's buttons.
+ * 	/session: Starts a session (POST) and returns its state.
+ * 	/session/<id>: The state of a session, as JSON.
+ * 	/session/<id>/<command>: Runs forward, left, right, back, pickup or use and returns the state.
+ * 	/session/<id>/image: The scene image of a session, with its sprites.
+ * 	/session/<id>/watch: The game of a session for spectators, as JSON. Watching doesn't keep it from ending.
+ * 	/image/<node>/<dir>: The scene image of a node and direction, without sprites.
+ * 	/stats: How many images were sent and how many were not modified, and what the players did.
+ * A session no browser asked about for mansion.session.minutes (30 by
+ * default) is ended, and when mansion.sessions of them (10000) are playing
+ * a new one ends the one left alone the longest, so clients can't fill the
+ * memory with sessions.
+ * fields:
+ * 	composed, composer: The last composed images by state and visible sprites, and what composes them.
+ * 	images: The bytes, ETag and content type of each image of the mansion, read on first use.
+ * 	mansion: The mansion every session plays.
+ * 	sessions: The sessions by id.
+ * 	swept: When the idle sessions were last ended.
+ * 	stats: The GameStats every session counts its actions in, counted without locks.
+ * Date: 19 October 2026
+ * OOP Project 2: The Mansion
+ * @author Team 7
+ * @version 1.0
+ * @since 1.0
+ */
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import javax.imageio.ImageIO;
+
+public class WebServer
+{
+	private static final String IMAGE_DIRECTORY = "img";	// Among the Assets.
+	private static final long IDLE_NANOS = Long.getLong("mansion.session.minutes", 30) * 60000000000L;
+	private static final int MAX_SESSIONS = Integer.getInteger("mansion.sessions", 10000);
+	private static final long SWEEP_NANOS = 10000000000L;	// Idle sessions are looked for at most this often.
+	private static final int COMPOSED_KEPT = 64;			// Composed images kept, encoded.
+
+	private MansionMap mansion;
+	private ConcurrentHashMap<String, Session> sessions = new ConcurrentHashMap<String, Session>();
+	private AtomicLong swept = new AtomicLong(System.nanoTime());
+	private SecureRandom random = new SecureRandom();
+	private GameStats stats;
+
+	private AtomicReferenceArray<ImageFile> images;
+	private SceneComposer composer;
+	private Map<Long, ImageFile> composed = Collections.synchronizedMap(new LinkedHashMap<Long, ImageFile>(16, 0.75f, true)
+	{
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Long, ImageFile> eldest)
+		{
+			return this.size() > COMPOSED_KEPT;
+		}
+	});
+
+	private AtomicLong sent = new AtomicLong(), notModified = new AtomicLong(), bytesSent = new AtomicLong();
+	private AtomicLong ended = new AtomicLong();
+
+	/**
+	 * This constructor creates a server for a mansion.
+	 * @param mansion The mansion every session plays.
+	 */
+	public WebServer(MansionMap mansion)
+	{
+		this.mansion = mansion;
+		this.images = new AtomicReferenceArray<ImageFile>(mansion.getImageCount());
+		this.composer = new SceneComposer(mansion, 0);	// The encoded images are kept instead.
+		this.stats = new GameStats(mansion.getRoomCount());
+	}
+
+
+	// Functions:
+	/**
+	 * The start method starts serving.
+	 * @param port The port to listen on.
+	 * @return The HttpServer, to stop it.
+	 * @throws IOException If the port can't be listened on.
+	 */
+	public HttpServer start(int port) throws IOException
+	{
+		HttpServer server = HttpServer.create(new InetSocketAddress(port), 0);
+
+		server.createContext("/", this::handle);
+		server.setExecutor(newExecutor());
+		server.start();
+		return server;
+	}
+
+	/**
+	 * The newExecutor method creates a virtual thread per request when the
+	 * JDK has virtual threads. They are looked up by reflection so the game
+	 * still builds and runs on JDKs without them.
+	 * @return The executor for requests.
+	 */
+	public static ExecutorService newExecutor()
+	{
+		try
+		{
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		}
+		catch(ReflectiveOperationException e)
+		{
+			return Executors.newCachedThreadPool();
+		}
+	}
+
+	private void handle(HttpExchange exchange) throws IOException
+	{
+		try
+		{
+			String[] path = exchange.getRequestURI().getPath().split("/");
+			String method = exchange.getRequestMethod();
+
+			if(path.length == 0)
+				this.send(exchange, 200, "text/html; charset=utf-8", PAGE.getBytes(StandardCharsets.UTF_8));
+			else if(path[1].equals("session") && path.length == 2 && method.equals("POST"))
+				this.sendState(exchange, this.createSession());
+			else if(path[1].equals("session") && path.length >= 3)
+				this.handleSession(exchange, path);
+			else if(path[1].equals("image") && path.length == 4)
+			{
+				int node = Integer.parseInt(path[2]), dir = Integer.parseInt(path[3]);
+
+				if(node < 0 || node >= this.mansion.getNodeCount() || dir < 0 || dir >= MansionDefinition.DIRECTIONS)
+					this.sendText(exchange, 400, "{\"error\":\"no such node or direction\"}");
+				else
+					this.sendImage(exchange, this.mansion.getImage(MansionDefinition.state(node, dir)));
+			}
+			else if(path[1].equals("stats"))
+				this.sendText(exchange, 200, "{\"sent\":" + this.sent + ",\"notModified\":" + this.notModified
+						+ ",\"bytesSent\":" + this.bytesSent + ",\"sessions\":" + this.sessions.size() + ",\"ended\":" + this.ended
+						+ ",\"players\":" + this.statsJson() + "}");
+			else
+				this.sendText(exchange, 404, "{\"error\":\"not found\"}");
+		}
+		catch(NumberFormatException | IndexOutOfBoundsException e)
+		{
+			this.sendText(exchange, 400, "{\"error\":\"bad request\"}");
+		}
+		catch(IOException e)
+		{
+			e.printStackTrace();
+			System.out.println("Error serving [" + exchange.getRequestURI() + "]");
+			this.sendText(exchange, 500, "{\"error\":\"server error\"}");
+		}
+		finally
+		{
+			exchange.close();
+		}
+	}
+
+	private void handleSession(HttpExchange exchange, String[] path) throws IOException
+	{
+		Session session = this.sessions.get(path[2]);
+
+		if(session == null)
+		{
+			this.sendText(exchange, 404, "{\"error\":\"no such session\"}");
+			return;
+		}
+
+		if(path.length == 4 && path[3].equals("watch"))
+		{
+			this.sendText(exchange, 200, session.toSpectatorJson());
+			return;
+		}
+		session.used = System.nanoTime();
+
+		if(path.length == 3)
+		{
+			this.sendState(exchange, session);
+			return;
+		}
+
+		if(path[3].equals("image"))
+		{
+			this.sendView(exchange, session.getView());
+			return;
+		}
+
+		if(!exchange.getRequestMethod().equals("POST"))
+		{
+			this.sendText(exchange, 405, "{\"error\":\"commands are POST\"}");
+			return;
+		}
+
+		if(session.escaped)
+		{
+			this.sendText(exchange, 409, "{\"error\":\"already escaped\"}");
+			return;
+		}
+
+		if(!session.run(path[3]))
+		{
+			this.sendText(exchange, 400, "{\"error\":\"unknown command\"}");
+			return;
+		}
+		this.sendState(exchange, session);
+	}
+
+	private Session createSession()
+	{
+		byte[] bytes = new byte[12];
+		this.random.nextBytes(bytes);
+
+		String id = hex(bytes);
+		Session session = new Session(id);
+
+		this.endIdleSessions();
+		if(this.sessions.size() >= MAX_SESSIONS)
+			this.endLongestIdle();
+		this.sessions.put(id, session);
+		return session;
+	}
+
+	/**
+	 * The endIdleSessions method ends the sessions no browser asked about for
+	 * too long, unless another request looked for them a moment ago.
+	 */
+	private void endIdleSessions()
+	{
+		long now = System.nanoTime(), last = this.swept.get();
+
+		if(now - last < SWEEP_NANOS || !this.swept.compareAndSet(last, now))
+			return;
+
+		for(Session session : this.sessions.values())
+		{
+			if(now - session.used > IDLE_NANOS && this.sessions.remove(session.id, session))
+				this.ended.incrementAndGet();
+		}
+	}
+
+	/**
+	 * The endLongestIdle method ends the session left alone the longest, to
+	 * make room for a new one.
+	 */
+	private void endLongestIdle()
+	{
+		Session idlest = null;
+
+		for(Session session : this.sessions.values())
+		{
+			if(idlest == null || session.used - idlest.used < 0)
+				idlest = session;
+		}
+		if(idlest != null && this.sessions.remove(idlest.id, idlest))
+			this.ended.incrementAndGet();
+	}
+
+	/**
+	 * The sendImage method sends an image, or only 304 Not Modified if the
+	 * browser already has it.
+	 */
+	private void sendImage(HttpExchange exchange, int image) throws IOException
+	{
+		if(image < 0)
+		{
+			this.sendText(exchange, 404, "{\"error\":\"no image\"}");
+			return;
+		}
+
+		ImageFile file = this.getImageFile(image);
+
+		if(!this.isNotModified(exchange, file.etag))
+			this.sendFile(exchange, file);
+	}
+
+	/**
+	 * The sendView method sends the image of a state with the sprites shown,
+	 * composed and encoded only if no browser had it yet.
+	 * @param view The state and the visible sprites, see Session.getView.
+	 */
+	private void sendView(HttpExchange exchange, long view) throws IOException
+	{
+		int state = (int) (view >> 32), image = state < 0 ? -1 : this.mansion.getImage(state);
+		long visible = view & 0xFFFFFFFFL;
+
+		if(image < 0 || visible == 0)
+		{
+			this.sendImage(exchange, image);
+			return;
+		}
+
+		ImageFile background = this.getImageFile(image);
+		String etag = background.etag.substring(0, background.etag.length() - 1) + "-" + Long.toHexString(visible) + "\"";
+
+		if(this.isNotModified(exchange, etag))
+			return;
+
+		ImageFile file = this.composed.get(view);
+		if(file == null)
+		{
+			BufferedImage composed = ImageIO.read(new ByteArrayInputStream(background.bytes));
+			ByteArrayOutputStream png = new ByteArrayOutputStream();
+
+			synchronized(this.composer)
+			{
+				composed = this.composer.compose(state, composed, visible);
+			}
+			ImageIO.write(composed, "png", png);
+			file = new ImageFile(png.toByteArray(), "image/png", etag);
+			this.composed.put(view, file);
+		}
+		this.sendFile(exchange, file);
+	}
+
+	/**
+	 * The isNotModified method sends only 304 Not Modified if the browser
+	 * already has an image.
+	 * @param etag The ETag of the image.
+	 * @return True if the browser has it and nothing else is to be sent.
+	 */
+	private boolean isNotModified(HttpExchange exchange, String etag) throws IOException
+	{
+		String match = exchange.getRequestHeaders().getFirst("If-None-Match");
+
+		exchange.getResponseHeaders().set("ETag", etag);
+		exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+
+		if(match != null && (match.trim().equals("*") || match.contains(etag)))
+		{
+			this.notModified.incrementAndGet();
+			exchange.sendResponseHeaders(304, -1);
+			return true;
+		}
+		return false;
+	}
+
+	private void sendFile(HttpExchange exchange, ImageFile file) throws IOException
+	{
+		this.sent.incrementAndGet();
+		this.bytesSent.addAndGet(file.bytes.length);
+		this.send(exchange, 200, file.type, file.bytes);
+	}
+
+	/**
+	 * The getImageFile method reads the file of an image the first time it
+	 * is asked for. The file is already encoded, so its bytes are sent as
+	 * they are. Two requests for a new image at once may both read it, the
+	 * first one to be published is kept.
+	 * @param image The image of the mansion.
+	 * @return Its file, with its ETag and type.
+	 */
+	private ImageFile getImageFile(int image) throws IOException
+	{
+		ImageFile file = this.images.get(image);
+
+		if(file == null)
+		{
+			String name = this.mansion.getImageFile(image);
+
+			file = new ImageFile(Assets.getDefault().read(IMAGE_DIRECTORY + "/" + name),
+					name.toLowerCase().endsWith(".png") ? "image/png" : "image/jpeg");
+			if(!this.images.compareAndSet(image, null, file))
+				file = this.images.get(image);
+		}
+		return file;
+	}
+
+	private void sendState(HttpExchange exchange, Session session) throws IOException
+	{
+		this.sendText(exchange, 200, session.toJson());
+	}
+
+	private void sendText(HttpExchange exchange, int status, String json) throws IOException
+	{
+		this.send(exchange, status, "application/json; charset=utf-8", json.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private void send(HttpExchange exchange, int status, String type, byte[] body) throws IOException
+	{
+		exchange.getResponseHeaders().set("Content-Type", type);
+		exchange.sendResponseHeaders(status, body.length);
+
+		try(OutputStream out = exchange.getResponseBody())
+		{
+			out.write(body);
+		}
+	}
+
+	private static byte[] sha256(byte[] bytes)
+	{
+		try
+		{
+			return MessageDigest.getInstance("SHA-256").digest(bytes);
+		}
+		catch(NoSuchAlgorithmException e)
+		{
+			throw new IllegalStateException(e); // Every JDK has SHA-256.
+		}
+	}
+
+	private static String hex(byte[] bytes)
+	{
+		StringBuilder text = new StringBuilder();
+		for(byte b : bytes)
+			text.append(Character.forDigit((b >> 4) & 15, 16)).append(Character.forDigit(b & 15, 16));
+		return text.toString();
+	}
+
+	private static String json(String text)
+	{
+		StringBuilder json = new StringBuilder("\"");
+
+		for(char c : text.toCharArray())
+		{
+			if(c == '"' || c == '\\')
+				json.append('\\').append(c);
+			else if(c < ' ')
+				json.append(String.format("\\u%04x", (int) c));
+			else
+				json.append(c);
+		}
+		return json.append('"').toString();
+	}
+
+	private String statsJson()
+	{
+		StringBuilder json = new StringBuilder("{");
+
+		for(int i = 0; i < GameStats.NAMES.length; i++)
+			json.append(i > 0 ? "," : "").append(json(GameStats.NAMES[i])).append(':').append(this.stats.get(i));
+		return json.append('}').toString();
+	}
+
+	/**
+	 * The ImageFile class is the encoded bytes of an image with their ETag
+	 * and content type. It never changes, so a thread that sees it sees all
+	 * of it.
+	 */
+	private static final class ImageFile
+	{
+		final byte[] bytes;
+		final String etag, type;
+
+		ImageFile(byte[] bytes, String type)
+		{
+			this(bytes, type, "\"" + hex(sha256(bytes)) + "\"");
+		}
+
+		ImageFile(byte[] bytes, String type, String etag)
+		{
+			this.bytes = bytes;
+			this.etag = etag;
+			this.type = type;
+		}
+	}
+
+	/**
+	 * The Session class is one browser's game. Its commands run one at a time.
+	 */
+	private class Session
+	{
+		private String id;
+		private Scene scene;
+		private Player player;
+		private DeltaStream stream;		// Flushed after every command, for spectators.
+		private int shown;			// State whose image is shown, states without one keep the last.
+		private volatile boolean escaped;	// Commands are refused once set.
+		private volatile long used = System.nanoTime();	// When a browser last asked about it.
+
+		Session(String id)
+		{
+			this.id = id;
+			this.scene = new Scene(WebServer.this.mansion, null, null);	// Headless.
+			this.player = new Player(this.scene);
+			this.scene.setStats(WebServer.this.stats);
+			this.stream = new DeltaStream(WebServer.this.mansion, 256);
+			this.scene.setDeltaStream(this.stream);
+			this.scene.getInfo().updateInformation(this.scene.getNode(), this.scene.getDirection(), this.scene.getType());
+			this.stream.flush();
+			this.shown = this.scene.getState();
+		}
+
+		synchronized boolean run(String command)
+		{
+			if(this.escaped)	// Sent alongside the escaping command, so it is ignored.
+				return true;
+
+			switch(command)
+			{
+				case "forward": this.player.moveForward(); break;
+				case "left": this.player.turnLeft(); break;
+				case "right": this.player.turnRight(); break;
+				case "back": this.player.moveBack(); break;
+				case "pickup": this.player.pickUp(); break;
+				case "use":
+					if(this.player.canEscape())
+					{
+						this.escaped = true;
+						WebServer.this.stats.add(GameStats.ESCAPES);
+					}
+					else
+						this.player.useItem();
+					break;
+				default: return false;
+			}
+
+			if(WebServer.this.mansion.getImage(this.scene.getState()) >= 0)
+				this.shown = this.scene.getState();
+			this.stream.flush();
+			return true;
+		}
+
+		/**
+		 * The toSpectatorJson method tells what the last command left, from
+		 * the snapshot of the stream, without waiting for a command to end.
+		 */
+		String toSpectatorJson()
+		{
+			DeltaStream.Snapshot snapshot = this.stream.getSnapshot();
+			MansionMap mansion = WebServer.this.mansion;
+			StringBuilder json = new StringBuilder();
+			StringBuilder unlocked = new StringBuilder(), pickedUp = new StringBuilder(), used = new StringBuilder();
+
+			PersistentIntMap.empty(mansion.getRoomCount()).diff(snapshot.getRooms(), room ->
+				unlocked.append(unlocked.length() == 0 ? "" : ",").append(json(mansion.getRoomName(room))));
+			PersistentIntMap.empty(mansion.getItemCount()).diff(snapshot.getItems(), item -> {
+				StringBuilder list = (snapshot.getItems().get(item) & DeltaStream.USED) != 0 ? used : pickedUp;
+				list.append(list.length() == 0 ? "" : ",").append(json(mansion.getItemName(item)));
+			});
+
+			json.append("{\"session\":").append(json(this.id))
+				.append(",\"sequence\":").append(snapshot.getSequence())
+				.append(",\"node\":").append(snapshot.getNode())
+				.append(",\"dir\":").append(snapshot.getDirection())
+				.append(",\"text\":").append(json(snapshot.getMessage() == null ? "" : snapshot.getMessage()))
+				.append(",\"unlocked\":[").append(unlocked)
+				.append("],\"pickedUp\":[").append(pickedUp)
+				.append("],\"used\":[").append(used).append("]}");
+			return json.toString();
+		}
+
+		/**
+		 * The getView method gets the state whose image is shown and the
+		 * sprites shown over it, the key of what the browser sees.
+		 * @return The state in the top half and the visible sprites in the bottom half.
+		 */
+		synchronized long getView()
+		{
+			return (long) this.shown << 32 | WebServer.this.composer.getVisible(this.shown, this.scene);
+		}
+
+		synchronized String toJson()
+		{
+			ArrayList<Item> items = this.player.getItems();
+			StringBuilder json = new StringBuilder();
+
+			json.append("{\"session\":").append(json(this.id))
+				.append(",\"node\":").append(this.scene.getNode())
+				.append(",\"dir\":").append(this.scene.getDirection())
+				.append(",\"text\":").append(json(this.escaped ? "YOU ESCAPED!" : this.scene.getInfo().getText()))
+				.append(",\"escaped\":").append(this.escaped)
+				.append(",\"image\":").append(json("/session/" + this.id + "/image?" + Long.toHexString(this.getView())))
+				.append(",\"inventory\":[");
+
+			for(int i = 0; i < items.size(); i++)
+				json.append(i == 0 ? "" : ",").append(json(items.get(i).getName()));
+
+			return json.append("]}").toString();
+		}
+	}
+
+	// The page only calls the paths above, the browser caches images by their ETag.
+	private static final String PAGE = "<!DOCTYPE html><html><head><title>The Mansion</title></head>"
+			+ "<body style=\"font-family:Tahoma;background:#ccc\"><img id=\"scene\" width=\"350\" height=\"300\">"
+			+ "<p id=\"text\" style=\"width:350px\"></p><p id=\"items\"></p><div>"
+			+ "<button onclick=\"go('forward')\">Forward</button><button onclick=\"go('left')\">Left</button>"
+			+ "<button onclick=\"go('pickup')\">Pick Up</button><button onclick=\"go('right')\">Right</button>"
+			+ "<button onclick=\"go('back')\">Back</button><button onclick=\"go('use')\">Use</button></div>"
+			+ "<script>let id;function show(s){id=s.session;text.textContent=s.text;"
+			+ "items.textContent=s.inventory.join(', ');scene.src=s.image;}"
+			+ "function go(c){fetch('/session/'+id+'/'+c,{method:'POST'}).then(r=>r.json()).then(show);}"
+			+ "fetch('/session',{method:'POST'}).then(r=>r.json()).then(show);</script></body></html>";
+
+	/**
+	 * Serve the default mansion.
+	 * @param args The port, 8080 if not given.
+	 */
+	public static void main(String[] args) throws IOException
+	{
+		int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+		ExecutorService executor = newExecutor();
+		String threads = executor.getClass().getName().contains("ThreadPerTask") ? "virtual threads" : "a thread pool";
+
+		executor.shutdown();
+		new WebServer(MansionDefinition.getDefault()).start(port);
+		System.out.println("The Mansion is at http://localhost:" + port + "/ on " + threads);
+	}
+}
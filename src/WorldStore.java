@@ -0,0 +1,37 @@
+/**
+ * WorldStore Interface
+ * The WorldStore interface is a mansion that also holds the state of its
+ * rooms and items, so Room and Item objects can be views over it instead
+ * of holding that state themselves. isRoomLocked returns whether a room is
+ * locked now rather than whether it starts locked.
+ * Date: 19 October 2026
+ * OOP Project 2: The Mansion
+ * @author Team 7
+ * @version 1.0
+ * @since 1.0
+ */
+
+public interface WorldStore extends MansionMap
+{
+	void setRoomLocked(int room, boolean locked);
+	boolean hasEntered(int room);
+	void setEntered(int room, boolean entered);
+	boolean isPickedUp(int item);
+	void setPickedUp(int item, boolean pickedUp);
+	boolean isUsed(int item);
+	void setUsed(int item, boolean used);
+	
+	/**
+	 * The tryPickUp method marks an item as picked up unless it already is.
+	 * A store shared between players has to do this atomically.
+	 * @param item The item.
+	 * @return True if this call picked the item up. Otherwise, false.
+	 */
+	default boolean tryPickUp(int item)
+	{
+		if(this.isPickedUp(item))
+			return false;
+		this.setPickedUp(item, true);
+		return true;
+	}
+}